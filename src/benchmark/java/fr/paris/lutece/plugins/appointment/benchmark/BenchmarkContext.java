@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.benchmark;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Lutece context shared by the benchmarks which need the database. The context is started the same way as for the unit tests, after the creation of the
+ * embedded database on which the connection pool of the test webapp is declared (see {@link BenchmarkDatabase}).
+ * 
+ * Each JMH fork runs in its own JVM, so the context is started once per fork and never shared between two forks.
+ */
+public final class BenchmarkContext extends LuteceTestCase
+{
+    private static BenchmarkContext _context;
+    private static int _nUsers;
+
+    /**
+     * Private constructor
+     */
+    private BenchmarkContext( )
+    {
+    }
+
+    /**
+     * Start the Lutece context if it is not already started
+     */
+    public static synchronized void start( )
+    {
+        if ( _context == null )
+        {
+            BenchmarkContext context = new BenchmarkContext( );
+            try
+            {
+                if ( BenchmarkDatabase.isEnabled( ) )
+                {
+                    BenchmarkDatabase.create( );
+                }
+                context.setUp( );
+            }
+            catch( Exception e )
+            {
+                throw new IllegalStateException( "Unable to start the Lutece context of the benchmarks", e );
+            }
+            finally
+            {
+                // The connection pools are created, the webapp gets its own configuration back
+                BenchmarkDatabase.restoreConfiguration( );
+            }
+            _context = context;
+        }
+        _nUsers++;
+    }
+
+    /**
+     * Stop the Lutece context when the last benchmark using it is over
+     */
+    public static synchronized void stop( )
+    {
+        _nUsers--;
+        if ( _nUsers == 0 && _context != null )
+        {
+            try
+            {
+                _context.tearDown( );
+            }
+            catch( Exception e )
+            {
+                throw new IllegalStateException( "Unable to stop the Lutece context of the benchmarks", e );
+            }
+            finally
+            {
+                _context = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Embedded database of the benchmarks. The database is created in memory in the JVM of each JMH fork, with the schema and the initial data of the core and
+ * of the plugins of the exploded test webapp, and the connection pool of the webapp is declared on it. The benchmarks can thus run on a clean checkout,
+ * without any database server. The configuration of the connection pools of the webapp is only rewritten while the context starts: the original file is
+ * restored by {@link #restoreConfiguration()}, or at the latest when the JVM exits.
+ * 
+ * The embedded database is used unless the system property {@value #PROPERTY_DATABASE} is set to {@value #DATABASE_WEBAPP}, in which case the benchmarks
+ * use the database configured in the webapp, as the unit tests do.
+ */
+final class BenchmarkDatabase
+{
+    static final String PROPERTY_DATABASE = "benchmark.database";
+    static final String DATABASE_WEBAPP = "webapp";
+    private static final String PROPERTY_WEBAPP = "benchmark.webapp";
+    private static final String DEFAULT_WEBAPP = "target/lutece";
+    private static final String URL = "jdbc:hsqldb:mem:appointment;sql.syntax_mys=true";
+    private static final String USER = "SA";
+    private static final String DRIVER = "org.hsqldb.jdbc.JDBCDriver";
+    private static final String PATH_DB_PROPERTIES = "WEB-INF/conf/db.properties";
+    private static final String PATH_SQL = "WEB-INF/sql";
+    private static final String PREFIX_CREATE = "create_db_";
+    private static final String PREFIX_INIT = "init_db_";
+    private static final String EXTENSION_SQL = ".sql";
+    private static final String STATEMENT_SEPARATOR = ";";
+    // Table options of MySQL not understood by HSQLDB, even in its MySQL syntax mode
+    private static final String REGEX_TABLE_OPTIONS = "(?i)\\)\\s*(ENGINE|DEFAULT CHARSET|CHARSET|COLLATE)\\s*=?\\s*[^;]*$";
+    private static Path _dbPropertiesPath;
+    private static byte [ ] _originalDbProperties;
+
+    /**
+     * Private constructor
+     */
+    private BenchmarkDatabase( )
+    {
+    }
+
+    /**
+     * Check whether the benchmarks use the embedded database
+     * 
+     * @return true if the embedded database is used
+     */
+    static boolean isEnabled( )
+    {
+        return !DATABASE_WEBAPP.equals( System.getProperty( PROPERTY_DATABASE ) );
+    }
+
+    /**
+     * Create the embedded database and declare the connection pool of the webapp on it. Must be called before the start of the Lutece context
+     */
+    static void create( )
+    {
+        Path webappPath = Paths.get( System.getProperty( PROPERTY_WEBAPP, DEFAULT_WEBAPP ) );
+        try ( Connection connection = DriverManager.getConnection( URL, USER, "" ) )
+        {
+            for ( Path script : findScripts( webappPath.resolve( PATH_SQL ) ) )
+            {
+                executeScript( connection, script );
+            }
+            declarePool( webappPath.resolve( PATH_DB_PROPERTIES ) );
+        }
+        catch( SQLException | IOException e )
+        {
+            throw new IllegalStateException( "Unable to create the embedded database of the benchmarks", e );
+        }
+    }
+
+    /**
+     * Restore the original configuration of the connection pools of the webapp. Must be called once the Lutece context has started, the pools being
+     * created at its start. Does nothing if the configuration has not been rewritten or has already been restored
+     */
+    static synchronized void restoreConfiguration( )
+    {
+        if ( _originalDbProperties != null )
+        {
+            try
+            {
+                Files.write( _dbPropertiesPath, _originalDbProperties );
+            }
+            catch( IOException e )
+            {
+                throw new IllegalStateException( "Unable to restore the configuration " + _dbPropertiesPath, e );
+            }
+            finally
+            {
+                _originalDbProperties = null;
+            }
+        }
+    }
+
+    /**
+     * Find the SQL scripts of the webapp: the creation scripts first, then the initialization ones, each group sorted by path so that the core is created
+     * before the plugins
+     * 
+     * @param sqlPath
+     *            the folder of the SQL scripts
+     * @return the scripts to execute, in order
+     * @throws IOException
+     *             if the folder can not be read
+     */
+    private static List<Path> findScripts( Path sqlPath ) throws IOException
+    {
+        List<Path> listScript;
+        try ( Stream<Path> stream = Files.walk( sqlPath ) )
+        {
+            listScript = stream.filter( path -> path.toString( ).endsWith( EXTENSION_SQL ) ).sorted( ).collect( Collectors.toList( ) );
+        }
+        List<Path> listOrdered = new ArrayList<>( );
+        listScript.stream( ).filter( path -> path.getFileName( ).toString( ).startsWith( PREFIX_CREATE ) ).forEach( listOrdered::add );
+        listScript.stream( ).filter( path -> path.getFileName( ).toString( ).startsWith( PREFIX_INIT ) ).forEach( listOrdered::add );
+        return listOrdered;
+    }
+
+    /**
+     * Execute the statements of a SQL script
+     * 
+     * @param connection
+     *            the connection to the database
+     * @param script
+     *            the script
+     * @throws IOException
+     *             if the script can not be read
+     * @throws SQLException
+     *             if a statement fails
+     */
+    private static void executeScript( Connection connection, Path script ) throws IOException, SQLException
+    {
+        StringBuilder sbStatement = new StringBuilder( );
+        try ( Statement statement = connection.createStatement( ) )
+        {
+            for ( String strLine : Files.readAllLines( script, StandardCharsets.UTF_8 ) )
+            {
+                String strTrimmed = strLine.trim( );
+                if ( strTrimmed.isEmpty( ) || strTrimmed.startsWith( "--" ) )
+                {
+                    continue;
+                }
+                sbStatement.append( strLine ).append( '\n' );
+                if ( strTrimmed.endsWith( STATEMENT_SEPARATOR ) )
+                {
+                    String strSql = sbStatement.substring( 0, sbStatement.lastIndexOf( STATEMENT_SEPARATOR ) ).trim( );
+                    sbStatement.setLength( 0 );
+                    try
+                    {
+                        statement.execute( strSql.replaceAll( REGEX_TABLE_OPTIONS, ")" ) );
+                    }
+                    catch( SQLException e )
+                    {
+                        throw new SQLException( "Error in " + script + " on the statement " + strSql, e );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Declare the connection pool of the webapp on the embedded database. The original configuration is kept to be restored, and a shutdown hook restores
+     * it if the JVM exits before
+     * 
+     * @param dbPropertiesPath
+     *            the path of the configuration of the connection pools
+     * @throws IOException
+     *             if the configuration can not be read or written
+     */
+    private static synchronized void declarePool( Path dbPropertiesPath ) throws IOException
+    {
+        byte [ ] original = Files.readAllBytes( dbPropertiesPath );
+        Properties properties = new Properties( );
+        try ( InputStream in = new ByteArrayInputStream( original ) )
+        {
+            properties.load( in );
+        }
+        if ( _originalDbProperties == null )
+        {
+            _dbPropertiesPath = dbPropertiesPath;
+            _originalDbProperties = original;
+            Runtime.getRuntime( ).addShutdownHook( new Thread( BenchmarkDatabase::restoreConfiguration, "appointment-benchmark-restore-db-properties" ) );
+        }
+        properties.setProperty( "portal.driver", DRIVER );
+        properties.setProperty( "portal.url", URL );
+        properties.setProperty( "portal.user", USER );
+        properties.setProperty( "portal.password", "" );
+        properties.setProperty( "portal.checkvalidconnectionsql", "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS" );
+        try ( OutputStream out = Files.newOutputStream( dbPropertiesPath ) )
+        {
+            properties.store( out, "Connection pool of the benchmarks, declared on the embedded database" );
+        }
+    }
+}
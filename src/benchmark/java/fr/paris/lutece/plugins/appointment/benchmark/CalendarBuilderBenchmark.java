@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.benchmark;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.paris.lutece.plugins.appointment.business.SlotTest;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.service.CalendarBuilder;
+import fr.paris.lutece.plugins.appointment.service.FormService;
+import fr.paris.lutece.plugins.appointment.service.FormServiceTest;
+import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
+import fr.paris.lutece.plugins.appointment.service.SlotService;
+import fr.paris.lutece.plugins.appointment.service.WeekDefinitionService;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+
+/**
+ * Benchmark of the build of the calendar of a form, with the single slot variant used by the back office and the variant used by the front office for
+ * appointments taking several places (and so possibly several consecutive slots)
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class CalendarBuilderBenchmark
+{
+    /**
+     * Number of weeks of the calendar
+     */
+    @Param( {
+            "1", "4", "12"
+    } )
+    public int _nNbWeeks;
+
+    private int _nIdForm = -1;
+    private Map<WeekDefinition, ReservationRule> _mapReservationRule;
+    private LocalDate _startingDate;
+    private LocalDate _endingDate;
+
+    /**
+     * Create the form, with a specific slot each day so that the calendar merges the slots of the database with the slots built from the rules
+     */
+    @Setup
+    public void setUp( )
+    {
+        BenchmarkContext.start( );
+
+        _startingDate = LocalDate.now( ).with( TemporalAdjusters.next( DayOfWeek.MONDAY ) );
+        _endingDate = _startingDate.plusWeeks( _nNbWeeks ).minusDays( 1 );
+
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        appointmentForm.setName( "benchmark_form" );
+        appointmentForm.setDateStartValidity( Date.valueOf( _startingDate ) );
+        appointmentForm.setDateEndValidity( Date.valueOf( _endingDate ) );
+        appointmentForm.setMaxPeoplePerAppointment( 2 );
+        _nIdForm = FormService.createAppointmentForm( appointmentForm );
+
+        for ( LocalDate date = _startingDate; !date.isAfter( _endingDate ); date = date.plusDays( 1 ) )
+        {
+            if ( date.getDayOfWeek( ) != DayOfWeek.SATURDAY && date.getDayOfWeek( ) != DayOfWeek.SUNDAY )
+            {
+                Slot slot = SlotTest.buildSlot( _nIdForm, date.atTime( 10, 0 ), date.atTime( 10, 30 ), 1, 1, 2, 3, Boolean.TRUE, Boolean.FALSE );
+                SlotService.saveSlot( slot );
+            }
+        }
+
+        List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( _nIdForm );
+        _mapReservationRule = ReservationRuleService.findAllReservationRule( _nIdForm, listWeekDefinition );
+    }
+
+    /**
+     * Remove the form
+     */
+    @TearDown
+    public void tearDown( )
+    {
+        FormServiceTest.cleanForm( _nIdForm );
+        BenchmarkContext.stop( );
+    }
+
+    /**
+     * Build the calendar with one slot per time slot
+     * 
+     * @return the list of slots
+     */
+    @Benchmark
+    public List<Slot> buildListSlot( )
+    {
+        return CalendarBuilder.buildListSlot( _nIdForm, _mapReservationRule, _startingDate, _endingDate );
+    }
+
+    /**
+     * Build the calendar for an appointment taking the given number of places
+     * 
+     * @param places
+     *            the number of places of the appointment
+     * @return the list of slots
+     */
+    @Benchmark
+    public List<Slot> buildListSlotWithNbPlaces( Places places )
+    {
+        return CalendarBuilder.buildListSlot( _nIdForm, _mapReservationRule, _startingDate, _endingDate, places._nNbPlaces, false );
+    }
+
+    /**
+     * Number of places taken by the appointment, only used by the front office variant
+     */
+    @State( Scope.Benchmark )
+    public static class Places
+    {
+        @Param( {
+                "1", "2"
+        } )
+        public int _nNbPlaces;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
+import fr.paris.lutece.plugins.appointment.service.TimeSlotService;
+import fr.paris.lutece.plugins.appointment.service.Utilities;
+import fr.paris.lutece.plugins.appointment.service.WorkingDayService;
+
+/**
+ * Benchmark of the in-memory lookups done for each day and each slot when a calendar is built: the week definition applied on a date, the working day of a
+ * day of week and the time slots of a working day. These lookups do not need the database.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PlanningLookupBenchmark
+{
+    private static final LocalTime STARTING_TIME = LocalTime.of( 9, 0 );
+    private static final LocalTime ENDING_TIME = LocalTime.of( 18, 0 );
+
+    /**
+     * Number of week definitions of the form
+     */
+    @Param( {
+            "4", "52", "520"
+    } )
+    public int _nNbWeekDefinitions;
+
+    /**
+     * Duration of the time slots, in minutes
+     */
+    @Param( {
+            "10", "30"
+    } )
+    public int _nDuration;
+
+    private List<WeekDefinition> _listWeekDefinition;
+    private List<WorkingDay> _listWorkingDay;
+    private List<TimeSlot> _listTimeSlot;
+    private LocalDate [ ] _tabDateToSearch;
+    private LocalTime [ ] _tabTimeToSearch;
+    private int _nIndex;
+
+    /**
+     * Build the week definitions, the working days and the time slots
+     */
+    @Setup
+    public void setUp( )
+    {
+        LocalDate firstMonday = LocalDate.now( ).with( TemporalAdjusters.previousOrSame( DayOfWeek.MONDAY ) );
+        _listWeekDefinition = new ArrayList<>( _nNbWeekDefinitions );
+        for ( int i = 0; i < _nNbWeekDefinitions; i++ )
+        {
+            WeekDefinition weekDefinition = new WeekDefinition( );
+            weekDefinition.setIdWeekDefinition( i + 1 );
+            weekDefinition.setIdReservationRule( i + 1 );
+            weekDefinition.setDateOfApply( firstMonday.plusWeeks( i ) );
+            weekDefinition.setEndingDateOfApply( firstMonday.plusWeeks( i ).plusDays( 6 ) );
+            _listWeekDefinition.add( weekDefinition );
+        }
+
+        _listTimeSlot = new ArrayList<>( );
+        LocalTime timeTemp = STARTING_TIME;
+        while ( timeTemp.isBefore( ENDING_TIME ) )
+        {
+            TimeSlot timeSlot = new TimeSlot( );
+            timeSlot.setStartingTime( timeTemp );
+            timeSlot.setEndingTime( timeTemp.plusMinutes( _nDuration ) );
+            timeSlot.setIsOpen( true );
+            timeSlot.setMaxCapacity( 1 );
+            _listTimeSlot.add( timeSlot );
+            timeTemp = timeTemp.plusMinutes( _nDuration );
+        }
+
+        _listWorkingDay = new ArrayList<>( );
+        for ( DayOfWeek dayOfWeek : DayOfWeek.values( ) )
+        {
+            if ( dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY )
+            {
+                WorkingDay workingDay = new WorkingDay( );
+                workingDay.setIdWorkingDay( dayOfWeek.getValue( ) );
+                workingDay.setDayOfWeek( dayOfWeek.getValue( ) );
+                workingDay.setListTimeSlot( _listTimeSlot );
+                _listWorkingDay.add( workingDay );
+            }
+        }
+
+        // The searched values are spread over the whole period, so the lookups do not always stop on the first elements
+        _tabDateToSearch = new LocalDate [ 64];
+        _tabTimeToSearch = new LocalTime [ 64];
+        long lNbDays = _nNbWeekDefinitions * 7L;
+        for ( int i = 0; i < _tabDateToSearch.length; i++ )
+        {
+            _tabDateToSearch [i] = firstMonday.plusDays( ( i * 37L ) % lNbDays );
+            _tabTimeToSearch [i] = _listTimeSlot.get( ( i * 7 ) % _listTimeSlot.size( ) ).getStartingTime( );
+        }
+    }
+
+    /**
+     * Find the week definition applied on a date
+     * 
+     * @return the week definition found
+     */
+    @Benchmark
+    public WeekDefinition getClosestWeekDefinitionInPast( )
+    {
+        return Utilities.getClosestWeekDefinitionInPast( _listWeekDefinition, _tabDateToSearch [nextIndex( )] );
+    }
+
+    /**
+     * Find the working day of a date
+     * 
+     * @return the working day found
+     */
+    @Benchmark
+    public WorkingDay getWorkingDayOfDayOfWeek( )
+    {
+        return WorkingDayService.getWorkingDayOfDayOfWeek( _listWorkingDay, _tabDateToSearch [nextIndex( )].getDayOfWeek( ) );
+    }
+
+    /**
+     * Find the time slot starting at a given time
+     * 
+     * @return the time slot found
+     */
+    @Benchmark
+    public TimeSlot getTimeSlotInListOfTimeSlotWithStartingTime( )
+    {
+        return TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( _listTimeSlot, _tabTimeToSearch [nextIndex( )] );
+    }
+
+    /**
+     * Find the time slots starting after a given time
+     * 
+     * @return the time slots found
+     */
+    @Benchmark
+    public List<TimeSlot> getNextTimeSlotsInAListOfTimeSlotAfterALocalTime( )
+    {
+        return TimeSlotService.getNextTimeSlotsInAListOfTimeSlotAfterALocalTime( _listTimeSlot, _tabTimeToSearch [nextIndex( )] );
+    }
+
+    /**
+     * Get the index of the next value to search
+     * 
+     * @return the index
+     */
+    private int nextIndex( )
+    {
+        _nIndex = ( _nIndex + 1 ) & 63;
+        return _nIndex;
+    }
+}
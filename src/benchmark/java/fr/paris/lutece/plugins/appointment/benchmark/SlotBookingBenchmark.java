@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.benchmark;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.paris.lutece.plugins.appointment.business.AppointmentTest;
+import fr.paris.lutece.plugins.appointment.business.SlotTest;
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.user.UserHome;
+import fr.paris.lutece.plugins.appointment.service.AppointmentService;
+import fr.paris.lutece.plugins.appointment.service.FormService;
+import fr.paris.lutece.plugins.appointment.service.FormServiceTest;
+import fr.paris.lutece.plugins.appointment.service.SlotService;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+
+/**
+ * Benchmark of the booking of appointments by concurrent users, through SlotSafeService. All the threads book either the same slot, which measures the
+ * contention on the lock and on the row of the slot, or slots spread over the threads. The slots have a capacity large enough to never be full during the
+ * run. The number of threads can be changed with the -t option of JMH.
+ */
+@BenchmarkMode( {
+        Mode.Throughput, Mode.SampleTime
+} )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@Threads( 4 )
+@State( Scope.Benchmark )
+public class SlotBookingBenchmark
+{
+    private static final int MAX_CAPACITY = 10_000_000;
+
+    /**
+     * Number of slots shared by the threads, 1 for all the threads on the same slot
+     */
+    @Param( {
+            "1", "4"
+    } )
+    public int _nNbSlots;
+
+    private int _nIdForm = -1;
+    private final List<Slot> _listSlot = new ArrayList<>( );
+    private final AtomicInteger _nNbThreads = new AtomicInteger( );
+    private final AtomicInteger _nNbAppointments = new AtomicInteger( );
+
+    /**
+     * Create the form and its slots
+     */
+    @Setup
+    public void setUp( )
+    {
+        BenchmarkContext.start( );
+
+        LocalDate nextMonday = LocalDate.now( ).with( TemporalAdjusters.next( DayOfWeek.MONDAY ) );
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        appointmentForm.setName( "benchmark_form" );
+        appointmentForm.setDateStartValidity( Date.valueOf( nextMonday ) );
+        appointmentForm.setDateEndValidity( Date.valueOf( nextMonday.plusDays( 4 ) ) );
+        _nIdForm = FormService.createAppointmentForm( appointmentForm );
+
+        for ( int i = 0; i < _nNbSlots; i++ )
+        {
+            LocalDateTime startingDateTime = nextMonday.atTime( 9, 0 ).plusMinutes( 30L * i );
+            Slot slot = SlotTest.buildSlot( _nIdForm, startingDateTime, startingDateTime.plusMinutes( 30 ), MAX_CAPACITY, MAX_CAPACITY, 0, MAX_CAPACITY,
+                    Boolean.TRUE, Boolean.TRUE );
+            _listSlot.add( SlotService.saveSlot( slot ) );
+        }
+    }
+
+    /**
+     * Remove the appointments, their users and the form
+     */
+    @TearDown
+    public void tearDown( )
+    {
+        Set<Integer> setIdUser = new HashSet<>( );
+        for ( Appointment appointment : AppointmentHome.findByIdForm( _nIdForm ) )
+        {
+            setIdUser.add( appointment.getIdUser( ) );
+            AppointmentHome.delete( appointment.getIdAppointment( ) );
+        }
+        for ( Integer nIdUser : setIdUser )
+        {
+            UserHome.delete( nIdUser );
+        }
+        FormServiceTest.cleanForm( _nIdForm );
+        BenchmarkContext.stop( );
+    }
+
+    /**
+     * Book one place on the slot of the thread
+     * 
+     * @param user
+     *            the state of the thread
+     * @return the id of the appointment
+     */
+    @Benchmark
+    public int saveAppointment( BookingUser user )
+    {
+        Slot slot = _listSlot.get( user._nIndexThread % _listSlot.size( ) );
+        int nNumber = _nNbAppointments.incrementAndGet( );
+        AppointmentDTO appointmentDTO = AppointmentTest.buildAppointmentDTO( _nIdForm, slot, "benchmark" + nNumber + "@lutece.fr", "Jean", "Dupont",
+                slot.getStartingTime( ), slot.getEndingTime( ), 1 );
+
+        return AppointmentService.saveAppointment( appointmentDTO );
+    }
+
+    /**
+     * State of a booking thread
+     */
+    @State( Scope.Thread )
+    public static class BookingUser
+    {
+        private int _nIndexThread;
+
+        /**
+         * Give an index to the thread
+         * 
+         * @param benchmark
+         *            the shared state of the benchmark
+         */
+        @Setup
+        public void setUp( SlotBookingBenchmark benchmark )
+        {
+            _nIndexThread = benchmark._nNbThreads.getAndIncrement( );
+        }
+    }
+}
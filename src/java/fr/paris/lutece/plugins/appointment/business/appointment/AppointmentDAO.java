@@ -34,7 +34,6 @@
 package fr.paris.lutece.plugins.appointment.business.appointment;
 
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
-import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
 import fr.paris.lutece.plugins.appointment.business.user.User;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.portal.service.plugin.Plugin;
@@ -42,11 +41,13 @@ import fr.paris.lutece.util.sql.DAOUtil;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.Serializable;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -89,9 +90,32 @@ public final class AppointmentDAO implements IAppointmentDAO
             + " INNER JOIN appointment_appointment_slot app_slot ON app.id_appointment = app_slot.id_appointment"
             + " INNER JOIN appointment_slot slot ON app_slot.id_slot = slot.id_slot WHERE id_form != 0";
 
+    private static final String SQL_QUERY_SELECT_DISTINCT_IDS_BY_FILTER = "SELECT DISTINCT "
+            + " app.id_appointment"
+            + " FROM appointment_appointment app " + "INNER JOIN appointment_user user ON app.id_user = user.id_user "
+            + " INNER JOIN appointment_appointment_slot app_slot ON app.id_appointment = app_slot.id_appointment"
+            + " INNER JOIN appointment_slot slot ON app_slot.id_slot = slot.id_slot WHERE id_form != 0";
+    private static final String SQL_QUERY_SELECT_SORT_KEYS_BY_FILTER = "SELECT app.id_appointment, ";
+    private static final String SQL_QUERY_FROM_BY_FILTER = " FROM appointment_appointment app INNER JOIN appointment_user user ON app.id_user = user.id_user "
+            + " INNER JOIN appointment_appointment_slot app_slot ON app.id_appointment = app_slot.id_appointment"
+            + " INNER JOIN appointment_slot slot ON app_slot.id_slot = slot.id_slot WHERE id_form != 0";
+    private static final String SQL_QUERY_COUNT_BY_FILTER_START = "SELECT COUNT(*) FROM ( ";
+    private static final String SQL_QUERY_COUNT_BY_FILTER_END = " ) appointment_ids";
+    private static final String SQL_GROUP_BY_ID_APPOINTMENT = " GROUP BY app.id_appointment";
+    private static final String SQL_LIMIT = " LIMIT ?";
+    private static final String SQL_LIMIT_OFFSET = " LIMIT ? OFFSET ?";
+
     private static final String SQL_QUERY_INSERT_APPT_SLT = "INSERT INTO appointment_appointment_slot (id_appointment, id_slot, nb_places) VALUES ( ?, ?, ?)";
     private static final String SQL_QUERY_DELETE_APPT_SLT = "DELETE FROM appointment_appointment_slot WHERE id_appointment = ?";
     private static final String SQL_QUERY_SELECT_APPT_SLT = "SELECT id_appointment, id_slot, nb_places FROM appointment_appointment_slot where id_appointment = ?";
+    private static final String SQL_QUERY_SELECT_APPT_SLT_BY_LIST_ID_APPOINTMENT = "SELECT id_appointment, id_slot, nb_places FROM appointment_appointment_slot WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_DELETE_APPT_SLT_BY_LIST_ID_APPOINTMENT = "DELETE FROM appointment_appointment_slot WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_SELECT_BY_LIST_ID_APPOINTMENT = SQL_QUERY_SELECT_COLUMNS
+            + "FROM appointment_appointment appointment WHERE appointment.id_appointment IN ( ";
+    private static final String SQL_QUERY_DELETE_BY_LIST_ID_APPOINTMENT = "DELETE FROM appointment_appointment WHERE id_appointment IN ( ";
+    private static final String SQL_END_IN_ORDER_BY_ID_APPOINTMENT = " ) ORDER BY id_appointment";
+    private static final String SQL_END_IN_FILTER_ID_FORM_ORDER_BY_ID_APPOINTMENT = " ) AND EXISTS ( SELECT 1 FROM appointment_appointment_slot appt_slot INNER JOIN appointment_slot slot ON slot.id_slot = appt_slot.id_slot"
+            + " WHERE appt_slot.id_appointment = appointment.id_appointment AND slot.id_form = ? ) ORDER BY id_appointment";
 
     private static final String SQL_QUERY_SELECT_BY_LIST_ID_SLOT = SQL_QUERY_SELECT_COLUMNS
             + ",appt_slot.nb_places FROM appointment_appointment appointment INNER JOIN appointment_appointment_slot appt_slot on ( appt_slot.id_appointment = appointment.id_appointment ) where appt_slot.id_slot IN(";
@@ -104,7 +128,21 @@ public final class AppointmentDAO implements IAppointmentDAO
             + "JOIN appointment_form form ON form.id_form = slot.id_form "
             + "JOIN appointment_category cat on cat.id_category = form.id_category and cat.id_category = ? ";
 
+    private static final String SQL_QUERY_SELECT_WITH_SLOTS_BY_EMAIL = "SELECT app.id_appointment, app.reference, app.nb_places, app.is_cancelled, app.id_action_cancelled, app.id_action_reported, app.notification, app.id_admin_user, app.admin_access_code_create, app.id_user, app.date_appointment_create, "
+            + "user.id_user, user.guid, user.first_name, user.last_name, user.email, user.phone_number, "
+            + "slot.id_slot, slot.starting_date_time, slot.ending_date_time, slot.is_open, slot.is_specific, slot.max_capacity, slot.nb_remaining_places, slot.nb_potential_remaining_places, slot.nb_places_taken, slot.id_form "
+            + "FROM appointment_user user JOIN appointment_appointment app ON app.id_user = user.id_user "
+            + "JOIN appointment_appointment_slot appSlot ON appSlot.id_appointment = app.id_appointment JOIN appointment_slot slot ON slot.id_slot = appSlot.id_slot "
+            + "WHERE user.email = ? ORDER BY app.id_appointment, slot.starting_date_time";
+    private static final String SQL_QUERY_SELECT_WITH_SLOTS_BY_GUID_USER = "SELECT app.id_appointment, app.reference, app.nb_places, app.is_cancelled, app.id_action_cancelled, app.id_action_reported, app.notification, app.id_admin_user, app.admin_access_code_create, app.id_user, app.date_appointment_create, "
+            + "user.id_user, user.guid, user.first_name, user.last_name, user.email, user.phone_number, "
+            + "slot.id_slot, slot.starting_date_time, slot.ending_date_time, slot.is_open, slot.is_specific, slot.max_capacity, slot.nb_remaining_places, slot.nb_potential_remaining_places, slot.nb_places_taken, slot.id_form, appSlot.nb_places "
+            + "FROM appointment_user user JOIN appointment_appointment app ON app.id_user = user.id_user "
+            + "JOIN appointment_appointment_slot appSlot ON appSlot.id_appointment = app.id_appointment JOIN appointment_slot slot ON slot.id_slot = appSlot.id_slot "
+            + "WHERE user.guid = ? ORDER BY app.id_appointment, slot.starting_date_time";
+
     private static final String SQL_QUERY_SELECT_ID = "SELECT id_appointment FROM appointment_appointment ";
+    private static final String SQL_ORDER_BY_ID_APPOINTMENT = " ORDER BY app.id_appointment, slot.starting_date_time";
     private static final String SQL_FILTER_FIRST_NAME = "UPPER(user.first_name) LIKE ?";
     private static final String SQL_FILTER_LAST_NAME = "UPPER(user.last_name) LIKE ?";
     private static final String SQL_FILTER_EMAIL = "UPPER(user.email) LIKE ?";
@@ -125,12 +163,26 @@ public final class AppointmentDAO implements IAppointmentDAO
     private static final String SQL_SORT_SLOT_STARTING_DATE_TIME = "slot.starting_date_time";
     private static final String SQL_SORT_APP_ID_ADMIN_USER = "app.id_admin_user";
     private static final String SQL_SORT_APP_IS_CANCELLED = "app.is_cancelled";
+    private static final String SQL_SORT_KEY_USER_LAST_NAME = "COALESCE(user.last_name, '')";
+    private static final String SQL_SORT_KEY_USER_FIRST_NAME = "COALESCE(user.first_name, '')";
+    private static final String SQL_SORT_KEY_USER_EMAIL = "COALESCE(user.email, '')";
+    private static final String SQL_SORT_KEY_USER_PHONE_NUMBER = "COALESCE(user.phone_number, '')";
+    private static final String SQL_SORT_KEY_SLOT_STARTING_DATE_TIME = "MIN(slot.starting_date_time)";
+    private static final String SQL_SORT_ID_APPOINTMENT = "app.id_appointment";
     private static final String SQL_SORT_ASC = " ASC ";
     private static final String SQL_SORT_DESC = " DESC ";
 
     private static final String CONSTANT_AND = " AND ";
     private static final String CONSTANT_PERCENT = "%";
     private static final String CONSTANT_ORDER_BY = " ORDER BY ";
+    private static final String CONSTANT_COMMA = ", ";
+    private static final String CONSTANT_HAVING = " HAVING ";
+    private static final String CONSTANT_OR = " OR ";
+    private static final String CONSTANT_GREATER = " > ? ";
+    private static final String CONSTANT_LESS = " < ? ";
+    private static final String CONSTANT_EQUAL = " = ? ";
+    private static final String CONSTANT_OPEN_PARENTHESIS = " ( ";
+    private static final String CONSTANT_CLOSE_PARENTHESIS = " ) ";
 
     private static final String LAST_NAME = "last_name";
     private static final String FIRST_NAME = "first_name";
@@ -351,6 +403,99 @@ public final class AppointmentDAO implements IAppointmentDAO
         return list;
     }
 
+    @Override
+    public List<Appointment> findByListIdAppointment( List<Integer> listIdAppointment, int nIdForm, Plugin plugin )
+    {
+        List<Appointment> listAppointment = new ArrayList<>( );
+        if ( CollectionUtils.isEmpty( listIdAppointment ) )
+        {
+            return listAppointment;
+        }
+        Map<Integer, Appointment> mapAppointment = new HashMap<>( );
+        try ( DAOUtil daoUtil = new DAOUtil(
+                SQL_QUERY_SELECT_BY_LIST_ID_APPOINTMENT + buildInClause( listIdAppointment ) + SQL_END_IN_FILTER_ID_FORM_ORDER_BY_ID_APPOINTMENT, plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.setInt( listIdAppointment.size( ) + 1, nIdForm );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                Appointment appointment = buildAppointment( daoUtil );
+                appointment.setListAppointmentSlot( new ArrayList<>( ) );
+                mapAppointment.put( appointment.getIdAppointment( ), appointment );
+                listAppointment.add( appointment );
+            }
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_APPT_SLT_BY_LIST_ID_APPOINTMENT + buildInClause( listIdAppointment ) + SQL_END_IN_ORDER_BY_ID_APPOINTMENT,
+                plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                int nIndex = 1;
+                AppointmentSlot appointmentSlot = new AppointmentSlot( );
+                appointmentSlot.setIdAppointment( daoUtil.getInt( nIndex++ ) );
+                appointmentSlot.setIdSlot( daoUtil.getInt( nIndex++ ) );
+                appointmentSlot.setNbPlaces( daoUtil.getInt( nIndex ) );
+                Appointment appointment = mapAppointment.get( appointmentSlot.getIdAppointment( ) );
+                if ( appointment != null )
+                {
+                    appointment.getListAppointmentSlot( ).add( appointmentSlot );
+                }
+            }
+        }
+        return listAppointment;
+    }
+
+    @Override
+    public void deleteByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        if ( CollectionUtils.isEmpty( listIdAppointment ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_APPT_SLT_BY_LIST_ID_APPOINTMENT + buildInClause( listIdAppointment ) + " )", plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.executeUpdate( );
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_LIST_ID_APPOINTMENT + buildInClause( listIdAppointment ) + " )", plugin ) )
+        {
+            setListId( daoUtil, listIdAppointment );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * Build the placeholders of an IN clause
+     * 
+     * @param listId
+     *            the list of the ids
+     * @return the placeholders, separated by commas
+     */
+    private static String buildInClause( List<Integer> listId )
+    {
+        return listId.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) );
+    }
+
+    /**
+     * Set the ids of an IN clause, from the first parameter
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param listId
+     *            the list of the ids
+     */
+    private static void setListId( DAOUtil daoUtil, List<Integer> listId )
+    {
+        int nIndex = 1;
+        for ( Integer nId : listId )
+        {
+            daoUtil.setInt( nIndex++, nId );
+        }
+    }
+
     @Override
     public Appointment findByReference( String strReference, Plugin plugin )
     {
@@ -371,48 +516,12 @@ public final class AppointmentDAO implements IAppointmentDAO
     @Override
     public List<Appointment> findByFilter( AppointmentFilterDTO appointmentFilter, Plugin plugin )
     {
-        Map<Integer, Appointment> mapAppointment = new HashMap<>( );
-        boolean isFirst = true;
-        try ( DAOUtil daoUtil = new DAOUtil( getSqlQueryFromFilter( appointmentFilter, SQL_QUERY_SELECT_BY_FILTER ), plugin ) )
+        try ( DAOUtil daoUtil = new DAOUtil( getSqlQueryFromFilter( appointmentFilter, SQL_QUERY_SELECT_BY_FILTER ) + SQL_ORDER_BY_ID_APPOINTMENT, plugin ) )
         {
             addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
             daoUtil.executeQuery( );
-
-            while ( daoUtil.next( ) )
-            {
-                Appointment appt = buildAppointment( daoUtil );
-
-                Slot slot = builSlot( daoUtil, 18 );
-                User user = buildUser( daoUtil, 12 );
-
-                if ( isFirst || daoUtil.isLast( ) )
-                {
-
-                    appt.setSlot( SlotHome.findByIdAppointment( appt.getIdAppointment( ) ) );
-
-                }
-                else
-                {
-
-                    appt.addSlot( slot );
-                }
-                appt.setUser( user );
-
-                Appointment apptAdded = mapAppointment.get( appt.getIdAppointment( ) );
-                if ( apptAdded == null )
-                {
-                    mapAppointment.put( appt.getIdAppointment( ), appt );
-                }
-                else
-                {
-                    apptAdded.addSlot( slot );
-                }
-
-                isFirst = false;
-            }
-
+            return buildListAppointmentWithUserAndSlots( daoUtil );
         }
-        return new ArrayList<>( mapAppointment.values( ) );
     }
 
     @Override
@@ -439,51 +548,175 @@ public final class AppointmentDAO implements IAppointmentDAO
     }
 
     @Override
-    public List<Appointment> findByCategoryAndMail( int nIdCategory, String mail, Plugin plugin )
+    public List<AppointmentSortKey> findSortKeysByFilter( AppointmentFilterDTO appointmentFilter, AppointmentSortKey keyFrom, boolean bBackward, int nPageSize,
+            Plugin plugin )
     {
-        Map<Integer, Appointment> mapAppointment = new HashMap<>( );
-        boolean isFirst = true;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_EMAIL_AND_CATEGORY, plugin ) )
+        // Going backward, the list is read in the reverse order from the key and reversed afterwards
+        boolean bAsc = appointmentFilter.isOrderAsc( ) != bBackward;
+        String strSortExpression = getSortKeyExpression( appointmentFilter );
+        StringBuilder sbSql = new StringBuilder( getSortKeysQuery( appointmentFilter, strSortExpression ) );
+        if ( keyFrom != null )
         {
-            daoUtil.setString( 1, mail );
-            daoUtil.setInt( 2, nIdCategory );
-            daoUtil.executeQuery( );
+            String strOperator = bAsc ? CONSTANT_GREATER : CONSTANT_LESS;
+            sbSql.append( CONSTANT_HAVING ).append( CONSTANT_OPEN_PARENTHESIS ).append( strSortExpression ).append( strOperator ).append( CONSTANT_OR );
+            sbSql.append( CONSTANT_OPEN_PARENTHESIS ).append( strSortExpression ).append( CONSTANT_EQUAL ).append( CONSTANT_AND );
+            sbSql.append( SQL_SORT_ID_APPOINTMENT ).append( strOperator ).append( CONSTANT_CLOSE_PARENTHESIS ).append( CONSTANT_CLOSE_PARENTHESIS );
+        }
+        appendSortKeysOrder( sbSql, strSortExpression, bAsc );
+        sbSql.append( SQL_LIMIT );
 
+        List<AppointmentSortKey> listSortKey = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( sbSql.toString( ), plugin ) )
+        {
+            int nIndex = addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
+            if ( keyFrom != null )
+            {
+                setSortValue( daoUtil, ++nIndex, keyFrom.getSortValue( ) );
+                setSortValue( daoUtil, ++nIndex, keyFrom.getSortValue( ) );
+                daoUtil.setInt( ++nIndex, keyFrom.getIdAppointment( ) );
+            }
+            daoUtil.setInt( ++nIndex, nPageSize );
+            daoUtil.executeQuery( );
             while ( daoUtil.next( ) )
             {
-                Appointment appt = buildAppointment( daoUtil );
+                listSortKey.add( buildSortKey( appointmentFilter, daoUtil ) );
+            }
+        }
+        if ( bBackward )
+        {
+            Collections.reverse( listSortKey );
+        }
+        return listSortKey;
+    }
 
-                Slot slot = builSlot( daoUtil, 18 );
-                User user = buildUser( daoUtil, 12 );
+    @Override
+    public List<AppointmentSortKey> findSortKeysByFilterAtOffset( AppointmentFilterDTO appointmentFilter, int nOffset, int nPageSize, Plugin plugin )
+    {
+        String strSortExpression = getSortKeyExpression( appointmentFilter );
+        StringBuilder sbSql = new StringBuilder( getSortKeysQuery( appointmentFilter, strSortExpression ) );
+        appendSortKeysOrder( sbSql, strSortExpression, appointmentFilter.isOrderAsc( ) );
+        sbSql.append( SQL_LIMIT_OFFSET );
 
-                if ( isFirst || daoUtil.isLast( ) )
-                {
+        List<AppointmentSortKey> listSortKey = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( sbSql.toString( ), plugin ) )
+        {
+            int nIndex = addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
+            daoUtil.setInt( ++nIndex, nPageSize );
+            daoUtil.setInt( ++nIndex, nOffset );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listSortKey.add( buildSortKey( appointmentFilter, daoUtil ) );
+            }
+        }
+        return listSortKey;
+    }
 
-                    appt.setSlot( SlotHome.findByIdAppointment( appt.getIdAppointment( ) ) );
+    @Override
+    public int countByFilter( AppointmentFilterDTO appointmentFilter, int nMaxCount, Plugin plugin )
+    {
+        StringBuilder sbSql = new StringBuilder( SQL_QUERY_COUNT_BY_FILTER_START );
+        sbSql.append( getSqlQueryFromFilter( appointmentFilter, SQL_QUERY_SELECT_DISTINCT_IDS_BY_FILTER ) );
+        if ( nMaxCount > 0 )
+        {
+            sbSql.append( SQL_LIMIT );
+        }
+        sbSql.append( SQL_QUERY_COUNT_BY_FILTER_END );
+        int nCount = 0;
+        try ( DAOUtil daoUtil = new DAOUtil( sbSql.toString( ), plugin ) )
+        {
+            int nIndex = addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
+            if ( nMaxCount > 0 )
+            {
+                daoUtil.setInt( ++nIndex, nMaxCount );
+            }
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+        return nCount;
+    }
 
-                }
-                else
-                {
+    @Override
+    public List<Appointment> findByCategoryAndMail( int nIdCategory, String mail, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_EMAIL_AND_CATEGORY + SQL_ORDER_BY_ID_APPOINTMENT, plugin ) )
+        {
+            daoUtil.setString( 1, mail );
+            daoUtil.setInt( 2, nIdCategory );
+            daoUtil.executeQuery( );
+            return buildListAppointmentWithUserAndSlots( daoUtil );
+        }
+    }
 
-                    appt.addSlot( slot );
-                }
-                appt.setUser( user );
+    @Override
+    public List<Appointment> findByEmailWithSlots( String strEmail, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_WITH_SLOTS_BY_EMAIL, plugin ) )
+        {
+            daoUtil.setString( 1, strEmail );
+            daoUtil.executeQuery( );
+            return buildListAppointmentWithUserAndSlots( daoUtil );
+        }
+    }
 
-                Appointment apptAdded = mapAppointment.get( appt.getIdAppointment( ) );
-                if ( apptAdded == null )
-                {
-                    mapAppointment.put( appt.getIdAppointment( ), appt );
-                }
-                else
+    @Override
+    public List<Appointment> findByGuidUserWithSlots( String strGuidUser, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_WITH_SLOTS_BY_GUID_USER, plugin ) )
+        {
+            daoUtil.setString( 1, strGuidUser );
+            daoUtil.executeQuery( );
+            List<Appointment> listAppointment = new ArrayList<>( );
+            Appointment appointment = null;
+            while ( daoUtil.next( ) )
+            {
+                int nIdAppointment = daoUtil.getInt( 1 );
+                if ( appointment == null || appointment.getIdAppointment( ) != nIdAppointment )
                 {
-                    apptAdded.addSlot( slot );
+                    appointment = buildAppointment( daoUtil );
+                    appointment.setUser( buildUser( daoUtil, 12 ) );
+                    appointment.setListAppointmentSlot( new ArrayList<>( ) );
+                    listAppointment.add( appointment );
                 }
-
-                isFirst = false;
+                Slot slot = builSlot( daoUtil, 18 );
+                appointment.addSlot( slot );
+                AppointmentSlot appointmentSlot = new AppointmentSlot( );
+                appointmentSlot.setIdAppointment( nIdAppointment );
+                appointmentSlot.setIdSlot( slot.getIdSlot( ) );
+                appointmentSlot.setNbPlaces( daoUtil.getInt( 28 ) );
+                appointment.getListAppointmentSlot( ).add( appointmentSlot );
             }
+            return listAppointment;
+        }
+    }
 
+    /**
+     * Build the appointments of a resultset made of one row per slot of an appointment, with the columns of the appointment, of its user and of the slot.
+     * The rows must be ordered by appointment: they are read in a single forward pass
+     *
+     * @param daoUtil
+     *            the prepare statement util object, with the query executed
+     * @return the list of appointments with their user and their slots, in the order of the resultset
+     */
+    private List<Appointment> buildListAppointmentWithUserAndSlots( DAOUtil daoUtil )
+    {
+        List<Appointment> listAppointment = new ArrayList<>( );
+        Appointment appointment = null;
+        while ( daoUtil.next( ) )
+        {
+            int nIdAppointment = daoUtil.getInt( 1 );
+            if ( appointment == null || appointment.getIdAppointment( ) != nIdAppointment )
+            {
+                appointment = buildAppointment( daoUtil );
+                appointment.setUser( buildUser( daoUtil, 12 ) );
+                listAppointment.add( appointment );
+            }
+            appointment.addSlot( builSlot( daoUtil, 18 ) );
         }
-        return new ArrayList<>( mapAppointment.values( ) );
+        return listAppointment;
     }
 
     /**
@@ -493,8 +726,9 @@ public final class AppointmentDAO implements IAppointmentDAO
      *            the filter
      * @param daoUtil
      *            the daoutil
+     * @return the index of the last parameter set
      */
-    private void addFilterParametersToDAOUtil( AppointmentFilterDTO appointmentFilter, DAOUtil daoUtil )
+    private int addFilterParametersToDAOUtil( AppointmentFilterDTO appointmentFilter, DAOUtil daoUtil )
     {
         int nIndex = 0;
         if ( appointmentFilter.getIdForm( ) != 0 )
@@ -558,6 +792,7 @@ public final class AppointmentDAO implements IAppointmentDAO
         {
             daoUtil.setInt( ++nIndex, id );
         }
+        return nIndex;
     }
 
     /**
@@ -679,6 +914,145 @@ public final class AppointmentDAO implements IAppointmentDAO
         return sbSql.toString( );
     }
 
+    /**
+     * Get the sql expression of the sort key of an appointment for the order of the filter. The appointments are grouped by id, so the starting date of an
+     * appointment on several slots is the one of its first slot
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @return the sql expression
+     */
+    private String getSortKeyExpression( AppointmentFilterDTO appointmentFilter )
+    {
+        if ( appointmentFilter.getOrderBy( ) == null )
+        {
+            appointmentFilter.setOrderBy( DATE_APPOINTMENT );
+        }
+
+        switch( appointmentFilter.getOrderBy( ) )
+        {
+            case LAST_NAME:
+                return SQL_SORT_KEY_USER_LAST_NAME;
+            case FIRST_NAME:
+                return SQL_SORT_KEY_USER_FIRST_NAME;
+            case EMAIL:
+                return SQL_SORT_KEY_USER_EMAIL;
+            case PHONE_NUMBER:
+                return SQL_SORT_KEY_USER_PHONE_NUMBER;
+            case NB_BOOKED_SEATS:
+                return SQL_SORT_APP_NB_PLACES;
+            case ADMIN:
+                return SQL_SORT_APP_ID_ADMIN_USER;
+            case STATUS:
+                return SQL_SORT_APP_IS_CANCELLED;
+            default:
+                return SQL_SORT_KEY_SLOT_STARTING_DATE_TIME;
+        }
+    }
+
+    /**
+     * Build the sql query selecting the sort keys of the appointments matching the filter, grouped by appointment
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param strSortExpression
+     *            the sql expression of the sort key
+     * @return the query
+     */
+    private String getSortKeysQuery( AppointmentFilterDTO appointmentFilter, String strSortExpression )
+    {
+        StringBuilder sbSql = new StringBuilder( getSqlQueryFromFilter( appointmentFilter,
+                SQL_QUERY_SELECT_SORT_KEYS_BY_FILTER + strSortExpression + SQL_QUERY_FROM_BY_FILTER ) );
+        sbSql.append( SQL_GROUP_BY_ID_APPOINTMENT );
+        if ( !SQL_SORT_KEY_SLOT_STARTING_DATE_TIME.equals( strSortExpression ) )
+        {
+            sbSql.append( CONSTANT_COMMA ).append( strSortExpression );
+        }
+        return sbSql.toString( );
+    }
+
+    /**
+     * Append the order of the sort keys to a query
+     *
+     * @param sbSql
+     *            the query
+     * @param strSortExpression
+     *            the sql expression of the sort key
+     * @param bAsc
+     *            true for the ascending order
+     */
+    private void appendSortKeysOrder( StringBuilder sbSql, String strSortExpression, boolean bAsc )
+    {
+        String strDirection = bAsc ? SQL_SORT_ASC : SQL_SORT_DESC;
+        sbSql.append( CONSTANT_ORDER_BY ).append( strSortExpression ).append( strDirection );
+        sbSql.append( CONSTANT_COMMA ).append( SQL_SORT_ID_APPOINTMENT ).append( strDirection );
+    }
+
+    /**
+     * Build a sort key from the resultset
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param daoUtil
+     *            the prepare statement util object
+     * @return the sort key
+     */
+    private AppointmentSortKey buildSortKey( AppointmentFilterDTO appointmentFilter, DAOUtil daoUtil )
+    {
+        Serializable sortValue;
+        switch( appointmentFilter.getOrderBy( ) )
+        {
+            case LAST_NAME:
+            case FIRST_NAME:
+            case EMAIL:
+            case PHONE_NUMBER:
+                sortValue = daoUtil.getString( 2 );
+                break;
+            case NB_BOOKED_SEATS:
+            case ADMIN:
+                sortValue = daoUtil.getInt( 2 );
+                break;
+            case STATUS:
+                sortValue = daoUtil.getBoolean( 2 );
+                break;
+            default:
+                sortValue = daoUtil.getTimestamp( 2 );
+        }
+        return new AppointmentSortKey( sortValue, daoUtil.getInt( 1 ) );
+    }
+
+    /**
+     * Set the value of a sort key as a parameter of the query
+     *
+     * @param daoUtil
+     *            the daoutil
+     * @param nIndex
+     *            the index of the parameter
+     * @param sortValue
+     *            the value of the sort key
+     */
+    private void setSortValue( DAOUtil daoUtil, int nIndex, Serializable sortValue )
+    {
+        if ( sortValue instanceof Integer )
+        {
+            daoUtil.setInt( nIndex, (Integer) sortValue );
+        }
+        else
+            if ( sortValue instanceof Boolean )
+            {
+                daoUtil.setBoolean( nIndex, (Boolean) sortValue );
+            }
+            else
+                if ( sortValue instanceof Timestamp )
+                {
+                    daoUtil.setTimestamp( nIndex, (Timestamp) sortValue );
+                }
+                else
+                {
+                    daoUtil.setString( nIndex, (String) sortValue );
+                }
+    }
+
     @Override
     public List<Appointment> findByIdForm( int nIdForm, Plugin plugin )
     {
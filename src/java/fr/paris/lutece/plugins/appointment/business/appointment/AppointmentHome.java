@@ -188,6 +188,31 @@ public final class AppointmentHome
 
     }
 
+    /**
+     * Returns the appointments of a form among a list of ids, with their slots
+     * 
+     * @param listIdAppointment
+     *            the list of the appointment ids
+     * @param nIdForm
+     *            the id of the form of the slots of the appointments
+     * @return the list of the appointments found, ordered by id
+     */
+    public static List<Appointment> findByListIdAppointment( List<Integer> listIdAppointment, int nIdForm )
+    {
+        return _dao.findByListIdAppointment( listIdAppointment, nIdForm, _plugin );
+    }
+
+    /**
+     * Delete the appointments of a list of ids, with their links to the slots
+     * 
+     * @param listIdAppointment
+     *            the list of the appointment ids
+     */
+    public static void deleteByListIdAppointment( List<Integer> listIdAppointment )
+    {
+        _dao.deleteByListIdAppointment( listIdAppointment, _plugin );
+    }
+
     /**
      * Return a list of appointment of a form
      * 
@@ -216,6 +241,55 @@ public final class AppointmentHome
         return _dao.findIdsByFilter( appointmentFilter, _plugin );
     }
 
+    /**
+     * Returns a page of the sort keys of the appointments matching the filter, sought from the position of a given appointment
+     * 
+     * @param appointmentFilter
+     *            the filter
+     * @param keyFrom
+     *            the position the page starts after, or ends before if going backward (null for the first page)
+     * @param bBackward
+     *            true to return the page before the given position
+     * @param nPageSize
+     *            the maximum number of appointments to return
+     * @return the sort keys of the page, in the order of the filter
+     */
+    public static List<AppointmentSortKey> findSortKeysByFilter( AppointmentFilterDTO appointmentFilter, AppointmentSortKey keyFrom, boolean bBackward,
+            int nPageSize )
+    {
+        return _dao.findSortKeysByFilter( appointmentFilter, keyFrom, bBackward, nPageSize, _plugin );
+    }
+
+    /**
+     * Returns a page of the sort keys of the appointments matching the filter, starting at a given offset
+     * 
+     * @param appointmentFilter
+     *            the filter
+     * @param nOffset
+     *            the number of appointments to skip
+     * @param nPageSize
+     *            the maximum number of appointments to return
+     * @return the sort keys of the page, in the order of the filter
+     */
+    public static List<AppointmentSortKey> findSortKeysByFilterAtOffset( AppointmentFilterDTO appointmentFilter, int nOffset, int nPageSize )
+    {
+        return _dao.findSortKeysByFilterAtOffset( appointmentFilter, nOffset, nPageSize, _plugin );
+    }
+
+    /**
+     * Count the appointments matching the filter
+     * 
+     * @param appointmentFilter
+     *            the filter
+     * @param nMaxCount
+     *            the count at which the counting stops (0 to count all the appointments)
+     * @return the number of appointments, at most nMaxCount if it is positive
+     */
+    public static int countByFilter( AppointmentFilterDTO appointmentFilter, int nMaxCount )
+    {
+        return _dao.countByFilter( appointmentFilter, nMaxCount, _plugin );
+    }
+
     /**
      * Find a list of appointments by id category and mail
      * 
@@ -230,6 +304,30 @@ public final class AppointmentHome
         return _dao.findByCategoryAndMail( nIdCategory, mail, _plugin );
     }
 
+    /**
+     * Find all the appointments of the users with the given email, with their user and their slots
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @return list of appointments
+     */
+    public static List<Appointment> findByEmailWithSlots( String strEmail )
+    {
+        return _dao.findByEmailWithSlots( strEmail, _plugin );
+    }
+
+    /**
+     * Find all the appointments of a user, with their user and their slots
+     * 
+     * @param strGuidUser
+     *            the guid of the user
+     * @return list of appointments
+     */
+    public static List<Appointment> findByGuidUserWithSlots( String strGuidUser )
+    {
+        return _dao.findByGuidUserWithSlots( strGuidUser, _plugin );
+    }
+
     /**
      * returns a list of all appointment ids.
      * 
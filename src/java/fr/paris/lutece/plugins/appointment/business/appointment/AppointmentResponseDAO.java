@@ -35,8 +35,14 @@ package fr.paris.lutece.plugins.appointment.business.appointment;
 
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import fr.paris.lutece.plugins.genericattributes.business.Entry;
+import fr.paris.lutece.plugins.genericattributes.business.Field;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -52,6 +58,30 @@ public final class AppointmentResponseDAO implements IAppointmentResponseDAO
     private static final String SQL_QUERY_INSERT_APPOINTMENT_RESPONSE = "INSERT INTO appointment_appointment_response ( id_appointment, id_response) VALUES (?,?)";
     private static final String SQL_QUERY_REMOVE_FROM_ID_RESPONSE = "DELETE FROM appointment_appointment_response WHERE id_response = ?";
     private static final String SQL_QUERY_SELECT_APPOINTMENT_RESPONSE_LIST = "SELECT id_response FROM appointment_appointment_response WHERE id_appointment = ?";
+    private static final String SQL_QUERY_SELECT_ID_RESPONSE_BY_LIST_ID_APPOINTMENT = "SELECT id_response FROM appointment_appointment_response WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_REMOVE_BY_LIST_ID_APPOINTMENT = "DELETE FROM appointment_appointment_response WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_SELECT_APPOINTMENT_BY_ID_FORM = "SELECT appt_slot.id_appointment FROM appointment_appointment_slot appt_slot INNER JOIN appointment_slot slot ON slot.id_slot = appt_slot.id_slot WHERE slot.id_form = ?";
+    private static final String SQL_QUERY_SELECT_ID_RESPONSE_BY_ID_FORM = "SELECT id_response FROM appointment_appointment_response WHERE id_appointment IN ( "
+            + SQL_QUERY_SELECT_APPOINTMENT_BY_ID_FORM + " )";
+    // Like the join below, the deletion of the responses of a form works on the genericatt_response table to avoid one query per response. Only the
+    // responses without file are deleted that way: the file of a response is kept in a file store, and must be removed through the genericattributes API,
+    // so the responses with a file_key are still removed with ResponseHome.remove
+    private static final String SQL_QUERY_SELECT_ID_RESPONSE_WITH_FILE_BY_ID_FORM = "SELECT resp.id_response FROM genericatt_response resp "
+            + " INNER JOIN appointment_appointment_response app_resp ON app_resp.id_response = resp.id_response "
+            + " WHERE resp.file_key IS NOT NULL AND app_resp.id_appointment IN ( " + SQL_QUERY_SELECT_APPOINTMENT_BY_ID_FORM + " )";
+    private static final String SQL_QUERY_REMOVE_RESPONSE_BY_ID_FORM = "DELETE FROM genericatt_response WHERE id_response IN ( "
+            + SQL_QUERY_SELECT_ID_RESPONSE_BY_ID_FORM + " )";
+    private static final String SQL_QUERY_REMOVE_BY_ID_FORM = "DELETE FROM appointment_appointment_response WHERE id_appointment IN ( " + SQL_QUERY_SELECT_APPOINTMENT_BY_ID_FORM
+            + " )";
+
+    // The only query of the plugin reading the responses from a table of the genericattributes plugin. Its API loads the responses one by one (ResponseHome.findByPrimaryKey),
+    // which costs one query per response when exporting thousands of appointments, so the responses are read here by a join. The coupling is limited to
+    // the columns id_response, response_value, id_entry and id_field of genericatt_response, read by readResponse, and assumes that both plugins use the
+    // same pool, as in the default configuration. The files, the entries and the fields are still loaded through the genericattributes API
+    private static final String SQL_QUERY_SELECT_RESPONSE_BY_LIST_ID_APPOINTMENT = "SELECT app_resp.id_appointment, resp.id_response, resp.response_value, resp.id_entry, resp.id_field "
+            + " FROM appointment_appointment_response app_resp INNER JOIN genericatt_response resp ON app_resp.id_response = resp.id_response "
+            + " WHERE app_resp.id_appointment IN ( ";
+    private static final String SQL_QUERY_ORDER_BY_ID_APPOINTMENT_AND_ID_RESPONSE = " ) ORDER BY app_resp.id_appointment, resp.id_response";
 
     @Override
     public void insertAppointmentResponse( int nIdAppointment, int nIdResponse, Plugin plugin )
@@ -91,4 +121,140 @@ public final class AppointmentResponseDAO implements IAppointmentResponseDAO
         return listIdResponse;
     }
 
+    @Override
+    public Map<Integer, List<Response>> findListResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        Map<Integer, List<Response>> mapResponse = new HashMap<>( );
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return mapResponse;
+        }
+        String strQuery = SQL_QUERY_SELECT_RESPONSE_BY_LIST_ID_APPOINTMENT + listIdAppointment.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) )
+                + SQL_QUERY_ORDER_BY_ID_APPOINTMENT_AND_ID_RESPONSE;
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery, plugin ) )
+        {
+            int nIndex = 0;
+            for ( Integer nIdAppointment : listIdAppointment )
+            {
+                daoUtil.setInt( ++nIndex, nIdAppointment );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                int nIdAppointment = daoUtil.getInt( 1 );
+                mapResponse.computeIfAbsent( nIdAppointment, id -> new ArrayList<>( ) ).add( readResponse( daoUtil, 1 ) );
+            }
+        }
+        return mapResponse;
+    }
+
+    /**
+     * Read a response from the columns of the genericatt_response table, in the order id_response, response_value, id_entry, id_field. The entry and the
+     * field only hold their id
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param nIndex
+     *            the index of the column before id_response
+     * @return the response
+     */
+    private static Response readResponse( DAOUtil daoUtil, int nIndex )
+    {
+        Response response = new Response( );
+        response.setIdResponse( daoUtil.getInt( ++nIndex ) );
+        response.setResponseValue( daoUtil.getString( ++nIndex ) );
+        Entry entry = new Entry( );
+        entry.setIdEntry( daoUtil.getInt( ++nIndex ) );
+        response.setEntry( entry );
+        int nIdField = daoUtil.getInt( ++nIndex );
+        if ( nIdField != 0 )
+        {
+            Field field = new Field( );
+            field.setIdField( nIdField );
+            response.setField( field );
+        }
+        return response;
+    }
+
+    @Override
+    public List<Integer> findListIdResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        List<Integer> listIdResponse = new ArrayList<>( );
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return listIdResponse;
+        }
+        String strQuery = SQL_QUERY_SELECT_ID_RESPONSE_BY_LIST_ID_APPOINTMENT
+                + listIdAppointment.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery, plugin ) )
+        {
+            int nIndex = 0;
+            for ( Integer nIdAppointment : listIdAppointment )
+            {
+                daoUtil.setInt( ++nIndex, nIdAppointment );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listIdResponse.add( daoUtil.getInt( 1 ) );
+            }
+        }
+        return listIdResponse;
+    }
+
+    @Override
+    public void removeAppointmentResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        if ( listIdAppointment.isEmpty( ) )
+        {
+            return;
+        }
+        String strQuery = SQL_QUERY_REMOVE_BY_LIST_ID_APPOINTMENT + listIdAppointment.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery, plugin ) )
+        {
+            int nIndex = 0;
+            for ( Integer nIdAppointment : listIdAppointment )
+            {
+                daoUtil.setInt( ++nIndex, nIdAppointment );
+            }
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public List<Integer> findListIdResponseWithFileByIdForm( int nIdForm, Plugin plugin )
+    {
+        List<Integer> listIdResponse = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_RESPONSE_WITH_FILE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listIdResponse.add( daoUtil.getInt( 1 ) );
+            }
+        }
+        return listIdResponse;
+    }
+
+    @Override
+    public void removeResponseByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_REMOVE_RESPONSE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void removeAppointmentResponseByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_REMOVE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
 }
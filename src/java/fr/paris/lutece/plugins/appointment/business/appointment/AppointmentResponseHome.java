@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.appointment.business.appointment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
 import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
@@ -124,4 +125,49 @@ public final class AppointmentResponseHome
         return _dao.findListIdResponse( nIdAppointment, _plugin );
     }
 
+    /**
+     * Get the responses of a list of appointments with a single query. The responses only hold their value and the ids of their entry and field
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @return the responses by id of appointment
+     */
+    public static Map<Integer, List<Response>> findListResponseByListIdAppointment( List<Integer> listIdAppointment )
+    {
+        return _dao.findListResponseByListIdAppointment( listIdAppointment, _plugin );
+    }
+
+    /**
+     * Remove the responses of a list of appointments. The links to the appointments are removed with a single query
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     */
+    public static void removeResponsesByListIdAppointment( List<Integer> listIdAppointment )
+    {
+        List<Integer> listIdResponse = _dao.findListIdResponseByListIdAppointment( listIdAppointment, _plugin );
+        _dao.removeAppointmentResponseByListIdAppointment( listIdAppointment, _plugin );
+        for ( Integer nIdResponse : listIdResponse )
+        {
+            ResponseHome.remove( nIdResponse );
+        }
+    }
+
+    /**
+     * Remove the responses of all the appointments of a form. The responses without file and the links to the appointments are removed with a single
+     * query each, the responses with a file are removed one by one with their file
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    public static void removeResponsesByIdForm( int nIdForm )
+    {
+        for ( Integer nIdResponse : _dao.findListIdResponseWithFileByIdForm( nIdForm, _plugin ) )
+        {
+            ResponseHome.remove( nIdResponse );
+        }
+        _dao.removeResponseByIdForm( nIdForm, _plugin );
+        _dao.removeAppointmentResponseByIdForm( nIdForm, _plugin );
+    }
+
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.appointment;
+
+import java.io.Serializable;
+
+/**
+ * Position of an appointment in a list of appointments sorted by a column, used to seek the next or the previous page of the list
+ *
+ */
+public final class AppointmentSortKey implements Serializable
+{
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = -3164207562379283652L;
+
+    /**
+     * Value of the sort column for the appointment
+     */
+    private final Serializable _sortValue;
+
+    /**
+     * Id of the appointment, used to order the appointments having the same sort value
+     */
+    private final int _nIdAppointment;
+
+    /**
+     * Constructor
+     * 
+     * @param sortValue
+     *            the value of the sort column
+     * @param nIdAppointment
+     *            the id of the appointment
+     */
+    public AppointmentSortKey( Serializable sortValue, int nIdAppointment )
+    {
+        _sortValue = sortValue;
+        _nIdAppointment = nIdAppointment;
+    }
+
+    /**
+     * Get the value of the sort column
+     * 
+     * @return the value of the sort column
+     */
+    public Serializable getSortValue( )
+    {
+        return _sortValue;
+    }
+
+    /**
+     * Get the id of the appointment
+     * 
+     * @return the id of the appointment
+     */
+    public int getIdAppointment( )
+    {
+        return _nIdAppointment;
+    }
+}
@@ -142,6 +142,29 @@ public interface IAppointmentDAO
      */
     List<Appointment> findByListIdSlot( List<Integer> listIdSlot, Plugin plugin );
 
+    /**
+     * Returns the appointments of a form among a list of ids, with their slots
+     * 
+     * @param listIdAppointment
+     *            the list of the appointment ids
+     * @param nIdForm
+     *            the id of the form of the slots of the appointments
+     * @param plugin
+     *            the plugin
+     * @return the list of the appointments found, ordered by id
+     */
+    List<Appointment> findByListIdAppointment( List<Integer> listIdAppointment, int nIdForm, Plugin plugin );
+
+    /**
+     * Delete the appointments of a list of ids, with their links to the slots
+     * 
+     * @param listIdAppointment
+     *            the list of the appointment ids
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
     /**
      * Returns the appointment with its reference
      * 
@@ -186,6 +209,53 @@ public interface IAppointmentDAO
      */
     List<Integer> findIdsByFilter( AppointmentFilterDTO appointmentFilter, Plugin plugin );
 
+    /**
+     * Returns a page of the sort keys of the appointments matching the filter, sorted by the order of the filter and then by id. The page is sought from the
+     * position of a given appointment, without reading the appointments before it
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param keyFrom
+     *            the position the page starts after, or ends before if going backward (null for the first page)
+     * @param bBackward
+     *            true to return the page before the given position
+     * @param nPageSize
+     *            the maximum number of appointments to return
+     * @param plugin
+     *            the plugin
+     * @return the sort keys of the page, in the order of the filter
+     */
+    List<AppointmentSortKey> findSortKeysByFilter( AppointmentFilterDTO appointmentFilter, AppointmentSortKey keyFrom, boolean bBackward, int nPageSize,
+            Plugin plugin );
+
+    /**
+     * Returns a page of the sort keys of the appointments matching the filter, sorted by the order of the filter and then by id, starting at a given offset
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param nOffset
+     *            the number of appointments to skip
+     * @param nPageSize
+     *            the maximum number of appointments to return
+     * @param plugin
+     *            the plugin
+     * @return the sort keys of the page, in the order of the filter
+     */
+    List<AppointmentSortKey> findSortKeysByFilterAtOffset( AppointmentFilterDTO appointmentFilter, int nOffset, int nPageSize, Plugin plugin );
+
+    /**
+     * Count the appointments matching the filter
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param nMaxCount
+     *            the count at which the counting stops (0 to count all the appointments)
+     * @param plugin
+     *            the plugin
+     * @return the number of appointments, at most nMaxCount if it is positive
+     */
+    int countByFilter( AppointmentFilterDTO appointmentFilter, int nMaxCount, Plugin plugin );
+
     /**
      * Find a list of appointments by id category and mail
      * 
@@ -199,6 +269,28 @@ public interface IAppointmentDAO
      */
     List<Appointment> findByCategoryAndMail( int nIdCategory, String mail, Plugin plugin );
 
+    /**
+     * Find all the appointments of the users with the given email, whatever their form, with their user and their slots loaded by a single query
+     * 
+     * @param strEmail
+     *            the email of the user
+     * @param plugin
+     *            the plugin
+     * @return list of appointments, ordered by id
+     */
+    List<Appointment> findByEmailWithSlots( String strEmail, Plugin plugin );
+
+    /**
+     * Find all the appointments of a user, whatever their form, with their user, their slots and their links to their slots loaded by a single query
+     * 
+     * @param strGuidUser
+     *            the guid of the user
+     * @param plugin
+     *            the plugin
+     * @return list of appointments, ordered by id
+     */
+    List<Appointment> findByGuidUserWithSlots( String strGuidUser, Plugin plugin );
+
     /**
      * returns a list of all appointment ids.
      * 
@@ -34,7 +34,9 @@
 package fr.paris.lutece.plugins.appointment.business.appointment;
 
 import java.util.List;
+import java.util.Map;
 
+import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 
 /**
@@ -78,4 +80,68 @@ public interface IAppointmentResponseDAO
      */
     List<Integer> findListIdResponse( int nIdAppointment, Plugin plugin );
 
+    /**
+     * Get the responses of a list of appointments with a single query. The responses only hold their value and the ids of their entry and field
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the plugin
+     * @return the responses by id of appointment
+     */
+    Map<Integer, List<Response>> findListResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Get the ids of the responses of a list of appointments with a single query
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the plugin
+     * @return the ids of the responses
+     */
+    List<Integer> findListIdResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Remove the links between a list of appointments and their responses with a single query
+     * 
+     * @param listIdAppointment
+     *            the ids of the appointments
+     * @param plugin
+     *            the plugin
+     */
+    void removeAppointmentResponseByListIdAppointment( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Get the ids of the responses holding a file, of all the appointments of a form, with a single query
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param plugin
+     *            the plugin
+     * @return the ids of the responses holding a file
+     */
+    List<Integer> findListIdResponseWithFileByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Delete the generic responses of all the appointments of a form with a single query. Must be called before the links between the appointments and
+     * their responses are removed
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param plugin
+     *            the plugin
+     */
+    void removeResponseByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Remove the links between all the appointments of a form and their responses with a single query
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param plugin
+     *            the plugin
+     */
+    void removeAppointmentResponseByIdForm( int nIdForm, Plugin plugin );
+
 }
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.archive;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections.CollectionUtils;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.user.User;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * This class provides Data Access methods for the archived slots and appointments
+ *
+ */
+public final class ArchiveDAO implements IArchiveDAO
+{
+    private static final String APPOINTMENT_COLUMNS = "id_appointment, reference, nb_places, is_cancelled, id_action_cancelled, id_action_reported, notification, id_admin_user, date_appointment_create, admin_access_code_create, id_user, is_surbooked";
+    private static final String APPOINTMENT_SLOT_COLUMNS = "id_appointment, id_slot, nb_places";
+    private static final String APPOINTMENT_RESPONSE_COLUMNS = "id_appointment_response, id_response, id_appointment";
+    private static final String SLOT_COLUMNS = "id_slot, starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form";
+
+    private static final String SQL_QUERY_SELECT_ID_APPOINTMENT_TO_ARCHIVE = "SELECT DISTINCT app_slot.id_appointment FROM appointment_slot slot INNER JOIN appointment_appointment_slot app_slot ON app_slot.id_slot = slot.id_slot"
+            + " WHERE slot.ending_date_time < ?"
+            + " AND NOT EXISTS ( SELECT 1 FROM appointment_appointment_slot other_app_slot INNER JOIN appointment_slot other_slot ON other_slot.id_slot = other_app_slot.id_slot WHERE other_app_slot.id_appointment = app_slot.id_appointment AND other_slot.ending_date_time >= ? )"
+            + " AND NOT EXISTS ( SELECT 1 FROM appointment_outbox outbox WHERE outbox.id_appointment = app_slot.id_appointment )"
+            + " ORDER BY app_slot.id_appointment LIMIT ?";
+    private static final String SQL_QUERY_ARCHIVE_APPOINTMENTS = "INSERT INTO appointment_appointment_archive ( " + APPOINTMENT_COLUMNS + " ) SELECT "
+            + APPOINTMENT_COLUMNS + " FROM appointment_appointment WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_ARCHIVE_APPOINTMENT_SLOTS = "INSERT INTO appointment_appointment_slot_archive ( " + APPOINTMENT_SLOT_COLUMNS
+            + " ) SELECT " + APPOINTMENT_SLOT_COLUMNS + " FROM appointment_appointment_slot WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_ARCHIVE_APPOINTMENT_RESPONSES = "INSERT INTO appointment_appointment_response_archive ( " + APPOINTMENT_RESPONSE_COLUMNS
+            + " ) SELECT " + APPOINTMENT_RESPONSE_COLUMNS + " FROM appointment_appointment_response WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_DELETE_APPOINTMENT_RESPONSES = "DELETE FROM appointment_appointment_response WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_DELETE_APPOINTMENT_SLOTS = "DELETE FROM appointment_appointment_slot WHERE id_appointment IN ( ";
+    private static final String SQL_QUERY_DELETE_APPOINTMENTS = "DELETE FROM appointment_appointment WHERE id_appointment IN ( ";
+
+    private static final String SQL_QUERY_SELECT_ID_SLOT_TO_ARCHIVE = "SELECT slot.id_slot FROM appointment_slot slot WHERE slot.ending_date_time < ?"
+            + " AND NOT EXISTS ( SELECT 1 FROM appointment_appointment_slot app_slot WHERE app_slot.id_slot = slot.id_slot ) ORDER BY slot.id_slot LIMIT ?";
+    private static final String SQL_QUERY_ARCHIVE_SLOTS = "INSERT INTO appointment_slot_archive ( " + SLOT_COLUMNS + " ) SELECT " + SLOT_COLUMNS
+            + " FROM appointment_slot WHERE id_slot IN ( ";
+    private static final String SQL_QUERY_DELETE_SLOTS = "DELETE FROM appointment_slot WHERE id_slot IN ( ";
+
+    private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT appointment.id_appointment, appointment.reference, appointment.nb_places, appointment.is_cancelled, appointment.id_action_cancelled, appointment.id_action_reported, appointment.notification, appointment.id_admin_user, appointment.admin_access_code_create, appointment.id_user, appointment.date_appointment_create ";
+    private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + "FROM appointment_appointment_archive appointment WHERE id_appointment = ?";
+    private static final String SQL_QUERY_SELECT_BY_REFERENCE = SQL_QUERY_SELECT_COLUMNS + "FROM appointment_appointment_archive appointment WHERE reference = ?";
+    private static final String SQL_QUERY_SELECT_WITH_SLOTS_COLUMNS = "SELECT app.id_appointment, app.reference, app.nb_places, app.is_cancelled, app.id_action_cancelled, app.id_action_reported, app.notification, app.id_admin_user, app.admin_access_code_create, app.id_user, app.date_appointment_create, "
+            + "user.id_user, user.guid, user.first_name, user.last_name, user.email, user.phone_number, "
+            + "slot.id_slot, slot.starting_date_time, slot.ending_date_time, slot.is_open, slot.is_specific, slot.max_capacity, slot.nb_remaining_places, slot.nb_potential_remaining_places, slot.nb_places_taken, slot.id_form, appSlot.nb_places "
+            + "FROM appointment_user user JOIN appointment_appointment_archive app ON app.id_user = user.id_user "
+            + "JOIN appointment_appointment_slot_archive appSlot ON appSlot.id_appointment = app.id_appointment ";
+    private static final String SQL_QUERY_SELECT_WITH_SLOTS_BY_GUID_USER = SQL_QUERY_SELECT_WITH_SLOTS_COLUMNS
+            + "JOIN appointment_slot_archive slot ON slot.id_slot = appSlot.id_slot WHERE user.guid = ? UNION ALL " + SQL_QUERY_SELECT_WITH_SLOTS_COLUMNS
+            + "JOIN appointment_slot slot ON slot.id_slot = appSlot.id_slot WHERE user.guid = ? ORDER BY 1, 19";
+    private static final String SQL_QUERY_SELECT_APPT_SLT = "SELECT id_appointment, id_slot, nb_places FROM appointment_appointment_slot_archive WHERE id_appointment = ?";
+    private static final String SQL_QUERY_SELECT_SLOT_COLUMNS = "SELECT slot.id_slot, slot.starting_date_time, slot.ending_date_time, slot.is_open, slot.is_specific, slot.max_capacity, slot.nb_remaining_places, slot.nb_potential_remaining_places, slot.nb_places_taken, slot.id_form ";
+    private static final String SQL_QUERY_SELECT_SLOTS_BY_ID_APPOINTMENT = SQL_QUERY_SELECT_SLOT_COLUMNS
+            + "FROM appointment_slot_archive slot INNER JOIN appointment_appointment_slot_archive app_slot ON app_slot.id_slot = slot.id_slot WHERE app_slot.id_appointment = ?"
+            + " UNION ALL " + SQL_QUERY_SELECT_SLOT_COLUMNS
+            + "FROM appointment_slot slot INNER JOIN appointment_appointment_slot_archive app_slot ON app_slot.id_slot = slot.id_slot WHERE app_slot.id_appointment = ?"
+            + " ORDER BY starting_date_time";
+    private static final String SQL_QUERY_SELECT_APPOINTMENT_BY_ID_FORM = "SELECT app_slot.id_appointment FROM appointment_slot_archive slot INNER JOIN appointment_appointment_slot_archive app_slot ON app_slot.id_slot = slot.id_slot WHERE slot.id_form = ?"
+            + " UNION ALL SELECT app_slot.id_appointment FROM appointment_slot slot INNER JOIN appointment_appointment_slot_archive app_slot ON app_slot.id_slot = slot.id_slot WHERE slot.id_form = ? LIMIT 1";
+    private static final String SQL_QUERY_DELETE_SLOTS_BY_ID_FORM = "DELETE FROM appointment_slot_archive WHERE id_form = ?";
+
+    @Override
+    public List<Integer> findIdAppointmentToArchive( LocalDateTime horizon, int nMaxResults, Plugin plugin )
+    {
+        List<Integer> listIdAppointment = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_APPOINTMENT_TO_ARCHIVE, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( horizon ) );
+            daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( horizon ) );
+            daoUtil.setInt( nIndex, nMaxResults );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listIdAppointment.add( daoUtil.getInt( 1 ) );
+            }
+        }
+        return listIdAppointment;
+    }
+
+    @Override
+    public void archiveAppointments( List<Integer> listIdAppointment, Plugin plugin )
+    {
+        if ( CollectionUtils.isEmpty( listIdAppointment ) )
+        {
+            return;
+        }
+        executeWithListId( SQL_QUERY_ARCHIVE_APPOINTMENTS, listIdAppointment, plugin );
+        executeWithListId( SQL_QUERY_ARCHIVE_APPOINTMENT_SLOTS, listIdAppointment, plugin );
+        executeWithListId( SQL_QUERY_ARCHIVE_APPOINTMENT_RESPONSES, listIdAppointment, plugin );
+        executeWithListId( SQL_QUERY_DELETE_APPOINTMENT_RESPONSES, listIdAppointment, plugin );
+        executeWithListId( SQL_QUERY_DELETE_APPOINTMENT_SLOTS, listIdAppointment, plugin );
+        executeWithListId( SQL_QUERY_DELETE_APPOINTMENTS, listIdAppointment, plugin );
+    }
+
+    @Override
+    public List<Integer> findIdSlotToArchive( LocalDateTime horizon, int nMaxResults, Plugin plugin )
+    {
+        List<Integer> listIdSlot = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_SLOT_TO_ARCHIVE, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( horizon ) );
+            daoUtil.setInt( nIndex, nMaxResults );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listIdSlot.add( daoUtil.getInt( 1 ) );
+            }
+        }
+        return listIdSlot;
+    }
+
+    @Override
+    public void archiveSlots( List<Integer> listIdSlot, Plugin plugin )
+    {
+        if ( CollectionUtils.isEmpty( listIdSlot ) )
+        {
+            return;
+        }
+        executeWithListId( SQL_QUERY_ARCHIVE_SLOTS, listIdSlot, plugin );
+        executeWithListId( SQL_QUERY_DELETE_SLOTS, listIdSlot, plugin );
+    }
+
+    @Override
+    public Appointment select( int nIdAppointment, Plugin plugin )
+    {
+        Appointment appointment = null;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdAppointment );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                appointment = buildAppointment( daoUtil );
+            }
+        }
+        if ( appointment != null )
+        {
+            appointment.setListAppointmentSlot( selectAppointmentSlot( appointment.getIdAppointment( ), plugin ) );
+        }
+        return appointment;
+    }
+
+    @Override
+    public Appointment findByReference( String strReference, Plugin plugin )
+    {
+        Appointment appointment = null;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_REFERENCE, plugin ) )
+        {
+            daoUtil.setString( 1, strReference );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                appointment = buildAppointment( daoUtil );
+            }
+        }
+        if ( appointment != null )
+        {
+            appointment.setListAppointmentSlot( selectAppointmentSlot( appointment.getIdAppointment( ), plugin ) );
+        }
+        return appointment;
+    }
+
+    @Override
+    public List<Appointment> findByGuidUserWithSlots( String strGuidUser, Plugin plugin )
+    {
+        List<Appointment> listAppointment = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_WITH_SLOTS_BY_GUID_USER, plugin ) )
+        {
+            daoUtil.setString( 1, strGuidUser );
+            daoUtil.setString( 2, strGuidUser );
+            daoUtil.executeQuery( );
+            Appointment appointment = null;
+            while ( daoUtil.next( ) )
+            {
+                int nIdAppointment = daoUtil.getInt( 1 );
+                if ( appointment == null || appointment.getIdAppointment( ) != nIdAppointment )
+                {
+                    appointment = buildAppointment( daoUtil );
+                    appointment.setUser( buildUser( daoUtil, 12 ) );
+                    appointment.setListAppointmentSlot( new ArrayList<>( ) );
+                    listAppointment.add( appointment );
+                }
+                Slot slot = buildSlot( daoUtil, 18 );
+                appointment.addSlot( slot );
+                AppointmentSlot appointmentSlot = new AppointmentSlot( );
+                appointmentSlot.setIdAppointment( nIdAppointment );
+                appointmentSlot.setIdSlot( slot.getIdSlot( ) );
+                appointmentSlot.setNbPlaces( daoUtil.getInt( 28 ) );
+                appointment.getListAppointmentSlot( ).add( appointmentSlot );
+            }
+        }
+        return listAppointment;
+    }
+
+    @Override
+    public List<Slot> findSlotsByIdAppointment( int nIdAppointment, Plugin plugin )
+    {
+        List<Slot> listSlot = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_SLOTS_BY_ID_APPOINTMENT, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdAppointment );
+            daoUtil.setInt( 2, nIdAppointment );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listSlot.add( buildSlot( daoUtil, 1 ) );
+            }
+        }
+        return listSlot;
+    }
+
+    @Override
+    public boolean hasAppointmentsByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_APPOINTMENT_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.setInt( 2, nIdForm );
+            daoUtil.executeQuery( );
+            return daoUtil.next( );
+        }
+    }
+
+    @Override
+    public void deleteSlotsByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_SLOTS_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * Load the archived links of an appointment to its slots
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     * @param plugin
+     *            the plugin
+     * @return the list of the links
+     */
+    private List<AppointmentSlot> selectAppointmentSlot( int nIdAppointment, Plugin plugin )
+    {
+        List<AppointmentSlot> listAppointmentSlot = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_APPT_SLT, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdAppointment );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                AppointmentSlot appointmentSlot = new AppointmentSlot( );
+                appointmentSlot.setIdAppointment( daoUtil.getInt( 1 ) );
+                appointmentSlot.setIdSlot( daoUtil.getInt( 2 ) );
+                appointmentSlot.setNbPlaces( daoUtil.getInt( 3 ) );
+                listAppointmentSlot.add( appointmentSlot );
+            }
+        }
+        return listAppointmentSlot;
+    }
+
+    /**
+     * Execute a query ending with an IN clause on a list of ids
+     * 
+     * @param strQuery
+     *            the query, ending with the opening of the IN clause
+     * @param listId
+     *            the list of the ids
+     * @param plugin
+     *            the plugin
+     */
+    private static void executeWithListId( String strQuery, List<Integer> listId, Plugin plugin )
+    {
+        String strInClause = listId.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) );
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery + strInClause + " )", plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nId : listId )
+            {
+                daoUtil.setInt( nIndex++, nId );
+            }
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * Build an Appointment business object from the resultset
+     *
+     * @param daoUtil
+     *            the prepare statement util object
+     * @return a new Appointment business object with all its attributes assigned
+     */
+    private Appointment buildAppointment( DAOUtil daoUtil )
+    {
+        int nIndex = 1;
+        Appointment appointment = new Appointment( );
+        appointment.setIdAppointment( daoUtil.getInt( nIndex++ ) );
+        appointment.setReference( daoUtil.getString( nIndex++ ) );
+        appointment.setNbPlaces( daoUtil.getInt( nIndex++ ) );
+        appointment.setIsCancelled( daoUtil.getBoolean( nIndex++ ) );
+        appointment.setIdActionCancelled( daoUtil.getInt( nIndex++ ) );
+        appointment.setIdActionReported( daoUtil.getInt( nIndex++ ) );
+        appointment.setNotification( daoUtil.getInt( nIndex++ ) );
+        appointment.setIdAdminUser( daoUtil.getInt( nIndex++ ) );
+        appointment.setAdminUserCreate( daoUtil.getString( nIndex++ ) );
+        appointment.setIdUser( daoUtil.getInt( nIndex++ ) );
+        appointment.setAppointmentTakenSqlDate( daoUtil.getTimestamp( nIndex ) );
+        return appointment;
+    }
+
+    /**
+     * Build a Slot business object from the resultset
+     *
+     * @param daoUtil
+     *            the prepare statement util object
+     * @param nIndex
+     *            the index of the first column of the slot
+     * @return a new Slot business object with all its attributes assigned
+     */
+    private Slot buildSlot( DAOUtil daoUtil, int nIndex )
+    {
+        Slot slot = new Slot( );
+        slot.setIdSlot( daoUtil.getInt( nIndex++ ) );
+        slot.setStartingTimeStampDate( daoUtil.getTimestamp( nIndex++ ) );
+        slot.setEndingTimeStampDate( daoUtil.getTimestamp( nIndex++ ) );
+        slot.setIsOpen( daoUtil.getBoolean( nIndex++ ) );
+        slot.setIsSpecific( daoUtil.getBoolean( nIndex++ ) );
+        slot.setMaxCapacity( daoUtil.getInt( nIndex++ ) );
+        slot.setNbRemainingPlaces( daoUtil.getInt( nIndex++ ) );
+        slot.setNbPotentialRemainingPlaces( daoUtil.getInt( nIndex++ ) );
+        slot.setNbPlacestaken( daoUtil.getInt( nIndex++ ) );
+        slot.setIdForm( daoUtil.getInt( nIndex ) );
+        return slot;
+    }
+
+    /**
+     * Build a User business object from the resultset
+     *
+     * @param daoUtil
+     *            the prepare statement util object
+     * @param nIndex
+     *            the index of the first column of the user
+     * @return a new User with all its attributes assigned
+     */
+    private User buildUser( DAOUtil daoUtil, int nIndex )
+    {
+        User user = new User( );
+        user.setIdUser( daoUtil.getInt( nIndex++ ) );
+        user.setGuid( daoUtil.getString( nIndex++ ) );
+        user.setFirstName( daoUtil.getString( nIndex++ ) );
+        user.setLastName( daoUtil.getString( nIndex++ ) );
+        user.setEmail( daoUtil.getString( nIndex++ ) );
+        user.setPhoneNumber( daoUtil.getString( nIndex ) );
+        return user;
+    }
+}
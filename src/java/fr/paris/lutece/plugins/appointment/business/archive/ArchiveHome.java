@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.archive;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+/**
+ * This class provides instances management methods for the archived slots and appointments
+ *
+ */
+public final class ArchiveHome
+{
+    // Static variable pointed at the DAO instance
+    private static IArchiveDAO _dao = SpringContextService.getBean( "appointment.archiveDAO" );
+    private static Plugin _plugin = PluginService.getPlugin( AppointmentPlugin.PLUGIN_NAME );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private ArchiveHome( )
+    {
+    }
+
+    /**
+     * Find the ids of the appointments whose slots all end before a date time, ordered by id
+     * 
+     * @param horizon
+     *            the date time before which the slots of the appointments end
+     * @param nMaxResults
+     *            the maximum number of ids to return
+     * @return the list of the ids of the appointments
+     */
+    public static List<Integer> findIdAppointmentToArchive( LocalDateTime horizon, int nMaxResults )
+    {
+        return _dao.findIdAppointmentToArchive( horizon, nMaxResults, _plugin );
+    }
+
+    /**
+     * Move appointments, their links to their slots and their links to their responses to the archive tables
+     * 
+     * @param listIdAppointment
+     *            the list of the ids of the appointments
+     */
+    public static void archiveAppointments( List<Integer> listIdAppointment )
+    {
+        _dao.archiveAppointments( listIdAppointment, _plugin );
+    }
+
+    /**
+     * Find the ids of the slots ending before a date time and without appointment, ordered by id
+     * 
+     * @param horizon
+     *            the date time before which the slots end
+     * @param nMaxResults
+     *            the maximum number of ids to return
+     * @return the list of the ids of the slots
+     */
+    public static List<Integer> findIdSlotToArchive( LocalDateTime horizon, int nMaxResults )
+    {
+        return _dao.findIdSlotToArchive( horizon, nMaxResults, _plugin );
+    }
+
+    /**
+     * Move slots to the archive table
+     * 
+     * @param listIdSlot
+     *            the list of the ids of the slots
+     */
+    public static void archiveSlots( List<Integer> listIdSlot )
+    {
+        _dao.archiveSlots( listIdSlot, _plugin );
+    }
+
+    /**
+     * Find an archived appointment by its id
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     * @return the appointment, null if it is not archived
+     */
+    public static Appointment findByPrimaryKey( int nIdAppointment )
+    {
+        return _dao.select( nIdAppointment, _plugin );
+    }
+
+    /**
+     * Find an archived appointment by its reference
+     * 
+     * @param strReference
+     *            the reference of the appointment
+     * @return the appointment, null if it is not archived
+     */
+    public static Appointment findByReference( String strReference )
+    {
+        return _dao.findByReference( strReference, _plugin );
+    }
+
+    /**
+     * Find the archived appointments of a user, with their user and their slots
+     * 
+     * @param strGuidUser
+     *            the guid of the user
+     * @return the list of the appointments
+     */
+    public static List<Appointment> findByGuidUserWithSlots( String strGuidUser )
+    {
+        return _dao.findByGuidUserWithSlots( strGuidUser, _plugin );
+    }
+
+    /**
+     * Find the slots of an archived appointment
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     * @return the list of the slots, ordered by starting date
+     */
+    public static List<Slot> findSlotsByIdAppointment( int nIdAppointment )
+    {
+        return _dao.findSlotsByIdAppointment( nIdAppointment, _plugin );
+    }
+
+    /**
+     * Check whether a form has archived appointments
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @return true if at least one appointment of the form is archived
+     */
+    public static boolean hasAppointmentsByIdForm( int nIdForm )
+    {
+        return _dao.hasAppointmentsByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Delete the archived slots of a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     */
+    public static void deleteSlotsByIdForm( int nIdForm )
+    {
+        _dao.deleteSlotsByIdForm( nIdForm, _plugin );
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.archive;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+/**
+ * Archive DAO Interface
+ *
+ */
+public interface IArchiveDAO
+{
+    /**
+     * Find the ids of the appointments whose slots all end before a date time, ordered by id
+     * 
+     * @param horizon
+     *            the date time before which the slots of the appointments end
+     * @param nMaxResults
+     *            the maximum number of ids to return
+     * @param plugin
+     *            the plugin
+     * @return the list of the ids of the appointments
+     */
+    List<Integer> findIdAppointmentToArchive( LocalDateTime horizon, int nMaxResults, Plugin plugin );
+
+    /**
+     * Move appointments, their links to their slots and their links to their responses to the archive tables
+     * 
+     * @param listIdAppointment
+     *            the list of the ids of the appointments
+     * @param plugin
+     *            the plugin
+     */
+    void archiveAppointments( List<Integer> listIdAppointment, Plugin plugin );
+
+    /**
+     * Find the ids of the slots ending before a date time and without appointment, ordered by id
+     * 
+     * @param horizon
+     *            the date time before which the slots end
+     * @param nMaxResults
+     *            the maximum number of ids to return
+     * @param plugin
+     *            the plugin
+     * @return the list of the ids of the slots
+     */
+    List<Integer> findIdSlotToArchive( LocalDateTime horizon, int nMaxResults, Plugin plugin );
+
+    /**
+     * Move slots to the archive table
+     * 
+     * @param listIdSlot
+     *            the list of the ids of the slots
+     * @param plugin
+     *            the plugin
+     */
+    void archiveSlots( List<Integer> listIdSlot, Plugin plugin );
+
+    /**
+     * Load an archived appointment, with its links to its slots
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     * @param plugin
+     *            the plugin
+     * @return the appointment, null if it is not archived
+     */
+    Appointment select( int nIdAppointment, Plugin plugin );
+
+    /**
+     * Find an archived appointment by its reference, with its links to its slots
+     * 
+     * @param strReference
+     *            the reference of the appointment
+     * @param plugin
+     *            the plugin
+     * @return the appointment, null if it is not archived
+     */
+    Appointment findByReference( String strReference, Plugin plugin );
+
+    /**
+     * Find the archived appointments of a user, with their user, their slots and their links to their slots loaded by a single query
+     * 
+     * @param strGuidUser
+     *            the guid of the user
+     * @param plugin
+     *            the plugin
+     * @return the list of the appointments, ordered by id
+     */
+    List<Appointment> findByGuidUserWithSlots( String strGuidUser, Plugin plugin );
+
+    /**
+     * Find the slots of an archived appointment, whether they are archived or not
+     * 
+     * @param nIdAppointment
+     *            the id of the appointment
+     * @param plugin
+     *            the plugin
+     * @return the list of the slots, ordered by starting date
+     */
+    List<Slot> findSlotsByIdAppointment( int nIdAppointment, Plugin plugin );
+
+    /**
+     * Check whether a form has archived appointments, on archived slots or not
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param plugin
+     *            the plugin
+     * @return true if at least one appointment of the form is archived
+     */
+    boolean hasAppointmentsByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Delete the archived slots of a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param plugin
+     *            the plugin
+     */
+    void deleteSlotsByIdForm( int nIdForm, Plugin plugin );
+}
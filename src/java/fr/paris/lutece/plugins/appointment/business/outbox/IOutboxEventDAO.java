@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+/**
+ * Outbox event DAO Interface
+ *
+ */
+public interface IOutboxEventDAO
+{
+    /**
+     * Insert a new record in the table
+     * 
+     * @param outboxEvent
+     *            the event to insert
+     * @param plugin
+     *            the plugin
+     */
+    void insert( OutboxEvent outboxEvent, Plugin plugin );
+
+    /**
+     * Delete an event
+     * 
+     * @param nIdOutboxEvent
+     *            the id of the event
+     * @param plugin
+     *            the plugin
+     */
+    void delete( int nIdOutboxEvent, Plugin plugin );
+
+    /**
+     * Claim an event, by moving its next attempt date time, if it has not been claimed by another worker in the meantime
+     * 
+     * @param outboxEvent
+     *            the event, with the next attempt date time read
+     * @param nextAttemptDateTime
+     *            the new next attempt date time
+     * @param plugin
+     *            the plugin
+     * @return true if the event has been claimed
+     */
+    boolean claim( OutboxEvent outboxEvent, LocalDateTime nextAttemptDateTime, Plugin plugin );
+
+    /**
+     * Record a failed attempt to process an event
+     * 
+     * @param nIdOutboxEvent
+     *            the id of the event
+     * @param nNbAttempts
+     *            the number of attempts
+     * @param nextAttemptDateTime
+     *            the date time of the next attempt
+     * @param plugin
+     *            the plugin
+     */
+    void updateAttempt( int nIdOutboxEvent, int nNbAttempts, LocalDateTime nextAttemptDateTime, Plugin plugin );
+
+    /**
+     * Update the status of an event, with its number of attempts
+     * 
+     * @param nIdOutboxEvent
+     *            the id of the event
+     * @param nNbAttempts
+     *            the number of attempts
+     * @param nStatus
+     *            the status
+     * @param plugin
+     *            the plugin
+     */
+    void updateStatus( int nIdOutboxEvent, int nNbAttempts, int nStatus, Plugin plugin );
+
+    /**
+     * Find the pending events ready to be processed, ordered by id
+     * 
+     * @param now
+     *            the current date time
+     * @param nMaxResults
+     *            the maximum number of events to return
+     * @param plugin
+     *            the plugin
+     * @return the list of the events
+     */
+    List<OutboxEvent> findPending( LocalDateTime now, int nMaxResults, Plugin plugin );
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.outbox;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Business class of an event of the outbox: a processing to run once the booking of an appointment has been committed, like its workflow and the
+ * notification of the listeners
+ *
+ */
+public final class OutboxEvent implements Serializable
+{
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = -3127845470931540712L;
+
+    /**
+     * Status of an event waiting to be processed
+     */
+    public static final int STATUS_PENDING = 0;
+
+    /**
+     * Status of an event given up after too many failed attempts
+     */
+    public static final int STATUS_FAILED = 1;
+
+    /**
+     * Id of the event
+     */
+    private int _nIdOutboxEvent;
+
+    /**
+     * Type of the event
+     */
+    private String _strEventType;
+
+    /**
+     * Id of the appointment
+     */
+    private int _nIdAppointment;
+
+    /**
+     * Id of the form of the appointment
+     */
+    private int _nIdForm;
+
+    /**
+     * Id of the workflow action to process, 0 if none
+     */
+    private int _nIdAction;
+
+    /**
+     * Number of attempts to process the event
+     */
+    private int _nNbAttempts;
+
+    /**
+     * Status of the event
+     */
+    private int _nStatus = STATUS_PENDING;
+
+    /**
+     * Creation date time of the event
+     */
+    private LocalDateTime _creationDateTime;
+
+    /**
+     * Date time from which the event can be processed
+     */
+    private LocalDateTime _nextAttemptDateTime;
+
+    /**
+     * Get the id of the event
+     * 
+     * @return the id of the event
+     */
+    public int getIdOutboxEvent( )
+    {
+        return _nIdOutboxEvent;
+    }
+
+    /**
+     * Set the id of the event
+     * 
+     * @param nIdOutboxEvent
+     *            the id to set
+     */
+    public void setIdOutboxEvent( int nIdOutboxEvent )
+    {
+        _nIdOutboxEvent = nIdOutboxEvent;
+    }
+
+    /**
+     * Get the type of the event
+     * 
+     * @return the type of the event
+     */
+    public String getEventType( )
+    {
+        return _strEventType;
+    }
+
+    /**
+     * Set the type of the event
+     * 
+     * @param strEventType
+     *            the type to set
+     */
+    public void setEventType( String strEventType )
+    {
+        _strEventType = strEventType;
+    }
+
+    /**
+     * Get the id of the appointment
+     * 
+     * @return the id of the appointment
+     */
+    public int getIdAppointment( )
+    {
+        return _nIdAppointment;
+    }
+
+    /**
+     * Set the id of the appointment
+     * 
+     * @param nIdAppointment
+     *            the id to set
+     */
+    public void setIdAppointment( int nIdAppointment )
+    {
+        _nIdAppointment = nIdAppointment;
+    }
+
+    /**
+     * Get the id of the form
+     * 
+     * @return the id of the form
+     */
+    public int getIdForm( )
+    {
+        return _nIdForm;
+    }
+
+    /**
+     * Set the id of the form
+     * 
+     * @param nIdForm
+     *            the id to set
+     */
+    public void setIdForm( int nIdForm )
+    {
+        _nIdForm = nIdForm;
+    }
+
+    /**
+     * Get the id of the workflow action to process
+     * 
+     * @return the id of the action, 0 if none
+     */
+    public int getIdAction( )
+    {
+        return _nIdAction;
+    }
+
+    /**
+     * Set the id of the workflow action to process
+     * 
+     * @param nIdAction
+     *            the id to set
+     */
+    public void setIdAction( int nIdAction )
+    {
+        _nIdAction = nIdAction;
+    }
+
+    /**
+     * Get the number of attempts to process the event
+     * 
+     * @return the number of attempts
+     */
+    public int getNbAttempts( )
+    {
+        return _nNbAttempts;
+    }
+
+    /**
+     * Set the number of attempts to process the event
+     * 
+     * @param nNbAttempts
+     *            the number of attempts to set
+     */
+    public void setNbAttempts( int nNbAttempts )
+    {
+        _nNbAttempts = nNbAttempts;
+    }
+
+    /**
+     * Get the status of the event
+     * 
+     * @return the status, {@link #STATUS_PENDING} or {@link #STATUS_FAILED}
+     */
+    public int getStatus( )
+    {
+        return _nStatus;
+    }
+
+    /**
+     * Set the status of the event
+     * 
+     * @param nStatus
+     *            the status to set
+     */
+    public void setStatus( int nStatus )
+    {
+        _nStatus = nStatus;
+    }
+
+    /**
+     * Get the creation date time of the event
+     * 
+     * @return the creation date time
+     */
+    public LocalDateTime getCreationDateTime( )
+    {
+        return _creationDateTime;
+    }
+
+    /**
+     * Set the creation date time of the event
+     * 
+     * @param creationDateTime
+     *            the creation date time to set
+     */
+    public void setCreationDateTime( LocalDateTime creationDateTime )
+    {
+        _creationDateTime = creationDateTime;
+    }
+
+    /**
+     * Get the date time from which the event can be processed
+     * 
+     * @return the next attempt date time
+     */
+    public LocalDateTime getNextAttemptDateTime( )
+    {
+        return _nextAttemptDateTime;
+    }
+
+    /**
+     * Set the date time from which the event can be processed
+     * 
+     * @param nextAttemptDateTime
+     *            the next attempt date time to set
+     */
+    public void setNextAttemptDateTime( LocalDateTime nextAttemptDateTime )
+    {
+        _nextAttemptDateTime = nextAttemptDateTime;
+    }
+
+    /**
+     * Get the creation date time of the event in sql format
+     * 
+     * @return the creation date time in sql format
+     */
+    public Timestamp getCreationSqlDateTime( )
+    {
+        return ( _creationDateTime != null ) ? Timestamp.valueOf( _creationDateTime ) : null;
+    }
+
+    /**
+     * Get the next attempt date time of the event in sql format
+     * 
+     * @return the next attempt date time in sql format
+     */
+    public Timestamp getNextAttemptSqlDateTime( )
+    {
+        return ( _nextAttemptDateTime != null ) ? Timestamp.valueOf( _nextAttemptDateTime ) : null;
+    }
+}
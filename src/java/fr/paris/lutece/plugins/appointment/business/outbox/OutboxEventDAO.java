@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.outbox;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * This class provides Data Access methods for the events of the outbox
+ *
+ */
+public final class OutboxEventDAO implements IOutboxEventDAO
+{
+    private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_outbox (event_type, id_appointment, id_form, id_action, nb_attempts, status, creation_date, next_attempt_date) VALUES ( ?, ?, ?, ?, ?, ?, ?, ? )";
+    private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_outbox WHERE id_outbox_event = ?";
+    private static final String SQL_QUERY_CLAIM = "UPDATE appointment_outbox SET next_attempt_date = ? WHERE id_outbox_event = ? AND next_attempt_date = ?";
+    private static final String SQL_QUERY_UPDATE_ATTEMPT = "UPDATE appointment_outbox SET nb_attempts = ?, next_attempt_date = ? WHERE id_outbox_event = ?";
+    private static final String SQL_QUERY_UPDATE_STATUS = "UPDATE appointment_outbox SET nb_attempts = ?, status = ? WHERE id_outbox_event = ?";
+    private static final String SQL_QUERY_SELECT_PENDING = "SELECT id_outbox_event, event_type, id_appointment, id_form, id_action, nb_attempts, status, creation_date, next_attempt_date FROM appointment_outbox WHERE status = ? AND next_attempt_date <= ? ORDER BY id_outbox_event LIMIT ?";
+
+    @Override
+    public void insert( OutboxEvent outboxEvent, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, outboxEvent.getEventType( ) );
+            daoUtil.setInt( nIndex++, outboxEvent.getIdAppointment( ) );
+            daoUtil.setInt( nIndex++, outboxEvent.getIdForm( ) );
+            daoUtil.setInt( nIndex++, outboxEvent.getIdAction( ) );
+            daoUtil.setInt( nIndex++, outboxEvent.getNbAttempts( ) );
+            daoUtil.setInt( nIndex++, outboxEvent.getStatus( ) );
+            daoUtil.setTimestamp( nIndex++, outboxEvent.getCreationSqlDateTime( ) );
+            daoUtil.setTimestamp( nIndex, outboxEvent.getNextAttemptSqlDateTime( ) );
+            daoUtil.executeUpdate( );
+            if ( daoUtil.nextGeneratedKey( ) )
+            {
+                outboxEvent.setIdOutboxEvent( daoUtil.getGeneratedKeyInt( 1 ) );
+            }
+        }
+    }
+
+    @Override
+    public void delete( int nIdOutboxEvent, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdOutboxEvent );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public boolean claim( OutboxEvent outboxEvent, LocalDateTime nextAttemptDateTime, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_CLAIM, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( nextAttemptDateTime ) );
+            daoUtil.setInt( nIndex++, outboxEvent.getIdOutboxEvent( ) );
+            daoUtil.setTimestamp( nIndex, outboxEvent.getNextAttemptSqlDateTime( ) );
+            return daoUtil.executeUpdate( ) == 1;
+        }
+    }
+
+    @Override
+    public void updateAttempt( int nIdOutboxEvent, int nNbAttempts, LocalDateTime nextAttemptDateTime, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_ATTEMPT, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nNbAttempts );
+            daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( nextAttemptDateTime ) );
+            daoUtil.setInt( nIndex, nIdOutboxEvent );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void updateStatus( int nIdOutboxEvent, int nNbAttempts, int nStatus, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_STATUS, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nNbAttempts );
+            daoUtil.setInt( nIndex++, nStatus );
+            daoUtil.setInt( nIndex, nIdOutboxEvent );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public List<OutboxEvent> findPending( LocalDateTime now, int nMaxResults, Plugin plugin )
+    {
+        List<OutboxEvent> listOutboxEvent = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_PENDING, plugin ) )
+        {
+            daoUtil.setInt( 1, OutboxEvent.STATUS_PENDING );
+            daoUtil.setTimestamp( 2, Timestamp.valueOf( now ) );
+            daoUtil.setInt( 3, nMaxResults );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                int nIndex = 1;
+                OutboxEvent outboxEvent = new OutboxEvent( );
+                outboxEvent.setIdOutboxEvent( daoUtil.getInt( nIndex++ ) );
+                outboxEvent.setEventType( daoUtil.getString( nIndex++ ) );
+                outboxEvent.setIdAppointment( daoUtil.getInt( nIndex++ ) );
+                outboxEvent.setIdForm( daoUtil.getInt( nIndex++ ) );
+                outboxEvent.setIdAction( daoUtil.getInt( nIndex++ ) );
+                outboxEvent.setNbAttempts( daoUtil.getInt( nIndex++ ) );
+                outboxEvent.setStatus( daoUtil.getInt( nIndex++ ) );
+                outboxEvent.setCreationDateTime( daoUtil.getTimestamp( nIndex++ ).toLocalDateTime( ) );
+                outboxEvent.setNextAttemptDateTime( daoUtil.getTimestamp( nIndex ).toLocalDateTime( ) );
+                listOutboxEvent.add( outboxEvent );
+            }
+        }
+        return listOutboxEvent;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+/**
+ * This class provides instances management methods for the events of the outbox
+ *
+ */
+public final class OutboxEventHome
+{
+    // Static variable pointed at the DAO instance
+    private static IOutboxEventDAO _dao = SpringContextService.getBean( "appointment.outboxEventDAO" );
+    private static Plugin _plugin = PluginService.getPlugin( AppointmentPlugin.PLUGIN_NAME );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private OutboxEventHome( )
+    {
+    }
+
+    /**
+     * Create an event
+     * 
+     * @param outboxEvent
+     *            the event to create
+     * @return the event created, with its id
+     */
+    public static OutboxEvent create( OutboxEvent outboxEvent )
+    {
+        _dao.insert( outboxEvent, _plugin );
+        return outboxEvent;
+    }
+
+    /**
+     * Delete an event
+     * 
+     * @param nIdOutboxEvent
+     *            the id of the event
+     */
+    public static void delete( int nIdOutboxEvent )
+    {
+        _dao.delete( nIdOutboxEvent, _plugin );
+    }
+
+    /**
+     * Claim an event, if it has not been claimed by another worker in the meantime
+     * 
+     * @param outboxEvent
+     *            the event, with the next attempt date time read
+     * @param nextAttemptDateTime
+     *            the date time after which the event can be claimed again
+     * @return true if the event has been claimed
+     */
+    public static boolean claim( OutboxEvent outboxEvent, LocalDateTime nextAttemptDateTime )
+    {
+        return _dao.claim( outboxEvent, nextAttemptDateTime, _plugin );
+    }
+
+    /**
+     * Record a failed attempt to process an event
+     * 
+     * @param nIdOutboxEvent
+     *            the id of the event
+     * @param nNbAttempts
+     *            the number of attempts
+     * @param nextAttemptDateTime
+     *            the date time of the next attempt
+     */
+    public static void updateAttempt( int nIdOutboxEvent, int nNbAttempts, LocalDateTime nextAttemptDateTime )
+    {
+        _dao.updateAttempt( nIdOutboxEvent, nNbAttempts, nextAttemptDateTime, _plugin );
+    }
+
+    /**
+     * Update the status of an event, with its number of attempts
+     * 
+     * @param nIdOutboxEvent
+     *            the id of the event
+     * @param nNbAttempts
+     *            the number of attempts
+     * @param nStatus
+     *            the status
+     */
+    public static void updateStatus( int nIdOutboxEvent, int nNbAttempts, int nStatus )
+    {
+        _dao.updateStatus( nIdOutboxEvent, nNbAttempts, nStatus, _plugin );
+    }
+
+    /**
+     * Find the pending events ready to be processed, ordered by id
+     * 
+     * @param nMaxResults
+     *            the maximum number of events to return
+     * @return the list of the events
+     */
+    public static List<OutboxEvent> findPending( int nMaxResults )
+    {
+        return _dao.findPending( LocalDateTime.now( ), nMaxResults, _plugin );
+    }
+}
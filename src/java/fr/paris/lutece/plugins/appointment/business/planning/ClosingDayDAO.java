@@ -62,6 +62,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
             + " AND date_of_closing_day >= ? AND date_of_closing_day <= ?";
     private static final String SQL_QUERY_DELETE_BY_ID_FORM_AND_DATE_OF_CLOSING_DAY = "DELETE FROM appointment_closing_day WHERE id_form = ? AND date_of_closing_day = ? ";
     private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_closing_day WHERE id_form = ? ";
+    private static final String SQL_QUERY_COPY_BY_ID_FORM = "INSERT INTO appointment_closing_day ( date_of_closing_day, id_form) SELECT date_of_closing_day, ? FROM appointment_closing_day WHERE id_form = ?";
 
     @Override
     public void insert( ClosingDay closingDay, Plugin plugin )
@@ -234,4 +235,16 @@ public final class ClosingDayDAO implements IClosingDayDAO
         }
         return daoUtil;
     }
+
+    @Override
+    public void copyByIdForm( int nIdForm, int nIdFormCopy, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COPY_BY_ID_FORM, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nIdFormCopy );
+            daoUtil.setInt( nIndex, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
 }
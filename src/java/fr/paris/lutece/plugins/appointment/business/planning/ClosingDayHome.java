@@ -178,4 +178,17 @@ public final class ClosingDayHome
     {
         return _dao.findByIdFormAndDateOfClosingDay( nIdForm, dateOfClosingDay, _plugin );
     }
+
+    /**
+     * Copy the closing days of a form to another form, with a single query
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdFormCopy
+     *            the id of the form receiving the copy
+     */
+    public static void copyByIdForm( int nIdForm, int nIdFormCopy )
+    {
+        _dao.copyByIdForm( nIdForm, nIdFormCopy, _plugin );
+    }
 }
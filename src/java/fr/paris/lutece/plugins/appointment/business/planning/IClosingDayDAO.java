@@ -148,4 +148,16 @@ public interface IClosingDayDAO
      */
     List<ClosingDay> findByIdFormAndDateRange( int nIdForm, LocalDate startingDate, LocalDate endingDate, Plugin plugin );
 
+    /**
+     * Copy the closing days of a form to another form
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdFormCopy
+     *            the id of the form receiving the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdForm( int nIdForm, int nIdFormCopy, Plugin plugin );
+
 }
@@ -107,4 +107,48 @@ public interface ITimeSlotDAO
      * @return the list of all the time slots of the working day
      */
     List<TimeSlot> findByIdWorkingDay( int nIdWorkingDay, Plugin plugin );
+
+    /**
+     * Get all the time slots of all the working days of a reservation rule, in one query
+     * 
+     * @param nIdReservationRule
+     *            the reservation rule id
+     * @param plugin
+     *            the plugin
+     * @return the list of all the time slots of the reservation rule
+     */
+    List<TimeSlot> findByIdReservationRule( int nIdReservationRule, Plugin plugin );
+
+    /**
+     * Get all the time slots of all the reservation rules of a form, in one query
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the plugin
+     * @return the list of all the time slots of the form
+     */
+    List<TimeSlot> findByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Delete the time slots of all the working days of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Copy the time slots of the working days of a reservation rule to the working days of the same day of week of another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdReservationRuleCopy
+     *            the id of the reservation rule receiving the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdReservationRuleCopy, Plugin plugin );
 }
@@ -145,4 +145,26 @@ public interface IWeekDefinitionDAO
      */
     WeekDefinition findByIdReservationRuleAndDateOfApply( int nIdReservationRule, LocalDate dateOfApply, Plugin plugin );
 
+    /**
+     * Delete the week definitions of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Copy the week definitions of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdReservationRuleCopy
+     *            the id of the reservation rule receiving the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdReservationRuleCopy, Plugin plugin );
+
 }
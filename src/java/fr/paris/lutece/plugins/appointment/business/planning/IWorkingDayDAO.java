@@ -107,4 +107,37 @@ public interface IWorkingDayDAO
      */
     List<WorkingDay> findByIdReservationRule( int nIdWeekDefinitionRule, Plugin plugin );
 
+    /**
+     * Find all the working days of all the reservation rules of a form, in one query
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the plugin
+     * @return the list of all the working days of the form
+     */
+    List<WorkingDay> findByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Delete the working days of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByIdForm( int nIdForm, Plugin plugin );
+
+    /**
+     * Copy the working days of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdReservationRuleCopy
+     *            the id of the reservation rule receiving the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdReservationRuleCopy, Plugin plugin );
+
 }
@@ -53,9 +53,23 @@ public final class TimeSlotDAO implements ITimeSlotDAO
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_time_slot SET starting_time = ?, ending_time = ?, is_open = ?, max_capacity = ?, id_working_day = ? WHERE id_time_slot = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_time_slot WHERE id_time_slot = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_DAY = "DELETE FROM appointment_time_slot WHERE id_working_day = ?";
+    private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_time_slot WHERE id_working_day IN ( SELECT working_day.id_working_day FROM appointment_working_day working_day"
+            + " INNER JOIN appointment_reservation_rule reservation_rule ON reservation_rule.id_reservation_rule = working_day.id_reservation_rule WHERE reservation_rule.id_form = ? )";
+    private static final String SQL_QUERY_COPY_BY_RESERVATION_RULE = "INSERT INTO appointment_time_slot ( starting_time, ending_time, is_open, max_capacity, id_working_day)"
+            + " SELECT time_slot.starting_time, time_slot.ending_time, time_slot.is_open, time_slot.max_capacity, working_day_copy.id_working_day FROM appointment_time_slot time_slot"
+            + " INNER JOIN appointment_working_day working_day ON working_day.id_working_day = time_slot.id_working_day"
+            + " INNER JOIN appointment_working_day working_day_copy ON working_day_copy.day_of_week = working_day.day_of_week"
+            + " WHERE working_day.id_reservation_rule = ? AND working_day_copy.id_reservation_rule = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_time_slot, starting_time, ending_time, is_open, max_capacity, id_working_day FROM appointment_time_slot";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_time_slot = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_WORKING_DAY = SQL_QUERY_SELECT_COLUMNS + " WHERE id_working_day = ?";
+    private static final String SQL_QUERY_SELECT_JOIN_COLUMNS = "SELECT time_slot.id_time_slot, time_slot.starting_time, time_slot.ending_time, time_slot.is_open, time_slot.max_capacity, time_slot.id_working_day FROM appointment_time_slot time_slot"
+            + " INNER JOIN appointment_working_day working_day ON time_slot.id_working_day = working_day.id_working_day";
+    private static final String SQL_QUERY_SELECT_BY_ID_RESERVATION_RULE = SQL_QUERY_SELECT_JOIN_COLUMNS
+            + " WHERE working_day.id_reservation_rule = ? ORDER BY time_slot.id_time_slot";
+    private static final String SQL_QUERY_SELECT_BY_ID_FORM = SQL_QUERY_SELECT_JOIN_COLUMNS
+            + " INNER JOIN appointment_reservation_rule reservation_rule ON working_day.id_reservation_rule = reservation_rule.id_reservation_rule"
+            + " WHERE reservation_rule.id_form = ? ORDER BY time_slot.id_time_slot";
 
     @Override
     public void insert( TimeSlot timeSlot, Plugin plugin )
@@ -131,6 +145,44 @@ public final class TimeSlotDAO implements ITimeSlotDAO
         return listTimeSLots;
     }
 
+    @Override
+    public List<TimeSlot> findByIdReservationRule( int nIdReservationRule, Plugin plugin )
+    {
+        return findByIdParent( SQL_QUERY_SELECT_BY_ID_RESERVATION_RULE, nIdReservationRule, plugin );
+    }
+
+    @Override
+    public List<TimeSlot> findByIdForm( int nIdForm, Plugin plugin )
+    {
+        return findByIdParent( SQL_QUERY_SELECT_BY_ID_FORM, nIdForm, plugin );
+    }
+
+    /**
+     * Get the time slots selected by a query with the id of a parent object in parameter
+     * 
+     * @param strQuery
+     *            the query
+     * @param nIdParent
+     *            the id of the parent object
+     * @param plugin
+     *            the plugin
+     * @return the list of the time slots
+     */
+    private List<TimeSlot> findByIdParent( String strQuery, int nIdParent, Plugin plugin )
+    {
+        List<TimeSlot> listTimeSLots = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdParent );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listTimeSLots.add( buildTimeSlot( daoUtil ) );
+            }
+        }
+        return listTimeSLots;
+    }
+
     /**
      * Build a time slot business object from the resultset
      * 
@@ -188,4 +240,26 @@ public final class TimeSlotDAO implements ITimeSlotDAO
         }
         return daoUtil;
     }
+
+    @Override
+    public void deleteByIdForm( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void copyByIdReservationRule( int nIdReservationRule, int nIdReservationRuleCopy, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COPY_BY_RESERVATION_RULE, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nIdReservationRule );
+            daoUtil.setInt( nIndex, nIdReservationRuleCopy );
+            daoUtil.executeUpdate( );
+        }
+    }
 }
@@ -134,4 +134,52 @@ public final class TimeSlotHome
         return _dao.findByIdWorkingDay( nIdWorkingDay, _plugin );
     }
 
+    /**
+     * Get all the time slots of all the working days of a reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the reservation rule id
+     * @return the list of all the time slots of the reservation rule
+     */
+    public static List<TimeSlot> findByIdReservationRule( int nIdReservationRule )
+    {
+        return _dao.findByIdReservationRule( nIdReservationRule, _plugin );
+    }
+
+    /**
+     * Get all the time slots of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the list of all the time slots of the form
+     */
+    public static List<TimeSlot> findByIdForm( int nIdForm )
+    {
+        return _dao.findByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Delete the time slots of all the working days of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Copy the time slots of a reservation rule to another reservation rule, with a single query. The working days of the copy must already exist
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdReservationRuleCopy
+     *            the id of the reservation rule receiving the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdReservationRuleCopy )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdReservationRuleCopy, _plugin );
+    }
+
 }
@@ -177,4 +177,28 @@ public final class WeekDefinitionHome
         return _dao.findByIdReservationRuleAndDateOfApply( nIdReservationRule, dateOfApply, _plugin );
     }
 
+    /**
+     * Delete the week definitions of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Copy the week definitions of a reservation rule to another reservation rule, with a single query
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdReservationRuleCopy
+     *            the id of the reservation rule receiving the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdReservationRuleCopy )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdReservationRuleCopy, _plugin );
+    }
+
 }
@@ -134,4 +134,40 @@ public final class WorkingDayHome
         return _dao.findByIdReservationRule( nIdReservationRule, _plugin );
     }
 
+    /**
+     * Find all the working days of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the list of all the working days of the form
+     */
+    public static List<WorkingDay> findByIdForm( int nIdForm )
+    {
+        return _dao.findByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Delete the working days of all the reservation rules of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
+    /**
+     * Copy the working days of a reservation rule to another reservation rule, with a single query
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdReservationRuleCopy
+     *            the id of the reservation rule receiving the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdReservationRuleCopy )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdReservationRuleCopy, _plugin );
+    }
+
 }
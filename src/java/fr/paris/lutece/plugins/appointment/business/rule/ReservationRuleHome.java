@@ -154,4 +154,15 @@ public final class ReservationRuleHome
         return _dao.findReservationRuleByIdFormAndClosestToDateOfApply( nIdForm, dateOfApply, _plugin );
     }
 
+    /**
+     * Delete the reservation rules of a form. Their week definitions, working days and time slots must have been deleted before
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public static void deleteByIdForm( int nIdForm )
+    {
+        _dao.deleteByIdForm( nIdForm, _plugin );
+    }
+
 }
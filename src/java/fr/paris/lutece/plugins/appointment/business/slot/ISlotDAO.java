@@ -67,6 +67,71 @@ public interface ISlotDAO
      */
     void update( Slot slot, Plugin plugin );
 
+    /**
+     * Update the record in the table without writing the places taken. The remaining places and the potential remaining places stored in the table are
+     * shifted by the change of capacity, so that the places reserved concurrently are kept
+     * 
+     * @param slot
+     *            the reference of the Slot
+     * @param plugin
+     *            the plugin
+     */
+    void updateWithRelativePlaces( Slot slot, Plugin plugin );
+
+    /**
+     * Update a list of slots without writing their places taken, using JDBC batches. The statements are executed in the order of the list
+     *
+     * @param listSlot
+     *            the list of slots to update
+     * @param nBatchSize
+     *            the maximum number of statements sent in one batch
+     * @param plugin
+     *            the plugin
+     */
+    void updateListWithRelativePlaces( List<Slot> listSlot, int nBatchSize, Plugin plugin );
+
+    /**
+     * Insert a list of slots in the table, using JDBC batches. The ids of the slots are set after the insertion
+     *
+     * @param listSlot
+     *            the list of slots to insert
+     * @param nBatchSize
+     *            the maximum number of statements sent in one batch
+     * @param plugin
+     *            the plugin
+     * @throws fr.paris.lutece.portal.service.util.AppException
+     *             if the database does not return the generated key of every slot of a batch. The slots of the batch are inserted, so the caller must roll
+     *             back its transaction
+     */
+    void insertList( List<Slot> listSlot, int nBatchSize, Plugin plugin );
+
+    /**
+     * Update a list of slots, using JDBC batches. The statements are executed in the order of the list
+     *
+     * @param listSlot
+     *            the list of slots to update
+     * @param nBatchSize
+     *            the maximum number of statements sent in one batch
+     * @param plugin
+     *            the plugin
+     */
+    void updateList( List<Slot> listSlot, int nBatchSize, Plugin plugin );
+
+    /**
+     * Increment the capacity, the remaining places and the potential remaining places of a list of slots, using JDBC batches. The increment is applied to
+     * the values stored in database and the specific flag of each slot is updated with the one of the given slot
+     *
+     * @param listSlot
+     *            the list of slots to update
+     * @param nIncrementingValue
+     *            the value to add to the capacity
+     * @param nBatchSize
+     *            the maximum number of statements sent in one batch
+     * @param plugin
+     *            the plugin
+     */
+    void incrementMaxCapacityList( List<Slot> listSlot, int nIncrementingValue, int nBatchSize, Plugin plugin );
+
     /**
      * Delete a appointment from the table
      * 
@@ -198,6 +263,17 @@ public interface ISlotDAO
      */
     List<Slot> findByIdAppointment( int nIdAppointment, Plugin plugin );
 
+    /**
+     * Returns the slots of a list of ids, ordered by id
+     * 
+     * @param listIdSlot
+     *            the list of the slot ids
+     * @param plugin
+     *            the plugin
+     * @return the list of the slots found
+     */
+    List<Slot> findByListIdSlot( List<Integer> listIdSlot, Plugin plugin );
+
     /**
      * update Potential Remaining Places
      * 
@@ -207,6 +283,72 @@ public interface ISlotDAO
      */
     void updatePotentialRemainingPlaces( int nbPotentialRemainingPlaces, int nIdSlot, Plugin plugin );
 
+    /**
+     * Reserve places on a slot in a single guarded statement. The places are reserved only if the slot has enough remaining places and is not over
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to reserve
+     * @param nbMaxPotentialBookedSeats
+     *            the number of places that were potentially taken by the user while filling the form
+     * @param now
+     *            the current date time
+     * @param plugin
+     *            the plugin
+     * @return true if the places have been reserved, false if the slot is full, over or does not exist
+     */
+    boolean reservePlaces( int nIdSlot, int nbPlaces, int nbMaxPotentialBookedSeats, LocalDateTime now, Plugin plugin );
+
+    /**
+     * Release the places of an appointment deleted, cancelled or moved. The new remaining places take into account the capacity of the slot, in case of the
+     * slot was over booked
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to release
+     * @param plugin
+     *            the plugin
+     */
+    void releasePlaces( int nIdSlot, int nbPlaces, Plugin plugin );
+
+    /**
+     * Take places on a slot without any check on the remaining places (reactivation of an appointment)
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to take
+     * @param plugin
+     *            the plugin
+     */
+    void takePlaces( int nIdSlot, int nbPlaces, Plugin plugin );
+
+    /**
+     * Increment the potential remaining places of a slot, without exceeding its remaining places
+     * 
+     * @param nbPlaces
+     *            the number of places to add
+     * @param nIdSlot
+     *            the id of the slot
+     * @param plugin
+     *            the plugin
+     */
+    void incrementPotentialRemainingPlaces( int nbPlaces, int nIdSlot, Plugin plugin );
+
+    /**
+     * Decrement the potential remaining places of a slot
+     * 
+     * @param nbPlaces
+     *            the number of places to subtract
+     * @param nIdSlot
+     *            the id of the slot
+     * @param plugin
+     *            the plugin
+     */
+    void decrementPotentialRemainingPlaces( int nbPlaces, int nIdSlot, Plugin plugin );
+
     /**
      * update the availabilities metrics
      * 
@@ -226,4 +368,16 @@ public interface ISlotDAO
      */
     List<LocalDate> findSpecificSlotDates( int nIdForm, Plugin plugin );
 
+    /**
+     * Copy the specific slots of a form to another form. The slots of the copy are empty
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdFormCopy
+     *            the id of the form receiving the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copySpecificByIdForm( int nIdForm, int nIdFormCopy, Plugin plugin );
+
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.time.LocalDateTime;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+/**
+ * Slot Lock DAO Interface
+ *
+ */
+public interface ISlotLockDAO
+{
+    /**
+     * Insert a new lease on a slot. The insertion fails if a lease already exists for this slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param strOwner
+     *            the owner of the lease
+     * @param expiryDateTime
+     *            the date time after which the lease can be taken over
+     * @param plugin
+     *            the plugin
+     * @return true if the lease has been inserted, false if a lease already exists for this slot
+     */
+    boolean insert( int nIdSlot, String strOwner, LocalDateTime expiryDateTime, Plugin plugin );
+
+    /**
+     * Renew the lease of the owner, or take over a lease that has expired
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param strOwner
+     *            the owner of the lease
+     * @param expiryDateTime
+     *            the new expiry date time of the lease
+     * @param now
+     *            the current date time
+     * @param plugin
+     *            the plugin
+     * @return true if the lease is now owned by the given owner, false otherwise
+     */
+    boolean renewOrTakeOver( int nIdSlot, String strOwner, LocalDateTime expiryDateTime, LocalDateTime now, Plugin plugin );
+
+    /**
+     * Delete the lease of the owner on a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param strOwner
+     *            the owner of the lease
+     * @param plugin
+     *            the plugin
+     */
+    void delete( int nIdSlot, String strOwner, Plugin plugin );
+
+    /**
+     * Delete all the leases that have expired
+     * 
+     * @param now
+     *            the current date time
+     * @param plugin
+     *            the plugin
+     */
+    void deleteExpired( LocalDateTime now, Plugin plugin );
+}
@@ -39,8 +39,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.util.sql.DAOUtil;
 
 /**
@@ -54,10 +56,22 @@ public final class SlotDAO implements ISlotDAO
 
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_slot (starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form) VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?)";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_slot SET starting_date_time = ?, ending_date_time = ?, is_open = ?, is_specific = ?, max_capacity = ?, nb_remaining_places = ?, nb_potential_remaining_places = ?, nb_places_taken = ?, id_form = ? WHERE id_slot = ?";
+    // The places columns must be assigned before max_capacity, so that they are computed with the capacity stored before the update : some databases
+    // evaluate the assignments from left to right
+    private static final String SQL_QUERY_UPDATE_WITH_RELATIVE_PLACES = "UPDATE appointment_slot SET nb_remaining_places = nb_remaining_places + ? - max_capacity, nb_potential_remaining_places = nb_potential_remaining_places + ? - max_capacity, starting_date_time = ?, ending_date_time = ?, is_open = ?, is_specific = ?, max_capacity = ?, id_form = ? WHERE id_slot = ?";
+    private static final String SQL_QUERY_INCREMENT_MAX_CAPACITY = "UPDATE appointment_slot SET max_capacity = max_capacity + ?, nb_remaining_places = nb_remaining_places + ?, nb_potential_remaining_places = nb_potential_remaining_places + ?, is_specific = ? WHERE id_slot = ?";
     private static final String SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE = "UPDATE appointment_slot SET nb_potential_remaining_places = ? WHERE id_slot = ?";
+    // The nb_potential_remaining_places column must be assigned before nb_remaining_places : some databases evaluate the assignments from left to right
+    private static final String SQL_QUERY_RESERVE_PLACES = "UPDATE appointment_slot SET nb_potential_remaining_places = LEAST( nb_potential_remaining_places + ? - ?, nb_remaining_places - ? ), nb_remaining_places = nb_remaining_places - ?, nb_places_taken = nb_places_taken + ? WHERE id_slot = ? AND nb_remaining_places >= ? AND nb_places_taken + ? <= max_capacity AND ending_date_time > ?";
+    private static final String SQL_QUERY_RELEASE_PLACES = "UPDATE appointment_slot SET nb_remaining_places = LEAST( max_capacity, nb_remaining_places + ?, max_capacity - nb_places_taken + ? ), nb_potential_remaining_places = LEAST( max_capacity, nb_potential_remaining_places + ?, max_capacity - nb_places_taken + ? ), nb_places_taken = nb_places_taken - ? WHERE id_slot = ?";
+    private static final String SQL_QUERY_TAKE_PLACES = "UPDATE appointment_slot SET nb_remaining_places = nb_remaining_places - ?, nb_potential_remaining_places = nb_potential_remaining_places - ?, nb_places_taken = nb_places_taken + ? WHERE id_slot = ?";
+    private static final String SQL_QUERY_INCREMENT_POTENTIAL_REMAINING_PLACE = "UPDATE appointment_slot SET nb_potential_remaining_places = LEAST( nb_potential_remaining_places + ?, nb_remaining_places ) WHERE id_slot = ?";
+    private static final String SQL_QUERY_DECREMENT_POTENTIAL_REMAINING_PLACE = "UPDATE appointment_slot SET nb_potential_remaining_places = nb_potential_remaining_places - ? WHERE id_slot = ?";
     private static final String SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE_IF_SHUTDOWN = "UPDATE appointment_slot SET nb_potential_remaining_places = nb_remaining_places WHERE nb_potential_remaining_places < nb_remaining_places ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_slot WHERE id_slot = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_slot WHERE id_form = ?";
+    private static final String SQL_QUERY_COPY_SPECIFIC_BY_ID_FORM = "INSERT INTO appointment_slot (starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form)"
+            + " SELECT starting_date_time, ending_date_time, is_open, is_specific, max_capacity, max_capacity, max_capacity, 0, ? FROM appointment_slot WHERE id_form = ? AND is_specific = 1";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_slot, starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form ";
     private static final String SQL_FROM_APPOINTMENT_SLOT = "FROM appointment_slot";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_slot = ?";
@@ -74,6 +88,8 @@ public final class SlotDAO implements ISlotDAO
     private static final String SQL_QUERY_SELECT_BY_ID_APPOINTMENT = "SELECT slot.id_slot, slot.starting_date_time, slot.ending_date_time, slot.is_open, slot.is_specific, slot.max_capacity, slot.nb_remaining_places, slot.nb_potential_remaining_places, slot.nb_places_taken, slot.id_form "
             + " FROM appointment_slot slot INNER JOIN appointment_appointment_slot appt_slot ON (slot.id_slot = appt_slot.id_slot) "
             + " INNER JOIN appointment_appointment appt ON (appt_slot.id_appointment = appt.id_appointment ) WHERE appt.id_appointment = ?";
+    private static final String SQL_QUERY_SELECT_BY_LIST_ID_SLOT = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_slot IN ( ";
+    private static final String SQL_ORDER_BY_ID_SLOT = " ) ORDER BY id_slot";
 
     private static final String SQL_QUERY_SELECT_SLOT_WITH_APPOINTMNT_BY_ID_FORM_AND_DATE_RANGE = "SELECT distinct slot.id_slot, slot.starting_date_time, slot.ending_date_time, slot.is_open, slot.is_specific, slot.max_capacity, slot.nb_remaining_places, slot.nb_potential_remaining_places, slot.nb_places_taken, slot.id_form  from appointment_slot slot JOIN appointment_appointment_slot appt_slot on ( slot.id_slot = appt_slot.id_slot ) WHERE slot.id_form = ? AND slot.starting_date_time >= ? AND slot.ending_date_time <= ? ";
     private static final String SQL_QUERY_SELECT_SPECIFIC_DATE_SLOT = "SELECT distinct DATE( starting_date_time) as date_value from appointment_slot where is_specific = 1 and id_form = ? ";
@@ -100,6 +116,100 @@ public final class SlotDAO implements ISlotDAO
         }
     }
 
+    @Override
+    public void updateWithRelativePlaces( Slot slot, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_WITH_RELATIVE_PLACES, plugin ) )
+        {
+            fillDaoUtilWithRelativePlaces( daoUtil, slot );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void updateListWithRelativePlaces( List<Slot> listSlot, int nBatchSize, Plugin plugin )
+    {
+        for ( List<Slot> listChunk : partition( listSlot, nBatchSize ) )
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_WITH_RELATIVE_PLACES, plugin ) )
+            {
+                for ( Slot slot : listChunk )
+                {
+                    fillDaoUtilWithRelativePlaces( daoUtil, slot );
+                    daoUtil.addBatch( );
+                }
+                daoUtil.executeBatch( );
+            }
+        }
+    }
+
+    @Override
+    public void insertList( List<Slot> listSlot, int nBatchSize, Plugin plugin )
+    {
+        for ( List<Slot> listChunk : partition( listSlot, nBatchSize ) )
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+            {
+                for ( Slot slot : listChunk )
+                {
+                    fillDaoUtil( daoUtil, slot, true );
+                    daoUtil.addBatch( );
+                }
+                daoUtil.executeBatch( );
+                int nNbKeys = 0;
+                for ( Slot slot : listChunk )
+                {
+                    if ( !daoUtil.nextGeneratedKey( ) )
+                    {
+                        // The slots are inserted, but the ones without id could not be linked to their appointments: the transaction must be rolled back
+                        throw new AppException( "The database returned " + nNbKeys + " generated keys for a batch of " + listChunk.size( ) + " slots" );
+                    }
+                    slot.setIdSlot( daoUtil.getGeneratedKeyInt( 1 ) );
+                    nNbKeys++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void updateList( List<Slot> listSlot, int nBatchSize, Plugin plugin )
+    {
+        for ( List<Slot> listChunk : partition( listSlot, nBatchSize ) )
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin ) )
+            {
+                for ( Slot slot : listChunk )
+                {
+                    fillDaoUtil( daoUtil, slot, false );
+                    daoUtil.addBatch( );
+                }
+                daoUtil.executeBatch( );
+            }
+        }
+    }
+
+    @Override
+    public void incrementMaxCapacityList( List<Slot> listSlot, int nIncrementingValue, int nBatchSize, Plugin plugin )
+    {
+        for ( List<Slot> listChunk : partition( listSlot, nBatchSize ) )
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INCREMENT_MAX_CAPACITY, plugin ) )
+            {
+                for ( Slot slot : listChunk )
+                {
+                    int nIndex = 0;
+                    daoUtil.setInt( ++nIndex, nIncrementingValue );
+                    daoUtil.setInt( ++nIndex, nIncrementingValue );
+                    daoUtil.setInt( ++nIndex, nIncrementingValue );
+                    daoUtil.setBoolean( ++nIndex, slot.getIsSpecific( ) );
+                    daoUtil.setInt( ++nIndex, slot.getIdSlot( ) );
+                    daoUtil.addBatch( );
+                }
+                daoUtil.executeBatch( );
+            }
+        }
+    }
+
     @Override
     public void delete( int nIdSlot, Plugin plugin )
     {
@@ -254,6 +364,30 @@ public final class SlotDAO implements ISlotDAO
         return listSlot;
     }
 
+    @Override
+    public List<Slot> findByListIdSlot( List<Integer> listIdSlot, Plugin plugin )
+    {
+        List<Slot> listSlot = new ArrayList<>( );
+        if ( listIdSlot.isEmpty( ) )
+        {
+            return listSlot;
+        }
+        String query = SQL_QUERY_SELECT_BY_LIST_ID_SLOT + listIdSlot.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + SQL_ORDER_BY_ID_SLOT;
+        try ( DAOUtil daoUtil = new DAOUtil( query, plugin ) )
+        {
+            for ( int i = 0; i < listIdSlot.size( ); i++ )
+            {
+                daoUtil.setInt( i + 1, listIdSlot.get( i ) );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listSlot.add( buildSlot( daoUtil ) );
+            }
+        }
+        return listSlot;
+    }
+
     @Override
     public Slot findSlotWithMaxDate( int nIdForm, Plugin plugin )
     {
@@ -281,6 +415,77 @@ public final class SlotDAO implements ISlotDAO
         }
     }
 
+    @Override
+    public boolean reservePlaces( int nIdSlot, int nbPlaces, int nbMaxPotentialBookedSeats, LocalDateTime now, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_RESERVE_PLACES, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nbMaxPotentialBookedSeats );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nIdSlot );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setTimestamp( nIndex, Timestamp.valueOf( now ) );
+            return daoUtil.executeUpdate( ) == 1;
+        }
+    }
+
+    @Override
+    public void releasePlaces( int nIdSlot, int nbPlaces, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_RELEASE_PLACES, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex, nIdSlot );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void takePlaces( int nIdSlot, int nbPlaces, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_TAKE_PLACES, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex++, nbPlaces );
+            daoUtil.setInt( nIndex, nIdSlot );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void incrementPotentialRemainingPlaces( int nbPlaces, int nIdSlot, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INCREMENT_POTENTIAL_REMAINING_PLACE, plugin ) )
+        {
+            daoUtil.setInt( 1, nbPlaces );
+            daoUtil.setInt( 2, nIdSlot );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void decrementPotentialRemainingPlaces( int nbPlaces, int nIdSlot, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DECREMENT_POTENTIAL_REMAINING_PLACE, plugin ) )
+        {
+            daoUtil.setInt( 1, nbPlaces );
+            daoUtil.setInt( 2, nIdSlot );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     /**
      * Build a Slot business object from the resultset
      * 
@@ -322,7 +527,6 @@ public final class SlotDAO implements ISlotDAO
      */
     private DAOUtil buildDaoUtil( String query, Slot slot, Plugin plugin, boolean isInsert )
     {
-        int nIndex = 1;
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
@@ -332,6 +536,23 @@ public final class SlotDAO implements ISlotDAO
         {
             daoUtil = new DAOUtil( query, plugin );
         }
+        fillDaoUtil( daoUtil, slot, isInsert );
+        return daoUtil;
+    }
+
+    /**
+     * Assign the values of a slot to the parameters of an insert or update query
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param slot
+     *            the slot
+     * @param isInsert
+     *            true if it is an insert query, false if it is an update query (in this case, the id of the slot is set in the where clause)
+     */
+    private void fillDaoUtil( DAOUtil daoUtil, Slot slot, boolean isInsert )
+    {
+        int nIndex = 1;
         daoUtil.setTimestamp( nIndex++, slot.getStartingTimestampDate( ) );
         daoUtil.setTimestamp( nIndex++, slot.getEndingTimestampDate( ) );
         daoUtil.setBoolean( nIndex++, slot.getIsOpen( ) );
@@ -345,7 +566,48 @@ public final class SlotDAO implements ISlotDAO
         {
             daoUtil.setInt( nIndex, slot.getIdSlot( ) );
         }
-        return daoUtil;
+    }
+
+    /**
+     * Assign the values of a slot to the parameters of the update query keeping the places taken. The remaining places are shifted by the change of capacity
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param slot
+     *            the slot
+     */
+    private void fillDaoUtilWithRelativePlaces( DAOUtil daoUtil, Slot slot )
+    {
+        int nIndex = 1;
+        daoUtil.setInt( nIndex++, slot.getMaxCapacity( ) );
+        daoUtil.setInt( nIndex++, slot.getMaxCapacity( ) );
+        daoUtil.setTimestamp( nIndex++, slot.getStartingTimestampDate( ) );
+        daoUtil.setTimestamp( nIndex++, slot.getEndingTimestampDate( ) );
+        daoUtil.setBoolean( nIndex++, slot.getIsOpen( ) );
+        daoUtil.setBoolean( nIndex++, slot.getIsSpecific( ) );
+        daoUtil.setInt( nIndex++, slot.getMaxCapacity( ) );
+        daoUtil.setInt( nIndex++, slot.getIdForm( ) );
+        daoUtil.setInt( nIndex, slot.getIdSlot( ) );
+    }
+
+    /**
+     * Split a list of slots in consecutive chunks of the given size, keeping the order of the list
+     * 
+     * @param listSlot
+     *            the list of slots
+     * @param nBatchSize
+     *            the maximum size of a chunk
+     * @return the list of chunks
+     */
+    private static List<List<Slot>> partition( List<Slot> listSlot, int nBatchSize )
+    {
+        List<List<Slot>> listChunk = new ArrayList<>( );
+        int nSize = Math.max( nBatchSize, 1 );
+        for ( int nStart = 0; nStart < listSlot.size( ); nStart += nSize )
+        {
+            listChunk.add( listSlot.subList( nStart, Math.min( nStart + nSize, listSlot.size( ) ) ) );
+        }
+        return listChunk;
     }
 
     @Override
@@ -372,4 +634,16 @@ public final class SlotDAO implements ISlotDAO
         }
         return listDate;
     }
+
+    @Override
+    public void copySpecificByIdForm( int nIdForm, int nIdFormCopy, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COPY_SPECIFIC_BY_ID_FORM, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nIdFormCopy );
+            daoUtil.setInt( nIndex, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Business class of a hold on a slot: the places potentially taken by a user while filling the appointment form, until the expiry date of the hold
+ *
+ */
+public final class SlotHold implements Serializable
+{
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = 6206526346178564216L;
+
+    /**
+     * Key of the hold, kept in the session of the user
+     */
+    private String _strHoldKey;
+
+    /**
+     * Id of the slot held
+     */
+    private int _nIdSlot;
+
+    /**
+     * Number of places held
+     */
+    private int _nNbPlaces;
+
+    /**
+     * Expiry date time of the hold
+     */
+    private LocalDateTime _expiryDateTime;
+
+    /**
+     * Get the key of the hold
+     * 
+     * @return the key of the hold
+     */
+    public String getHoldKey( )
+    {
+        return _strHoldKey;
+    }
+
+    /**
+     * Set the key of the hold
+     * 
+     * @param strHoldKey
+     *            the key to set
+     */
+    public void setHoldKey( String strHoldKey )
+    {
+        _strHoldKey = strHoldKey;
+    }
+
+    /**
+     * Get the id of the slot held
+     * 
+     * @return the id of the slot
+     */
+    public int getIdSlot( )
+    {
+        return _nIdSlot;
+    }
+
+    /**
+     * Set the id of the slot held
+     * 
+     * @param nIdSlot
+     *            the id of the slot to set
+     */
+    public void setIdSlot( int nIdSlot )
+    {
+        _nIdSlot = nIdSlot;
+    }
+
+    /**
+     * Get the number of places held
+     * 
+     * @return the number of places
+     */
+    public int getNbPlaces( )
+    {
+        return _nNbPlaces;
+    }
+
+    /**
+     * Set the number of places held
+     * 
+     * @param nNbPlaces
+     *            the number of places to set
+     */
+    public void setNbPlaces( int nNbPlaces )
+    {
+        _nNbPlaces = nNbPlaces;
+    }
+
+    /**
+     * Get the expiry date time of the hold
+     * 
+     * @return the expiry date time
+     */
+    public LocalDateTime getExpiryDateTime( )
+    {
+        return _expiryDateTime;
+    }
+
+    /**
+     * Set the expiry date time of the hold
+     * 
+     * @param expiryDateTime
+     *            the expiry date time to set
+     */
+    public void setExpiryDateTime( LocalDateTime expiryDateTime )
+    {
+        _expiryDateTime = expiryDateTime;
+    }
+
+    /**
+     * Get the expiry date time of the hold in sql format
+     * 
+     * @return the expiry date time in sql format
+     */
+    public Timestamp getExpirySqlDateTime( )
+    {
+        return ( _expiryDateTime != null ) ? Timestamp.valueOf( _expiryDateTime ) : null;
+    }
+
+    /**
+     * Set the expiry date time of the hold from a sql timestamp
+     * 
+     * @param expirySqlDateTime
+     *            the expiry date time in sql format
+     */
+    public void setExpirySqlDateTime( Timestamp expirySqlDateTime )
+    {
+        _expiryDateTime = ( expirySqlDateTime != null ) ? expirySqlDateTime.toLocalDateTime( ) : null;
+    }
+}
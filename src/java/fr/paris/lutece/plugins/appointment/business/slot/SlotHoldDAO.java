@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * This class provides Data Access methods for the holds on slots
+ *
+ */
+public final class SlotHoldDAO implements ISlotHoldDAO
+{
+    private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_slot_hold (hold_key, id_slot, nb_places, expiry_date) VALUES ( ?, ?, ?, ? )";
+    private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_slot_hold WHERE hold_key = ?";
+    private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT hold_key, id_slot, nb_places, expiry_date FROM appointment_slot_hold ";
+    private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + "WHERE hold_key = ?";
+    private static final String SQL_QUERY_SELECT_ACTIVE_BY_ID_SLOT = SQL_QUERY_SELECT_COLUMNS + "WHERE id_slot = ? AND expiry_date >= ?";
+    private static final String SQL_QUERY_SELECT_EXPIRED = SQL_QUERY_SELECT_COLUMNS + "WHERE expiry_date < ? ORDER BY id_slot LIMIT ?";
+
+    @Override
+    public void insert( SlotHold slotHold, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, slotHold.getHoldKey( ) );
+            daoUtil.setInt( nIndex++, slotHold.getIdSlot( ) );
+            daoUtil.setInt( nIndex++, slotHold.getNbPlaces( ) );
+            daoUtil.setTimestamp( nIndex, slotHold.getExpirySqlDateTime( ) );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public boolean delete( String strHoldKey, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            daoUtil.setString( 1, strHoldKey );
+            return daoUtil.executeUpdate( ) == 1;
+        }
+    }
+
+    @Override
+    public SlotHold select( String strHoldKey, Plugin plugin )
+    {
+        SlotHold slotHold = null;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        {
+            daoUtil.setString( 1, strHoldKey );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                slotHold = buildSlotHold( daoUtil );
+            }
+        }
+        return slotHold;
+    }
+
+    @Override
+    public List<SlotHold> findActiveByIdSlot( int nIdSlot, LocalDateTime now, Plugin plugin )
+    {
+        List<SlotHold> listSlotHold = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ACTIVE_BY_ID_SLOT, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdSlot );
+            daoUtil.setTimestamp( 2, Timestamp.valueOf( now ) );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listSlotHold.add( buildSlotHold( daoUtil ) );
+            }
+        }
+        return listSlotHold;
+    }
+
+    @Override
+    public List<SlotHold> findExpired( LocalDateTime now, int nMaxResults, Plugin plugin )
+    {
+        List<SlotHold> listSlotHold = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_EXPIRED, plugin ) )
+        {
+            daoUtil.setTimestamp( 1, Timestamp.valueOf( now ) );
+            daoUtil.setInt( 2, nMaxResults );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listSlotHold.add( buildSlotHold( daoUtil ) );
+            }
+        }
+        return listSlotHold;
+    }
+
+    /**
+     * Build a SlotHold business object from the resultset
+     * 
+     * @param daoUtil
+     *            the prepare statement util object
+     * @return a new SlotHold with all its attributes assigned
+     */
+    private SlotHold buildSlotHold( DAOUtil daoUtil )
+    {
+        int nIndex = 1;
+        SlotHold slotHold = new SlotHold( );
+        slotHold.setHoldKey( daoUtil.getString( nIndex++ ) );
+        slotHold.setIdSlot( daoUtil.getInt( nIndex++ ) );
+        slotHold.setNbPlaces( daoUtil.getInt( nIndex++ ) );
+        slotHold.setExpirySqlDateTime( daoUtil.getTimestamp( nIndex ) );
+        return slotHold;
+    }
+}
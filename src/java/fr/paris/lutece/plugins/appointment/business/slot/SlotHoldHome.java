@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+/**
+ * This class provides instances management methods for the holds on slots
+ *
+ */
+public final class SlotHoldHome
+{
+    // Static variable pointed at the DAO instance
+    private static ISlotHoldDAO _dao = SpringContextService.getBean( "appointment.slotHoldDAO" );
+    private static Plugin _plugin = PluginService.getPlugin( AppointmentPlugin.PLUGIN_NAME );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private SlotHoldHome( )
+    {
+    }
+
+    /**
+     * Create a hold
+     * 
+     * @param slotHold
+     *            the hold to create
+     * @return the hold created
+     */
+    public static SlotHold create( SlotHold slotHold )
+    {
+        _dao.insert( slotHold, _plugin );
+        return slotHold;
+    }
+
+    /**
+     * Delete a hold
+     * 
+     * @param strHoldKey
+     *            the key of the hold
+     * @return true if the hold has been deleted, false if it did not exist anymore
+     */
+    public static boolean delete( String strHoldKey )
+    {
+        return _dao.delete( strHoldKey, _plugin );
+    }
+
+    /**
+     * Find a hold by its key
+     * 
+     * @param strHoldKey
+     *            the key of the hold
+     * @return the hold, null if it does not exist
+     */
+    public static SlotHold findByPrimaryKey( String strHoldKey )
+    {
+        return _dao.select( strHoldKey, _plugin );
+    }
+
+    /**
+     * Find the holds of a slot that have not expired
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the list of the active holds of the slot
+     */
+    public static List<SlotHold> findActiveByIdSlot( int nIdSlot )
+    {
+        return _dao.findActiveByIdSlot( nIdSlot, LocalDateTime.now( ), _plugin );
+    }
+
+    /**
+     * Find the holds that have expired, ordered by slot
+     * 
+     * @param nMaxResults
+     *            the maximum number of holds to return
+     * @return the list of the expired holds
+     */
+    public static List<SlotHold> findExpired( int nMaxResults )
+    {
+        return _dao.findExpired( LocalDateTime.now( ), nMaxResults, _plugin );
+    }
+}
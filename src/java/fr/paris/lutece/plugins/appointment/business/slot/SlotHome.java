@@ -41,6 +41,7 @@ import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
 /**
  * This class provides instances management methods for Slot objects
@@ -53,6 +54,7 @@ public final class SlotHome
     // Static variable pointed at the DAO instance
     private static ISlotDAO _dao = SpringContextService.getBean( "appointment.slotDAO" );
     private static Plugin _plugin = PluginService.getPlugin( AppointmentPlugin.PLUGIN_NAME );
+    private static final int BATCH_SIZE = AppPropertiesService.getPropertyInt( "appointment.slot.batch.size", 500 );
 
     /**
      * Private constructor - this class does not need to be instantiated
@@ -89,6 +91,76 @@ public final class SlotHome
         return slot;
     }
 
+    /**
+     * Update a slot without writing its places taken. Its remaining places are shifted by the change of capacity, so that the places reserved concurrently
+     * are kept
+     * 
+     * @param slot
+     *            The instance of the Slot which contains the data to store
+     * @return The instance of the Slot which has been updated
+     */
+    public static Slot updateWithRelativePlaces( Slot slot )
+    {
+        _dao.updateWithRelativePlaces( slot, _plugin );
+
+        return slot;
+    }
+
+    /**
+     * Create a list of slots, the statements are sent to the database by batches
+     * 
+     * @param listSlot
+     *            the list of slots to create
+     * @return the list of slots created, with their primary keys
+     */
+    public static List<Slot> createList( List<Slot> listSlot )
+    {
+        _dao.insertList( listSlot, BATCH_SIZE, _plugin );
+
+        return listSlot;
+    }
+
+    /**
+     * Update a list of slots, the statements are sent to the database by batches in the order of the list
+     * 
+     * @param listSlot
+     *            the list of slots to update
+     * @return the list of slots updated
+     */
+    public static List<Slot> updateList( List<Slot> listSlot )
+    {
+        _dao.updateList( listSlot, BATCH_SIZE, _plugin );
+
+        return listSlot;
+    }
+
+    /**
+     * Update a list of slots without writing their places taken, the statements are sent to the database by batches in the order of the list
+     * 
+     * @param listSlot
+     *            the list of slots to update
+     * @return the list of slots updated
+     */
+    public static List<Slot> updateListWithRelativePlaces( List<Slot> listSlot )
+    {
+        _dao.updateListWithRelativePlaces( listSlot, BATCH_SIZE, _plugin );
+
+        return listSlot;
+    }
+
+    /**
+     * Add a value to the capacity and to the remaining places of a list of slots, the statements are sent to the database by batches
+     * 
+     * @param listSlot
+     *            the list of slots to update
+     * @param nIncrementingValue
+     *            the value to add
+     */
+    public static void incrementMaxCapacityList( List<Slot> listSlot, int nIncrementingValue )
+    {
+        _dao.incrementMaxCapacityList( listSlot, nIncrementingValue, BATCH_SIZE, _plugin );
+    }
+
     /**
      * Delete the Slot whose identifier is specified in parameter
      * 
@@ -236,6 +308,18 @@ public final class SlotHome
         return _dao.findByIdAppointment( nIdAppointment, _plugin );
     }
 
+    /**
+     * Returns the slots of a list of ids, ordered by id
+     * 
+     * @param listIdSlot
+     *            the list of the slot ids
+     * @return the list of the slots found
+     */
+    public static List<Slot> findByListIdSlot( List<Integer> listIdSlot )
+    {
+        return _dao.findByListIdSlot( listIdSlot, _plugin );
+    }
+
     /**
      * Update Potential Remaining Places
      * 
@@ -249,6 +333,74 @@ public final class SlotHome
 
     }
 
+    /**
+     * Reserve places on a slot in a single guarded statement
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to reserve
+     * @param nbMaxPotentialBookedSeats
+     *            the number of places that were potentially taken by the user while filling the form
+     * @return true if the places have been reserved, false if the slot is full, over or does not exist
+     */
+    public static boolean reservePlaces( int nIdSlot, int nbPlaces, int nbMaxPotentialBookedSeats )
+    {
+        return _dao.reservePlaces( nIdSlot, nbPlaces, nbMaxPotentialBookedSeats, LocalDateTime.now( ), _plugin );
+    }
+
+    /**
+     * Release the places of an appointment deleted, cancelled or moved
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to release
+     */
+    public static void releasePlaces( int nIdSlot, int nbPlaces )
+    {
+        _dao.releasePlaces( nIdSlot, nbPlaces, _plugin );
+    }
+
+    /**
+     * Take places on a slot without any check on the remaining places
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to take
+     */
+    public static void takePlaces( int nIdSlot, int nbPlaces )
+    {
+        _dao.takePlaces( nIdSlot, nbPlaces, _plugin );
+    }
+
+    /**
+     * Increment the potential remaining places of a slot, without exceeding its remaining places
+     * 
+     * @param nbPlaces
+     *            the number of places to add
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    public static void incrementPotentialRemainingPlaces( int nbPlaces, int nIdSlot )
+    {
+        _dao.incrementPotentialRemainingPlaces( nbPlaces, nIdSlot, _plugin );
+    }
+
+    /**
+     * Decrement the potential remaining places of a slot
+     * 
+     * @param nbPlaces
+     *            the number of places to subtract
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    public static void decrementPotentialRemainingPlaces( int nbPlaces, int nIdSlot )
+    {
+        _dao.decrementPotentialRemainingPlaces( nbPlaces, nIdSlot, _plugin );
+    }
+
     /**
      * Reset Potential Remaining Places
      * 
@@ -277,4 +429,17 @@ public final class SlotHome
         return _dao.findSpecificSlotDates( nIdForm, _plugin );
     }
 
+    /**
+     * Copy the specific slots of a form to another form, with a single query. The slots of the copy are empty
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdFormCopy
+     *            the id of the form receiving the copy
+     */
+    public static void copySpecificByIdForm( int nIdForm, int nIdFormCopy )
+    {
+        _dao.copySpecificByIdForm( nIdForm, nIdFormCopy, _plugin );
+    }
+
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import fr.paris.lutece.portal.service.database.PluginConnectionService;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+
+/**
+ * This class provides Data Access methods for the leases taken on slots.
+ * <p>
+ * The leases must be visible by the other nodes as soon as they are taken, whatever the transaction in progress in the current thread. That's why the
+ * statements are executed on a dedicated connection of the pool instead of the transactional connection used by DAOUtil.
+ * </p>
+ */
+public final class SlotLockDAO implements ISlotLockDAO
+{
+
+    private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_slot_lock (id_slot, lock_owner, expiry_date) VALUES ( ?, ?, ? )";
+    private static final String SQL_QUERY_RENEW_OR_TAKE_OVER = "UPDATE appointment_slot_lock SET lock_owner = ?, expiry_date = ? WHERE id_slot = ? AND ( lock_owner = ? OR expiry_date < ? )";
+    private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_slot_lock WHERE id_slot = ? AND lock_owner = ?";
+    private static final String SQL_QUERY_DELETE_EXPIRED = "DELETE FROM appointment_slot_lock WHERE expiry_date < ?";
+    // Class of the SQL states of the integrity constraint violations
+    private static final String SQL_STATE_INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+    @Override
+    public boolean insert( int nIdSlot, String strOwner, LocalDateTime expiryDateTime, Plugin plugin )
+    {
+        PluginConnectionService connectionService = plugin.getConnectionService( );
+        Connection connection = connectionService.getConnection( );
+        try ( PreparedStatement statement = connection.prepareStatement( SQL_QUERY_INSERT ) )
+        {
+            statement.setInt( 1, nIdSlot );
+            statement.setString( 2, strOwner );
+            statement.setTimestamp( 3, Timestamp.valueOf( expiryDateTime ) );
+            statement.executeUpdate( );
+            return true;
+        }
+        catch( SQLException e )
+        {
+            // The lease is already held by someone else (primary key violation), any other error is not a contention
+            if ( e.getSQLState( ) != null && e.getSQLState( ).startsWith( SQL_STATE_INTEGRITY_CONSTRAINT_VIOLATION ) )
+            {
+                return false;
+            }
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            connectionService.freeConnection( connection );
+        }
+    }
+
+    @Override
+    public boolean renewOrTakeOver( int nIdSlot, String strOwner, LocalDateTime expiryDateTime, LocalDateTime now, Plugin plugin )
+    {
+        PluginConnectionService connectionService = plugin.getConnectionService( );
+        Connection connection = connectionService.getConnection( );
+        try ( PreparedStatement statement = connection.prepareStatement( SQL_QUERY_RENEW_OR_TAKE_OVER ) )
+        {
+            int nIndex = 1;
+            statement.setString( nIndex++, strOwner );
+            statement.setTimestamp( nIndex++, Timestamp.valueOf( expiryDateTime ) );
+            statement.setInt( nIndex++, nIdSlot );
+            statement.setString( nIndex++, strOwner );
+            statement.setTimestamp( nIndex, Timestamp.valueOf( now ) );
+            return statement.executeUpdate( ) == 1;
+        }
+        catch( SQLException e )
+        {
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            connectionService.freeConnection( connection );
+        }
+    }
+
+    @Override
+    public void delete( int nIdSlot, String strOwner, Plugin plugin )
+    {
+        PluginConnectionService connectionService = plugin.getConnectionService( );
+        Connection connection = connectionService.getConnection( );
+        try ( PreparedStatement statement = connection.prepareStatement( SQL_QUERY_DELETE ) )
+        {
+            statement.setInt( 1, nIdSlot );
+            statement.setString( 2, strOwner );
+            statement.executeUpdate( );
+        }
+        catch( SQLException e )
+        {
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            connectionService.freeConnection( connection );
+        }
+    }
+
+    @Override
+    public void deleteExpired( LocalDateTime now, Plugin plugin )
+    {
+        PluginConnectionService connectionService = plugin.getConnectionService( );
+        Connection connection = connectionService.getConnection( );
+        try ( PreparedStatement statement = connection.prepareStatement( SQL_QUERY_DELETE_EXPIRED ) )
+        {
+            statement.setTimestamp( 1, Timestamp.valueOf( now ) );
+            statement.executeUpdate( );
+        }
+        catch( SQLException e )
+        {
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            connectionService.freeConnection( connection );
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.slot;
+
+import java.time.LocalDateTime;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+/**
+ * This class provides instances management methods for the leases taken on slots
+ *
+ */
+public final class SlotLockHome
+{
+    // Static variable pointed at the DAO instance
+    private static ISlotLockDAO _dao = SpringContextService.getBean( "appointment.slotLockDAO" );
+    private static Plugin _plugin = PluginService.getPlugin( AppointmentPlugin.PLUGIN_NAME );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private SlotLockHome( )
+    {
+    }
+
+    /**
+     * Try to acquire the lease on a slot, either by creating it, renewing it or taking over an expired one
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param strOwner
+     *            the owner of the lease
+     * @param expiryDateTime
+     *            the expiry date time of the lease
+     * @return true if the lease is owned by the given owner
+     */
+    public static boolean acquire( int nIdSlot, String strOwner, LocalDateTime expiryDateTime )
+    {
+        return _dao.renewOrTakeOver( nIdSlot, strOwner, expiryDateTime, LocalDateTime.now( ), _plugin )
+                || _dao.insert( nIdSlot, strOwner, expiryDateTime, _plugin );
+    }
+
+    /**
+     * Extend the lease of the owner on a slot. A lease that has been released is not taken again
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param strOwner
+     *            the owner of the lease
+     * @param expiryDateTime
+     *            the new expiry date time of the lease
+     * @return true if the lease is still owned by the given owner
+     */
+    public static boolean renew( int nIdSlot, String strOwner, LocalDateTime expiryDateTime )
+    {
+        return _dao.renewOrTakeOver( nIdSlot, strOwner, expiryDateTime, LocalDateTime.now( ), _plugin );
+    }
+
+    /**
+     * Release the lease of the owner on a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param strOwner
+     *            the owner of the lease
+     */
+    public static void release( int nIdSlot, String strOwner )
+    {
+        _dao.delete( nIdSlot, strOwner, _plugin );
+    }
+
+    /**
+     * Delete all the leases that have expired
+     */
+    public static void deleteExpired( )
+    {
+        _dao.deleteExpired( LocalDateTime.now( ), _plugin );
+    }
+}
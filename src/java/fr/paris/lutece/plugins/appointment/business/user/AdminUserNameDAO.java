@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business.user;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.portal.business.user.AdminUser;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * This class provides Data Access methods for the names of the admin users. The core API loads the admin users one by one, with their rights and roles,
+ * so the names are read here from the core_admin_user table, on the pool of the core
+ *
+ */
+public final class AdminUserNameDAO implements IAdminUserNameDAO
+{
+    private static final String SQL_QUERY_SELECT_BY_LIST_ID = "SELECT id_user, first_name, last_name FROM core_admin_user WHERE id_user IN ( ";
+
+    @Override
+    public List<AdminUser> selectByListId( Collection<Integer> collectionIdAdminUser )
+    {
+        List<AdminUser> listAdminUser = new ArrayList<>( );
+        if ( collectionIdAdminUser.isEmpty( ) )
+        {
+            return listAdminUser;
+        }
+        String strQuery = SQL_QUERY_SELECT_BY_LIST_ID + collectionIdAdminUser.stream( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new DAOUtil( strQuery ) )
+        {
+            int nIndex = 0;
+            for ( Integer nIdAdminUser : collectionIdAdminUser )
+            {
+                daoUtil.setInt( ++nIndex, nIdAdminUser );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                AdminUser adminUser = new AdminUser( );
+                adminUser.setUserId( daoUtil.getInt( 1 ) );
+                adminUser.setFirstName( daoUtil.getString( 2 ) );
+                adminUser.setLastName( daoUtil.getString( 3 ) );
+                listAdminUser.add( adminUser );
+            }
+        }
+        return listAdminUser;
+    }
+}
@@ -75,6 +75,16 @@ public interface IUserDAO
      */
     void delete( int nIdUser, Plugin plugin );
 
+    /**
+     * Delete the records of a list of users
+     * 
+     * @param listIdUser
+     *            the identifiers of the users to delete
+     * @param plugin
+     *            the Plugin
+     */
+    void deleteByListIdUser( List<Integer> listIdUser, Plugin plugin );
+
     /**
      * Load the data from the table
      * 
@@ -99,6 +99,17 @@ public final class UserHome
         _dao.delete( nKey, _plugin );
     }
 
+    /**
+     * Delete the Users whose identifiers are specified in parameter
+     * 
+     * @param listIdUser
+     *            The User Ids
+     */
+    public static void deleteByListIdUser( List<Integer> listIdUser )
+    {
+        _dao.deleteByListIdUser( listIdUser, _plugin );
+    }
+
     /**
      * Returns an instance of the User whose identifier is specified in parameter
      * 
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.appointment.business.user.AdminUserNameHome;
+import fr.paris.lutece.portal.business.user.AdminUser;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+
+/**
+ * Cache of the display names of the admin users who created or modified appointments.
+ * 
+ * The names of a list of appointments are resolved together: only the admin users not in cache are loaded, with a single query for all the appointments. As
+ * the appointments are created or modified by few admin users, they are all found in cache after the first lists. The names are kept for the time to live
+ * of the Lutece cache named {@value #SERVICE_NAME}.
+ */
+public final class AdminUserNameCacheService extends AbstractCacheableService
+{
+    private static final String SERVICE_NAME = "Appointment Admin User Name Cache Service";
+
+    private static AdminUserNameCacheService _singleton = new AdminUserNameCacheService( );
+
+    /**
+     * Private constructor
+     */
+    private AdminUserNameCacheService( )
+    {
+        initCache( );
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return the instance of the service
+     */
+    public static AdminUserNameCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Get the display names of a collection of admin users
+     * 
+     * @param collectionIdAdminUser
+     *            the ids of the admin users, the ids 0 are ignored
+     * @return the display names by id of admin user, without the admin users that do not exist
+     */
+    public Map<Integer, String> getMapAdminUserName( Collection<Integer> collectionIdAdminUser )
+    {
+        Map<Integer, String> mapAdminUserName = new HashMap<>( );
+        Set<Integer> setIdAdminUserToLoad = new LinkedHashSet<>( );
+        for ( Integer nIdAdminUser : collectionIdAdminUser )
+        {
+            if ( nIdAdminUser == null || nIdAdminUser == 0 || mapAdminUserName.containsKey( nIdAdminUser ) )
+            {
+                continue;
+            }
+            String strName = (String) getFromCache( String.valueOf( nIdAdminUser ) );
+            if ( strName != null )
+            {
+                mapAdminUserName.put( nIdAdminUser, strName );
+            }
+            else
+            {
+                setIdAdminUserToLoad.add( nIdAdminUser );
+            }
+        }
+        for ( AdminUser adminUser : AdminUserNameHome.findByListId( setIdAdminUserToLoad ) )
+        {
+            putAdminUserName( adminUser, mapAdminUserName );
+        }
+        return mapAdminUserName;
+    }
+
+    /**
+     * Get the display name of an admin user
+     * 
+     * @param nIdAdminUser
+     *            the id of the admin user
+     * @return the display name, null if the admin user does not exist
+     */
+    public String getAdminUserName( int nIdAdminUser )
+    {
+        return getMapAdminUserName( Collections.singleton( nIdAdminUser ) ).get( nIdAdminUser );
+    }
+
+    /**
+     * Put the display name of an admin user in the map and in the cache
+     * 
+     * @param adminUser
+     *            the admin user
+     * @param mapAdminUserName
+     *            the map of the display names
+     */
+    private void putAdminUserName( AdminUser adminUser, Map<Integer, String> mapAdminUserName )
+    {
+        String strName = adminUser.getFirstName( ) + StringUtils.SPACE + adminUser.getLastName( );
+        mapAdminUserName.put( adminUser.getUserId( ), strName );
+        putInCache( String.valueOf( adminUser.getUserId( ) ), strName );
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.archive.ArchiveHome;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.sql.TransactionManager;
+
+/**
+ * Service moving the past slots and appointments to the archive tables.
+ * 
+ * The appointments whose slots all end more than {@value #PROPERTY_HORIZON_DAYS} days ago are moved with their links to their slots and to their
+ * responses, then the past slots left without appointment are moved, by batches of {@value #PROPERTY_BATCH_SIZE} rows, each batch in its own transaction.
+ * The archived appointments are still found by their id, their reference or the guid of their user, read-only, but they are no longer listed, searched or
+ * exported in the back office. The archiving is therefore disabled unless a horizon is configured.
+ */
+public final class AppointmentArchiveService
+{
+    private static final String PROPERTY_HORIZON_DAYS = "appointment.archive.horizonDays";
+    private static final String PROPERTY_BATCH_SIZE = "appointment.archive.batchSize";
+    private static final int DEFAULT_HORIZON_DAYS = 0;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentArchiveService( )
+    {
+    }
+
+    /**
+     * Archive the slots and the appointments older than the horizon
+     * 
+     * @return the logs of the archiving
+     */
+    public static String archive( )
+    {
+        int nHorizonDays = AppPropertiesService.getPropertyInt( PROPERTY_HORIZON_DAYS, DEFAULT_HORIZON_DAYS );
+        if ( nHorizonDays <= 0 )
+        {
+            return "Archiving disabled";
+        }
+        int nBatchSize = AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE );
+        LocalDateTime horizon = LocalDate.now( ).minusDays( nHorizonDays ).atStartOfDay( );
+        int nNbAppointments = 0;
+        int nNbSlots = 0;
+        try
+        {
+            List<Integer> listIdAppointment = ArchiveHome.findIdAppointmentToArchive( horizon, nBatchSize );
+            while ( !listIdAppointment.isEmpty( ) )
+            {
+                archiveAppointments( listIdAppointment );
+                nNbAppointments += listIdAppointment.size( );
+                listIdAppointment = ArchiveHome.findIdAppointmentToArchive( horizon, nBatchSize );
+            }
+            List<Integer> listIdSlot = ArchiveHome.findIdSlotToArchive( horizon, nBatchSize );
+            while ( !listIdSlot.isEmpty( ) )
+            {
+                archiveSlots( listIdSlot );
+                nNbSlots += listIdSlot.size( );
+                listIdSlot = ArchiveHome.findIdSlotToArchive( horizon, nBatchSize );
+            }
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Error while archiving the slots and the appointments ending before " + horizon, e );
+        }
+        return nNbAppointments + " appointment(s) and " + nNbSlots + " slot(s) ending before " + horizon + " archived";
+    }
+
+    /**
+     * Archive a batch of appointments in its own transaction
+     * 
+     * @param listIdAppointment
+     *            the list of the ids of the appointments
+     */
+    private static void archiveAppointments( List<Integer> listIdAppointment )
+    {
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            ArchiveHome.archiveAppointments( listIdAppointment );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            throw e;
+        }
+    }
+
+    /**
+     * Archive a batch of slots in its own transaction
+     * 
+     * @param listIdSlot
+     *            the list of the ids of the slots
+     */
+    private static void archiveSlots( List<Integer> listIdSlot )
+    {
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            ArchiveHome.archiveSlots( listIdSlot );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            throw e;
+        }
+    }
+}
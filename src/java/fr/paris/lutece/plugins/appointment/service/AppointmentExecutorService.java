@@ -33,24 +33,96 @@
  */
 package fr.paris.lutece.plugins.appointment.service;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
+/**
+ * Executor of the asynchronous tasks of the plugin, mainly the notifications of the listeners.
+ * 
+ * The queue of the executor is bounded. When it is full, the policy defined by the property {@value #PROPERTY_REJECTION_POLICY} applies:
+ * <ul>
+ * <li>block (default): the submitting thread waits for a free place in the queue</li>
+ * <li>callerRuns: the task is executed by the submitting thread</li>
+ * <li>abort: a RejectedExecutionException is thrown</li>
+ * </ul>
+ * When the property {@value #PROPERTY_VIRTUAL_THREADS_ENABLED} is true and the JVM supports them, the tasks run on virtual threads instead, and each
+ * listener of a notification is called from its own task so that a slow listener does not delay the others. The number of tasks running at the same time
+ * is then limited by the property {@value #PROPERTY_VIRTUAL_THREADS_MAX_CONCURRENCY}, the submitting thread waiting for a free place beyond it.
+ * 
+ * The depth of the queue, the number of tasks and the time they spend in the queue and in execution are measured.
+ */
 public enum AppointmentExecutorService
 {
     INSTANCE;
+
     private static final String PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE = "appointment.executor.thread.pool.max.size";
-    private final ExecutorService _executorService = Executors.newFixedThreadPool(
-            AppPropertiesService.getPropertyInt( PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE, Runtime.getRuntime( ).availableProcessors( ) ),
-            new CustomizableThreadFactory( "Lutece-AppointmentExecutor-thread-" ) );
+    private static final String PROPERTY_QUEUE_CAPACITY = "appointment.executor.queue.capacity";
+    private static final String PROPERTY_REJECTION_POLICY = "appointment.executor.rejection.policy";
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final String POLICY_BLOCK = "block";
+    private static final String POLICY_CALLER_RUNS = "callerRuns";
+    private static final String POLICY_ABORT = "abort";
+    private static final String PROPERTY_VIRTUAL_THREADS_ENABLED = "appointment.executor.virtualThreads.enabled";
+    private static final String PROPERTY_VIRTUAL_THREADS_MAX_CONCURRENCY = "appointment.executor.virtualThreads.maxConcurrency";
+    private static final int DEFAULT_VIRTUAL_THREADS_MAX_CONCURRENCY = 256;
+
+    private final AtomicLong _lSubmitted = new AtomicLong( );
+    private final AtomicLong _lCompleted = new AtomicLong( );
+    private final AtomicLong _lRejected = new AtomicLong( );
+    private final AtomicLong _lTotalWaitingTime = new AtomicLong( );
+    private final AtomicLong _lMaxWaitingTime = new AtomicLong( );
+    private final AtomicLong _lTotalExecutionTime = new AtomicLong( );
+    private final ExecutorService _executorService;
+    // The pool of platform threads, null when the tasks run on virtual threads
+    private final ThreadPoolExecutor _threadPool;
+    // The limiter of the tasks running on virtual threads, null when the tasks run on the pool of platform threads
+    private final Semaphore _limiter;
+    private final int _nMaxConcurrency;
+    // Set while a thread runs a task of the executor, whose own submissions must not wait for a place held by itself
+    private final ThreadLocal<Boolean> _bRunningTask = new ThreadLocal<>( );
+
+    AppointmentExecutorService( )
+    {
+        ExecutorService virtualThreadExecutor = null;
+        if ( AppPropertiesService.getPropertyBoolean( PROPERTY_VIRTUAL_THREADS_ENABLED, false ) )
+        {
+            virtualThreadExecutor = createVirtualThreadExecutor( );
+        }
+        if ( virtualThreadExecutor != null )
+        {
+            _nMaxConcurrency = AppPropertiesService.getPropertyInt( PROPERTY_VIRTUAL_THREADS_MAX_CONCURRENCY, DEFAULT_VIRTUAL_THREADS_MAX_CONCURRENCY );
+            _executorService = virtualThreadExecutor;
+            _threadPool = null;
+            _limiter = new Semaphore( _nMaxConcurrency );
+        }
+        else
+        {
+            _nMaxConcurrency = AppPropertiesService.getPropertyInt( PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE, Runtime.getRuntime( ).availableProcessors( ) );
+            _threadPool = new ThreadPoolExecutor( _nMaxConcurrency, _nMaxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>( AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY ) ),
+                    new CustomizableThreadFactory( "Lutece-AppointmentExecutor-thread-" ),
+                    getRejectedExecutionHandler( AppPropertiesService.getProperty( PROPERTY_REJECTION_POLICY, POLICY_BLOCK ) ) );
+            _executorService = _threadPool;
+            _limiter = null;
+        }
+    }
 
     /**
      * Executes the given command at some time in the future. The command may execute in a new thread, in a pooled thread, or in the calling thread, at the
@@ -65,7 +137,17 @@ public enum AppointmentExecutorService
      */
     public void execute( Runnable task )
     {
-        _executorService.execute( task );
+        boolean bPermit = acquirePermit( );
+        try
+        {
+            _lSubmitted.incrementAndGet( );
+            _executorService.execute( new MeasuredTask( task, bPermit ) );
+        }
+        catch( RuntimeException e )
+        {
+            releasePermit( bPermit );
+            throw e;
+        }
     }
 
     /**
@@ -82,8 +164,146 @@ public enum AppointmentExecutorService
      */
     public Future<?> submit( Runnable task )
     {
+        boolean bPermit = acquirePermit( );
+        try
+        {
+            _lSubmitted.incrementAndGet( );
+            return _executorService.submit( new MeasuredTask( task, bPermit ) );
+        }
+        catch( RuntimeException e )
+        {
+            releasePermit( bPermit );
+            throw e;
+        }
+    }
+
+    /**
+     * Call each listener of a notification. On virtual threads, each listener is called from its own task so that a slow listener does not delay the
+     * others. Otherwise, the listeners are called one after the other from a single task.
+     * 
+     * @param <T>
+     *            the type of the listeners
+     * @param listListeners
+     *            the listeners to call
+     * @param action
+     *            the call of a listener
+     */
+    public <T> void executeForEach( Collection<T> listListeners, Consumer<T> action )
+    {
+        if ( isVirtualThreadsEnabled( ) )
+        {
+            for ( T listener : listListeners )
+            {
+                execute( ( ) -> action.accept( listener ) );
+            }
+        }
+        else
+            if ( !listListeners.isEmpty( ) )
+            {
+                execute( ( ) -> listListeners.forEach( action ) );
+            }
+    }
+
+    /**
+     * Check if the tasks run on virtual threads
+     * 
+     * @return true if the tasks run on virtual threads
+     */
+    public boolean isVirtualThreadsEnabled( )
+    {
+        return _limiter != null;
+    }
+
+    /**
+     * Get the number of tasks waiting in the queue
+     * 
+     * @return the depth of the queue
+     */
+    public int getQueueDepth( )
+    {
+        return ( _threadPool != null ) ? _threadPool.getQueue( ).size( ) : _limiter.getQueueLength( );
+    }
+
+    /**
+     * Get the number of tasks submitted
+     * 
+     * @return the number of tasks submitted
+     */
+    public long getSubmittedCount( )
+    {
+        return _lSubmitted.get( );
+    }
+
+    /**
+     * Get the number of tasks executed
+     * 
+     * @return the number of tasks executed
+     */
+    public long getCompletedCount( )
+    {
+        return _lCompleted.get( );
+    }
+
+    /**
+     * Get the number of tasks rejected because the queue was full, whatever the policy applied
+     * 
+     * @return the number of tasks rejected
+     */
+    public long getRejectedCount( )
+    {
+        return _lRejected.get( );
+    }
+
+    /**
+     * Get the average time spent by the tasks in the queue
+     * 
+     * @return the average waiting time, in milliseconds
+     */
+    public long getAverageWaitingTime( )
+    {
+        long lCompleted = _lCompleted.get( );
+        return ( lCompleted == 0 ) ? 0 : TimeUnit.NANOSECONDS.toMillis( _lTotalWaitingTime.get( ) / lCompleted );
+    }
+
+    /**
+     * Get the longest time spent by a task in the queue
+     * 
+     * @return the maximum waiting time, in milliseconds
+     */
+    public long getMaxWaitingTime( )
+    {
+        return TimeUnit.NANOSECONDS.toMillis( _lMaxWaitingTime.get( ) );
+    }
+
+    /**
+     * Get the average execution time of the tasks
+     * 
+     * @return the average execution time, in milliseconds
+     */
+    public long getAverageExecutionTime( )
+    {
+        long lCompleted = _lCompleted.get( );
+        return ( lCompleted == 0 ) ? 0 : TimeUnit.NANOSECONDS.toMillis( _lTotalExecutionTime.get( ) / lCompleted );
+    }
 
-        return _executorService.submit( task );
+    /**
+     * Get the informations of the executor, with its statistics
+     * 
+     * @return the informations of the executor
+     */
+    public String getInfos( )
+    {
+        StringBuilder sbInfos = new StringBuilder( );
+        sbInfos.append( "virtualThreads=" ).append( isVirtualThreadsEnabled( ) );
+        sbInfos.append( ", queueDepth=" ).append( getQueueDepth( ) );
+        sbInfos.append( ", activeThreads=" ).append( ( _threadPool != null ) ? _threadPool.getActiveCount( ) : _nMaxConcurrency - _limiter.availablePermits( ) );
+        sbInfos.append( ", submitted=" ).append( getSubmittedCount( ) );
+        sbInfos.append( ", completed=" ).append( getCompletedCount( ) );
+        sbInfos.append( ", rejected=" ).append( getRejectedCount( ) );
+        sbInfos.append( ", avgWaitingTimeMs=" ).append( getAverageWaitingTime( ) );
+        sbInfos.append( ", maxWaitingTimeMs=" ).append( getMaxWaitingTime( ) );
+        sbInfos.append( ", avgExecutionTimeMs=" ).append( getAverageExecutionTime( ) );
+        return sbInfos.toString( );
     }
 
     /**
@@ -110,4 +330,163 @@ public enum AppointmentExecutorService
         }
     }
 
+    /**
+     * Create an executor starting a virtual thread per task. The executor is looked up by reflection since virtual threads are only available from Java 21
+     * 
+     * @return the executor, null if the JVM does not support virtual threads
+     */
+    private static ExecutorService createVirtualThreadExecutor( )
+    {
+        try
+        {
+            return (ExecutorService) MethodHandles.publicLookup( )
+                    .findStatic( Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType( ExecutorService.class ) )
+                    .invoke( );
+        }
+        catch( Throwable e )
+        {
+            AppLogService.error( "Virtual threads are not supported by the JVM, the appointment executor uses a pool of platform threads", e );
+            return null;
+        }
+    }
+
+    /**
+     * Wait for a place among the tasks running on virtual threads. The tasks submitted by a task of the executor do not wait, otherwise they could wait
+     * forever for the places held by their parents
+     * 
+     * @return true if a place has been taken
+     */
+    private boolean acquirePermit( )
+    {
+        if ( _limiter == null || Boolean.TRUE.equals( _bRunningTask.get( ) ) )
+        {
+            return false;
+        }
+        if ( !_limiter.tryAcquire( ) )
+        {
+            _lRejected.incrementAndGet( );
+            try
+            {
+                _limiter.acquire( );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                throw new RejectedExecutionException( e );
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Free the place of a task running on a virtual thread
+     * 
+     * @param bPermit
+     *            true if the task has taken a place
+     */
+    private void releasePermit( boolean bPermit )
+    {
+        if ( bPermit )
+        {
+            _limiter.release( );
+        }
+    }
+
+    /**
+     * Build the handler of the tasks that do not fit in the queue
+     * 
+     * @param strPolicy
+     *            the name of the policy
+     * @return the handler
+     */
+    private RejectedExecutionHandler getRejectedExecutionHandler( String strPolicy )
+    {
+        RejectedExecutionHandler handler;
+        if ( POLICY_CALLER_RUNS.equals( strPolicy ) )
+        {
+            handler = new ThreadPoolExecutor.CallerRunsPolicy( );
+        }
+        else
+            if ( POLICY_ABORT.equals( strPolicy ) )
+            {
+                handler = new ThreadPoolExecutor.AbortPolicy( );
+            }
+            else
+            {
+                handler = this::waitForPlaceInQueue;
+            }
+        return ( task, executor ) -> {
+            _lRejected.incrementAndGet( );
+            handler.rejectedExecution( task, executor );
+        };
+    }
+
+    /**
+     * Put a task in the queue, waiting for a free place. A task submitted by a task of the executor is run by the submitting thread instead, since the place
+     * it would wait for may never be freed while the workers are all waiting the same way
+     * 
+     * @param task
+     *            the task
+     * @param executor
+     *            the executor
+     */
+    private void waitForPlaceInQueue( Runnable task, ThreadPoolExecutor executor )
+    {
+        if ( executor.isShutdown( ) )
+        {
+            throw new RejectedExecutionException( "Appointment executor is shut down" );
+        }
+        if ( Boolean.TRUE.equals( _bRunningTask.get( ) ) )
+        {
+            task.run( );
+            return;
+        }
+        try
+        {
+            executor.getQueue( ).put( task );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new RejectedExecutionException( e );
+        }
+    }
+
+    /**
+     * Task measuring the time spent in the queue and in execution
+     */
+    private final class MeasuredTask implements Runnable
+    {
+        private final Runnable _task;
+        private final boolean _bPermit;
+        private final long _lSubmissionTime = System.nanoTime( );
+
+        MeasuredTask( Runnable task, boolean bPermit )
+        {
+            _task = task;
+            _bPermit = bPermit;
+        }
+
+        @Override
+        public void run( )
+        {
+            long lStartTime = System.nanoTime( );
+            long lWaitingTime = lStartTime - _lSubmissionTime;
+            _lTotalWaitingTime.addAndGet( lWaitingTime );
+            _lMaxWaitingTime.accumulateAndGet( lWaitingTime, Math::max );
+            Boolean bRunningTask = _bRunningTask.get( );
+            _bRunningTask.set( Boolean.TRUE );
+            try
+            {
+                _task.run( );
+            }
+            finally
+            {
+                _bRunningTask.set( bRunningTask );
+                _lTotalExecutionTime.addAndGet( System.nanoTime( ) - lStartTime );
+                _lCompleted.incrementAndGet( );
+                releasePermit( _bPermit );
+            }
+        }
+    }
 }
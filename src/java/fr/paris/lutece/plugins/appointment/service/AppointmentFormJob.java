@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a copy or of a removal of an appointment form run in the background
+ */
+public final class AppointmentFormJob implements IAppointmentJob
+{
+    /**
+     * Type of the job copying a form
+     */
+    public static final String TYPE_COPY = "copy";
+
+    /**
+     * Type of the job removing a form
+     */
+    public static final String TYPE_REMOVAL = "removal";
+
+    private final String _strIdJob;
+    private final String _strType;
+    private final int _nIdForm;
+    private final int _nNbSteps;
+    private final AtomicInteger _nNbStepsDone = new AtomicInteger( );
+    private final AtomicInteger _nIdFormCopy = new AtomicInteger( );
+    private final AtomicBoolean _bDone = new AtomicBoolean( );
+    private final AtomicBoolean _bError = new AtomicBoolean( );
+
+    /**
+     * Constructor
+     * 
+     * @param strIdJob
+     *            the id of the job
+     * @param strType
+     *            the type of the job
+     * @param nIdForm
+     *            the id of the form copied or removed
+     * @param nNbSteps
+     *            the number of steps of the job
+     */
+    AppointmentFormJob( String strIdJob, String strType, int nIdForm, int nNbSteps )
+    {
+        _strIdJob = strIdJob;
+        _strType = strType;
+        _nIdForm = nIdForm;
+        _nNbSteps = nNbSteps;
+    }
+
+    /**
+     * Get the id of the job
+     * 
+     * @return the id of the job
+     */
+    @Override
+    public String getIdJob( )
+    {
+        return _strIdJob;
+    }
+
+    /**
+     * Get the type of the job
+     * 
+     * @return {@link #TYPE_COPY} or {@link #TYPE_REMOVAL}
+     */
+    public String getType( )
+    {
+        return _strType;
+    }
+
+    /**
+     * Get the id of the form copied or removed
+     * 
+     * @return the id of the form
+     */
+    public int getIdForm( )
+    {
+        return _nIdForm;
+    }
+
+    /**
+     * Get the id of the copy of the form
+     * 
+     * @return the id of the copy, 0 if the form is not created yet
+     */
+    public int getIdFormCopy( )
+    {
+        return _nIdFormCopy.get( );
+    }
+
+    /**
+     * Get the number of steps of the job
+     * 
+     * @return the number of steps
+     */
+    public int getNbSteps( )
+    {
+        return _nNbSteps;
+    }
+
+    /**
+     * Get the number of steps done so far
+     * 
+     * @return the number of steps done
+     */
+    public int getNbStepsDone( )
+    {
+        return _nNbStepsDone.get( );
+    }
+
+    /**
+     * Check if the job is over
+     * 
+     * @return true if the job is over, successfully or not
+     */
+    @Override
+    public boolean isDone( )
+    {
+        return _bDone.get( );
+    }
+
+    /**
+     * Check if the job has failed
+     * 
+     * @return true if the job has failed
+     */
+    public boolean isError( )
+    {
+        return _bError.get( );
+    }
+
+    void setIdFormCopy( int nIdFormCopy )
+    {
+        _nIdFormCopy.set( nIdFormCopy );
+    }
+
+    void stepDone( )
+    {
+        _nNbStepsDone.incrementAndGet( );
+    }
+
+    void setDone( boolean bError )
+    {
+        _bError.set( bError );
+        _bDone.set( true );
+    }
+}
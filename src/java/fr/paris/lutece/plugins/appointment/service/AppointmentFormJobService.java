@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.UUID;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Service running the copies and the removals of appointment forms in the background, so that the large forms do not hold the request of the admin. The
+ * jobs run one after the other on the {@link AppointmentExecutorService}, and their progress can be followed by their id.
+ */
+public final class AppointmentFormJobService
+{
+    private static final AppointmentJobRegistry<AppointmentFormJob> _registry = new AppointmentJobRegistry<>( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentFormJobService( )
+    {
+    }
+
+    /**
+     * Submit the copy of a form
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param strNameForCopy
+     *            the name of the copy
+     * @return the job, to follow its progress
+     */
+    public static AppointmentFormJob submitCopy( int nIdForm, String strNameForCopy )
+    {
+        AppointmentFormJob job = new AppointmentFormJob( UUID.randomUUID( ).toString( ), AppointmentFormJob.TYPE_COPY, nIdForm, FormService.NB_STEPS_COPY );
+        return submit( job, ( ) -> FormService.copyForm( nIdForm, strNameForCopy, job ) );
+    }
+
+    /**
+     * Submit the removal of a form
+     * 
+     * @param nIdForm
+     *            the id of the form to remove
+     * @return the job, to follow its progress
+     */
+    public static AppointmentFormJob submitRemoval( int nIdForm )
+    {
+        AppointmentFormJob job = new AppointmentFormJob( UUID.randomUUID( ).toString( ), AppointmentFormJob.TYPE_REMOVAL, nIdForm,
+                FormService.NB_STEPS_REMOVAL );
+        return submit( job, ( ) -> FormService.removeForm( nIdForm, job ) );
+    }
+
+    /**
+     * Get a job. A job that is over is forgotten once the retention time is elapsed
+     * 
+     * @param strIdJob
+     *            the id of the job
+     * @return the job, null if it is unknown
+     */
+    public static AppointmentFormJob getJob( String strIdJob )
+    {
+        return _registry.getJob( strIdJob );
+    }
+
+    /**
+     * Stop running the jobs that are not started yet. The job in progress is awaited by the shutdown of the {@link AppointmentExecutorService}
+     */
+    public static void shutdown( )
+    {
+        _registry.shutdown( );
+    }
+
+    /**
+     * Register and run a job
+     * 
+     * @param job
+     *            the job
+     * @param task
+     *            the task of the job
+     * @return the job
+     */
+    private static AppointmentFormJob submit( AppointmentFormJob job, Runnable task )
+    {
+        _registry.submit( job, ( ) -> {
+            boolean bError = true;
+            try
+            {
+                task.run( );
+                bError = false;
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Error during the " + job.getType( ) + " of the form " + job.getIdForm( ), e );
+            }
+            finally
+            {
+                job.setDone( bError );
+            }
+        } );
+        return job;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Registry of the jobs run in the background by a service.
+ * 
+ * The jobs of a registry run one after the other on the {@link AppointmentExecutorService}, so that two heavy jobs of the same kind never run at the same
+ * time. A job can be followed by its id until {@value #PROPERTY_RETENTION} seconds after it is over, so that its result can be read again, for instance when
+ * the page following it is refreshed, and is then forgotten.
+ *
+ * @param <J>
+ *            the type of the jobs
+ */
+final class AppointmentJobRegistry<J extends IAppointmentJob>
+{
+    private static final String PROPERTY_RETENTION = "appointment.job.retention";
+    private static final int DEFAULT_RETENTION = 600;
+
+    private final ConcurrentMap<String, J> _mapJob = new ConcurrentHashMap<>( );
+    private final ConcurrentMap<String, Long> _mapEndTime = new ConcurrentHashMap<>( );
+    private final Queue<Runnable> _queueTask = new ArrayDeque<>( );
+    private Runnable _activeTask;
+    private boolean _bShutdown;
+
+    /**
+     * Register a job and run it once the jobs submitted before are over
+     * 
+     * @param job
+     *            the job
+     * @param task
+     *            the task of the job
+     * @throws RejectedExecutionException
+     *             if the registry is shut down
+     */
+    void submit( J job, Runnable task )
+    {
+        evictFinishedJobs( );
+        _mapJob.put( job.getIdJob( ), job );
+        Runnable taskToRun;
+        synchronized( this )
+        {
+            if ( _bShutdown )
+            {
+                _mapJob.remove( job.getIdJob( ) );
+                throw new RejectedExecutionException( "The background jobs are shut down" );
+            }
+            _queueTask.offer( ( ) -> {
+                try
+                {
+                    task.run( );
+                }
+                finally
+                {
+                    _mapEndTime.put( job.getIdJob( ), System.currentTimeMillis( ) );
+                    runNext( pollNext( ) );
+                }
+            } );
+            taskToRun = ( _activeTask == null ) ? pollNext( ) : null;
+        }
+        try
+        {
+            runNext( taskToRun );
+        }
+        catch( RuntimeException e )
+        {
+            _mapJob.remove( job.getIdJob( ) );
+            throw e;
+        }
+    }
+
+    /**
+     * Get a job
+     * 
+     * @param strIdJob
+     *            the id of the job
+     * @return the job, null if it is unknown or has been over for longer than the retention time
+     */
+    J getJob( String strIdJob )
+    {
+        evictFinishedJobs( );
+        return _mapJob.get( strIdJob );
+    }
+
+    /**
+     * Stop running the jobs that are not started yet. The jobs in progress are stopped by the shutdown of the executor
+     */
+    synchronized void shutdown( )
+    {
+        _bShutdown = true;
+        _queueTask.clear( );
+    }
+
+    /**
+     * Take the next task to run, and mark it active
+     * 
+     * @return the task, null if there is no task waiting
+     */
+    private synchronized Runnable pollNext( )
+    {
+        _activeTask = _bShutdown ? null : _queueTask.poll( );
+        return _activeTask;
+    }
+
+    /**
+     * Run a task on the executor. The task is not submitted while holding the monitor of the registry, since the executor may run it in the calling thread.
+     * If the executor rejects it, the queue is released so that the next submission can start again
+     * 
+     * @param task
+     *            the task, can be null
+     */
+    private void runNext( Runnable task )
+    {
+        if ( task != null )
+        {
+            try
+            {
+                AppointmentExecutorService.INSTANCE.execute( task );
+            }
+            catch( RuntimeException e )
+            {
+                synchronized( this )
+                {
+                    _activeTask = null;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Forget the jobs that have been over for longer than the retention time
+     */
+    private void evictFinishedJobs( )
+    {
+        long lLimit = System.currentTimeMillis( )
+                - TimeUnit.SECONDS.toMillis( AppPropertiesService.getPropertyInt( PROPERTY_RETENTION, DEFAULT_RETENTION ) );
+        _mapEndTime.entrySet( ).removeIf( entry -> {
+            if ( entry.getValue( ) < lLimit )
+            {
+                _mapJob.remove( entry.getKey( ) );
+                return true;
+            }
+            return false;
+        } );
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a mass deletion of appointments
+ */
+public final class AppointmentMassDeletionJob implements IAppointmentJob
+{
+    private final String _strIdJob;
+    private final int _nIdForm;
+    private final int _nNbAppointments;
+    private final AtomicInteger _nNbDeleted = new AtomicInteger( );
+    private final AtomicInteger _nNbFailed = new AtomicInteger( );
+    private final AtomicBoolean _bDone = new AtomicBoolean( );
+
+    /**
+     * Constructor
+     * 
+     * @param strIdJob
+     *            the id of the job
+     * @param nIdForm
+     *            the id of the form of the appointments
+     * @param nNbAppointments
+     *            the number of appointments to delete
+     */
+    AppointmentMassDeletionJob( String strIdJob, int nIdForm, int nNbAppointments )
+    {
+        _strIdJob = strIdJob;
+        _nIdForm = nIdForm;
+        _nNbAppointments = nNbAppointments;
+    }
+
+    /**
+     * Get the id of the job
+     * 
+     * @return the id of the job
+     */
+    @Override
+    public String getIdJob( )
+    {
+        return _strIdJob;
+    }
+
+    /**
+     * Get the id of the form of the appointments
+     * 
+     * @return the id of the form
+     */
+    public int getIdForm( )
+    {
+        return _nIdForm;
+    }
+
+    /**
+     * Get the number of appointments to delete
+     * 
+     * @return the number of appointments
+     */
+    public int getNbAppointments( )
+    {
+        return _nNbAppointments;
+    }
+
+    /**
+     * Get the number of appointments deleted so far
+     * 
+     * @return the number of appointments deleted
+     */
+    public int getNbDeleted( )
+    {
+        return _nNbDeleted.get( );
+    }
+
+    /**
+     * Get the number of appointments that could not be deleted
+     * 
+     * @return the number of appointments in error
+     */
+    public int getNbFailed( )
+    {
+        return _nNbFailed.get( );
+    }
+
+    /**
+     * Check if the job is over
+     * 
+     * @return true if all the appointments have been processed
+     */
+    @Override
+    public boolean isDone( )
+    {
+        return _bDone.get( );
+    }
+
+    void addDeleted( int nNbDeleted )
+    {
+        _nNbDeleted.addAndGet( nNbDeleted );
+    }
+
+    void addFailed( int nNbFailed )
+    {
+        _nNbFailed.addAndGet( nNbFailed );
+    }
+
+    void setDone( )
+    {
+        _bDone.set( true );
+    }
+}
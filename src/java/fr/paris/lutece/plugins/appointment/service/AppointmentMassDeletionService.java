@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentResponseHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
+import fr.paris.lutece.plugins.appointment.business.user.UserHome;
+import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
+import fr.paris.lutece.plugins.appointment.service.listeners.SlotListenerManager;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.service.workflow.WorkflowService;
+import fr.paris.lutece.util.sql.TransactionManager;
+
+/**
+ * Service deleting a large number of appointments in the background.
+ * 
+ * The appointments are deleted by chunks of {@value #PROPERTY_CHUNK_SIZE} appointments, each chunk in its own transaction: the places of the slots are
+ * given back with one update per slot, the responses, the links to the slots, the appointments and their users are deleted with set-based queries, and the
+ * slot listeners are notified once per slot. The jobs run one after the other on the {@link AppointmentExecutorService}, and their progress can be followed by their id.
+ */
+public final class AppointmentMassDeletionService
+{
+    private static final String PROPERTY_CHUNK_SIZE = "appointment.massDeletion.chunkSize";
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final AppointmentJobRegistry<AppointmentMassDeletionJob> _registry = new AppointmentJobRegistry<>( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentMassDeletionService( )
+    {
+    }
+
+    /**
+     * Submit the deletion of a list of appointments of a form
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param listIdAppointment
+     *            the ids of the appointments to delete
+     * @return the job, to follow its progress
+     */
+    public static AppointmentMassDeletionJob submit( int nIdForm, List<Integer> listIdAppointment )
+    {
+        List<Integer> listId = listIdAppointment.stream( ).distinct( ).sorted( ).collect( Collectors.toList( ) );
+        AppointmentMassDeletionJob job = new AppointmentMassDeletionJob( UUID.randomUUID( ).toString( ), nIdForm, listId.size( ) );
+        _registry.submit( job, ( ) -> run( job, listId ) );
+        return job;
+    }
+
+    /**
+     * Get a job. A job that is over is forgotten once the retention time is elapsed
+     * 
+     * @param strIdJob
+     *            the id of the job
+     * @return the job, null if it is unknown
+     */
+    public static AppointmentMassDeletionJob getJob( String strIdJob )
+    {
+        return _registry.getJob( strIdJob );
+    }
+
+    /**
+     * Stop running the jobs that are not started yet. The job in progress stops after its current chunk, when the {@link AppointmentExecutorService} is shut
+     * down
+     */
+    public static void shutdown( )
+    {
+        _registry.shutdown( );
+    }
+
+    /**
+     * Run a job, chunk by chunk
+     * 
+     * @param job
+     *            the job
+     * @param listIdAppointment
+     *            the ids of the appointments to delete
+     */
+    private static void run( AppointmentMassDeletionJob job, List<Integer> listIdAppointment )
+    {
+        int nChunkSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_CHUNK_SIZE, DEFAULT_CHUNK_SIZE ) );
+        try
+        {
+            for ( int nFrom = 0; nFrom < listIdAppointment.size( ) && !Thread.currentThread( ).isInterrupted( ); nFrom += nChunkSize )
+            {
+                List<Integer> listChunk = listIdAppointment.subList( nFrom, Math.min( nFrom + nChunkSize, listIdAppointment.size( ) ) );
+                try
+                {
+                    job.addDeleted( deleteChunk( job.getIdForm( ), listChunk ) );
+                }
+                catch( Exception e )
+                {
+                    AppLogService.error( "Error while deleting the appointments " + listChunk, e );
+                    job.addFailed( listChunk.size( ) );
+                }
+            }
+        }
+        finally
+        {
+            job.setDone( );
+        }
+    }
+
+    /**
+     * Delete a chunk of appointments in one transaction
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param listIdAppointment
+     *            the ids of the appointments of the chunk
+     * @return the number of appointments deleted
+     */
+    private static int deleteChunk( int nIdForm, List<Integer> listIdAppointment )
+    {
+        // Only the appointments of the form the permission has been checked on are deleted
+        List<Appointment> listAppointment = AppointmentHome.findByListIdAppointment( listIdAppointment, nIdForm );
+        if ( listAppointment.isEmpty( ) )
+        {
+            return 0;
+        }
+        List<Integer> listIdFound = new ArrayList<>( );
+        Set<Integer> setIdUser = new HashSet<>( );
+        // Sorted by slot, so that the locks are always taken in the same order
+        Map<Integer, Integer> mapPlacesBySlot = new TreeMap<>( );
+        Set<Integer> setIdSlot = new HashSet<>( );
+        for ( Appointment appointment : listAppointment )
+        {
+            listIdFound.add( appointment.getIdAppointment( ) );
+            setIdUser.add( appointment.getIdUser( ) );
+            for ( AppointmentSlot appointmentSlot : appointment.getListAppointmentSlot( ) )
+            {
+                setIdSlot.add( appointmentSlot.getIdSlot( ) );
+                if ( !appointment.getIsCancelled( ) )
+                {
+                    mapPlacesBySlot.merge( appointmentSlot.getIdSlot( ), appointmentSlot.getNbPlaces( ), Integer::sum );
+                }
+            }
+        }
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            for ( Map.Entry<Integer, Integer> entry : mapPlacesBySlot.entrySet( ) )
+            {
+                SlotSafeService.updateRemaningPlacesWithAppointmentMovedDeletedOrCanceled( entry.getValue( ), entry.getKey( ) );
+            }
+            AppointmentResponseHome.removeResponsesByListIdAppointment( listIdFound );
+            AppointmentHome.deleteByListIdAppointment( listIdFound );
+            UserHome.deleteByListIdUser( new ArrayList<>( setIdUser ) );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            throw e;
+        }
+        // The workflow resources are removed once the appointments are, so that a chunk rolled back keeps its workflow states
+        deleteWorkflowResources( nIdForm, listIdFound );
+        for ( Integer nIdAppointment : listIdFound )
+        {
+            AppointmentListenerManager.notifyListenersAppointmentRemoval( nIdAppointment );
+        }
+        for ( Integer nIdSlot : setIdSlot )
+        {
+            SlotListenerManager.notifyListenersSlotChange( nIdSlot );
+        }
+        return listIdFound.size( );
+    }
+
+    /**
+     * Remove the workflow resources of a list of appointments
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param listIdAppointment
+     *            the ids of the appointments
+     */
+    private static void deleteWorkflowResources( int nIdForm, List<Integer> listIdAppointment )
+    {
+        if ( WorkflowService.getInstance( ).isAvailable( ) )
+        {
+            try
+            {
+                WorkflowService.getInstance( ).doRemoveWorkFlowResourceByListId( listIdAppointment, Appointment.APPOINTMENT_RESOURCE_TYPE, nIdForm );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Error Workflow", e );
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.business.outbox.OutboxEvent;
+import fr.paris.lutece.plugins.appointment.business.outbox.OutboxEventHome;
+import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
+import fr.paris.lutece.portal.business.user.AdminUser;
+import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.service.workflow.WorkflowService;
+import fr.paris.lutece.portal.web.l10n.LocaleService;
+
+/**
+ * Service of the outbox of the bookings.
+ * 
+ * The workflow of a booked appointment and the notification of the appointment listeners are recorded as an event in the transaction of the booking, and
+ * processed once the booking has been committed and the locks of the slots released. The thread of the booking processes its event right away; the events
+ * it could not process, or that were left by a stopped node, are processed by {@link OutboxDaemon}.
+ */
+public final class AppointmentOutboxService
+{
+    /**
+     * Event of the creation of an appointment
+     */
+    public static final String EVENT_APPOINTMENT_CREATED = "appointment.created";
+
+    /**
+     * Event of the change of the date of an appointment
+     */
+    public static final String EVENT_APPOINTMENT_REPORTED = "appointment.reported";
+
+    private static final String PROPERTY_LEASE_DURATION = "appointment.outbox.leaseDuration";
+    private static final String PROPERTY_RETRY_DELAY = "appointment.outbox.retryDelay";
+    private static final String PROPERTY_MAX_RETRY_DELAY = "appointment.outbox.maxRetryDelay";
+    private static final String PROPERTY_BATCH_SIZE = "appointment.outbox.batchSize";
+    private static final String PROPERTY_MAX_ATTEMPTS = "appointment.outbox.maxAttempts";
+    private static final int DEFAULT_LEASE_DURATION = 300;
+    private static final int DEFAULT_RETRY_DELAY = 60;
+    private static final int DEFAULT_MAX_RETRY_DELAY = 3600;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentOutboxService( )
+    {
+    }
+
+    /**
+     * Record the event of a booking, in the transaction of the booking. The event is leased to the thread of the booking, which processes it once the
+     * transaction has been committed
+     * 
+     * @param appointment
+     *            the appointment booked
+     * @param nIdForm
+     *            the id of the form
+     * @param isReport
+     *            true if it is a postponement of appointment
+     * @return the event recorded
+     */
+    public static OutboxEvent createEvent( Appointment appointment, int nIdForm, boolean isReport )
+    {
+        LocalDateTime now = LocalDateTime.now( ).withNano( 0 );
+        OutboxEvent outboxEvent = new OutboxEvent( );
+        outboxEvent.setEventType( isReport ? EVENT_APPOINTMENT_REPORTED : EVENT_APPOINTMENT_CREATED );
+        outboxEvent.setIdAppointment( appointment.getIdAppointment( ) );
+        outboxEvent.setIdForm( nIdForm );
+        outboxEvent.setIdAction( isReport ? appointment.getIdActionReported( ) : 0 );
+        outboxEvent.setCreationDateTime( now );
+        outboxEvent.setNextAttemptDateTime( now.plusSeconds( getLeaseDuration( ) ) );
+        return OutboxEventHome.create( outboxEvent );
+    }
+
+    /**
+     * Process an event from the thread of the booking, with the request of the user. The lease of the event is renewed first, so that the
+     * {@link OutboxDaemon} does not process it at the same time
+     * 
+     * @param outboxEvent
+     *            the event
+     * @param request
+     *            the request, can be null
+     * @param locale
+     *            the locale
+     */
+    public static void dispatch( OutboxEvent outboxEvent, HttpServletRequest request, Locale locale )
+    {
+        // The daemon takes the event over if the lease has expired before the booking was committed
+        if ( claim( outboxEvent ) )
+        {
+            processEvent( outboxEvent, request, locale );
+        }
+    }
+
+    /**
+     * Process the pending events, by batches
+     * 
+     * @return the number of events processed
+     */
+    public static int processPendingEvents( )
+    {
+        int nBatchSize = AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE );
+        int nNbProcessed = 0;
+        List<OutboxEvent> listOutboxEvent;
+        do
+        {
+            listOutboxEvent = OutboxEventHome.findPending( nBatchSize );
+            for ( OutboxEvent outboxEvent : listOutboxEvent )
+            {
+                // Another node may have claimed the event in the meantime
+                if ( claim( outboxEvent ) && processEvent( outboxEvent, null, LocaleService.getDefault( ) ) )
+                {
+                    nNbProcessed++;
+                }
+            }
+        }
+        while ( listOutboxEvent.size( ) == nBatchSize );
+        return nNbProcessed;
+    }
+
+    /**
+     * Claim an event for the duration of the lease, if it has not been claimed by another worker in the meantime
+     * 
+     * @param outboxEvent
+     *            the event, updated with the end of the lease once claimed
+     * @return true if the event has been claimed
+     */
+    private static boolean claim( OutboxEvent outboxEvent )
+    {
+        LocalDateTime endOfLease = LocalDateTime.now( ).withNano( 0 ).plusSeconds( getLeaseDuration( ) );
+        if ( OutboxEventHome.claim( outboxEvent, endOfLease ) )
+        {
+            outboxEvent.setNextAttemptDateTime( endOfLease );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Process an event, then delete it. If the processing fails, the event is kept for another attempt, or marked as failed once the maximum number of
+     * attempts is reached
+     * 
+     * @param outboxEvent
+     *            the event
+     * @param request
+     *            the request, can be null
+     * @param locale
+     *            the locale
+     * @return true if the event has been processed
+     */
+    private static boolean processEvent( OutboxEvent outboxEvent, HttpServletRequest request, Locale locale )
+    {
+        Appointment appointment = AppointmentService.findAppointmentById( outboxEvent.getIdAppointment( ) );
+        if ( appointment != null )
+        {
+            try
+            {
+                processWorkflow( outboxEvent, request, locale );
+            }
+            catch( Exception e )
+            {
+                int nNbAttempts = outboxEvent.getNbAttempts( ) + 1;
+                AppLogService.error( "Error while processing the outbox event " + outboxEvent.getIdOutboxEvent( ) + " of the appointment "
+                        + outboxEvent.getIdAppointment( ) + ", attempt " + nNbAttempts, e );
+                int nMaxAttempts = AppPropertiesService.getPropertyInt( PROPERTY_MAX_ATTEMPTS, DEFAULT_MAX_ATTEMPTS );
+                if ( nMaxAttempts > 0 && nNbAttempts >= nMaxAttempts )
+                {
+                    // The failed event is kept for an administrator, but no longer processed
+                    AppLogService.error( "The outbox event " + outboxEvent.getIdOutboxEvent( ) + " of the appointment " + outboxEvent.getIdAppointment( )
+                            + " is marked as failed after " + nNbAttempts + " attempts" );
+                    OutboxEventHome.updateStatus( outboxEvent.getIdOutboxEvent( ), nNbAttempts, OutboxEvent.STATUS_FAILED );
+                }
+                else
+                {
+                    long lDelay = Math.min( (long) getRetryDelay( ) * nNbAttempts,
+                            AppPropertiesService.getPropertyInt( PROPERTY_MAX_RETRY_DELAY, DEFAULT_MAX_RETRY_DELAY ) );
+                    OutboxEventHome.updateAttempt( outboxEvent.getIdOutboxEvent( ), nNbAttempts, LocalDateTime.now( ).withNano( 0 ).plusSeconds( lDelay ) );
+                }
+                return false;
+            }
+            // The workflow is done, a failure of a listener must not process it again
+            try
+            {
+                notifyListeners( outboxEvent, appointment, locale );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Error while notifying the listeners of the appointment " + outboxEvent.getIdAppointment( ), e );
+            }
+        }
+        // An appointment deleted in the meantime has nothing left to process
+        OutboxEventHome.delete( outboxEvent.getIdOutboxEvent( ) );
+        return true;
+    }
+
+    /**
+     * Process the workflow of the appointment of an event
+     * 
+     * @param outboxEvent
+     *            the event
+     * @param request
+     *            the request, can be null
+     * @param locale
+     *            the locale
+     */
+    private static void processWorkflow( OutboxEvent outboxEvent, HttpServletRequest request, Locale locale )
+    {
+        Form form = FormService.findFormLightByPrimaryKey( outboxEvent.getIdForm( ) );
+        if ( form != null && form.getIdWorkflow( ) > 0 )
+        {
+            WorkflowService.getInstance( ).getState( outboxEvent.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE, form.getIdWorkflow( ),
+                    form.getIdForm( ) );
+
+            if ( outboxEvent.getIdAction( ) != 0 )
+            {
+                AdminUser adminUser = ( request != null ) ? AdminUserService.getAdminUser( request ) : null;
+                WorkflowService.getInstance( ).doProcessAction( outboxEvent.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE,
+                        outboxEvent.getIdAction( ), form.getIdForm( ), request, locale, adminUser == null, adminUser );
+            }
+        }
+    }
+
+    /**
+     * Notify the appointment listeners of an event
+     * 
+     * @param outboxEvent
+     *            the event
+     * @param appointment
+     *            the appointment
+     * @param locale
+     *            the locale
+     */
+    private static void notifyListeners( OutboxEvent outboxEvent, Appointment appointment, Locale locale )
+    {
+        if ( EVENT_APPOINTMENT_REPORTED.equals( outboxEvent.getEventType( ) ) )
+        {
+            AppointmentListenerManager.notifyListenersAppointmentDateChanged( appointment.getIdAppointment( ),
+                    appointment.getListAppointmentSlot( ).stream( ).map( AppointmentSlot::getIdSlot ).collect( Collectors.toList( ) ), locale );
+            if ( outboxEvent.getIdAction( ) != 0 )
+            {
+                AppointmentListenerManager.notifyAppointmentWFActionTriggered( appointment.getIdAppointment( ), outboxEvent.getIdAction( ) );
+            }
+        }
+        else
+        {
+            AppointmentListenerManager.notifyListenersAppointmentCreated( appointment.getIdAppointment( ) );
+        }
+    }
+
+    private static int getLeaseDuration( )
+    {
+        return AppPropertiesService.getPropertyInt( PROPERTY_LEASE_DURATION, DEFAULT_LEASE_DURATION );
+    }
+
+    private static int getRetryDelay( )
+    {
+        return AppPropertiesService.getPropertyInt( PROPERTY_RETRY_DELAY, DEFAULT_RETRY_DELAY );
+    }
+}
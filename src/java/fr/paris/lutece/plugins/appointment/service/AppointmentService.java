@@ -36,7 +36,9 @@ package fr.paris.lutece.plugins.appointment.service;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
@@ -49,6 +51,8 @@ import org.apache.commons.lang3.StringUtils;
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSortKey;
+import fr.paris.lutece.plugins.appointment.business.archive.ArchiveHome;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.user.User;
@@ -61,8 +65,6 @@ import fr.paris.lutece.plugins.genericattributes.business.Field;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
 import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
-import fr.paris.lutece.portal.business.user.AdminUser;
-import fr.paris.lutece.portal.business.user.AdminUserHome;
 import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
@@ -135,23 +137,31 @@ public final class AppointmentService
     }
 
     /**
-     * Find the appointments of a user by guid
+     * Find the appointments of a user by guid, the archived ones included, with their user and their slots. The current and the archived appointments
+     * are loaded by one query each, whatever the number of appointments of the user
      *
      * @param nIdUser
      *            the user guid
-     * @return the appointment of the guid
+     * @return the appointment of the guid, ordered by id
      */
     public static List<Appointment> findListAppointmentByUserGuid( String strGuidUser )
     {
-        List<Appointment> listAppointment = AppointmentHome.findByGuidUser( strGuidUser );
-        for ( Appointment appointment : listAppointment )
-        {
-            List<Slot> listSlot = SlotService.findListSlotByIdAppointment( appointment.getIdAppointment( ) );
-            appointment.setSlot( listSlot );
-
-        }
+        List<Appointment> listAppointment = AppointmentHome.findByGuidUserWithSlots( strGuidUser );
+        listAppointment.addAll( ArchiveHome.findByGuidUserWithSlots( strGuidUser ) );
+        listAppointment.sort( Comparator.comparingInt( Appointment::getIdAppointment ) );
         return listAppointment;
+    }
 
+    /**
+     * Find the appointment DTOs of a user by guid, the archived ones included
+     *
+     * @param strGuidUser
+     *            the user guid
+     * @return the appointment DTOs of the guid, ordered by id
+     */
+    public static List<AppointmentDTO> findListAppointmentDTOByUserGuid( String strGuidUser )
+    {
+        return buildListAppointmentDTO( findListAppointmentByUserGuid( strGuidUser ) );
     }
 
     /**
@@ -246,7 +256,7 @@ public final class AppointmentService
     }
 
     /**
-     * Find an appointment by its reference
+     * Find an appointment by its reference, in the archived appointments if it is not found in the current ones
      *
      * @param strReference
      *            the appointment Reference
@@ -254,7 +264,12 @@ public final class AppointmentService
      */
     public static Appointment findAppointmentByReference( String strReference )
     {
-        return AppointmentHome.findByReference( strReference );
+        Appointment appointment = AppointmentHome.findByReference( strReference );
+        if ( appointment == null )
+        {
+            appointment = ArchiveHome.findByReference( strReference );
+        }
+        return appointment;
     }
 
     /**
@@ -266,12 +281,7 @@ public final class AppointmentService
      */
     public static List<AppointmentDTO> findListAppointmentsDTOByFilter( AppointmentFilterDTO appointmentFilter )
     {
-        List<AppointmentDTO> listAppointmentsDTO = new ArrayList<>( );
-        for ( Appointment appointment : AppointmentHome.findByFilter( appointmentFilter ) )
-        {
-            listAppointmentsDTO.add( buildAppointmentDTO( appointment ) );
-        }
-        return listAppointmentsDTO;
+        return buildListAppointmentDTO( AppointmentHome.findByFilter( appointmentFilter ) );
     }
 
     /**
@@ -284,11 +294,25 @@ public final class AppointmentService
      * @return list of appointments
      */
     public static List<AppointmentDTO> findAppointmentByMailAndCategory( int nIdCategory, String mail )
+    {
+        return buildListAppointmentDTO( AppointmentHome.findByMailAndCategory( nIdCategory, mail ) );
+    }
+
+    /**
+     * Build the DTOs of a list of appointments whose user and slots are already loaded
+     *
+     * @param listAppointment
+     *            the list of appointments
+     * @return the list of appointment DTOs
+     */
+    public static List<AppointmentDTO> buildListAppointmentDTO( List<Appointment> listAppointment )
     {
         List<AppointmentDTO> listAppointmentsDTO = new ArrayList<>( );
-        for ( Appointment appointment : AppointmentHome.findByMailAndCategory( nIdCategory, mail ) )
+        Map<Integer, String> mapAdminUserName = AdminUserNameCacheService.getInstance( )
+                .getMapAdminUserName( listAppointment.stream( ).map( Appointment::getIdAdminUser ).collect( Collectors.toSet( ) ) );
+        for ( Appointment appointment : listAppointment )
         {
-            listAppointmentsDTO.add( buildAppointmentDTO( appointment ) );
+            listAppointmentsDTO.add( buildAppointmentDTO( appointment, mapAdminUserName.get( appointment.getIdAdminUser( ) ) ) );
         }
         return listAppointmentsDTO;
     }
@@ -316,6 +340,55 @@ public final class AppointmentService
         return AppointmentHome.findIdsByFilter( appointmentFilter );
     }
 
+    /**
+     * Find a page of the appointments matching the filter, sought from the position of a given appointment in the sorted list
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param keyFrom
+     *            the position the page starts after, or ends before if going backward (null for the first page)
+     * @param bBackward
+     *            true to return the page before the given position
+     * @param nPageSize
+     *            the maximum number of appointments of the page
+     * @return the sort keys of the appointments of the page
+     */
+    public static List<AppointmentSortKey> findListAppointmentSortKeysByFilter( AppointmentFilterDTO appointmentFilter, AppointmentSortKey keyFrom,
+            boolean bBackward, int nPageSize )
+    {
+        return AppointmentHome.findSortKeysByFilter( appointmentFilter, keyFrom, bBackward, nPageSize );
+    }
+
+    /**
+     * Find a page of the appointments matching the filter, starting at a given offset of the sorted list
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param nOffset
+     *            the number of appointments to skip
+     * @param nPageSize
+     *            the maximum number of appointments of the page
+     * @return the sort keys of the appointments of the page
+     */
+    public static List<AppointmentSortKey> findListAppointmentSortKeysByFilterAtOffset( AppointmentFilterDTO appointmentFilter, int nOffset, int nPageSize )
+    {
+        return AppointmentHome.findSortKeysByFilterAtOffset( appointmentFilter, nOffset, nPageSize );
+    }
+
+    /**
+     * Count the appointments matching the filter
+     *
+     * @param appointmentFilter
+     *            the filter
+     * @param nMaxCount
+     *            the count at which the counting stops (0 to count all the appointments)
+     * @return the number of appointments
+     */
+    public static int countAppointmentsByFilter( AppointmentFilterDTO appointmentFilter, int nMaxCount )
+    {
+        return AppointmentHome.countByFilter( appointmentFilter, nMaxCount );
+    }
+
     /**
      * Build an appointment dto from an appointment business object
      *
@@ -324,6 +397,25 @@ public final class AppointmentService
      * @return the appointment DTO
      */
     private static AppointmentDTO buildAppointmentDTO( Appointment appointment )
+    {
+        String strAdminUserName = null;
+        if ( appointment.getIdAdminUser( ) != 0 )
+        {
+            strAdminUserName = AdminUserNameCacheService.getInstance( ).getAdminUserName( appointment.getIdAdminUser( ) );
+        }
+        return buildAppointmentDTO( appointment, strAdminUserName );
+    }
+
+    /**
+     * Build an appointment dto from an appointment business object
+     *
+     * @param appointment
+     *            the appointment business object
+     * @param strAdminUserName
+     *            the display name of the admin user of the appointment, null if the admin user does not exist
+     * @return the appointment DTO
+     */
+    private static AppointmentDTO buildAppointmentDTO( Appointment appointment, String strAdminUserName )
     {
         AppointmentDTO appointmentDTO = new AppointmentDTO( );
         appointmentDTO.setIdForm( appointment.getSlot( ).get( 0 ).getIdForm( ) );
@@ -354,12 +446,10 @@ public final class AppointmentService
         appointmentDTO.setUser( appointment.getUser( ) );
         if ( appointment.getIdAdminUser( ) != 0 )
         {
-            AdminUser adminUser = AdminUserHome.findByPrimaryKey( appointment.getIdAdminUser( ) );
-            if ( adminUser != null )
+            if ( strAdminUserName != null )
             {
-                appointmentDTO.setIdAdminUser( adminUser.getUserId());
-                appointmentDTO.setAdminUser(
-                        new StringBuilder( adminUser.getFirstName( ) + org.apache.commons.lang3.StringUtils.SPACE + adminUser.getLastName( ) ).toString( ) );
+                appointmentDTO.setIdAdminUser( appointment.getIdAdminUser( ) );
+                appointmentDTO.setAdminUser( strAdminUserName );
             }
         }
         else
@@ -466,6 +556,10 @@ public final class AppointmentService
     {
         Appointment appointment = AppointmentService.findAppointmentById( nIdAppointment );
         if ( appointment == null )
+        {
+            appointment = ArchiveHome.findByPrimaryKey( nIdAppointment );
+        }
+        if ( appointment == null )
         {
            return null;
         }
@@ -495,6 +589,18 @@ public final class AppointmentService
         {
         	return null;
         }
+        return buildAppointmentDTOFromAppointment( appointment );
+    }
+
+    /**
+     * Build an appointment DTO from an appointment business object already loaded, with its user and its slots
+     *
+     * @param appointment
+     *            the appointment
+     * @return the appointment DTO
+     */
+    public static AppointmentDTO buildAppointmentDTOFromAppointment( Appointment appointment )
+    {
         User user = UserService.findUserById( appointment.getIdUser( ) );
         List<Slot> listSlot = SlotService.findListSlotByIdAppointment( appointment.getIdAppointment( ) );
         appointment.setSlot( listSlot );
@@ -33,8 +33,9 @@
  */
 package fr.paris.lutece.plugins.appointment.service;
 
-import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.service.lock.ISlotLockProvider;
 import fr.paris.lutece.portal.service.init.ShutdownService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 public class AppointmentShutdownService implements ShutdownService
 {
@@ -54,9 +55,11 @@ public class AppointmentShutdownService implements ShutdownService
     @Override
     public void process( )
     {
-        AppointmentUtilities.shutdownSecheduledExecutor( );
+        AppointmentMassDeletionService.shutdown( );
+        AppointmentFormJobService.shutdown( );
         AppointmentExecutorService.INSTANCE.shutdown( );
-        SlotHome.resetPotentialRemainingPlaces( );
+        ISlotLockProvider slotLockProvider = SpringContextService.getBean( ISlotLockProvider.BEAN_NAME );
+        slotLockProvider.shutdown( );
 
     }
 
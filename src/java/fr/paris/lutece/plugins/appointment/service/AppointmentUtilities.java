@@ -49,10 +49,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
@@ -65,15 +61,15 @@ import org.apache.commons.lang3.StringUtils;
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
 import fr.paris.lutece.plugins.appointment.business.category.Category;
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.business.form.FormHome;
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.user.User;
-import fr.paris.lutece.plugins.appointment.service.lock.SlotEditTask;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
-import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.ReservationRuleDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.ResponseRecapDTO;
@@ -119,10 +115,6 @@ public final class AppointmentUtilities
     public static final String PROPERTY_DEFAULT_EXPIRED_TIME_EDIT_APPOINTMENT = "appointment.edit.expired.time";
 
     public static final int THIRTY_MINUTES = 30;
-    // We don't need to instantiate an ScheduledExecutorService with the removeOnCancel=true because we are using non-periodic and short time tasks.
-    // The getTask call removes the task from the queue.
-    private static final ScheduledExecutorService _secheduledExecutor = Executors
-            .newSingleThreadScheduledExecutor( r -> new Thread( r, "Lutece-AppointmentSecheduledExecutor-thread" ) );
 
     // CONSTANTS
     // Name of the phone number's generic attribute bean
@@ -209,30 +201,41 @@ public final class AppointmentUtilities
      * @return false if the delay is not respected
      */
     public static boolean checkNbDaysBetweenTwoAppointments( AppointmentDTO appointmentDTO, String strEmail, AppointmentFormDTO form )
+    {
+        return checkNbDaysBetweenTwoAppointments( appointmentDTO, form, new UserAppointmentHistory( strEmail ) );
+    }
+
+    /**
+     * Check that the delay between two appointments for the same use has been respected
+     *
+     * @param appointmentDTO
+     *            the appointment
+     * @param form
+     *            the form
+     * @param userAppointmentHistory
+     *            the appointments already taken by the user
+     * @return false if the delay is not respected
+     */
+    public static boolean checkNbDaysBetweenTwoAppointments( AppointmentDTO appointmentDTO, AppointmentFormDTO form,
+            UserAppointmentHistory userAppointmentHistory )
     {
         boolean bCheckPassed = true;
         int nbDaysBetweenTwoAppointments = form.getNbDaysBeforeNewAppointment( );
         if ( nbDaysBetweenTwoAppointments != 0 )
         {
-            List<Slot> listSlots = getSlotsByEmail( strEmail, appointmentDTO.getIdAppointment( ) );
-            if ( CollectionUtils.isNotEmpty( listSlots ) )
+            // If we modify an appointment, the appointment that we currently edit is excluded
+            List<Slot> listSlots = userAppointmentHistory.getListSlot( appointmentDTO.getIdAppointment( ) );
+            // Get the last appointment date for this form
+            LocalDateTime dateOfTheLastAppointment = listSlots.stream( ).filter( s -> s.getIdForm( ) == form.getIdForm( ) ).map( Slot::getStartingDateTime )
+                    .max( LocalDateTime::compareTo ).orElse( null );
+
+            // Check the number of days between this appointment and
+            // the last appointment the user has taken
+            LocalDateTime dateOfTheAppointment = getStartingDateTime( appointmentDTO );
+            if ( dateOfTheLastAppointment != null && Math
+                    .abs( dateOfTheLastAppointment.toLocalDate( ).until( dateOfTheAppointment, ChronoUnit.DAYS ) ) <= nbDaysBetweenTwoAppointments )
             {
-                // Get the last appointment date for this form
-                listSlots = listSlots.stream( ).filter( s -> s.getIdForm( ) == form.getIdForm( ) ).collect( Collectors.toList( ) );
-                if ( CollectionUtils.isNotEmpty( listSlots ) )
-                {
-                    LocalDateTime dateOfTheLastAppointment = listSlots.stream( ).map( Slot::getStartingDateTime ).max( LocalDateTime::compareTo )
-                            .orElse( null );
-
-                    // Check the number of days between this appointment and
-                    // the last appointment the user has taken
-                    LocalDateTime dateOfTheAppointment = getStartingDateTime( appointmentDTO );
-                    if ( dateOfTheLastAppointment != null && Math
-                            .abs( dateOfTheLastAppointment.toLocalDate( ).until( dateOfTheAppointment, ChronoUnit.DAYS ) ) <= nbDaysBetweenTwoAppointments )
-                    {
-                        bCheckPassed = false;
-                    }
-                }
+                bCheckPassed = false;
             }
         }
         return bCheckPassed;
@@ -251,109 +254,55 @@ public final class AppointmentUtilities
      */
     public static boolean checkNbDaysBetweenTwoAppointmentsTaken( AppointmentDTO appointmentDTO, String strEmail, AppointmentFormDTO form )
     {
-        boolean bCheckPassed = true;
-        int nbDaysBetweenTwoAppointments = form.getNbDaysBeforeNewAppointment( );
-        if ( nbDaysBetweenTwoAppointments != 0 && StringUtils.isNotEmpty( strEmail ) )
-        {
-            AppointmentFilterDTO filter = new AppointmentFilterDTO( );
-            filter.setEmail( strEmail );
-            filter.setStatus( 0 );
-            filter.setIdForm( form.getIdForm( ) );
-            List<Appointment> listAppointment = AppointmentService.findListAppointmentsByFilter( filter );
-            // If we modify an appointment, we remove the
-            // appointment that we currently edit
-            if ( appointmentDTO.getIdAppointment( ) != 0 )
-            {
-                listAppointment.removeIf( a -> a.getIdAppointment( ) != appointmentDTO.getIdAppointment( ) );
-            }
-
-            if ( CollectionUtils.isNotEmpty( listAppointment ) )
-            {
-
-                LocalDateTime dateOfTheLastAppointmentTaken = listAppointment.stream( ).map( Appointment::getDateAppointmentTaken )
-                        .max( LocalDateTime::compareTo ).orElse( null );
-
-                if ( dateOfTheLastAppointmentTaken != null
-                        && Math.abs( dateOfTheLastAppointmentTaken.until( LocalDateTime.now( ), ChronoUnit.DAYS ) ) < nbDaysBetweenTwoAppointments )
-                {
-                    bCheckPassed = false;
-                }
-
-            }
-        }
-        return bCheckPassed;
+        return checkNbDaysBetweenTwoAppointmentsTaken( appointmentDTO, form, new UserAppointmentHistory( strEmail ) );
     }
 
     /**
-     * Get the appointment of a user appointment
+     * Check that the delay between two appointments for the same use has been respected
      *
-     * @param strEmail
-     *            the user's email
-     * @param idAppointment
-     *            the id of the appointment
-     * @return the list of appointment
+     * @param appointmentDTO
+     *            the appointment
+     * @param form
+     *            the form
+     * @param userAppointmentHistory
+     *            the appointments already taken by the user
+     * @return false if the delay is not respected
      */
-    private static List<Appointment> getAppointmentByEmail( String strEmail, int idAppointment )
+    public static boolean checkNbDaysBetweenTwoAppointmentsTaken( AppointmentDTO appointmentDTO, AppointmentFormDTO form,
+            UserAppointmentHistory userAppointmentHistory )
     {
-        List<Appointment> listAppointment = new ArrayList<>( );
-        if ( StringUtils.isNotEmpty( strEmail ) )
+        boolean bCheckPassed = true;
+        int nbDaysBetweenTwoAppointments = form.getNbDaysBeforeNewAppointment( );
+        if ( nbDaysBetweenTwoAppointments != 0 && StringUtils.isNotEmpty( userAppointmentHistory.getEmail( ) ) )
         {
-            // Looking for existing users with this email
-            List<User> listUsers = UserService.findUsersByEmail( strEmail );
-            if ( listUsers != null )
-            {
-                // For each User
-                for ( User user : listUsers )
-                {
-                    // looking for its appointment
-                    listAppointment.addAll( AppointmentService.findListAppointmentByUserId( user.getIdUser( ) ) );
-                }
-
-                // If we modify an appointment, we remove the
-                // appointment that we currently edit
-                if ( idAppointment != 0 )
-                {
-                    listAppointment = listAppointment.stream( ).filter( a -> a.getIdAppointment( ) != idAppointment ).collect( Collectors.toList( ) );
-                }
+            // If we modify an appointment, the appointment that we currently edit is excluded
+            List<Appointment> listAppointment = userAppointmentHistory.getListActiveAppointment( form.getIdForm( ), appointmentDTO.getIdAppointment( ) );
+            LocalDateTime dateOfTheLastAppointmentTaken = listAppointment.stream( ).map( Appointment::getDateAppointmentTaken ).filter( Objects::nonNull )
+                    .max( LocalDateTime::compareTo ).orElse( null );
 
+            if ( dateOfTheLastAppointmentTaken != null
+                    && Math.abs( dateOfTheLastAppointmentTaken.until( LocalDateTime.now( ), ChronoUnit.DAYS ) ) < nbDaysBetweenTwoAppointments )
+            {
+                bCheckPassed = false;
             }
         }
-        return listAppointment;
+        return bCheckPassed;
     }
 
     /**
-     * Get the slot of a user appointment
+     * Check that the number of appointments on a defined period is not above the maximum authorized
      *
+     * @param appointmentDTO
+     *            the appointment
      * @param strEmail
-     *            the user's email
-     * @param idAppointment
-     *            the id of the appointment
-     * @return the list of slots
+     *            the email of the user
+     * @param form
+     *            the form
+     * @return false if the number of appointments is above the maximum authorized on the defined period
      */
-    private static List<Slot> getSlotsByEmail( String strEmail, int idAppointment )
+    public static boolean checkNbMaxAppointmentsOnAGivenPeriod( AppointmentDTO appointmentDTO, String strEmail, AppointmentFormDTO form )
     {
-        List<Slot> listSlots = new ArrayList<>( );
-        if ( StringUtils.isNotEmpty( strEmail ) )
-        {
-            List<Appointment> listAppointment = getAppointmentByEmail( strEmail, idAppointment );
-            if ( CollectionUtils.isNotEmpty( listAppointment ) )
-            {
-                // I know we could have a join sql query, but I don't
-                // want to join the appointment table with the slot
-                // table, it's too big and not efficient
-
-                for ( Appointment appointment : listAppointment )
-                {
-                    if ( !appointment.getIsCancelled( ) )
-                    {
-                        listSlots = SlotService.findListSlotByIdAppointment( appointment.getIdAppointment( ) );
-                    }
-                }
-
-            }
-
-        }
-        return listSlots;
+        return checkNbMaxAppointmentsOnAGivenPeriod( appointmentDTO, form, new UserAppointmentHistory( strEmail ) );
     }
 
     /**
@@ -361,15 +310,16 @@ public final class AppointmentUtilities
      *
      * @param appointmentDTO
      *            the appointment
-     * @param strEmail
-     *            the email of the user
      * @param form
      *            the form
+     * @param userAppointmentHistory
+     *            the appointments already taken by the user
      * @return false if the number of appointments is above the maximum authorized on the defined period
      */
-    public static boolean checkNbMaxAppointmentsOnAGivenPeriod( AppointmentDTO appointmentDTO, String strEmail, AppointmentFormDTO form )
+    public static boolean checkNbMaxAppointmentsOnAGivenPeriod( AppointmentDTO appointmentDTO, AppointmentFormDTO form,
+            UserAppointmentHistory userAppointmentHistory )
     {
-        if ( form.getNbMaxAppointmentsPerUser( ) > 0 && StringUtils.isNotEmpty( strEmail ) )
+        if ( form.getNbMaxAppointmentsPerUser( ) > 0 && StringUtils.isNotEmpty( userAppointmentHistory.getEmail( ) ) )
         {
             // Get the date of the future appointment
             LocalDateTime startingDateTime = getStartingDateTime( appointmentDTO );
@@ -380,46 +330,34 @@ public final class AppointmentUtilities
             }
             LocalDate dateOfTheAppointment = startingDateTime.toLocalDate( );
 
-            AppointmentFilterDTO filter = new AppointmentFilterDTO( );
-            filter.setEmail( strEmail );
-            filter.setIdForm( form.getIdForm( ) );
-            filter.setStatus( 0 );
+            // If we modify an appointment, the appointment that we currently edit is excluded
+            List<Appointment> listAppointment = userAppointmentHistory.getListActiveAppointment( form.getIdForm( ), appointmentDTO.getIdAppointment( ) );
             if ( form.getNbDaysForMaxAppointmentsPerUser( ) > 0 )
             {
-                filter.setStartingDateOfSearch( Date.valueOf( dateOfTheAppointment.minusDays( (long) form.getNbDaysForMaxAppointmentsPerUser( ) - 1 ) ) );
-                filter.setEndingDateOfSearch( Date.valueOf( dateOfTheAppointment.plusDays( (long) form.getNbDaysForMaxAppointmentsPerUser( ) - 1 ) ) );
-            }
-            List<AppointmentDTO> listAppointmentsDTO = AppointmentService.findListAppointmentsDTOByFilter( filter );
-            // If we modify an appointment, we remove the
-            // appointment that we currently edit
-            if ( appointmentDTO.getIdAppointment( ) != 0 )
-            {
-
-                listAppointmentsDTO.removeIf( appt -> appt.getIdAppointment( ) != appointmentDTO.getIdAppointment( ) );
+                LocalDateTime startingDateOfSearch = dateOfTheAppointment.minusDays( (long) form.getNbDaysForMaxAppointmentsPerUser( ) - 1 ).atStartOfDay( );
+                LocalDateTime endingDateOfSearch = dateOfTheAppointment.plusDays( (long) form.getNbDaysForMaxAppointmentsPerUser( ) - 1 ).atTime( LocalTime.MAX );
+                listAppointment = listAppointment.stream( )
+                        .filter( appt -> appt.getSlot( ).stream( ).anyMatch( slot -> !slot.getStartingDateTime( ).isBefore( startingDateOfSearch )
+                                && slot.getStartingDateTime( ).isBefore( endingDateOfSearch ) ) )
+                        .collect( Collectors.toList( ) );
             }
 
-            if ( CollectionUtils.isNotEmpty( listAppointmentsDTO ) )
+            if ( CollectionUtils.isNotEmpty( listAppointment ) )
             {
                 if ( form.getNbDaysForMaxAppointmentsPerUser( ) > 0 )
                 {
-
-                    List<AppointmentDTO> listAppointmentsBefore = listAppointmentsDTO.stream( )
-                            .filter( appt -> appt.getStartingDateTime( ).toLocalDate( ).isBefore( dateOfTheAppointment )
-                                    || appt.getStartingDateTime( ).toLocalDate( ).isEqual( dateOfTheAppointment ) )
-                            .collect( Collectors.toList( ) );
-                    List<AppointmentDTO> listAppointmentsAfter = listAppointmentsDTO.stream( )
-                            .filter( appt -> appt.getStartingDateTime( ).toLocalDate( ).isAfter( dateOfTheAppointment )
-                                    || appt.getStartingDateTime( ).toLocalDate( ).isEqual( dateOfTheAppointment ) )
+                    List<LocalDate> listDateOfAppointment = listAppointment.stream( ).map( appt -> getStartingDateTime( appt ).toLocalDate( ) )
                             .collect( Collectors.toList( ) );
+                    long nbAppointmentsBefore = listDateOfAppointment.stream( ).filter( date -> !date.isAfter( dateOfTheAppointment ) ).count( );
+                    long nbAppointmentsAfter = listDateOfAppointment.stream( ).filter( date -> !date.isBefore( dateOfTheAppointment ) ).count( );
 
-                    if ( listAppointmentsBefore.size( ) >= form.getNbMaxAppointmentsPerUser( )
-                            || listAppointmentsAfter.size( ) >= form.getNbMaxAppointmentsPerUser( ) )
+                    if ( nbAppointmentsBefore >= form.getNbMaxAppointmentsPerUser( ) || nbAppointmentsAfter >= form.getNbMaxAppointmentsPerUser( ) )
                     {
                         return false;
                     }
                 }
                 else
-                    if ( listAppointmentsDTO.size( ) >= form.getNbMaxAppointmentsPerUser( ) )
+                    if ( listAppointment.size( ) >= form.getNbMaxAppointmentsPerUser( ) )
                     {
 
                         return false;
@@ -444,23 +382,39 @@ public final class AppointmentUtilities
     public static boolean checkNbMaxAppointmentsDefinedOnCategory( AppointmentDTO appointmentDTO, String strEmail, AppointmentFormDTO form,
             List<AppointmentDTO> listAppointments )
     {
-        if ( form.getIdCategory( ) != 0 && StringUtils.isNotEmpty( strEmail ) )
+        return checkNbMaxAppointmentsDefinedOnCategory( appointmentDTO, form, listAppointments, new UserAppointmentHistory( strEmail ) );
+    }
+
+    /**
+     * Check that the number of appointments on a defined category is not above the maximum authorized
+     *
+     * @param appointmentDTO
+     *            the appointment
+     * @param form
+     *            the form
+     * @param listAppointments
+     *            the list filled in with the appointments of the user on the category
+     * @param userAppointmentHistory
+     *            the appointments already taken by the user
+     * @return false if the number of appointments is above the maximum authorized on the defined category
+     */
+    public static boolean checkNbMaxAppointmentsDefinedOnCategory( AppointmentDTO appointmentDTO, AppointmentFormDTO form,
+            List<AppointmentDTO> listAppointments, UserAppointmentHistory userAppointmentHistory )
+    {
+        if ( form.getIdCategory( ) != 0 && StringUtils.isNotEmpty( userAppointmentHistory.getEmail( ) ) )
         {
             Category category = CategoryService.findCategoryById( form.getIdCategory( ) );
             if ( category != null && category.getNbMaxAppointmentsPerUser( ) > 0 )
             {
                 LocalDateTime now = LocalDateTime.now( );
-                List<AppointmentDTO> listAppointmentsDTO = AppointmentService.findAppointmentByMailAndCategory( category.getIdCategory( ), strEmail );
-                listAppointmentsDTO.removeIf( appt -> appt.getEndingDateTime( ).isBefore( now ) || appt.getIsCancelled( ) );
-                // If we modify an appointment, we remove the
-                // appointment that we currently edit
-                if ( appointmentDTO.getIdAppointment( ) != 0 )
-                {
-
-                    listAppointmentsDTO.removeIf( appt -> appt.getIdAppointment( ) != appointmentDTO.getIdAppointment( ) );
-                }
-                listAppointments.addAll( listAppointmentsDTO );
-                if ( CollectionUtils.isNotEmpty( listAppointmentsDTO ) && listAppointmentsDTO.size( ) >= category.getNbMaxAppointmentsPerUser( ) )
+                Set<Integer> setIdFormOfCategory = FormHome.findByCategory( category.getIdCategory( ) ).stream( ).map( Form::getIdForm )
+                        .collect( Collectors.toSet( ) );
+                // If we modify an appointment, the appointment that we currently edit is excluded
+                List<Appointment> listAppointment = userAppointmentHistory.getListActiveAppointment( appointmentDTO.getIdAppointment( ) ).stream( )
+                        .filter( appt -> setIdFormOfCategory.contains( appt.getSlot( ).get( 0 ).getIdForm( ) ) && !getEndingDateTime( appt ).isBefore( now ) )
+                        .collect( Collectors.toList( ) );
+                listAppointments.addAll( AppointmentService.buildListAppointmentDTO( listAppointment ) );
+                if ( CollectionUtils.isNotEmpty( listAppointment ) && listAppointment.size( ) >= category.getNbMaxAppointmentsPerUser( ) )
                 {
                     return false;
 
@@ -643,7 +597,22 @@ public final class AppointmentUtilities
     }
 
     /**
-     * Attempts to cancel execution of the task.
+     * Consume the hold of the session on a slot, in the transaction of the booking and under the lock of the slot
+     *
+     * @param request
+     *            the request
+     * @param idSlot
+     *            the id Slot
+     * @return false if the hold of the session has already expired, true otherwise
+     */
+    public static boolean consumeHold( HttpServletRequest request, int idSlot )
+    {
+        String strHoldKey = (String) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
+        return strHoldKey == null || SlotHoldService.consumeHold( strHoldKey );
+    }
+
+    /**
+     * Forget the hold of the session on a slot, once the appointment has been saved
      *
      * @param request
      *            the request
@@ -653,23 +622,26 @@ public final class AppointmentUtilities
 
     public static void cancelTaskTimer( HttpServletRequest request, int idSlot )
     {
-        ScheduledFuture<Slot> task = (ScheduledFuture) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
-        if ( task != null )
-        {
-            if ( !task.isDone( ) )
-                task.cancel( false );
-            request.getSession( ).removeAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
-        }
+        request.getSession( ).removeAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
     }
 
+    /**
+     * Check if the hold of the session on a slot has expired
+     *
+     * @param request
+     *            the request
+     * @param idSlot
+     *            the id Slot
+     * @return true if the hold has expired
+     */
     public static boolean isEditSlotTaskExpiredTime( HttpServletRequest request, int idSlot )
     {
-        ScheduledFuture<Slot> task = (ScheduledFuture) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
-        return ( task != null && task.isDone( ) );
+        String strHoldKey = (String) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
+        return ( strHoldKey != null && !SlotHoldService.isHoldActive( strHoldKey ) );
     }
 
     /**
-     * Create a timer on a slot
+     * Hold places on a slot the time the user fills the form, and keep the key of the hold in session
      *
      * @param slot
      *            the slot
@@ -677,9 +649,9 @@ public final class AppointmentUtilities
      *            the appointment
      * @param maxPeoplePerAppointment
      *            the max people per appointment
-     * @return the ScheduledFuture
+     * @return the key of the hold, null if there is no place left to hold
      */
-    public static ScheduledFuture<Slot> putTimerInSession( HttpServletRequest request, int nIdSlot, AppointmentDTO appointmentDTO, int maxPeoplePerAppointment )
+    public static String putTimerInSession( HttpServletRequest request, int nIdSlot, AppointmentDTO appointmentDTO, int maxPeoplePerAppointment )
     {
         Lock lock = SlotSafeService.getLockOnSlot( nIdSlot );
         lock.lock( );
@@ -693,14 +665,11 @@ public final class AppointmentUtilities
 
             if ( slot.getNbPotentialRemainingPlaces( ) > 0 )
             {
-
-                ScheduledFuture<Slot> scheduledFuture = _secheduledExecutor.schedule( new SlotEditTask( slot.getIdSlot( ), nbPotentialPlacesTaken ),
-                        AppPropertiesService.getPropertyInt( PROPERTY_DEFAULT_EXPIRED_TIME_EDIT_APPOINTMENT, 1 ), TimeUnit.MINUTES );
+                String strHoldKey = SlotHoldService.createHold( slot.getIdSlot( ), nbPotentialPlacesTaken );
                 appointmentDTO.setNbMaxPotentialBookedSeats( nNewNbMaxPotentialBookedSeats );
-                SlotSafeService.decrementPotentialRemainingPlaces( nbPotentialPlacesTaken, slot.getIdSlot( ) );
 
-                request.getSession( ).setAttribute( SESSION_TASK_TIMER_SLOT + slot.getIdSlot( ), scheduledFuture );
-                return scheduledFuture;
+                request.getSession( ).setAttribute( SESSION_TASK_TIMER_SLOT + slot.getIdSlot( ), strHoldKey );
+                return strHoldKey;
             }
             appointmentDTO.setNbMaxPotentialBookedSeats( 0 );
         }
@@ -1213,29 +1182,6 @@ public final class AppointmentUtilities
         return true;
     }
 
-    /**
-     * The following method shuts down the _executorService in two phases, first by calling shutdown to reject incoming tasks, and then calling shutdownNow, if
-     * necessary, to cancel any lingering tasks:
-     */
-    public static void shutdownSecheduledExecutor( )
-    {
-        _secheduledExecutor.shutdown( );
-        try
-        {
-            if ( !_secheduledExecutor.awaitTermination( 60, TimeUnit.SECONDS ) )
-            {
-                _secheduledExecutor.shutdownNow( );
-            }
-        }
-        catch( InterruptedException e )
-        {
-            // (Re-)Cancel if current thread also interrupted
-            AppLogService.error( e.getMessage( ), e );
-            _secheduledExecutor.shutdownNow( );
-            Thread.currentThread().interrupt();
-        }
-
-    }
     /**
      * Format the date of the appointment taken
      */
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Cache of the availability of the forms displayed in the front office calendar.
+ * 
+ * The entries are computed once per form and date range and are kept up to date by the slot, week definition, closing day and form update paths: a change
+ * of the counters of a slot patches the cached lists, any other change of the planning of a form invalidates all the entries of the form. The loading, the
+ * patching and the invalidation of the entries of a form are serialized, and the entries expire after a time to live in case an update has been missed.
+ */
+public final class CalendarAvailabilityCacheService extends AbstractCacheableService
+{
+    private static final String SERVICE_NAME = "Appointment Calendar Availability Cache Service";
+    private static final String PROPERTY_TIME_TO_LIVE = "appointment.cache.calendarAvailability.timeToLive";
+    private static final int DEFAULT_TIME_TO_LIVE = 300;
+    private static final String KEY_SEPARATOR = ":";
+    private static final String KEY_PREFIX_RULES = "rules";
+    private static final String KEY_PREFIX_SLOTS = "slots";
+
+    private static CalendarAvailabilityCacheService _singleton = new CalendarAvailabilityCacheService( );
+
+    private final ConcurrentMap<Integer, Set<String>> _mapKeysByForm = new ConcurrentHashMap<>( );
+    private final FormCacheLocks _locks = new FormCacheLocks( );
+    private final int _nTimeToLive = AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE );
+
+    /**
+     * Private constructor
+     */
+    private CalendarAvailabilityCacheService( )
+    {
+        initCache( );
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return the instance of the service
+     */
+    public static CalendarAvailabilityCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Get the reservation rules of the week definitions of a form that apply on a date range
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param startingDate
+     *            the starting date of the range
+     * @param endingDate
+     *            the ending date of the range
+     * @return the map of the reservation rules by week definition
+     */
+    @SuppressWarnings( "unchecked" )
+    public Map<WeekDefinition, ReservationRule> getMapReservationRule( int nIdForm, LocalDate startingDate, LocalDate endingDate )
+    {
+        String strKey = getKey( nIdForm, KEY_PREFIX_RULES, startingDate, endingDate );
+        Map<WeekDefinition, ReservationRule> mapReservationRule = (Map<WeekDefinition, ReservationRule>) getValue( strKey );
+        if ( mapReservationRule == null )
+        {
+            mapReservationRule = _locks.callOnForm( nIdForm, ( ) -> {
+                Map<WeekDefinition, ReservationRule> mapLoaded = (Map<WeekDefinition, ReservationRule>) getValue( strKey );
+                if ( mapLoaded == null )
+                {
+                    FormPlanning formPlanning = FormPlanningCacheService.getInstance( ).getFormPlanning( nIdForm );
+                    if ( formPlanning == null )
+                    {
+                        return new HashMap<>( );
+                    }
+                    mapLoaded = formPlanning.getMapReservationRule( formPlanning.getListWeekDefinition( startingDate, endingDate ) );
+                    putValue( nIdForm, strKey, mapLoaded );
+                }
+                return mapLoaded;
+            } );
+        }
+        return new HashMap<>( mapReservationRule );
+    }
+
+    /**
+     * Get the slots of a form on a date range, as built by {@link SlotService#buildListSlot(int, Map, LocalDate, LocalDate, int)}
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param startingDate
+     *            the starting date of the range
+     * @param endingDate
+     *            the ending date of the range
+     * @param nNbPlaces
+     *            the number of consecutive places to take, 0 if the form is not multi slot
+     * @return the list of the slots. The slots are shared with the other callers and must not be modified
+     */
+    @SuppressWarnings( "unchecked" )
+    public List<Slot> getListSlot( int nIdForm, LocalDate startingDate, LocalDate endingDate, int nNbPlaces )
+    {
+        String strKey = getKey( nIdForm, KEY_PREFIX_SLOTS, startingDate, endingDate ) + KEY_SEPARATOR + nNbPlaces;
+        List<Slot> listSlot = (List<Slot>) getValue( strKey );
+        if ( listSlot == null )
+        {
+            Map<WeekDefinition, ReservationRule> mapReservationRule = getMapReservationRule( nIdForm, startingDate, endingDate );
+            listSlot = _locks.callOnForm( nIdForm, ( ) -> {
+                List<Slot> listLoaded = (List<Slot>) getValue( strKey );
+                if ( listLoaded == null )
+                {
+                    listLoaded = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDate, endingDate, nNbPlaces );
+                    putValue( nIdForm, strKey, listLoaded );
+                }
+                return listLoaded;
+            } );
+        }
+        return new ArrayList<>( listSlot );
+    }
+
+    /**
+     * Refresh a slot in the cached lists after a change of its counters. The multi slot lists, which aggregate the places of consecutive slots, are
+     * invalidated
+     * 
+     * @param nIdSlot
+     *            the slot Id
+     */
+    @SuppressWarnings( "unchecked" )
+    public void refreshSlot( int nIdSlot )
+    {
+        if ( _mapKeysByForm.isEmpty( ) )
+        {
+            return;
+        }
+        Slot slot = SlotService.findSlotById( nIdSlot );
+        if ( slot == null )
+        {
+            return;
+        }
+        int nIdForm = slot.getIdForm( );
+        if ( !_mapKeysByForm.containsKey( nIdForm ) )
+        {
+            return;
+        }
+        _locks.runOnForm( nIdForm, ( ) -> {
+            Set<String> setKeys = _mapKeysByForm.get( nIdForm );
+            if ( setKeys == null )
+            {
+                return;
+            }
+            for ( String strKey : setKeys )
+            {
+                if ( !strKey.startsWith( getKeyPrefix( nIdForm, KEY_PREFIX_SLOTS ) ) )
+                {
+                    continue;
+                }
+                TimedCacheEntry entry = (TimedCacheEntry) getFromCache( strKey );
+                if ( entry == null || entry.isExpired( ) || !strKey.endsWith( KEY_SEPARATOR + 0 ) )
+                {
+                    removeKey( strKey );
+                    setKeys.remove( strKey );
+                    continue;
+                }
+                List<Slot> listSlotPatched = new ArrayList<>( (List<Slot>) entry.getValue( ) );
+                for ( int i = 0; i < listSlotPatched.size( ); i++ )
+                {
+                    if ( listSlotPatched.get( i ).getIdSlot( ) == nIdSlot )
+                    {
+                        listSlotPatched.set( i, slot );
+                        putInCache( strKey, entry.withValue( listSlotPatched ) );
+                        break;
+                    }
+                }
+            }
+        } );
+    }
+
+    /**
+     * Invalidate all the entries of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public void invalidateForm( int nIdForm )
+    {
+        _locks.runOnForm( nIdForm, ( ) -> {
+            Set<String> setKeys = _mapKeysByForm.remove( nIdForm );
+            if ( setKeys != null )
+            {
+                for ( String strKey : setKeys )
+                {
+                    removeKey( strKey );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Invalidate all the entries of the form of a week definition
+     * 
+     * @param weekDefinition
+     *            the week definition
+     */
+    public void invalidateWeekDefinition( WeekDefinition weekDefinition )
+    {
+        ReservationRule reservationRule = ReservationRuleHome.findByPrimaryKey( weekDefinition.getIdReservationRule( ) );
+        if ( reservationRule != null )
+        {
+            invalidateForm( reservationRule.getIdForm( ) );
+        }
+        else
+        {
+            invalidateAll( );
+        }
+    }
+
+    /**
+     * Invalidate all the entries of all the forms
+     */
+    public void invalidateAll( )
+    {
+        _locks.runOnAllForms( ( ) -> {
+            _mapKeysByForm.clear( );
+            resetCache( );
+        } );
+    }
+
+    /**
+     * Get the value of an entry, unless it has expired
+     * 
+     * @param strKey
+     *            the key of the entry
+     * @return the value, null if the entry is not in cache or has expired
+     */
+    private Object getValue( String strKey )
+    {
+        TimedCacheEntry entry = (TimedCacheEntry) getFromCache( strKey );
+        if ( entry == null || entry.isExpired( ) )
+        {
+            return null;
+        }
+        return entry.getValue( );
+    }
+
+    /**
+     * Put an entry of a form in the cache. Must be called while the entries of the form are locked
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param strKey
+     *            the key of the entry
+     * @param value
+     *            the value of the entry
+     */
+    private void putValue( int nIdForm, String strKey, Object value )
+    {
+        if ( isCacheEnable( ) )
+        {
+            _mapKeysByForm.computeIfAbsent( nIdForm, id -> ConcurrentHashMap.newKeySet( ) ).add( strKey );
+            putInCache( strKey, TimedCacheEntry.of( value, _nTimeToLive ) );
+        }
+    }
+
+    /**
+     * Build the key of an entry
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param strType
+     *            the type of the entry
+     * @param startingDate
+     *            the starting date of the range
+     * @param endingDate
+     *            the ending date of the range
+     * @return the key
+     */
+    private static String getKey( int nIdForm, String strType, LocalDate startingDate, LocalDate endingDate )
+    {
+        return getKeyPrefix( nIdForm, strType ) + startingDate + KEY_SEPARATOR + endingDate;
+    }
+
+    /**
+     * Build the prefix of the keys of a type of entry of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param strType
+     *            the type of the entry
+     * @return the prefix
+     */
+    private static String getKeyPrefix( int nIdForm, String strType )
+    {
+        return nIdForm + KEY_SEPARATOR + strType + KEY_SEPARATOR;
+    }
+}
@@ -38,8 +38,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
@@ -74,8 +76,7 @@ public class CalendarBuilder
     public static List<Slot> buildListSlot( int nIdForm, Map<WeekDefinition, ReservationRule> mapReservationRule, LocalDate startingDate, LocalDate endingDate )
     {
         List<Slot> listSlot = new ArrayList<>( );
-        final List<WeekDefinition> listDateReservationRule = new ArrayList<>( mapReservationRule.keySet( ) );
-        WeekDefinition closestweeDef;
+        final CalendarPlanningIndex planningIndex = new CalendarPlanningIndex( mapReservationRule );
         ReservationRule reservationRuleToApply = null;
         LocalDate dateTemp = startingDate;
         int nMaxCapacity;
@@ -89,16 +90,14 @@ public class CalendarBuilder
         TimeSlot timeSlot;
         LocalDate dateToCompare;
         // Need to check if this date is not before the form date creation
-        WeekDefinition firsWeek = listDateReservationRule.stream( ).sorted( ( week1, week2 ) -> week1.getDateOfApply( ).compareTo( week2.getDateOfApply( ) ) )
-                .findFirst( ).orElse( null );
-        final LocalDate firstDateOfReservationRule = firsWeek.getDateOfApply( );
+        final LocalDate firstDateOfReservationRule = planningIndex.getFirstDateOfApply( );
         LocalDate startingDateToUse = startingDate;
         if ( firstDateOfReservationRule != null && startingDate.isBefore( firstDateOfReservationRule ) )
         {
             startingDateToUse = firstDateOfReservationRule;
         }
         // Get all the closing day of this period
-        List<LocalDate> listDateOfClosingDay = ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate );
+        Set<LocalDate> setDateOfClosingDay = new HashSet<>( findListDateOfClosingDay( nIdForm, startingDateToUse, endingDate ) );
         // Get all the slot between these two dates
         Map<LocalDateTime, Slot> mapSlot = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ),
                 endingDate.atTime( LocalTime.MAX ) );
@@ -109,14 +108,7 @@ public class CalendarBuilder
             dateToCompare = dateTemp;
             // Find the closest date of apply of reservation rule with the given
             // date
-            reservationRuleToApply = null;
-            closestweeDef = Utilities.getClosestWeekDefinitionInPast( listDateReservationRule, dateToCompare );
-            if ( closestweeDef != null )
-            {
-
-                reservationRuleToApply = mapReservationRule.get( closestweeDef );
-
-            }
+            reservationRuleToApply = planningIndex.getReservationRule( dateToCompare );
             nMaxCapacity = 0;
             // Get the day of week of the date
             dayOfWeek = dateTemp.getDayOfWeek( );
@@ -125,15 +117,15 @@ public class CalendarBuilder
             if ( reservationRuleToApply != null )
             {
                 nMaxCapacity = reservationRuleToApply.getMaxCapacityPerSlot( );
-                workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRuleToApply.getListWorkingDay( ), dayOfWeek );
+                workingDay = planningIndex.getWorkingDay( reservationRuleToApply, dayOfWeek );
 
             }
             if ( workingDay != null )
             {
-                minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
-                maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
+                minTimeForThisDay = planningIndex.getMinStartingTime( workingDay );
+                maxTimeForThisDay = planningIndex.getMaxEndingTime( workingDay );
                 // Check if this day is a closing day
-                if ( listDateOfClosingDay.contains( dateTemp ) )
+                if ( setDateOfClosingDay.contains( dateTemp ) )
                 {
                     listSlot.add( SlotService.buildSlot( nIdForm, new Period( dateTemp.atTime( minTimeForThisDay ), dateTemp.atTime( maxTimeForThisDay ) ),
                             nMaxCapacity, nMaxCapacity, nMaxCapacity, 0, Boolean.FALSE, Boolean.FALSE ) );
@@ -156,7 +148,7 @@ public class CalendarBuilder
                         else
                         {
                             // Search the timeslot
-                            timeSlot = TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( workingDay.getListTimeSlot( ), timeTemp );
+                            timeSlot = planningIndex.getTimeSlot( workingDay, timeTemp );
                             if ( timeSlot != null )
                             {
                                 timeTemp = timeSlot.getEndingTime( );
@@ -179,8 +171,8 @@ public class CalendarBuilder
                 // We build all the slots closed for this day
                 if ( reservationRuleToApply != null )
                 {
-                    minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAListOfWorkingDay( reservationRuleToApply.getListWorkingDay( ) );
-                    maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAListOfWorkingDay( reservationRuleToApply.getListWorkingDay( ) );
+                    minTimeForThisDay = planningIndex.getMinStartingTime( reservationRuleToApply );
+                    maxTimeForThisDay = planningIndex.getMaxEndingTime( reservationRuleToApply );
                     int nDuration = reservationRuleToApply.getDurationAppointments( );
                     if ( minTimeForThisDay != null && maxTimeForThisDay != null )
                     {
@@ -239,41 +231,21 @@ public class CalendarBuilder
     {
         List<Slot> listSlotToShow = new ArrayList<>( );
 
-        final List<WeekDefinition> listDateReservationRule = new ArrayList<>( mapReservationRule.keySet( ) );
-        WeekDefinition closestweeDef;
+        final CalendarPlanningIndex planningIndex = new CalendarPlanningIndex( mapReservationRule );
         ReservationRule reservationRuleToApply = null;
         LocalDate dateTemp = startingDate;
-        DayOfWeek dayOfWeek;
         WorkingDay workingDay;
-        LocalTime minTimeForThisDay;
-        LocalTime maxTimeForThisDay;
-        LocalTime timeTemp;
-        LocalDateTime dateTimeTemp;
-        LocalDateTime endingDateTime;
-        LocalDateTime startingDateTime = null;
-        LocalTime tempEndingDateTime = null;
         LocalDateTime localDateTimeNow = LocalDateTime.now( );
 
-        boolean isChanged = true;
-        boolean isfull = false;
-        int sumNbPotentialRemainingPlaces;
-        int sumNbRemainingPlaces;
-        int nbSlot;
-
-        Slot slotToAdd;
-        TimeSlot timeSlot;
-        LocalDate dateToCompare;
         // Need to check if this date is not before the form date creation
-        WeekDefinition firsWeek = listDateReservationRule.stream( ).sorted( ( week1, week2 ) -> week1.getDateOfApply( ).compareTo( week2.getDateOfApply( ) ) )
-                .findFirst( ).orElse( null );
-        final LocalDate firstDateOfReservationRule = firsWeek.getDateOfApply( );
+        final LocalDate firstDateOfReservationRule = planningIndex.getFirstDateOfApply( );
         LocalDate startingDateToUse = startingDate;
         if ( firstDateOfReservationRule != null && startingDate.isBefore( firstDateOfReservationRule ) )
         {
             startingDateToUse = firstDateOfReservationRule;
         }
         // Get all the closing day of this period
-        List<LocalDate> listDateOfClosingDay = ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate );
+        Set<LocalDate> setDateOfClosingDay = new HashSet<>( findListDateOfClosingDay( nIdForm, startingDateToUse, endingDate ) );
         // Get all the slot between these two dates
         Map<LocalDateTime, Slot> mapSlot = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ),
                 endingDate.atTime( LocalTime.MAX ) );
@@ -281,118 +253,20 @@ public class CalendarBuilder
         // Get or build all the event for the period
         while ( !dateTemp.isAfter( endingDate ) )
         {
-            dateToCompare = dateTemp;
             // Find the closest date of apply of reservation rule with the given
             // date
-            reservationRuleToApply = null;
-            closestweeDef = Utilities.getClosestWeekDefinitionInPast( listDateReservationRule, dateToCompare );
-            if ( closestweeDef != null )
-            {
-
-                reservationRuleToApply = mapReservationRule.get( closestweeDef );
-
-            }
-            // Get the day of week of the date
-            dayOfWeek = dateTemp.getDayOfWeek( );
+            reservationRuleToApply = planningIndex.getReservationRule( dateTemp );
             // Get the working day of this day of week
             workingDay = null;
             if ( reservationRuleToApply != null )
             {
-                workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRuleToApply.getListWorkingDay( ), dayOfWeek );
-
+                workingDay = planningIndex.getWorkingDay( reservationRuleToApply, dateTemp.getDayOfWeek( ) );
             }
-
-            if ( workingDay != null )
+            // Check if this day is a closing day
+            if ( workingDay != null && !setDateOfClosingDay.contains( dateTemp ) )
             {
-                minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
-                maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
-                // Check if this day is a closing day
-                if ( !listDateOfClosingDay.contains( dateTemp ) )
-                {
-                    timeTemp = minTimeForThisDay;
-                    sumNbPotentialRemainingPlaces = 0;
-                    sumNbRemainingPlaces = 0;
-                    nbSlot = 0;
-                    isChanged = true;
-                    tempEndingDateTime = timeTemp;
-                    // For each slot of this day
-                    while ( timeTemp.isBefore( maxTimeForThisDay ) || !timeTemp.equals( maxTimeForThisDay ) )
-                    {
-
-                        // Get the LocalDateTime
-                        dateTimeTemp = dateTemp.atTime( timeTemp );
-                        // Search if there is a slot for this datetime
-                        if ( isChanged )
-                        {
-
-                            startingDateTime = dateTimeTemp;
-                            isChanged = false;
-                        }
-                        if ( mapSlot.containsKey( dateTimeTemp ) )
-                        {
-                            slotToAdd = mapSlot.get( dateTimeTemp );
-                            timeTemp = slotToAdd.getEndingDateTime( ).toLocalTime( );
-
-                        }
-                        else
-                        {
-                            // Search the timeslot
-                            timeSlot = TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( workingDay.getListTimeSlot( ), timeTemp );
-                            if ( timeSlot != null )
-                            {
-                                timeTemp = timeSlot.getEndingTime( );
-                                int nMaxCapacityToPut = timeSlot.getMaxCapacity( );
-                                slotToAdd = SlotService.buildSlot( nIdForm, new Period( dateTimeTemp, dateTemp.atTime( timeTemp ) ), nMaxCapacityToPut,
-                                        nMaxCapacityToPut, nMaxCapacityToPut, 0, timeSlot.getIsOpen( ), Boolean.FALSE );
-
-                            }
-                            else
-                            {
-                                break;
-                            }
-                        }
-
-                        if ( isNewSlot( sumNbPotentialRemainingPlaces, nNbPlaces, slotToAdd, localDateTimeNow, isAllOpenSlot, nbSlot ) )
-                        {
-
-                            sumNbPotentialRemainingPlaces = 0;
-                            nbSlot = 0;
-                            sumNbRemainingPlaces = 0;
-                            startingDateTime = slotToAdd.getEndingDateTime( );
-                            tempEndingDateTime = slotToAdd.getEndingTime( );
-                        }
-                        else
-                        {
-                            if ( slotToAdd.getNbPotentialRemainingPlaces( ) <= 0 )
-                            {
-                                isfull = true;
-                            }
-                            sumNbPotentialRemainingPlaces = sumNbPotentialRemainingPlaces + 1;
-                            nbSlot = nbSlot + 1;
-                            sumNbRemainingPlaces = sumNbRemainingPlaces + 1;
-                        }
-
-                        if ( buildNewSlot( sumNbPotentialRemainingPlaces, nNbPlaces, isAllOpenSlot, nbSlot ) )
-                        {
-
-                            endingDateTime = slotToAdd.getEndingDateTime( );
-                            Slot slt = new Slot( );
-                            slt.setStartingDateTime( startingDateTime );
-                            slt.setEndingDateTime( endingDateTime );
-                            slt.setIsOpen( true );
-                            slt.setNbPotentialRemainingPlaces( sumNbPotentialRemainingPlaces );
-                            slt.setNbRemainingPlaces( sumNbRemainingPlaces );
-                            slt.setDate( slotToAdd.getDate( ) );
-                            slt.setIdForm( slotToAdd.getIdForm( ) );
-                            slt.setIsFull( isfull ? 1 : 0 );
-                            listSlotToShow.add( slt );
-                            isChanged = true;
-                            isfull = false;
-                            timeTemp = tempEndingDateTime;
-                        }
-
-                    }
-                }
+                List<Slot> listSlotOfTheDay = buildListSlotOfTheDay( nIdForm, dateTemp, workingDay, planningIndex, mapSlot );
+                addConsecutiveSlots( listSlotOfTheDay, nNbPlaces, isAllOpenSlot, localDateTimeNow, listSlotToShow );
             }
 
             dateTemp = dateTemp.plusDays( 1 );
@@ -401,28 +275,120 @@ public class CalendarBuilder
 
     }
 
-    private static boolean isNewSlot( int sumNbPotentialRemainingPlaces, int nNbPlaces, Slot slotToAdd, LocalDateTime localDateTimeNow, boolean isAllOpenSlot,
-            int nbSlot )
+    /**
+     * Get or build the consecutive slots of a working day, in one pass
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param date
+     *            the date of the day
+     * @param workingDay
+     *            the working day
+     * @param planningIndex
+     *            the planning index of the form
+     * @param mapSlot
+     *            the slots of the period saved in database, with their starting date time for key
+     * @return the list of the slots of the day, ordered by starting time
+     */
+    static List<Slot> buildListSlotOfTheDay( int nIdForm, LocalDate date, WorkingDay workingDay, CalendarPlanningIndex planningIndex,
+            Map<LocalDateTime, Slot> mapSlot )
     {
-
-        if ( isAllOpenSlot )
+        List<Slot> listSlotOfTheDay = new ArrayList<>( );
+        LocalTime maxTimeForThisDay = planningIndex.getMaxEndingTime( workingDay );
+        LocalTime timeTemp = planningIndex.getMinStartingTime( workingDay );
+        while ( !timeTemp.equals( maxTimeForThisDay ) )
         {
-
-            return nbSlot == nNbPlaces || !slotToAdd.getIsOpen( ) || slotToAdd.getEndingDateTime( ).isBefore( localDateTimeNow );
+            LocalDateTime dateTimeTemp = date.atTime( timeTemp );
+            // Search if there is a slot for this datetime
+            Slot slot = mapSlot.get( dateTimeTemp );
+            if ( slot != null )
+            {
+                timeTemp = slot.getEndingDateTime( ).toLocalTime( );
+            }
+            else
+            {
+                // Search the timeslot
+                TimeSlot timeSlot = planningIndex.getTimeSlot( workingDay, timeTemp );
+                if ( timeSlot == null )
+                {
+                    break;
+                }
+                timeTemp = timeSlot.getEndingTime( );
+                int nMaxCapacityToPut = timeSlot.getMaxCapacity( );
+                slot = SlotService.buildSlot( nIdForm, new Period( dateTimeTemp, date.atTime( timeTemp ) ), nMaxCapacityToPut, nMaxCapacityToPut,
+                        nMaxCapacityToPut, 0, timeSlot.getIsOpen( ), Boolean.FALSE );
+            }
+            listSlotOfTheDay.add( slot );
         }
-
-        return sumNbPotentialRemainingPlaces >= nNbPlaces || !slotToAdd.getIsOpen( ) || slotToAdd.getNbPotentialRemainingPlaces( ) <= 0
-                || slotToAdd.getEndingDateTime( ).isBefore( localDateTimeNow );
+        return listSlotOfTheDay;
     }
 
-    private static boolean buildNewSlot( int sumNbPotentialRemainingPlaces, int nNbPlaces, boolean isAllOpenSlot, int nbSlot )
+    /**
+     * Add a slot for each run of nNbPlaces consecutive available slots of a day. The runs are found in one pass, with the length of the current run of
+     * available slots and the number of full slots before each position
+     * 
+     * @param listSlotOfTheDay
+     *            the slots of the day, ordered by starting time
+     * @param nNbPlaces
+     *            the number of consecutive slots to take
+     * @param isAllOpenSlot
+     *            true if the full slots are available too
+     * @param localDateTimeNow
+     *            the current date time
+     * @param listSlotToShow
+     *            the list of the slots to show, to fill
+     */
+    static void addConsecutiveSlots( List<Slot> listSlotOfTheDay, int nNbPlaces, boolean isAllOpenSlot, LocalDateTime localDateTimeNow,
+            List<Slot> listSlotToShow )
     {
-        if ( isAllOpenSlot )
+        int [ ] nbFullSlotsBefore = new int [ listSlotOfTheDay.size( ) + 1];
+        int nRunLength = 0;
+        for ( int i = 0; i < listSlotOfTheDay.size( ); i++ )
         {
-
-            return nbSlot == nNbPlaces;
+            Slot slot = listSlotOfTheDay.get( i );
+            boolean bFull = slot.getNbPotentialRemainingPlaces( ) <= 0;
+            nbFullSlotsBefore [i + 1] = nbFullSlotsBefore [i] + ( bFull ? 1 : 0 );
+            if ( !slot.getIsOpen( ) || slot.getEndingDateTime( ).isBefore( localDateTimeNow ) || ( bFull && !isAllOpenSlot ) )
+            {
+                nRunLength = 0;
+                continue;
+            }
+            nRunLength++;
+            if ( nRunLength >= nNbPlaces )
+            {
+                int nFirst = i - nNbPlaces + 1;
+                Slot slt = new Slot( );
+                slt.setStartingDateTime( listSlotOfTheDay.get( nFirst ).getStartingDateTime( ) );
+                slt.setEndingDateTime( slot.getEndingDateTime( ) );
+                slt.setIsOpen( true );
+                slt.setNbPotentialRemainingPlaces( nNbPlaces );
+                slt.setNbRemainingPlaces( nNbPlaces );
+                slt.setDate( slot.getDate( ) );
+                slt.setIdForm( slot.getIdForm( ) );
+                slt.setIsFull( nbFullSlotsBefore [i + 1] > nbFullSlotsBefore [nFirst] ? 1 : 0 );
+                listSlotToShow.add( slt );
+            }
         }
+    }
 
-        return sumNbPotentialRemainingPlaces >= nNbPlaces;
+    /**
+     * Get the closing days of a form on a period, from the cached planning of the form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param startingDate
+     *            the starting date of the period
+     * @param endingDate
+     *            the ending date of the period
+     * @return the list of the closing dates
+     */
+    private static List<LocalDate> findListDateOfClosingDay( int nIdForm, LocalDate startingDate, LocalDate endingDate )
+    {
+        FormPlanning formPlanning = FormPlanningCacheService.getInstance( ).getFormPlanning( nIdForm );
+        if ( formPlanning == null )
+        {
+            return ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDate, endingDate );
+        }
+        return formPlanning.getListDateOfClosingDay( startingDate, endingDate );
     }
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+
+/**
+ * Index of the planning of a form, built once per calendar so that the lookups done for each day and each slot of the calendar do not scan the lists of
+ * week definitions, working days and time slots.
+ * 
+ * <ul>
+ * <li>the week definitions are indexed by their date of apply, the week definition applied on a date is found with a floor lookup</li>
+ * <li>the working days of a reservation rule are indexed by day of week, with the opening hours of the week</li>
+ * <li>the time slots of a working day are indexed by starting time, with the min starting time and the max ending time of the day</li>
+ * </ul>
+ * 
+ * An instance is not thread safe and must not be shared between calendars.
+ */
+final class CalendarPlanningIndex
+{
+    private final Map<WeekDefinition, ReservationRule> _mapReservationRule;
+    private final List<WeekDefinition> _listWeekDefinition;
+    private final TreeMap<LocalDate, WeekDefinition> _mapWeekDefinitionByDateOfApply = new TreeMap<>( );
+    private final boolean _bOverlappingWeeks;
+    private final Map<ReservationRule, WorkingDay [ ]> _mapWorkingDayByRule = new IdentityHashMap<>( );
+    private final Map<WorkingDay, WorkingDayIndex> _mapWorkingDayIndex = new IdentityHashMap<>( );
+    private final Map<ReservationRule, LocalTime [ ]> _mapOpeningHoursByRule = new IdentityHashMap<>( );
+
+    /**
+     * Constructor
+     * 
+     * @param mapReservationRule
+     *            the map of the reservation rules by week definition
+     */
+    CalendarPlanningIndex( Map<WeekDefinition, ReservationRule> mapReservationRule )
+    {
+        _mapReservationRule = mapReservationRule;
+        _listWeekDefinition = new ArrayList<>( mapReservationRule.keySet( ) );
+        _listWeekDefinition.sort( Comparator.comparing( WeekDefinition::getDateOfApply ) );
+        boolean bOverlappingWeeks = false;
+        LocalDate previousEndingDate = null;
+        for ( WeekDefinition weekDefinition : _listWeekDefinition )
+        {
+            if ( previousEndingDate != null && !weekDefinition.getDateOfApply( ).isAfter( previousEndingDate ) )
+            {
+                bOverlappingWeeks = true;
+            }
+            previousEndingDate = weekDefinition.getEndingDateOfApply( );
+            _mapWeekDefinitionByDateOfApply.put( weekDefinition.getDateOfApply( ), weekDefinition );
+        }
+        // The floor lookup is only valid for disjoint week definitions, a corrupted planning is searched as before
+        _bOverlappingWeeks = bOverlappingWeeks;
+    }
+
+    /**
+     * Get the first date of apply of the week definitions
+     * 
+     * @return the first date of apply, null if there is no week definition
+     */
+    LocalDate getFirstDateOfApply( )
+    {
+        return _mapWeekDefinitionByDateOfApply.isEmpty( ) ? null : _mapWeekDefinitionByDateOfApply.firstKey( );
+    }
+
+    /**
+     * Get the reservation rule applied on a date
+     * 
+     * @param date
+     *            the date
+     * @return the reservation rule, null if no week definition covers the date
+     */
+    ReservationRule getReservationRule( LocalDate date )
+    {
+        WeekDefinition weekDefinition;
+        if ( _bOverlappingWeeks )
+        {
+            weekDefinition = Utilities.getClosestWeekDefinitionInPast( _listWeekDefinition, date );
+        }
+        else
+        {
+            Entry<LocalDate, WeekDefinition> entry = _mapWeekDefinitionByDateOfApply.floorEntry( date );
+            weekDefinition = ( entry != null && !entry.getValue( ).getEndingDateOfApply( ).isBefore( date ) ) ? entry.getValue( ) : null;
+        }
+        return ( weekDefinition != null ) ? _mapReservationRule.get( weekDefinition ) : null;
+    }
+
+    /**
+     * Get the working day of a reservation rule for a day of week
+     * 
+     * @param reservationRule
+     *            the reservation rule
+     * @param dayOfWeek
+     *            the day of week
+     * @return the working day, null if the day is not worked
+     */
+    WorkingDay getWorkingDay( ReservationRule reservationRule, DayOfWeek dayOfWeek )
+    {
+        WorkingDay [ ] tabWorkingDay = _mapWorkingDayByRule.get( reservationRule );
+        if ( tabWorkingDay == null )
+        {
+            tabWorkingDay = new WorkingDay [ DayOfWeek.values( ).length];
+            for ( DayOfWeek day : DayOfWeek.values( ) )
+            {
+                tabWorkingDay [day.ordinal( )] = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRule.getListWorkingDay( ), day );
+            }
+            _mapWorkingDayByRule.put( reservationRule, tabWorkingDay );
+        }
+        return tabWorkingDay [dayOfWeek.ordinal( )];
+    }
+
+    /**
+     * Get the min starting time of all the working days of a reservation rule
+     * 
+     * @param reservationRule
+     *            the reservation rule
+     * @return the min starting time, null if there is no working day
+     */
+    LocalTime getMinStartingTime( ReservationRule reservationRule )
+    {
+        return getOpeningHours( reservationRule ) [0];
+    }
+
+    /**
+     * Get the max ending time of the working days of a reservation rule, as computed by
+     * {@link WorkingDayService#getMaxEndingTimeOfAListOfWorkingDay(List)}
+     * 
+     * @param reservationRule
+     *            the reservation rule
+     * @return the max ending time, null if there is no working day
+     */
+    LocalTime getMaxEndingTime( ReservationRule reservationRule )
+    {
+        return getOpeningHours( reservationRule ) [1];
+    }
+
+    /**
+     * Get the min starting time of a working day
+     * 
+     * @param workingDay
+     *            the working day
+     * @return the min starting time
+     */
+    LocalTime getMinStartingTime( WorkingDay workingDay )
+    {
+        return getWorkingDayIndex( workingDay )._minStartingTime;
+    }
+
+    /**
+     * Get the max ending time of a working day
+     * 
+     * @param workingDay
+     *            the working day
+     * @return the max ending time
+     */
+    LocalTime getMaxEndingTime( WorkingDay workingDay )
+    {
+        return getWorkingDayIndex( workingDay )._maxEndingTime;
+    }
+
+    /**
+     * Get the time slot of a working day starting at a given time
+     * 
+     * @param workingDay
+     *            the working day
+     * @param startingTime
+     *            the starting time
+     * @return the time slot, null if no time slot starts at this time
+     */
+    TimeSlot getTimeSlot( WorkingDay workingDay, LocalTime startingTime )
+    {
+        return getWorkingDayIndex( workingDay )._mapTimeSlotByStartingTime.get( startingTime );
+    }
+
+    /**
+     * Get the opening hours of a reservation rule, computed on their first use
+     * 
+     * @param reservationRule
+     *            the reservation rule
+     * @return the min starting time and the max ending time
+     */
+    private LocalTime [ ] getOpeningHours( ReservationRule reservationRule )
+    {
+        return _mapOpeningHoursByRule.computeIfAbsent( reservationRule, rule -> new LocalTime [ ] {
+                WorkingDayService.getMinStartingTimeOfAListOfWorkingDay( rule.getListWorkingDay( ) ),
+                WorkingDayService.getMaxEndingTimeOfAListOfWorkingDay( rule.getListWorkingDay( ) )
+        } );
+    }
+
+    /**
+     * Get the index of a working day, built on its first use
+     * 
+     * @param workingDay
+     *            the working day
+     * @return the index of the working day
+     */
+    private WorkingDayIndex getWorkingDayIndex( WorkingDay workingDay )
+    {
+        return _mapWorkingDayIndex.computeIfAbsent( workingDay, WorkingDayIndex::new );
+    }
+
+    /**
+     * Index of the time slots of a working day
+     */
+    private static final class WorkingDayIndex
+    {
+        private final Map<LocalTime, TimeSlot> _mapTimeSlotByStartingTime = new HashMap<>( );
+        private final LocalTime _minStartingTime;
+        private final LocalTime _maxEndingTime;
+
+        /**
+         * Constructor
+         * 
+         * @param workingDay
+         *            the working day
+         */
+        WorkingDayIndex( WorkingDay workingDay )
+        {
+            for ( TimeSlot timeSlot : workingDay.getListTimeSlot( ) )
+            {
+                // Keep the first time slot of the list, as the linear search did
+                _mapTimeSlotByStartingTime.putIfAbsent( timeSlot.getStartingTime( ), timeSlot );
+            }
+            _minStartingTime = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
+            _maxEndingTime = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
+        }
+    }
+}
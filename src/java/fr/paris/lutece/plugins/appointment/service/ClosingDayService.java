@@ -169,7 +169,7 @@ public final class ClosingDayService
         ClosingDay closingDay = new ClosingDay( );
         closingDay.setIdForm( nIdForm );
         closingDay.setDateOfClosingDay( closingDate );
-        ClosingDayHome.create( closingDay );
+        saveClosingDay( closingDay );
     }
 
     /**
@@ -181,6 +181,8 @@ public final class ClosingDayService
     public static void saveClosingDay( ClosingDay closingDay )
     {
         ClosingDayHome.create( closingDay );
+        FormPlanningCacheService.getInstance( ).invalidateForm( closingDay.getIdForm( ) );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( closingDay.getIdForm( ) );
     }
 
     /**
@@ -192,6 +194,8 @@ public final class ClosingDayService
     public static void removeClosingDay( ClosingDay closingDay )
     {
         ClosingDayHome.delete( closingDay.getIdClosingDay( ) );
+        FormPlanningCacheService.getInstance( ).invalidateForm( closingDay.getIdForm( ) );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( closingDay.getIdForm( ) );
     }
 
     /**
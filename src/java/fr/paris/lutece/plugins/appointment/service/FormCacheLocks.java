@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Locks of a cache whose entries belong to the forms.
+ * 
+ * The loading of the entries of a form and their invalidation are serialized, so that an entry loaded before a modification of the form can not be put in
+ * cache after the invalidation that follows the modification. The invalidation of all the forms waits for the operations in progress on every form.
+ */
+final class FormCacheLocks
+{
+    private final ConcurrentMap<Integer, Object> _mapLockByForm = new ConcurrentHashMap<>( );
+    // Held in read mode by the operations on a single form, in write mode by the operations on all the forms
+    private final ReadWriteLock _lockAllForms = new ReentrantReadWriteLock( );
+
+    /**
+     * Call an operation on the entries of a form, exclusively of the other operations on the same form
+     * 
+     * @param <T>
+     *            the type of the result
+     * @param nIdForm
+     *            the form Id
+     * @param operation
+     *            the operation
+     * @return the result of the operation
+     */
+    <T> T callOnForm( int nIdForm, Supplier<T> operation )
+    {
+        _lockAllForms.readLock( ).lock( );
+        try
+        {
+            synchronized( _mapLockByForm.computeIfAbsent( nIdForm, id -> new Object( ) ) )
+            {
+                return operation.get( );
+            }
+        }
+        finally
+        {
+            _lockAllForms.readLock( ).unlock( );
+        }
+    }
+
+    /**
+     * Run an operation on the entries of a form, exclusively of the other operations on the same form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param operation
+     *            the operation
+     */
+    void runOnForm( int nIdForm, Runnable operation )
+    {
+        callOnForm( nIdForm, ( ) -> {
+            operation.run( );
+            return null;
+        } );
+    }
+
+    /**
+     * Run an operation on the entries of all the forms, exclusively of any other operation
+     * 
+     * @param operation
+     *            the operation
+     */
+    void runOnAllForms( Runnable operation )
+    {
+        _lockAllForms.writeLock( ).lock( );
+        try
+        {
+            operation.run( );
+        }
+        finally
+        {
+            _lockAllForms.writeLock( ).unlock( );
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.appointment.business.display.Display;
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.business.localization.Localization;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.FormRule;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+
+/**
+ * Snapshot of the static part of a form: the form itself, its display, localization and form rule, its week definitions, its reservation rules with their
+ * working days and time slots, and its closing days.
+ * 
+ * The snapshot is loaded once and shared by all the requests through {@link FormPlanningCacheService}. Its collections are read only and the business
+ * objects it holds must not be modified by the callers.
+ */
+public final class FormPlanning
+{
+    private final Form _form;
+    private final Display _display;
+    private final Localization _localization;
+    private final FormRule _formRule;
+    private final List<WeekDefinition> _listWeekDefinition;
+    private final Map<Integer, ReservationRule> _mapReservationRule;
+    private final NavigableSet<LocalDate> _setDateOfClosingDay;
+
+    /**
+     * Constructor
+     * 
+     * @param form
+     *            the form
+     * @param display
+     *            the display of the form
+     * @param localization
+     *            the localization of the form
+     * @param formRule
+     *            the form rule of the form
+     * @param listWeekDefinition
+     *            the week definitions of the form
+     * @param listReservationRule
+     *            the reservation rules of the form, with their working days and time slots
+     * @param listDateOfClosingDay
+     *            the dates of the closing days of the form
+     */
+    public FormPlanning( Form form, Display display, Localization localization, FormRule formRule, List<WeekDefinition> listWeekDefinition,
+            List<ReservationRule> listReservationRule, List<LocalDate> listDateOfClosingDay )
+    {
+        _form = form;
+        _display = display;
+        _localization = localization;
+        _formRule = formRule;
+        _listWeekDefinition = Collections.unmodifiableList( new ArrayList<>( listWeekDefinition ) );
+        Map<Integer, ReservationRule> mapReservationRule = new HashMap<>( );
+        for ( ReservationRule reservationRule : listReservationRule )
+        {
+            mapReservationRule.put( reservationRule.getIdReservationRule( ), reservationRule );
+        }
+        _mapReservationRule = Collections.unmodifiableMap( mapReservationRule );
+        _setDateOfClosingDay = Collections.unmodifiableNavigableSet( new TreeSet<>( listDateOfClosingDay ) );
+    }
+
+    /**
+     * Get the form
+     * 
+     * @return the form
+     */
+    public Form getForm( )
+    {
+        return _form;
+    }
+
+    /**
+     * Get the display of the form
+     * 
+     * @return the display, null if the form has no display
+     */
+    public Display getDisplay( )
+    {
+        return _display;
+    }
+
+    /**
+     * Get the localization of the form
+     * 
+     * @return the localization, null if the form has no localization
+     */
+    public Localization getLocalization( )
+    {
+        return _localization;
+    }
+
+    /**
+     * Get the form rule of the form
+     * 
+     * @return the form rule, null if the form has no form rule
+     */
+    public FormRule getFormRule( )
+    {
+        return _formRule;
+    }
+
+    /**
+     * Get all the week definitions of the form
+     * 
+     * @return the read only list of the week definitions
+     */
+    public List<WeekDefinition> getListWeekDefinition( )
+    {
+        return _listWeekDefinition;
+    }
+
+    /**
+     * Get the week definitions of the form that apply on a date range
+     * 
+     * @param startingDate
+     *            the starting date of the range
+     * @param endingDate
+     *            the ending date of the range
+     * @return the list of the week definitions
+     */
+    public List<WeekDefinition> getListWeekDefinition( LocalDate startingDate, LocalDate endingDate )
+    {
+        return _listWeekDefinition.stream( ).filter( w -> !w.getEndingDateOfApply( ).isBefore( startingDate ) && !w.getDateOfApply( ).isAfter( endingDate ) )
+                .collect( Collectors.toList( ) );
+    }
+
+    /**
+     * Get a reservation rule of the form
+     * 
+     * @param nIdReservationRule
+     *            the reservation rule Id
+     * @return the reservation rule with its working days, null if the rule does not belong to the form
+     */
+    public ReservationRule getReservationRule( int nIdReservationRule )
+    {
+        return _mapReservationRule.get( nIdReservationRule );
+    }
+
+    /**
+     * Get the reservation rules of all the week definitions of the form
+     * 
+     * @return a new map with the week definitions in key and their reservation rules in value
+     */
+    public Map<WeekDefinition, ReservationRule> getMapReservationRule( )
+    {
+        return getMapReservationRule( _listWeekDefinition );
+    }
+
+    /**
+     * Get the reservation rules of a list of week definitions of the form
+     * 
+     * @param listWeekDefinition
+     *            the week definitions
+     * @return a new map with the week definitions in key and their reservation rules in value
+     */
+    public Map<WeekDefinition, ReservationRule> getMapReservationRule( Collection<WeekDefinition> listWeekDefinition )
+    {
+        Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
+        for ( WeekDefinition weekDefinition : listWeekDefinition )
+        {
+            ReservationRule reservationRule = _mapReservationRule.get( weekDefinition.getIdReservationRule( ) );
+            if ( reservationRule != null )
+            {
+                mapReservationRule.put( weekDefinition, reservationRule );
+            }
+        }
+        return mapReservationRule;
+    }
+
+    /**
+     * Get the dates of the closing days of the form on a date range
+     * 
+     * @param startingDate
+     *            the starting date of the range
+     * @param endingDate
+     *            the ending date of the range
+     * @return the list of the closing dates, sorted
+     */
+    public List<LocalDate> getListDateOfClosingDay( LocalDate startingDate, LocalDate endingDate )
+    {
+        if ( endingDate.isBefore( startingDate ) )
+        {
+            return new ArrayList<>( );
+        }
+        return new ArrayList<>( _setDateOfClosingDay.subSet( startingDate, true, endingDate, true ) );
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Read-through cache of the {@link FormPlanning} of the forms.
+ * 
+ * The snapshot of a form is loaded on the first request and kept until the form, one of its week definitions or one of its closing days is modified, or
+ * until its time to live expires in case a modification has been missed. The loading and the invalidation of the planning of a form are serialized. The
+ * size of the cache is bounded by the configuration of the Lutece cache named {@value #SERVICE_NAME}. The hits, misses, evictions and invalidations are
+ * counted and displayed with the informations of the cache.
+ */
+public final class FormPlanningCacheService extends AbstractCacheableService
+{
+    private static final String SERVICE_NAME = "Appointment Form Planning Cache Service";
+    private static final String PROPERTY_TIME_TO_LIVE = "appointment.cache.formPlanning.timeToLive";
+    private static final int DEFAULT_TIME_TO_LIVE = 600;
+
+    private static FormPlanningCacheService _singleton = new FormPlanningCacheService( );
+
+    private final FormCacheLocks _locks = new FormCacheLocks( );
+    private final int _nTimeToLive = AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE );
+    private final Set<Integer> _setLoadedForm = ConcurrentHashMap.newKeySet( );
+    private final AtomicLong _lHits = new AtomicLong( );
+    private final AtomicLong _lMisses = new AtomicLong( );
+    private final AtomicLong _lEvictions = new AtomicLong( );
+    private final AtomicLong _lInvalidations = new AtomicLong( );
+
+    /**
+     * Private constructor
+     */
+    private FormPlanningCacheService( )
+    {
+        initCache( );
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return the instance of the service
+     */
+    public static FormPlanningCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Get the planning of a form, loaded from the database if it is not in cache
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the planning of the form, null if the form does not exist
+     */
+    public FormPlanning getFormPlanning( int nIdForm )
+    {
+        String strKey = String.valueOf( nIdForm );
+        TimedCacheEntry entry = (TimedCacheEntry) getFromCache( strKey );
+        if ( entry != null && !entry.isExpired( ) )
+        {
+            _lHits.incrementAndGet( );
+            return (FormPlanning) entry.getValue( );
+        }
+        return _locks.callOnForm( nIdForm, ( ) -> loadInCache( nIdForm, strKey ) );
+    }
+
+    /**
+     * Invalidate the planning of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public void invalidateForm( int nIdForm )
+    {
+        _locks.runOnForm( nIdForm, ( ) -> {
+            _setLoadedForm.remove( nIdForm );
+            removeKey( String.valueOf( nIdForm ) );
+        } );
+        _lInvalidations.incrementAndGet( );
+    }
+
+    /**
+     * Invalidate the planning of the form of a week definition
+     * 
+     * @param weekDefinition
+     *            the week definition
+     */
+    public void invalidateWeekDefinition( WeekDefinition weekDefinition )
+    {
+        ReservationRule reservationRule = ReservationRuleHome.findByPrimaryKey( weekDefinition.getIdReservationRule( ) );
+        if ( reservationRule != null )
+        {
+            invalidateForm( reservationRule.getIdForm( ) );
+        }
+        else
+        {
+            invalidateAll( );
+        }
+    }
+
+    /**
+     * Invalidate the planning of all the forms
+     */
+    public void invalidateAll( )
+    {
+        _locks.runOnAllForms( ( ) -> {
+            _setLoadedForm.clear( );
+            resetCache( );
+        } );
+        _lInvalidations.incrementAndGet( );
+    }
+
+    /**
+     * Get the number of plannings found in cache
+     * 
+     * @return the number of hits
+     */
+    public long getHitCount( )
+    {
+        return _lHits.get( );
+    }
+
+    /**
+     * Get the number of plannings loaded from the database
+     * 
+     * @return the number of misses
+     */
+    public long getMissCount( )
+    {
+        return _lMisses.get( );
+    }
+
+    /**
+     * Get the number of plannings removed by the cache itself, because of its size or of the time to live of its entries
+     * 
+     * @return the number of evictions
+     */
+    public long getEvictionCount( )
+    {
+        return _lEvictions.get( );
+    }
+
+    /**
+     * Get the number of invalidations following a modification of a form
+     * 
+     * @return the number of invalidations
+     */
+    public long getInvalidationCount( )
+    {
+        return _lInvalidations.get( );
+    }
+
+    /**
+     * Get the informations of the cache, with its statistics
+     * 
+     * @return the informations of the cache
+     */
+    public String getInfos( )
+    {
+        StringBuilder sbInfos = new StringBuilder( );
+        sbInfos.append( "size=" ).append( getCacheSize( ) );
+        sbInfos.append( ", hits=" ).append( getHitCount( ) );
+        sbInfos.append( ", misses=" ).append( getMissCount( ) );
+        sbInfos.append( ", evictions=" ).append( getEvictionCount( ) );
+        sbInfos.append( ", invalidations=" ).append( getInvalidationCount( ) );
+        return sbInfos.toString( );
+    }
+
+    /**
+     * Load the planning of a form in the cache, unless another thread has loaded it meanwhile. Must be called while the planning of the form is locked
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param strKey
+     *            the key of the planning in cache
+     * @return the planning of the form, null if the form does not exist
+     */
+    private FormPlanning loadInCache( int nIdForm, String strKey )
+    {
+        TimedCacheEntry entry = (TimedCacheEntry) getFromCache( strKey );
+        if ( entry != null && !entry.isExpired( ) )
+        {
+            _lHits.incrementAndGet( );
+            return (FormPlanning) entry.getValue( );
+        }
+        _lMisses.incrementAndGet( );
+        if ( _setLoadedForm.contains( nIdForm ) )
+        {
+            // The planning has been loaded and not invalidated since, so it has been evicted by the cache or has expired
+            _lEvictions.incrementAndGet( );
+        }
+        FormPlanning formPlanning = loadFormPlanning( nIdForm );
+        if ( formPlanning != null && isCacheEnable( ) )
+        {
+            putInCache( strKey, TimedCacheEntry.of( formPlanning, _nTimeToLive ) );
+            _setLoadedForm.add( nIdForm );
+        }
+        return formPlanning;
+    }
+
+    /**
+     * Load the planning of a form from the database
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the planning of the form, null if the form does not exist
+     */
+    private static FormPlanning loadFormPlanning( int nIdForm )
+    {
+        Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+        if ( form == null )
+        {
+            return null;
+        }
+        return new FormPlanning( form, DisplayService.findDisplayWithFormId( nIdForm ), LocalizationService.findLocalizationWithFormId( nIdForm ),
+                FormRuleService.findFormRuleWithFormId( nIdForm ), WeekDefinitionService.findListWeekDefinition( nIdForm ),
+                ReservationRuleService.findListReservationRule( nIdForm ), ClosingDayService.findListDateOfClosingDayByIdForm( nIdForm ) );
+    }
+}
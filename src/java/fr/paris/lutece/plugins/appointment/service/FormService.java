@@ -38,11 +38,11 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 
-import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentResponseHome;
+import fr.paris.lutece.plugins.appointment.business.archive.ArchiveHome;
 import fr.paris.lutece.plugins.appointment.business.comment.CommentHome;
 import fr.paris.lutece.plugins.appointment.business.display.Display;
 import fr.paris.lutece.plugins.appointment.business.display.DisplayHome;
@@ -52,11 +52,8 @@ import fr.paris.lutece.plugins.appointment.business.localization.Localization;
 import fr.paris.lutece.plugins.appointment.business.localization.LocalizationHome;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessage;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessageHome;
-import fr.paris.lutece.plugins.appointment.business.planning.ClosingDay;
 import fr.paris.lutece.plugins.appointment.business.planning.ClosingDayHome;
-import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlotHome;
-import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinitionHome;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDayHome;
@@ -64,7 +61,6 @@ import fr.paris.lutece.plugins.appointment.business.rule.FormRule;
 import fr.paris.lutece.plugins.appointment.business.rule.FormRuleHome;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
-import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
 import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
 import fr.paris.lutece.plugins.appointment.service.listeners.FormListenerManager;
@@ -85,6 +81,15 @@ import fr.paris.lutece.util.sql.TransactionManager;
  */
 public final class FormService
 {
+    /**
+     * Number of the steps of the copy of a form
+     */
+    static final int NB_STEPS_COPY = 4;
+
+    /**
+     * Number of the steps of the removal of a form
+     */
+    static final int NB_STEPS_REMOVAL = 4;
 
     /**
      * Private constructor - this class does not need to be instantiated
@@ -103,6 +108,22 @@ public final class FormService
      * @return the id of the form created
      */
     public static int copyForm( int nIdForm, String newNameForCopy )
+    {
+        return copyForm( nIdForm, newNameForCopy, null );
+    }
+
+    /**
+     * Make a copy of form, with all its values. The planning, the closing days and the specific slots are copied with set-based queries
+     * 
+     * @param nIdForm
+     *            the Form Id to copy
+     * @param newNameForCopy
+     *            the new Name of the copy
+     * @param job
+     *            the job following the progress of the copy, can be null
+     * @return the id of the form created
+     */
+    static int copyForm( int nIdForm, String newNameForCopy, AppointmentFormJob job )
     {
         // Build the simple form to copy with the values of the original form
         AppointmentFormDTO appointmentForm = buildAppointmentForm( nIdForm, 0 );
@@ -119,96 +140,33 @@ public final class FormService
         LocalizationService.createLocalization( appointmentForm, nIdNewForm );
         // Add the form rule
         FormRuleService.createFormRule( appointmentForm, nIdNewForm );
-        // Get all the weekDefinitions, WorkingDays and TimeSlots of the
-        // original form and set the new id
-        // of the copy of the form and save them
-        WeekDefinition copyWeekDefinition;
-        int idCopyReservationRule;
-        WorkingDay copyWorkingDay;
-        int idCopyWorkingDay;
-        TimeSlot copyTimeSlot;
-        List<WeekDefinition> listWeekDefinitions = WeekDefinitionService.findListWeekDefinition( nIdForm );
-        List<WorkingDay> listWorkingDays;
-        List<TimeSlot> listTimeSlots;
-
-        // Get all the reservation rules of the original form and set the new id
-        // of the copy of the form and save them
-        ReservationRule copyReservationRule;
-        List<ReservationRule> listReservationRules = ReservationRuleService.findListReservationRule( nIdForm );
-        for ( ReservationRule reservationRule : listReservationRules )
-        {
-            int nOldReservationRule = reservationRule.getIdReservationRule( );
-            copyReservationRule = reservationRule;
-            copyReservationRule.setIdReservationRule( 0 );
-            copyReservationRule.setIdForm( nIdNewForm );
-            ReservationRuleService.saveReservationRule( copyReservationRule );
-            listWorkingDays = copyReservationRule.getListWorkingDay( );
-            idCopyReservationRule = copyReservationRule.getIdReservationRule( );
-
-            for ( WorkingDay workingDay : listWorkingDays )
-            {
-                copyWorkingDay = workingDay;
-                copyWorkingDay.setIdWorkingDay( 0 );
-                copyWorkingDay.setIdReservationRule( idCopyReservationRule );
-                copyWorkingDay = WorkingDayService.saveWorkingDay( copyWorkingDay );
-                idCopyWorkingDay = copyWorkingDay.getIdWorkingDay( );
-                listTimeSlots = workingDay.getListTimeSlot( );
-                for ( TimeSlot timeSlot : listTimeSlots )
-                {
-                    copyTimeSlot = timeSlot;
-                    copyTimeSlot.setIdTimeSlot( 0 );
-                    copyTimeSlot.setIdWorkingDay( idCopyWorkingDay );
-                    TimeSlotService.saveTimeSlot( copyTimeSlot );
-                }
-            }
-            List<WeekDefinition> listWeekDef = listWeekDefinitions.stream( ).filter( week -> week.getIdReservationRule( ) == nOldReservationRule )
-                    .collect( Collectors.toList( ) );
-            if ( CollectionUtils.isNotEmpty( listWeekDef ) )
-            {
-
-                for ( WeekDefinition weekDefinition : listWeekDef )
-                {
-                    copyWeekDefinition = weekDefinition;
-                    copyWeekDefinition.setIdWeekDefinition( 0 );
-                    copyWeekDefinition.setIdReservationRule( idCopyReservationRule );
-                    WeekDefinitionHome.create( copyWeekDefinition );
-                }
-            }
-        }
-
         // Copy the messages of the original form and add them to the copy
-        FormMessage formMessage = FormMessageService.findFormMessageByIdForm( nIdForm );
-        FormMessage copyFormMessage = formMessage;
+        FormMessage copyFormMessage = FormMessageService.findFormMessageByIdForm( nIdForm );
         copyFormMessage.setIdFormMessage( 0 );
         copyFormMessage.setIdForm( nIdNewForm );
         FormMessageService.saveFormMessage( copyFormMessage );
-        // Get all the closing days of the original form and add them to the
-        // copy
-        List<ClosingDay> listClosingDays = ClosingDayService.findListClosingDay( nIdForm );
-        ClosingDay copyClosingDay;
-        for ( ClosingDay closingDay : listClosingDays )
+        stepDone( job, nIdNewForm );
+
+        // Copy the reservation rules of the original form, then their working
+        // days, time slots and week definitions
+        for ( ReservationRule copyReservationRule : ReservationRuleHome.findByIdForm( nIdForm ) )
         {
-            copyClosingDay = closingDay;
-            copyClosingDay.setIdClosingDay( 0 );
-            copyClosingDay.setIdForm( nIdNewForm );
-            ClosingDayService.saveClosingDay( copyClosingDay );
+            int nOldReservationRule = copyReservationRule.getIdReservationRule( );
+            copyReservationRule.setIdReservationRule( 0 );
+            copyReservationRule.setIdForm( nIdNewForm );
+            ReservationRuleService.saveReservationRule( copyReservationRule );
+            int nIdCopyReservationRule = copyReservationRule.getIdReservationRule( );
+            WorkingDayHome.copyByIdReservationRule( nOldReservationRule, nIdCopyReservationRule );
+            TimeSlotHome.copyByIdReservationRule( nOldReservationRule, nIdCopyReservationRule );
+            WeekDefinitionHome.copyByIdReservationRule( nOldReservationRule, nIdCopyReservationRule );
         }
-        // Get all the specific slots of the original form and copy them for the
-        // new form
-        List<Slot> listSpecificSlots = SlotService.findSpecificSlotsByIdForm( nIdForm );
-        Slot copySpecificSlot;
-        for ( Slot specificSlot : listSpecificSlots )
-        {
-            copySpecificSlot = specificSlot;
+        stepDone( job, nIdNewForm );
 
-            copySpecificSlot.setIdSlot( 0 );
-            copySpecificSlot.setIdForm( nIdNewForm );
-            copySpecificSlot.setNbPotentialRemainingPlaces( specificSlot.getMaxCapacity( ) );
-            copySpecificSlot.setNbRemainingPlaces( specificSlot.getMaxCapacity( ) );
-            copySpecificSlot.setNbPlacestaken( 0 );
+        // Copy the closing days and the specific slots of the original form
+        ClosingDayHome.copyByIdForm( nIdForm, nIdNewForm );
+        SlotHome.copySpecificByIdForm( nIdForm, nIdNewForm );
+        stepDone( job, nIdNewForm );
 
-            SlotHome.create( copySpecificSlot );
-        }
         // Copy the entries of the original form
         EntryFilter entryFilter = new EntryFilter( );
         entryFilter.setIdResource( nIdForm );
@@ -221,10 +179,28 @@ public final class FormService
             entry.setIdResource( nIdNewForm );
             EntryHome.copy( entry );
         }
+        stepDone( job, nIdNewForm );
         FormListenerManager.notifyListenersFormCreation( nIdForm );
         return nIdNewForm;
     }
 
+    /**
+     * Record a step done by a job
+     * 
+     * @param job
+     *            the job, can be null
+     * @param nIdFormCopy
+     *            the id of the copy of the form, 0 for a removal
+     */
+    private static void stepDone( AppointmentFormJob job, int nIdFormCopy )
+    {
+        if ( job != null )
+        {
+            job.setIdFormCopy( nIdFormCopy );
+            job.stepDone( );
+        }
+    }
+
     /**
      * Save a form in database
      * 
@@ -436,19 +412,19 @@ public final class FormService
     public static AppointmentFormDTO buildAppointmentFormWithoutReservationRule( int nIdForm )
     {
         AppointmentFormDTO appointmentForm = new AppointmentFormDTO( );
-        Form form = FormService.findFormLightByPrimaryKey( nIdForm );
-        fillAppointmentFormWithFormPart( appointmentForm, form );
-        Display display = DisplayService.findDisplayWithFormId( form.getIdForm( ) );
+        FormPlanning formPlanning = FormPlanningCacheService.getInstance( ).getFormPlanning( nIdForm );
+        fillAppointmentFormWithFormPart( appointmentForm, formPlanning.getForm( ) );
+        Display display = formPlanning.getDisplay( );
         if ( display != null )
         {
             fillAppointmentFormWithDisplayPart( appointmentForm, display );
         }
-        Localization localization = LocalizationService.findLocalizationWithFormId( form.getIdForm( ) );
+        Localization localization = formPlanning.getLocalization( );
         if ( localization != null )
         {
             fillAppointmentFormWithLocalizationPart( appointmentForm, localization );
         }
-        FormRule formRule = FormRuleService.findFormRuleWithFormId( form.getIdForm( ) );
+        FormRule formRule = formPlanning.getFormRule( );
         if ( formRule != null )
         {
             fillAppointmentFormWithFormRulePart( appointmentForm, formRule );
@@ -701,32 +677,37 @@ public final class FormService
      *            the form id to remove
      */
     public static void removeForm( int nIdForm )
+    {
+        removeForm( nIdForm, null );
+    }
+
+    /**
+     * Remove a Form from the database. Its responses, slots and planning are deleted with set-based queries
+     * 
+     * @param nIdForm
+     *            the form id to remove
+     * @param job
+     *            the job following the progress of the removal, can be null
+     */
+    static void removeForm( int nIdForm, AppointmentFormJob job )
     {
         TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
         try
         {
             // Delete all the responses linked to all the appointments of the form
-            for ( Appointment appointment : AppointmentService.findListAppointmentByIdForm( nIdForm ) )
-            {
-                AppointmentResponseService.removeResponsesByIdAppointment( appointment.getIdAppointment( ) );
-            }
+            AppointmentResponseHome.removeResponsesByIdForm( nIdForm );
+            stepDone( job, 0 );
 
             SlotHome.deleteByIdForm( nIdForm );
+            // The form has no archived appointment, but may have archived empty slots
+            ArchiveHome.deleteSlotsByIdForm( nIdForm );
+            stepDone( job, 0 );
 
-            for ( ReservationRule rule : ReservationRuleHome.findByIdForm( nIdForm ) )
-            {
-
-                List<WorkingDay> listWorkingDay = WorkingDayService.findListWorkingDayByWeekDefinitionRule( rule.getIdReservationRule( ) );
-                for ( WorkingDay workingDay : listWorkingDay )
-                {
-
-                    TimeSlotHome.deleteByIdWorkingDay( workingDay.getIdWorkingDay( ) );
-                    WorkingDayHome.delete( workingDay.getIdWorkingDay( ) );
-
-                }
-                WeekDefinitionHome.deleteByIdReservationRule( rule.getIdReservationRule( ) );
-                ReservationRuleHome.delete( rule.getIdReservationRule( ) );
-            }
+            TimeSlotHome.deleteByIdForm( nIdForm );
+            WorkingDayHome.deleteByIdForm( nIdForm );
+            WeekDefinitionHome.deleteByIdForm( nIdForm );
+            ReservationRuleHome.deleteByIdForm( nIdForm );
+            stepDone( job, 0 );
 
             ClosingDayHome.deleteByIdForm( nIdForm );
             FormRuleHome.deleteByIdFom( nIdForm );
@@ -738,6 +719,7 @@ public final class FormService
             EntryService.getService( ).removeEntriesByIdAppointmentForm( nIdForm );
 
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            stepDone( job, 0 );
 
             FormListenerManager.notifyListenersFormRemoval( nIdForm );
             AppointmentListenerManager.notifyListenersAppointmentFormRemoval( nIdForm );
@@ -365,14 +365,16 @@ public final class ReservationRuleService
     {
 
         Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
-        List<ReservationRule> listReservationRule = ReservationRuleHome.findByIdForm( nIdForm );
+        Map<Integer, ReservationRule> mapRuleById = new HashMap<>( );
+        for ( ReservationRule reservationRule : findListReservationRule( nIdForm ) )
+        {
+            mapRuleById.put( reservationRule.getIdReservationRule( ), reservationRule );
+        }
         for ( WeekDefinition weekDefinition : listWeekDefinition )
         {
-            ReservationRule reservationRule = listReservationRule.stream( ).filter( p -> p.getIdReservationRule( ) == weekDefinition.getIdReservationRule( ) )
-                    .findAny( ).orElse( null );
+            ReservationRule reservationRule = mapRuleById.get( weekDefinition.getIdReservationRule( ) );
             if ( reservationRule != null )
             {
-                reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
                 mapReservationRule.put( weekDefinition, reservationRule );
             }
 
@@ -391,9 +393,13 @@ public final class ReservationRuleService
     {
 
         List<ReservationRule> listReservationRule = ReservationRuleHome.findByIdForm( nIdForm );
-        for ( ReservationRule reservationRule : listReservationRule )
+        if ( !listReservationRule.isEmpty( ) )
         {
-            reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
+            Map<Integer, List<WorkingDay>> mapWorkingDay = WorkingDayService.findMapWorkingDayByIdForm( nIdForm );
+            for ( ReservationRule reservationRule : listReservationRule )
+            {
+                reservationRule.setListWorkingDay( mapWorkingDay.getOrDefault( reservationRule.getIdReservationRule( ), new ArrayList<>( ) ) );
+            }
         }
         return listReservationRule;
     }
@@ -411,12 +417,10 @@ public final class ReservationRuleService
     {
 
         List<ReservationRule> listReservationRule = new ArrayList<>( );
-        for ( ReservationRule reservationRule : ReservationRuleHome.findByIdForm( nIdForm ) )
+        for ( ReservationRule reservationRule : findListReservationRule( nIdForm ) )
         {
             if ( listWeekDefinition.stream( ).anyMatch( p -> p.getIdReservationRule( ) == reservationRule.getIdReservationRule( ) ) )
             {
-
-                reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
                 listReservationRule.add( reservationRule );
             }
         }
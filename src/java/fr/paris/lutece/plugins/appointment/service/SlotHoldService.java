@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHold;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHoldHome;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.service.listeners.SlotListenerManager;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.sql.TransactionManager;
+
+/**
+ * Service managing the holds on the slots.
+ * 
+ * While a user fills the appointment form, the places that may be booked are taken from the potential remaining places of the slot and recorded as a hold in the
+ * database. The hold is consumed when the appointment is saved, or given back to the slot by {@link SlotHoldDaemon} once it has expired. The holds are shared
+ * by all the nodes and survive a restart of the webapp.
+ */
+public final class SlotHoldService
+{
+    private static final String PROPERTY_SWEEP_BATCH_SIZE = "appointment.slot.hold.sweep.batchSize";
+    private static final int DEFAULT_SWEEP_BATCH_SIZE = 500;
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private SlotHoldService( )
+    {
+    }
+
+    /**
+     * Hold places of a slot, by decrementing its potential remaining places. The caller must hold the lock on the slot.
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param nbPlaces
+     *            the number of places to hold
+     * @return the key of the hold
+     */
+    public static String createHold( int nIdSlot, int nbPlaces )
+    {
+        SlotHold slotHold = new SlotHold( );
+        slotHold.setHoldKey( UUID.randomUUID( ).toString( ) );
+        slotHold.setIdSlot( nIdSlot );
+        slotHold.setNbPlaces( nbPlaces );
+        slotHold.setExpiryDateTime(
+                LocalDateTime.now( ).plusMinutes( AppPropertiesService.getPropertyInt( AppointmentUtilities.PROPERTY_DEFAULT_EXPIRED_TIME_EDIT_APPOINTMENT, 1 ) ) );
+
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            SlotHoldHome.create( slotHold );
+            SlotHome.decrementPotentialRemainingPlaces( nbPlaces, nIdSlot );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            throw new AppException( e.getMessage( ), e );
+        }
+        SlotListenerManager.notifyListenersSlotChange( nIdSlot );
+        return slotHold.getHoldKey( );
+    }
+
+    /**
+     * Check if a hold is still active, i.e. it has been neither consumed nor expired
+     * 
+     * @param strHoldKey
+     *            the key of the hold
+     * @return true if the hold is active
+     */
+    public static boolean isHoldActive( String strHoldKey )
+    {
+        SlotHold slotHold = SlotHoldHome.findByPrimaryKey( strHoldKey );
+        return slotHold != null && !slotHold.getExpiryDateTime( ).isBefore( LocalDateTime.now( ) );
+    }
+
+    /**
+     * Consume a hold while the appointment is saved. The places held are not given back to the slot since they are booked. The caller must hold the lock on
+     * the slot, in the transaction of the booking.
+     * 
+     * @param strHoldKey
+     *            the key of the hold
+     * @return true if the hold has been consumed, false if it has already been expired and its places given back
+     */
+    public static boolean consumeHold( String strHoldKey )
+    {
+        return SlotHoldHome.delete( strHoldKey );
+    }
+
+    /**
+     * Give back to their slots the places of the expired holds. The holds are processed by batches, and the places of all the holds of a slot are given back
+     * in a single update.
+     * 
+     * @return the number of holds expired
+     */
+    public static int expireHolds( )
+    {
+        int nBatchSize = AppPropertiesService.getPropertyInt( PROPERTY_SWEEP_BATCH_SIZE, DEFAULT_SWEEP_BATCH_SIZE );
+        int nNbExpired = 0;
+        List<SlotHold> listExpired;
+        int nNbExpiredInBatch;
+        do
+        {
+            listExpired = SlotHoldHome.findExpired( nBatchSize );
+            Map<Integer, List<SlotHold>> mapHoldsBySlot = new TreeMap<>( );
+            for ( SlotHold slotHold : listExpired )
+            {
+                mapHoldsBySlot.computeIfAbsent( slotHold.getIdSlot( ), id -> new ArrayList<>( ) ).add( slotHold );
+            }
+            nNbExpiredInBatch = 0;
+            for ( Map.Entry<Integer, List<SlotHold>> entry : mapHoldsBySlot.entrySet( ) )
+            {
+                nNbExpiredInBatch += expireHoldsOfSlot( entry.getKey( ), entry.getValue( ) );
+            }
+            nNbExpired += nNbExpiredInBatch;
+        }
+        // A batch without any hold expired would be read again as is: the failed holds are left to the next run of the daemon
+        while ( listExpired.size( ) == nBatchSize && nNbExpiredInBatch > 0 );
+        return nNbExpired;
+    }
+
+    /**
+     * Get the holds of a slot that have not expired
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the list of the active holds
+     */
+    public static List<SlotHold> findActiveHolds( int nIdSlot )
+    {
+        return SlotHoldHome.findActiveByIdSlot( nIdSlot );
+    }
+
+    /**
+     * Get the number of places currently held on a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the number of places held
+     */
+    public static int getNbPlacesHeld( int nIdSlot )
+    {
+        return findActiveHolds( nIdSlot ).stream( ).mapToInt( SlotHold::getNbPlaces ).sum( );
+    }
+
+    /**
+     * Give back to a slot the places of its expired holds
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param listSlotHold
+     *            the expired holds of the slot
+     * @return the number of holds expired
+     */
+    private static int expireHoldsOfSlot( int nIdSlot, List<SlotHold> listSlotHold )
+    {
+        int nNbExpired = 0;
+        int nNbPlaces = 0;
+        Lock lock = SlotSafeService.getLockOnSlot( nIdSlot );
+        lock.lock( );
+        try
+        {
+            TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+            try
+            {
+                for ( SlotHold slotHold : listSlotHold )
+                {
+                    // A hold consumed in the meantime has already been booked and must not be given back
+                    if ( SlotHoldHome.delete( slotHold.getHoldKey( ) ) )
+                    {
+                        nNbExpired++;
+                        nNbPlaces += slotHold.getNbPlaces( );
+                    }
+                }
+                if ( nNbPlaces > 0 )
+                {
+                    SlotHome.incrementPotentialRemainingPlaces( nNbPlaces, nIdSlot );
+                }
+                TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            }
+            catch( Exception e )
+            {
+                TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+                AppLogService.error( "Error while expiring the holds of the slot " + nIdSlot, e );
+                return 0;
+            }
+        }
+        finally
+        {
+            lock.unlock( );
+        }
+        if ( nNbPlaces > 0 )
+        {
+            SlotListenerManager.notifyListenersSlotChange( nIdSlot );
+        }
+        return nNbExpired;
+    }
+}
@@ -41,28 +41,27 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.collections.CollectionUtils;
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
-import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.outbox.OutboxEvent;
 import fr.paris.lutece.plugins.appointment.business.slot.Period;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
@@ -70,23 +69,23 @@ import fr.paris.lutece.plugins.appointment.business.user.User;
 import fr.paris.lutece.plugins.appointment.exception.AppointmentSavedException;
 import fr.paris.lutece.plugins.appointment.exception.SlotEditTaskExpiredTimeException;
 import fr.paris.lutece.plugins.appointment.exception.SlotFullException;
-import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
 import fr.paris.lutece.plugins.appointment.service.listeners.SlotListenerManager;
-import fr.paris.lutece.plugins.appointment.service.lock.SlotEditTask;
+import fr.paris.lutece.plugins.appointment.service.lock.ISlotLockProvider;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
-import fr.paris.lutece.portal.business.user.AdminUser;
-import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppLogService;
-import fr.paris.lutece.portal.service.workflow.WorkflowService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.web.l10n.LocaleService;
 import fr.paris.lutece.util.sql.TransactionManager;
 
 public final class SlotSafeService
 {
 
-    private static final ConcurrentMap<Integer, Lock> _listSlot = new ConcurrentHashMap<>( );
+    private static final String PROPERTY_GUARDED_RESERVATION = "appointment.slot.guardedReservation.enabled";
+
+    private static final ISlotLockProvider _slotLockProvider = SpringContextService.getBean( ISlotLockProvider.BEAN_NAME );
     private static final ConcurrentMap<Integer, Object> _lockFormId = new ConcurrentHashMap<>( );
 
     /**
@@ -104,7 +103,7 @@ public final class SlotSafeService
     public static Map<Integer, Lock> getListSlotInMemory( )
     {
 
-        return _listSlot;
+        return _slotLockProvider.getLocks( );
     }
 
     /**
@@ -116,12 +115,7 @@ public final class SlotSafeService
      */
     public static Lock getLockOnSlot( int nIdSlot )
     {
-        if ( nIdSlot == 0 )
-        {
-            return new ReentrantLock( );
-        }
-        _listSlot.putIfAbsent( nIdSlot, new ReentrantLock( ) );
-        return _listSlot.get( nIdSlot );
+        return _slotLockProvider.getLock( nIdSlot );
     }
 
     /**
@@ -133,7 +127,7 @@ public final class SlotSafeService
     public static void removeSlotInMemory( int nIdSlot )
     {
 
-        _listSlot.remove( nIdSlot );
+        _slotLockProvider.removeLock( nIdSlot );
     }
 
     /**
@@ -171,6 +165,7 @@ public final class SlotSafeService
             {
 
                 slotSaved = SlotHome.create( slot );
+                CalendarAvailabilityCacheService.getInstance( ).invalidateForm( slot.getIdForm( ) );
                 SlotListenerManager.notifyListenersSlotCreation( slot.getIdSlot( ) );
             }
 
@@ -203,93 +198,128 @@ public final class SlotSafeService
         listSlot = listSlot.stream( )
                 .filter( slt -> slt.getEndingDateTime( ).isBefore( endingDateTime ) && slt.getEndingDateTime( ).isAfter( startindDateTime ) )
                 .collect( Collectors.toList( ) );
+        List<Slot> listSlotToIncrement = new ArrayList<>( );
         for ( Slot slot : listSlot )
         {
-            if ( !lace )
+            if ( !lace || index % 2 == 0 )
             {
-                incrementMaxCapacity( nIncrementingValue, slot );
-            }
-            else
-            {
-                if ( index % 2 == 0 )
-                {
-                    incrementMaxCapacity( nIncrementingValue, slot );
-                }
-                index++;
+                listSlotToIncrement.add( slot );
             }
+            index++;
+        }
+        if ( !listSlotToIncrement.isEmpty( ) )
+        {
+            incrementMaxCapacity( nIdForm, nIncrementingValue, listSlotToIncrement, mapReservationRule );
         }
     }
 
     /**
-     * Incrementing max capacity
+     * Incrementing max capacity of a list of slots of a form. The slots that do not exist yet are created with their new capacity and the existing slots are
+     * incremented in database, both by batches in a single transaction
      * 
+     * @param nIdForm
+     *            the id of the form
      * @param nIncrementingValue
      *            the incrementing value
-     * @param slot
-     *            the slot
+     * @param listSlot
+     *            the slots to increment (built or already in database)
+     * @param mapReservationRule
+     *            the reservation rules of the form, by week definition
      */
-    private static void incrementMaxCapacity( int nIncrementingValue, Slot slot )
+    private static void incrementMaxCapacity( int nIdForm, int nIncrementingValue, List<Slot> listSlot, Map<WeekDefinition, ReservationRule> mapReservationRule )
     {
-        Slot editSlot = null;
-
-        if ( slot.getIdSlot( ) == 0 )
-        {
-            editSlot = createSlot( slot );
-        }
-        else
+        List<Slot> listSlotToCreate = new ArrayList<>( );
+        List<Slot> listSlotToIncrement = new ArrayList<>( );
+        List<Lock> listLock = new ArrayList<>( );
+        Object formLock = getLockOnForm( nIdForm );
+        synchronized( formLock )
         {
-            editSlot = slot;
+            LocalDateTime startingDateTime = listSlot.stream( ).map( Slot::getStartingDateTime ).min( LocalDateTime::compareTo ).orElse( null );
+            LocalDateTime endingDateTime = listSlot.stream( ).map( Slot::getEndingDateTime ).max( LocalDateTime::compareTo ).orElse( null );
+            HashMap<LocalDateTime, Slot> slotInDbMap = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateTime,
+                    endingDateTime );
+            for ( Slot slot : listSlot )
+            {
+                Slot slotInDb = slotInDbMap.get( slot.getStartingDateTime( ) );
+                if ( slotInDb == null )
+                {
+                    slot.setMaxCapacity( slot.getMaxCapacity( ) + nIncrementingValue );
+                    slot.setNbPotentialRemainingPlaces( slot.getNbPotentialRemainingPlaces( ) + nIncrementingValue );
+                    slot.setNbRemainingPlaces( slot.getNbRemainingPlaces( ) + nIncrementingValue );
+                    slot.setIsSpecific( isSpecificSlot( slot, mapReservationRule ) );
+                    listSlotToCreate.add( slot );
+                }
+                else
+                {
+                    // Only the specific flag is sent to the database, the places are incremented by the query itself
+                    slotInDb.setMaxCapacity( slotInDb.getMaxCapacity( ) + nIncrementingValue );
+                    slotInDb.setIsSpecific( isSpecificSlot( slotInDb, mapReservationRule ) );
+                    listSlotToIncrement.add( slotInDb );
+                }
+            }
+            // The slots are locked in the order of their ids, so that two concurrent edits can not wait for each other
+            listSlotToIncrement.sort( ( slot1, slot2 ) -> Integer.compare( slot1.getIdSlot( ), slot2.getIdSlot( ) ) );
+            try
+            {
+                for ( Slot slot : listSlotToIncrement )
+                {
+                    Lock lock = getLockOnSlot( slot.getIdSlot( ) );
+                    lock.lock( );
+                    listLock.add( lock );
+                }
+                TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+                try
+                {
+                    SlotHome.createList( listSlotToCreate );
+                    SlotHome.incrementMaxCapacityList( listSlotToIncrement, nIncrementingValue );
+                    TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+                }
+                catch( RuntimeException e )
+                {
+                    TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+                    throw e;
+                }
+            }
+            finally
+            {
+                listLock.forEach( Lock::unlock );
+            }
         }
-        Lock lock = getLockOnSlot( editSlot.getIdSlot( ) );
-        lock.lock( );
-        try
+        if ( !listSlotToCreate.isEmpty( ) )
         {
-            editSlot = SlotService.findSlotById( editSlot.getIdSlot( ) );
-
-            editSlot.setMaxCapacity( editSlot.getMaxCapacity( ) + nIncrementingValue );
-            editSlot.setNbPotentialRemainingPlaces( editSlot.getNbPotentialRemainingPlaces( ) + nIncrementingValue );
-            editSlot.setNbRemainingPlaces( editSlot.getNbRemainingPlaces( ) + nIncrementingValue );
-            editSlot.setIsSpecific( SlotService.isSpecificSlot( editSlot ) );
-            saveSlot( editSlot );
+            SlotListenerManager.notifyListenersSlotsCreation( nIdForm,
+                    listSlotToCreate.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
         }
-        finally
+        if ( !listSlotToIncrement.isEmpty( ) )
         {
-
-            lock.unlock( );
+            SlotListenerManager.notifyListenersSlotsChange( nIdForm,
+                    listSlotToIncrement.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
         }
-
     }
 
     /**
-     * Update potential remaining places
+     * To know if it's a specific slot, using the reservation rules already loaded instead of reading the rule of the slot in database
      * 
-     * @param task
-     *            the task timer
+     * @param slot
+     *            the slot
+     * @param mapReservationRule
+     *            the reservation rules of the form, by week definition
+     * @return true if it's a specific slot
      */
-    public static Slot incrementPotentialRemainingPlaces( SlotEditTask task )
+    private static boolean isSpecificSlot( Slot slot, Map<WeekDefinition, ReservationRule> mapReservationRule )
     {
-        Lock lock = getLockOnSlot( task.getIdSlot( ) );
-        Slot slot;
-        lock.lock( );
-        try
-        {
-            slot = SlotService.findSlotById( task.getIdSlot( ) );
-            if ( slot != null )
-            {
-
-                int nNewPotentialRemainingPlaces = Math.min( slot.getNbPotentialRemainingPlaces( ) + task.getNbPlacesTaken( ), slot.getNbRemainingPlaces( ) );
-                slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
-                SlotHome.updatePotentialRemainingPlaces( nNewPotentialRemainingPlaces, slot.getIdSlot( ) );
-                SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
-
-            }
-        }
-        finally
+        LocalDate dateOfSlot = slot.getDate( );
+        ReservationRule reservationRule = mapReservationRule.entrySet( ).stream( )
+                .filter( entry -> !dateOfSlot.isBefore( entry.getKey( ).getDateOfApply( ) )
+                        && !dateOfSlot.isAfter( entry.getKey( ).getEndingDateOfApply( ) ) )
+                .map( Map.Entry::getValue ).findFirst( ).orElse( null );
+        if ( reservationRule == null )
         {
-            lock.unlock( );
-
+            return SlotService.isSpecificSlot( slot );
         }
-        return slot;
+        WorkingDay workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRule.getListWorkingDay( ), dateOfSlot.getDayOfWeek( ) );
+        List<TimeSlot> listTimeSlot = ( workingDay != null ) ? workingDay.getListTimeSlot( ) : null;
+        return SlotService.isSpecificSlot( slot, workingDay, listTimeSlot, reservationRule.getMaxCapacityPerSlot( ) );
     }
 
     /**
@@ -307,15 +337,8 @@ public final class SlotSafeService
         lock.lock( );
         try
         {
-            Slot slot = SlotService.findSlotById( nIdSlot );
-            if ( slot != null )
-            {
-                int nNewPotentialRemainingPlaces = slot.getNbPotentialRemainingPlaces( ) - nbPotentialRemainingPlaces;
-                slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
-                SlotHome.updatePotentialRemainingPlaces( nNewPotentialRemainingPlaces, nIdSlot );
-                SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
-
-            }
+            SlotHome.decrementPotentialRemainingPlaces( nbPotentialRemainingPlaces, nIdSlot );
+            SlotListenerManager.notifyListenersSlotChange( nIdSlot );
 
         }
         finally
@@ -355,40 +378,51 @@ public final class SlotSafeService
             }
         }
         AppointmentService.buildListAppointmentSlot( appointmentDTO );
+        Appointment appointment;
+        OutboxEvent outboxEvent;
+        Set<Integer> listSlotUpdated;
         TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
         try
         {
-            Set<Integer> listSlotUpdated = saveSlots( appointmentDTO, listLock, request );
             if ( !isReport )
             {
                 user = UserService.saveUser( appointmentDTO );
             }
-            // Create or update the appointment
-            Appointment appointment = AppointmentService.buildAndCreateAppointment( appointmentDTO, user );
-            if ( !isReport && CollectionUtils.isNotEmpty( appointmentDTO.getListResponse( ) ) )
+            // The responses do not depend on the slots, they are saved before the slots are locked
+            List<Response> listResponse = ( !isReport && CollectionUtils.isNotEmpty( appointmentDTO.getListResponse( ) ) ) ? appointmentDTO.getListResponse( )
+                    : Collections.emptyList( );
+            for ( Response response : listResponse )
             {
-                for ( Response response : appointmentDTO.getListResponse( ) )
-                {
-                    ResponseHome.create( response );
-                    AppointmentResponseService.insertAppointmentResponse( appointment.getIdAppointment( ), response.getIdResponse( ) );
-                }
+                ResponseHome.create( response );
             }
-            processeActionWorkflow( appointment, request, locale, appointmentDTO.getIdForm( ), isReport );
-            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
-            appointmentDTO.setIdAppointment( appointment.getIdAppointment( ) );
-            appointmentDTO.setIsSaved( true );
-            notifyListner( appointment, listSlotUpdated, isReport, locale );
+            listSlotUpdated = saveSlots( appointmentDTO, listLock, request );
+            // The holds are consumed under the locks of the slots, so that the SlotHoldDaemon cannot give their places back once booked
             if ( request != null )
             {
                 for ( AppointmentSlot apptSlot : appointmentDTO.getListAppointmentSlot( ) )
                 {
-                    AppointmentUtilities.cancelTaskTimer( request, apptSlot.getIdSlot( ) );
+                    if ( !AppointmentUtilities.consumeHold( request, apptSlot.getIdSlot( ) ) )
+                    {
+                        throw new SlotEditTaskExpiredTimeException( "appointment edit expired time" );
+                    }
                 }
             }
-            appointmentDTO.setReference(appointment.getReference( ));
-            appointmentDTO.setUser( user );
-            return appointment.getIdAppointment( );
-
+            // Create or update the appointment
+            appointment = AppointmentService.buildAndCreateAppointment( appointmentDTO, user );
+            for ( Response response : listResponse )
+            {
+                AppointmentResponseService.insertAppointmentResponse( appointment.getIdAppointment( ), response.getIdResponse( ) );
+            }
+            // The workflow and the appointment listeners are processed once the slots are unlocked
+            outboxEvent = AppointmentOutboxService.createEvent( appointment, appointmentDTO.getIdForm( ), isReport );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            appointmentDTO.setIdAppointment( appointment.getIdAppointment( ) );
+            appointmentDTO.setIsSaved( true );
+        }
+        catch( SlotEditTaskExpiredTimeException e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            throw e;
         }
         catch( Exception e )
         {
@@ -403,74 +437,22 @@ public final class SlotSafeService
                 lock.unlock( );
             }
         }
-    }
-
-    /**
-     * notify Appointment/Slot Listner
-     * 
-     * @param appointment
-     *            the appointment
-     * @param listSlotUpdated
-     *            the list slot updated to notify
-     * @param isReport,
-     *            true if it is a postponement of appointment
-     * @param locale
-     *            the locale
-     */
-    private static void notifyListner( Appointment appointment, Set<Integer> listSlotUpdated, boolean isReport, Locale locale )
-    {
-
+        // The slot listeners are notified once the slots are unlocked, so that a listener waiting for the executor never holds them
         for ( int idSlot : listSlotUpdated )
         {
             SlotListenerManager.notifyListenersSlotChange( idSlot );
         }
-        if ( isReport )
-        {
-            AppointmentListenerManager.notifyListenersAppointmentDateChanged( appointment.getIdAppointment( ),
-                    appointment.getListAppointmentSlot( ).stream( ).map( AppointmentSlot::getIdSlot ).collect( Collectors.toList( ) ), locale );
-            if ( appointment.getIdActionReported( ) != 0 )
-            {
-                AppointmentListenerManager.notifyAppointmentWFActionTriggered( appointment.getIdAppointment( ), appointment.getIdActionReported( ) );
-            }
-
-        }
-        else
-        {
-            AppointmentListenerManager.notifyListenersAppointmentCreated( appointment.getIdAppointment( ) );
-        }
-    }
-
-    /**
-     * Process Action workflow
-     * 
-     * @param appointment
-     *            the appointment
-     * @param request
-     *            the request
-     * @param locale
-     *            the locale
-     * @param nIdFom
-     *            the id appointment form
-     * @param isReport
-     *            true if it is a postponement of appointment
-     */
-    private static void processeActionWorkflow( Appointment appointment, HttpServletRequest request, Locale locale, int nIdFom, boolean isReport )
-    {
-
-        Form form = FormService.findFormLightByPrimaryKey( nIdFom );
-        if ( form.getIdWorkflow( ) > 0 )
+        AppointmentOutboxService.dispatch( outboxEvent, request, locale );
+        if ( request != null )
         {
-            WorkflowService.getInstance( ).getState( appointment.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE, form.getIdWorkflow( ),
-                    form.getIdForm( ) );
-
-            if ( isReport && appointment.getIdActionReported( ) != 0 )
+            for ( AppointmentSlot apptSlot : appointmentDTO.getListAppointmentSlot( ) )
             {
-                AdminUser adminUser = ( request != null ) ? AdminUserService.getAdminUser( request ) : null;
-                WorkflowService.getInstance( ).doProcessAction( appointment.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE,
-                        appointment.getIdActionReported( ), form.getIdForm( ), request, locale, adminUser == null, adminUser );
-
+                AppointmentUtilities.cancelTaskTimer( request, apptSlot.getIdSlot( ) );
             }
         }
+        appointmentDTO.setReference( appointment.getReference( ) );
+        appointmentDTO.setUser( user );
+        return appointment.getIdAppointment( );
     }
 
     /**
@@ -487,35 +469,17 @@ public final class SlotSafeService
         // The capacity of the slot (that can be less than the number of places
         // taken on the slot --> overbook)
 
+        // The new value of the remaining places of the slot is the minimal
+        // value between :
+        // - the minimal value between the potentially new max capacity and the old remaining places plus the number of places released by the
+        // appointment
+        // - and the capacity of the slot minus the new places taken on the slot
+        // It is computed by the database so that a concurrent guarded reservation can not be overwritten
         Lock lock = getLockOnSlot( nIdSlot );
         lock.lock( );
         try
         {
-            Slot slot = SlotService.findSlotById( nIdSlot );
-            if ( slot != null )
-            {
-                int nMaxCapacity = slot.getMaxCapacity( );
-                // The old remaining places of the slot (before we delete or cancel or move the
-                // appointment
-                int nOldRemainingPlaces = slot.getNbRemainingPlaces( );
-                int nOldPotentialRemaningPlaces = slot.getNbPotentialRemainingPlaces( );
-                int nOldPlacesTaken = slot.getNbPlacesTaken( );
-                int nNewPlacesTaken = nOldPlacesTaken - nbPlaces;
-                // The new value of the remaining places of the slot is the minimal
-                // value between :
-                // - the minimal value between the potentially new max capacity and the old remaining places plus the number of places released by the
-                // appointment
-                // - and the capacity of the slot minus the new places taken on the slot
-                int nNewRemainingPlaces = Math.min( Math.min( nMaxCapacity, nOldRemainingPlaces + nbPlaces ), ( nMaxCapacity - nNewPlacesTaken ) );
-
-                int nNewPotentialRemainingPlaces = Math.min( Math.min( nMaxCapacity, nOldPotentialRemaningPlaces + nbPlaces ),
-                        ( nMaxCapacity - nNewPlacesTaken ) );
-
-                slot.setNbRemainingPlaces( nNewRemainingPlaces );
-                slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
-                slot.setNbPlacestaken( nNewPlacesTaken );
-                SlotHome.update( slot );
-            }
+            SlotHome.releasePlaces( nIdSlot, nbPlaces );
         }
         finally
         {
@@ -542,14 +506,7 @@ public final class SlotSafeService
         lock.lock( );
         try
         {
-            Slot slot = SlotService.findSlotById( nIdSlot );
-            if ( slot != null )
-            {
-                slot.setNbRemainingPlaces( slot.getNbRemainingPlaces( ) - nbPlaces );
-                slot.setNbPotentialRemainingPlaces( slot.getNbPotentialRemainingPlaces( ) - nbPlaces );
-                slot.setNbPlacestaken( slot.getNbPlacesTaken( ) + nbPlaces );
-                SlotHome.update( slot );
-            }
+            SlotHome.takePlaces( nIdSlot, nbPlaces );
         }
         finally
         {
@@ -604,6 +561,56 @@ public final class SlotSafeService
 
     }
 
+    /**
+     * Update a list of slots whose ending time has not changed (for example the slots of a specific week edited together). The new slots are created and the
+     * existing ones are updated by batches, and the listeners are notified once per list
+     * 
+     * @param listSlot
+     *            the slots to save
+     */
+    public static void updateListSlot( List<Slot> listSlot )
+    {
+        List<Slot> listSlotToCreate = new ArrayList<>( );
+        Map<Integer, Slot> mapSlotToUpdate = new HashMap<>( );
+        for ( Slot slot : listSlot )
+        {
+            slot.setIsSpecific( SlotService.isSpecificSlot( slot ) );
+            if ( slot.getIdSlot( ) == 0 )
+            {
+                listSlotToCreate.add( slot );
+            }
+            else
+            {
+                // The last version of a slot given several times is kept
+                mapSlotToUpdate.put( slot.getIdSlot( ), slot );
+            }
+        }
+        createListSlot( listSlotToCreate );
+        List<Slot> listSlotToUpdate = new ArrayList<>( mapSlotToUpdate.values( ) );
+        // The slots are locked in the order of their ids, so that two concurrent edits can not wait for each other
+        listSlotToUpdate.sort( ( slot1, slot2 ) -> Integer.compare( slot1.getIdSlot( ), slot2.getIdSlot( ) ) );
+        List<Lock> listLock = new ArrayList<>( );
+        try
+        {
+            for ( Slot slot : listSlotToUpdate )
+            {
+                Lock lock = getLockOnSlot( slot.getIdSlot( ) );
+                lock.lock( );
+                listLock.add( lock );
+                updateRemainingPlaces( slot );
+            }
+            Map<Integer, List<Slot>> mapSlotByForm = listSlotToUpdate.stream( ).collect( Collectors.groupingBy( Slot::getIdForm ) );
+            for ( Map.Entry<Integer, List<Slot>> entry : mapSlotByForm.entrySet( ) )
+            {
+                updateListSlotAndNotify( entry.getKey( ), entry.getValue( ) );
+            }
+        }
+        finally
+        {
+            listLock.forEach( Lock::unlock );
+        }
+    }
+
     /**
      * Update the current slot and don't shift the next slots
      * 
@@ -771,6 +778,8 @@ public final class SlotSafeService
         saveSlot( slot );
         // Need to set the new starting and ending time of all the slots
         // to shift and update them
+        List<Slot> listSlotShifted = new ArrayList<>( );
+        List<Slot> listSlotToDeleteAfterShift = new ArrayList<>( );
         for ( Slot slotToShift : listSlotToShift )
         {
             // If the new ending time is after the previous time
@@ -793,13 +802,13 @@ public final class SlotSafeService
                         slotToShift.setEndingDateTime( slotToShift.getEndingDateTime( ).plus( timeToAdd, ChronoUnit.MINUTES ) );
                     }
                     slotToShift.setIsSpecific( SlotService.isSpecificSlot( slotToShift ) );
-                    saveSlot( slotToShift );
+                    listSlotShifted.add( slotToShift );
                 }
                 else
                 {
                     // Delete this slot (the slot can not be after the
                     // ending time of the day)
-                    SlotService.deleteSlot( slotToShift );
+                    listSlotToDeleteAfterShift.add( slotToShift );
                 }
             }
             else
@@ -809,9 +818,13 @@ public final class SlotSafeService
                 slotToShift.setStartingDateTime( slotToShift.getStartingDateTime( ).minus( timeToSubstract, ChronoUnit.MINUTES ) );
                 slotToShift.setEndingDateTime( slotToShift.getEndingDateTime( ).minus( timeToSubstract, ChronoUnit.MINUTES ) );
                 slotToShift.setIsSpecific( SlotService.isSpecificSlot( slotToShift ) );
-                saveSlot( slotToShift );
+                listSlotShifted.add( slotToShift );
             }
         }
+        // The slots to delete are the last ones of the day, they must be removed before the others are shifted on their place
+        SlotService.deleteListSlots( listSlotToDeleteAfterShift );
+        // The order of the list is kept by the batch, so that the shifted slots never overlap
+        updateListSlotAndNotify( slot.getIdForm( ), listSlotShifted );
         if ( !bNewEndingTimeIsAfterThePreviousTime )
         {
             // If the slots have been shift earlier,
@@ -950,7 +963,8 @@ public final class SlotSafeService
      */
     public static Slot updateSlot( Slot slot )
     {
-        Slot slotToReturn = SlotHome.update( slot );
+        // The places may be reserved at the same time by guarded statements, that do not take the locks: only the change of capacity is applied to them
+        Slot slotToReturn = isGuardedReservationEnabled( ) ? SlotHome.updateWithRelativePlaces( slot ) : SlotHome.update( slot );
         SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
         return slotToReturn;
 
@@ -966,32 +980,103 @@ public final class SlotSafeService
     {
         if ( CollectionUtils.isNotEmpty( listSlotToCreate ) )
         {
-            for ( Slot slotTemp : listSlotToCreate )
+            Map<Integer, List<Slot>> mapSlotByForm = listSlotToCreate.stream( ).collect( Collectors.groupingBy( Slot::getIdForm ) );
+            for ( Map.Entry<Integer, List<Slot>> entry : mapSlotByForm.entrySet( ) )
             {
-                createSlot( slotTemp );
+                createListSlot( entry.getKey( ), entry.getValue( ) );
             }
         }
     }
 
     /**
-     * Clean slotlist
+     * Create in database the slots of a form that do not exist yet. The slots are inserted by batches in a single transaction and the listeners are notified
+     * once for the whole list
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param listSlot
+     *            the list of slots to create
      */
-    public static void cleanSlotlist( )
+    private static void createListSlot( int nIdForm, List<Slot> listSlot )
     {
-
-        Iterator<Integer> it = _listSlot.keySet( ).iterator( );
-        int idSlot;
-        while ( it.hasNext( ) )
+        List<Slot> listSlotToCreate = new ArrayList<>( );
+        Object formLock = getLockOnForm( nIdForm );
+        synchronized( formLock )
         {
-
-            idSlot = it.next( );
-            Slot slot = SlotService.findSlotById( idSlot );
-            if ( slot == null || slot.getStartingDateTime( ).isBefore( LocalDateTime.now( ) ) || slot.getMaxCapacity( ) <= slot.getNbPlacesTaken( ) )
+            LocalDateTime startingDateTime = listSlot.stream( ).map( Slot::getStartingDateTime ).min( LocalDateTime::compareTo ).orElse( null );
+            LocalDateTime endingDateTime = listSlot.stream( ).map( Slot::getEndingDateTime ).max( LocalDateTime::compareTo ).orElse( null );
+            HashMap<LocalDateTime, Slot> slotInDbMap = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateTime,
+                    endingDateTime );
+            Set<LocalDateTime> setStartingDateTime = new HashSet<>( slotInDbMap.keySet( ) );
+            for ( Slot slot : listSlot )
             {
-                _listSlot.remove( idSlot );
+                if ( setStartingDateTime.add( slot.getStartingDateTime( ) ) )
+                {
+                    listSlotToCreate.add( slot );
+                }
+            }
+            if ( listSlotToCreate.isEmpty( ) )
+            {
+                return;
             }
+            TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+            try
+            {
+                SlotHome.createList( listSlotToCreate );
+                TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            }
+            catch( RuntimeException e )
+            {
+                TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+                throw e;
+            }
+        }
+        SlotListenerManager.notifyListenersSlotsCreation( nIdForm, listSlotToCreate.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
+    }
 
+    /**
+     * Update in database the slots of a form, by batches in a single transaction and in the order of the list, and notify the listeners once for the whole
+     * list
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param listSlot
+     *            the list of slots to update
+     */
+    private static void updateListSlotAndNotify( int nIdForm, List<Slot> listSlot )
+    {
+        if ( listSlot.isEmpty( ) )
+        {
+            return;
+        }
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            if ( isGuardedReservationEnabled( ) )
+            {
+                SlotHome.updateListWithRelativePlaces( listSlot );
+            }
+            else
+            {
+                SlotHome.updateList( listSlot );
+            }
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
         }
+        catch( RuntimeException e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            throw e;
+        }
+        SlotListenerManager.notifyListenersSlotsChange( nIdForm, listSlot.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
+    }
+
+    /**
+     * Clean slotlist. The locks of the slots are weakly referenced and leave the list by themselves once no thread uses them, so only the stale entries and
+     * the resources held by the lock provider are purged, without reading the slots
+     */
+    public static void cleanSlotlist( )
+    {
+        _slotLockProvider.purge( );
     }
 
     /**
@@ -1004,10 +1089,15 @@ public final class SlotSafeService
      */
     private static Set<Integer> saveSlots( AppointmentDTO appointmentDTO, List<Lock> listLock, HttpServletRequest request ) throws InterruptedException, CloneNotSupportedException
     {
+        if ( isGuardedReservationAllowed( appointmentDTO ) )
+        {
+            return reserveSlots( appointmentDTO );
+        }
         Appointment oldAppointment = null;
         List<Slot> listOldSlot = new ArrayList<>( );
         List<Slot> listSlotToUpdate = new ArrayList<>( );
         int nbSumRemainingPlaces = 0;
+        Set<Integer> setIdSlot = new TreeSet<>( );
         // if it's an update for modification of the date of the appointment
         if ( appointmentDTO.getIdAppointment( ) != 0 )
         {
@@ -1016,19 +1106,17 @@ public final class SlotSafeService
             {
                 throw new SlotFullException( "ERROR APPOINTMENT CANCELLED " );
             }
+            oldAppointment.getListAppointmentSlot( ).forEach( appointmentSlot -> setIdSlot.add( appointmentSlot.getIdSlot( ) ) );
+        }
+        appointmentDTO.getListAppointmentSlot( ).forEach( appSlot -> setIdSlot.add( appSlot.getIdSlot( ) ) );
+        // Lock the old and the new slots in one step, then load them with a single query
+        Map<Integer, Slot> mapSlot = lockAndLoadSlots( setIdSlot, listLock );
+        if ( oldAppointment != null )
+        {
             // Need to update the old slot
             for ( AppointmentSlot appointmentSlot : oldAppointment.getListAppointmentSlot( ) )
             {
-                Lock lock = getLockOnSlot( appointmentSlot.getIdSlot( ) );
-                if ( lock.tryLock( 3, TimeUnit.SECONDS ) )
-                {
-                    listLock.add( lock );
-                }
-                else
-                {
-                    throw new SlotFullException( "ERROR SLOT LOCKED" );
-                }
-                Slot slt = SlotService.findSlotById( appointmentSlot.getIdSlot( ) );
+                Slot slt = mapSlot.get( appointmentSlot.getIdSlot( ) );
                 oldAppointment.addSlot( slt.clone( ) );
                 slt = updateRemaningPlacesWithAppointmentMoved( appointmentSlot.getNbPlaces( ), slt );
                 listOldSlot.add( slt );
@@ -1049,16 +1137,7 @@ public final class SlotSafeService
             }
             else
             {
-                Lock lock = getLockOnSlot( appSlot.getIdSlot( ) );
-                if ( lock.tryLock( 3, TimeUnit.SECONDS ) )
-                {
-                    listLock.add( lock );
-                }
-                else
-                {
-                    throw new SlotFullException( "ERROR SLOT LOCKED" );
-                }
-                slt = SlotService.findSlotById( appSlot.getIdSlot( ) );
+                slt = mapSlot.get( appSlot.getIdSlot( ) );
             }
             if ( slt == null || ( ( appSlot.getNbPlaces( ) > slt.getNbRemainingPlaces( ) && !appointmentDTO.getOverbookingAllowed( ) )
                     || slt.getEndingDateTime( ).isBefore( LocalDateTime.now( ) ) ) )
@@ -1079,10 +1158,137 @@ public final class SlotSafeService
             throw new SlotFullException( "ERROR SLOT FULL" );
         }
         listSlotToUpdate.addAll( listOldSlot );
+        if ( isGuardedReservationEnabled( ) )
+        {
+            // The slots may be reserved at the same time by guarded statements, that do not take the locks: their new values must not be overwritten
+            return moveSlotPlaces( oldAppointment, appointmentDTO );
+        }
         return updateListSlots( listSlotToUpdate );
 
     }
 
+    /**
+     * Move the places of an appointment from its old slots to its new ones with relative updates, computed by the database. The places of the old slots are
+     * released first, then the places of the new ones are reserved with a guarded statement, unless over booking is allowed
+     * 
+     * @param oldAppointment
+     *            the appointment before its report, can be null
+     * @param appointmentDTO
+     *            the appointmentDTO
+     * @return ids list slot Updated
+     */
+    private static Set<Integer> moveSlotPlaces( Appointment oldAppointment, AppointmentDTO appointmentDTO )
+    {
+        Set<Integer> listSlot = new HashSet<>( );
+        if ( oldAppointment != null )
+        {
+            for ( AppointmentSlot appointmentSlot : oldAppointment.getListAppointmentSlot( ) )
+            {
+                SlotHome.releasePlaces( appointmentSlot.getIdSlot( ), appointmentSlot.getNbPlaces( ) );
+                listSlot.add( appointmentSlot.getIdSlot( ) );
+            }
+        }
+        for ( AppointmentSlot appSlot : appointmentDTO.getListAppointmentSlot( ) )
+        {
+            if ( appointmentDTO.getOverbookingAllowed( ) )
+            {
+                SlotHome.takePlaces( appSlot.getIdSlot( ), appSlot.getNbPlaces( ) );
+                SlotHome.incrementPotentialRemainingPlaces( appointmentDTO.getNbMaxPotentialBookedSeats( ), appSlot.getIdSlot( ) );
+            }
+            else
+                if ( !SlotHome.reservePlaces( appSlot.getIdSlot( ), appSlot.getNbPlaces( ), appointmentDTO.getNbMaxPotentialBookedSeats( ) ) )
+                {
+                    AppLogService.error( "ERROR SLOT FULL, ID SLOT: " + appSlot.getIdSlot( ) );
+                    throw new SlotFullException( "ERROR SLOT FULL " );
+                }
+            listSlot.add( appSlot.getIdSlot( ) );
+        }
+        return listSlot;
+    }
+
+    /**
+     * Lock a set of slots and load them. The locks are always taken in the ascending order of the ids of the slots, so two bookings sharing slots can not
+     * wait for each other
+     * 
+     * @param setIdSlot
+     *            the ids of the slots, sorted
+     * @param listLock
+     *            the list of the locks taken, to release by the caller
+     * @return the slots loaded, with their id for key
+     * @throws InterruptedException
+     */
+    private static Map<Integer, Slot> lockAndLoadSlots( Set<Integer> setIdSlot, List<Lock> listLock ) throws InterruptedException
+    {
+        for ( int nIdSlot : setIdSlot )
+        {
+            Lock lock = getLockOnSlot( nIdSlot );
+            if ( lock.tryLock( 3, TimeUnit.SECONDS ) )
+            {
+                listLock.add( lock );
+            }
+            else
+            {
+                throw new SlotFullException( "ERROR SLOT LOCKED" );
+            }
+        }
+        Map<Integer, Slot> mapSlot = new HashMap<>( );
+        for ( Slot slot : SlotHome.findByListIdSlot( new ArrayList<>( setIdSlot ) ) )
+        {
+            SlotService.addDateAndTimeToSlot( slot );
+            mapSlot.put( slot.getIdSlot( ), slot );
+        }
+        return mapSlot;
+    }
+
+    /**
+     * Check if the places of the slots can be reserved with guarded statements, that do not take the locks of the slots
+     * 
+     * @return true if the guarded reservation is enabled
+     */
+    private static boolean isGuardedReservationEnabled( )
+    {
+        return AppPropertiesService.getPropertyBoolean( PROPERTY_GUARDED_RESERVATION, false );
+    }
+
+    /**
+     * Check if the places of the appointment can be reserved with guarded statements, without taking the locks of the slots. It is the case for a new
+     * appointment, without over booking, whose places on each slot cover the booked seats
+     * 
+     * @param appointmentDTO
+     *            the appointmentDTO
+     * @return true if the guarded reservation can be used
+     */
+    private static boolean isGuardedReservationAllowed( AppointmentDTO appointmentDTO )
+    {
+        return isGuardedReservationEnabled( ) && appointmentDTO.getIdAppointment( ) == 0
+                && !appointmentDTO.getOverbookingAllowed( )
+                && appointmentDTO.getListAppointmentSlot( ).stream( ).mapToInt( AppointmentSlot::getNbPlaces ).sum( ) >= appointmentDTO.getNbBookedSeats( );
+    }
+
+    /**
+     * Reserve the places of the appointment on its slots, each one with a single guarded update. The reservation fails fast as soon as a slot is full, the
+     * places already reserved are then released by the rollback of the transaction
+     * 
+     * @param appointmentDTO
+     *            the appointmentDTO
+     * @return ids list slot Updated
+     */
+    private static Set<Integer> reserveSlots( AppointmentDTO appointmentDTO )
+    {
+        Set<Integer> listSlot = new HashSet<>( );
+        // The appointment slots are sorted by starting date time, so the rows are always updated in the same order
+        for ( AppointmentSlot appSlot : appointmentDTO.getListAppointmentSlot( ) )
+        {
+            if ( !SlotHome.reservePlaces( appSlot.getIdSlot( ), appSlot.getNbPlaces( ), appointmentDTO.getNbMaxPotentialBookedSeats( ) ) )
+            {
+                AppLogService.error( "ERROR SLOT FULL, ID SLOT: " + appSlot.getIdSlot( ) );
+                throw new SlotFullException( "ERROR SLOT FULL " );
+            }
+            listSlot.add( appSlot.getIdSlot( ) );
+        }
+        return listSlot;
+    }
+
     /**
      * Update slots passed in the parmaters
      * 
@@ -1093,9 +1299,9 @@ public final class SlotSafeService
     private static Set<Integer> updateListSlots( List<Slot> listSlotToUpdate )
     {
         Set<Integer> listSlot = new HashSet<>( );
+        SlotHome.updateList( listSlotToUpdate );
         for ( Slot slot : listSlotToUpdate )
         {
-            SlotHome.update( slot );
             listSlot.add( slot.getIdSlot( ) );
         }
         return listSlot;
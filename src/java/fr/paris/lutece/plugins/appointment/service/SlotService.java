@@ -43,6 +43,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 
+import fr.paris.lutece.plugins.appointment.business.archive.ArchiveHome;
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
@@ -162,15 +163,20 @@ public final class SlotService
     }
 
     /**
-     * Fins all the slots of a form
+     * Fins all the slots of an appointment, in the archived slots if the appointment is archived
      * 
      * @param nIdAppointment
      *            the appointment id
-     * @return a list of all the slots of a form
+     * @return a list of all the slots of the appointment
      */
     public static List<Slot> findListSlotByIdAppointment( int nIdAppointment )
     {
-        return SlotHome.findByIdAppointment( nIdAppointment );
+        List<Slot> listSlot = SlotHome.findByIdAppointment( nIdAppointment );
+        if ( listSlot.isEmpty( ) )
+        {
+            listSlot = ArchiveHome.findSlotsByIdAppointment( nIdAppointment );
+        }
+        return listSlot;
     }
 
     /**
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+/**
+ * Value put in a cache with the time after which it must be reloaded, so that an entry missed by an invalidation, for instance after a modification made
+ * by another node, does not stay in cache indefinitely
+ */
+final class TimedCacheEntry
+{
+    private final Object _value;
+    private final long _lExpiryTime;
+
+    /**
+     * Constructor
+     * 
+     * @param value
+     *            the cached value
+     * @param lExpiryTime
+     *            the time after which the value expires, in milliseconds since the epoch
+     */
+    private TimedCacheEntry( Object value, long lExpiryTime )
+    {
+        _value = value;
+        _lExpiryTime = lExpiryTime;
+    }
+
+    /**
+     * Build an entry expiring after a time to live
+     * 
+     * @param value
+     *            the cached value
+     * @param nTimeToLive
+     *            the time to live of the entry, in seconds
+     * @return the entry
+     */
+    static TimedCacheEntry of( Object value, int nTimeToLive )
+    {
+        return new TimedCacheEntry( value, System.currentTimeMillis( ) + nTimeToLive * 1000L );
+    }
+
+    /**
+     * Build an entry holding a new value, expiring at the same time as this entry
+     * 
+     * @param value
+     *            the new value
+     * @return the entry
+     */
+    TimedCacheEntry withValue( Object value )
+    {
+        return new TimedCacheEntry( value, _lExpiryTime );
+    }
+
+    /**
+     * Get the cached value
+     * 
+     * @return the value
+     */
+    Object getValue( )
+    {
+        return _value;
+    }
+
+    /**
+     * Check whether the entry has expired
+     * 
+     * @return true if the entry has expired
+     */
+    boolean isExpired( )
+    {
+        return System.currentTimeMillis( ) >= _lExpiryTime;
+    }
+}
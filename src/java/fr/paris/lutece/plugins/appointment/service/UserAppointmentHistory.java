@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+
+/**
+ * The appointments already taken by a user, with their slots, loaded once and shared by all the rules checked during the validation of a booking. An
+ * instance must only live for the duration of one request.
+ */
+public final class UserAppointmentHistory
+{
+    private final String _strEmail;
+    private List<Appointment> _listAppointment;
+
+    /**
+     * Constructor
+     * 
+     * @param strEmail
+     *            the email of the user
+     */
+    public UserAppointmentHistory( String strEmail )
+    {
+        _strEmail = strEmail;
+    }
+
+    /**
+     * Get the email of the user
+     * 
+     * @return the email
+     */
+    public String getEmail( )
+    {
+        return _strEmail;
+    }
+
+    /**
+     * Get all the appointments of the user, the appointments are loaded on the first call
+     * 
+     * @return the list of appointments, with their user and their slots
+     */
+    public List<Appointment> getListAppointment( )
+    {
+        if ( _listAppointment == null )
+        {
+            if ( StringUtils.isEmpty( _strEmail ) )
+            {
+                _listAppointment = Collections.emptyList( );
+            }
+            else
+            {
+                _listAppointment = Collections.unmodifiableList( AppointmentHome.findByEmailWithSlots( _strEmail ) );
+            }
+        }
+        return _listAppointment;
+    }
+
+    /**
+     * Get the appointments of the user that are not cancelled, except the one given (the appointment currently modified)
+     * 
+     * @param nIdAppointmentExcluded
+     *            the id of the appointment to exclude (0 for a new appointment)
+     * @return the list of appointments
+     */
+    public List<Appointment> getListActiveAppointment( int nIdAppointmentExcluded )
+    {
+        return getListAppointment( ).stream( ).filter( appt -> !appt.getIsCancelled( ) && appt.getIdAppointment( ) != nIdAppointmentExcluded )
+                .collect( Collectors.toList( ) );
+    }
+
+    /**
+     * Get the appointments of the user on a form that are not cancelled, except the one given (the appointment currently modified)
+     * 
+     * @param nIdForm
+     *            the id of the form
+     * @param nIdAppointmentExcluded
+     *            the id of the appointment to exclude (0 for a new appointment)
+     * @return the list of appointments
+     */
+    public List<Appointment> getListActiveAppointment( int nIdForm, int nIdAppointmentExcluded )
+    {
+        return getListActiveAppointment( nIdAppointmentExcluded ).stream( ).filter( appt -> getIdForm( appt ) == nIdForm ).collect( Collectors.toList( ) );
+    }
+
+    /**
+     * Get the slots of the appointments of the user that are not cancelled, except the one given (the appointment currently modified)
+     * 
+     * @param nIdAppointmentExcluded
+     *            the id of the appointment to exclude (0 for a new appointment)
+     * @return the list of slots
+     */
+    public List<Slot> getListSlot( int nIdAppointmentExcluded )
+    {
+        List<Slot> listSlot = new ArrayList<>( );
+        for ( Appointment appointment : getListActiveAppointment( nIdAppointmentExcluded ) )
+        {
+            listSlot.addAll( appointment.getSlot( ) );
+        }
+        return listSlot;
+    }
+
+    /**
+     * Get the id of the form of an appointment
+     * 
+     * @param appointment
+     *            the appointment
+     * @return the id of the form
+     */
+    private static int getIdForm( Appointment appointment )
+    {
+        return appointment.getSlot( ).get( 0 ).getIdForm( );
+    }
+}
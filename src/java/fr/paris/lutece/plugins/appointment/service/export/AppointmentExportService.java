@@ -40,6 +40,7 @@ import java.nio.file.Path;
 import java.sql.Date;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -50,18 +51,22 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentResponseHome;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSortKey;
 import fr.paris.lutece.plugins.appointment.business.category.Category;
 import fr.paris.lutece.plugins.appointment.business.category.CategoryHome;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.form.FormHome;
-import fr.paris.lutece.plugins.appointment.service.AppointmentResponseService;
+import fr.paris.lutece.plugins.appointment.service.AppointmentService;
 import fr.paris.lutece.plugins.appointment.service.Utilities;
 import fr.paris.lutece.plugins.appointment.service.entrytype.EntryTypeGroup;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
 import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
@@ -69,12 +74,14 @@ import fr.paris.lutece.plugins.genericattributes.business.Field;
 import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.AbstractEntryTypeUpload;
 import fr.paris.lutece.plugins.genericattributes.service.entrytype.EntryTypeServiceManager;
 import fr.paris.lutece.plugins.workflowcore.business.state.State;
 import fr.paris.lutece.plugins.workflowcore.service.state.StateService;
 import fr.paris.lutece.portal.service.i18n.I18nService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.service.workflow.WorkflowService;
 import fr.paris.lutece.util.ReferenceList;
 
@@ -99,6 +106,11 @@ public final class AppointmentExportService
 
     private static final String CONSTANT_COMMA = ",";
 
+    private static final String PROPERTY_EXPORT_PAGE_SIZE = "appointment.export.pageSize";
+    private static final String PROPERTY_EXPORT_ROW_ACCESS_WINDOW_SIZE = "appointment.export.xls.rowAccessWindowSize";
+    private static final int DEFAULT_EXPORT_PAGE_SIZE = 500;
+    private static final int DEFAULT_EXPORT_ROW_ACCESS_WINDOW_SIZE = 100;
+
     private static final List<String> DEFAULT_COLUMN_LIST = Arrays.asList( KEY_COLUMN_FORM_CATEGORY, KEY_COLUMN_FORM_TITLE, KEY_COLUMN_LAST_NAME,
             KEY_COLUMN_FIRST_NAME, KEY_COLUMN_EMAIL, KEY_COLUMN_DATE_APPOINTMENT, KEY_TIME_START, KEY_TIME_END, KEY_COLUMN_ADMIN, KEY_COLUMN_STATUS,
             KEY_COLUMN_STATE, KEY_COLUMN_NB_BOOKED_SEATS, KEY_DATE_APPOINT_TAKEN, KEY_HOUR_APPOINT_TAKEN );
@@ -124,65 +136,102 @@ public final class AppointmentExportService
     public static void buildExcelFileWithAppointments( List<String> defaultColumnList, List<Integer> entryList, Path excelFile, Locale locale,
             List<AppointmentDTO> listAppointmentsDTO )
     {
-        List<List<Object>> linesValues = new ArrayList<>( );
-        EntryFilter entryFilter = new EntryFilter( );
-        List<Entry> listEntry = EntryHome.getEntryList( entryFilter ).stream( ).filter( e -> entryList.contains( e.getIdEntry( ) ) ).map( Entry::getIdEntry )
-                .map( EntryHome::findByPrimaryKey ).collect( Collectors.toList( ) );
-
-        linesValues.add( createHeaderContent( defaultColumnList, listEntry, locale ) );
-
-        if ( listAppointmentsDTO != null )
+        List<Entry> listEntry = findListEntry( 0, entryList );
+        int nPageSize = AppPropertiesService.getPropertyInt( PROPERTY_EXPORT_PAGE_SIZE, DEFAULT_EXPORT_PAGE_SIZE );
+        try ( AppointmentSheetWriter writer = new AppointmentSheetWriter( locale ) )
         {
-            StateService stateService = null;
-            if ( WorkflowService.getInstance( ).isAvailable( ) )
-            {
-                stateService = SpringContextService.getBean( StateService.BEAN_SERVICE );
-            }
-            Map<Integer, Form> formMap = new HashMap<>( );
-            for ( AppointmentDTO appointmentDTO : listAppointmentsDTO )
+            writer.addLine( createHeaderContent( defaultColumnList, listEntry, locale ) );
+            if ( listAppointmentsDTO != null )
             {
-                Form form = formMap.computeIfAbsent( appointmentDTO.getIdForm( ), FormHome::findByPrimaryKey );
-                linesValues.add( createLineContent( appointmentDTO, form, defaultColumnList, listEntry, stateService, locale ) );
+                StateService stateService = getStateService( );
+                Map<Integer, Form> formMap = new HashMap<>( );
+                Map<Integer, Field> fieldMap = new HashMap<>( );
+                for ( int nFrom = 0; nFrom < listAppointmentsDTO.size( ); nFrom += nPageSize )
+                {
+                    addLines( writer, listAppointmentsDTO.subList( nFrom, Math.min( nFrom + nPageSize, listAppointmentsDTO.size( ) ) ), defaultColumnList,
+                            listEntry, stateService, formMap, fieldMap, locale );
+                }
             }
+            writer.write( excelFile );
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( e );
         }
-        writeWorkbook( linesValues, excelFile, locale );
     }
 
-    private static final void writeWorkbook( List<List<Object>> linesValues, Path excelFile, Locale locale )
+    /**
+     * Build the excel file of the appointments matching a filter. The appointments are read and written page by page, so that the memory used does not
+     * depend on the number of appointments exported
+     * 
+     * @param defaultColumnList
+     *            the default columns to export
+     * @param entryList
+     *            the entries to export
+     * @param excelFile
+     *            the excel file to write
+     * @param locale
+     *            the locale
+     * @param appointmentFilter
+     *            the filter of the appointments to export, null to export only the header
+     */
+    public static void buildExcelFileWithAppointments( List<String> defaultColumnList, List<Integer> entryList, Path excelFile, Locale locale,
+            AppointmentFilterDTO appointmentFilter )
+    {
+        buildExcelFileWithAppointments( defaultColumnList, entryList, excelFile, locale, appointmentFilter,
+                AppPropertiesService.getPropertyInt( PROPERTY_EXPORT_PAGE_SIZE, DEFAULT_EXPORT_PAGE_SIZE ) );
+    }
+
+    /**
+     * Build the excel file of the appointments matching a filter, read and written by pages of a given size. The appointments are written in the order of
+     * the filter
+     * 
+     * @param defaultColumnList
+     *            the default columns to export
+     * @param entryList
+     *            the entries to export
+     * @param excelFile
+     *            the excel file to write
+     * @param locale
+     *            the locale
+     * @param appointmentFilter
+     *            the filter of the appointments to export, null to export only the header
+     * @param nPageSize
+     *            the number of appointments read per page
+     */
+    public static void buildExcelFileWithAppointments( List<String> defaultColumnList, List<Integer> entryList, Path excelFile, Locale locale,
+            AppointmentFilterDTO appointmentFilter, int nPageSize )
     {
-        int nRownum = 0;
-        try ( XSSFWorkbook workbook = new XSSFWorkbook( ) ; OutputStream os = Files.newOutputStream( excelFile ) )
+        List<Entry> listEntry = findListEntry( ( appointmentFilter != null ) ? appointmentFilter.getIdForm( ) : 0, entryList );
+        try ( AppointmentSheetWriter writer = new AppointmentSheetWriter( locale ) )
         {
-            XSSFSheet sheet = workbook.createSheet( I18nService.getLocalizedString( KEY_RESOURCE_TYPE, locale ) );
-            for ( List<Object> line : linesValues )
+            writer.addLine( createHeaderContent( defaultColumnList, listEntry, locale ) );
+            if ( appointmentFilter != null )
             {
-                Row row = sheet.createRow( nRownum++ );
-                int nCellnum = 0;
-                for ( Object cellValue : line )
+                StateService stateService = getStateService( );
+                Map<Integer, Form> formMap = new HashMap<>( );
+                Map<Integer, Field> fieldMap = new HashMap<>( );
+                List<Integer> listIdAppointment = appointmentFilter.getListIdAppointment( );
+                // The pages are sought from the sort key of the last appointment written, so the export keeps the order of the filter
+                List<AppointmentSortKey> listKeyPage = AppointmentHome.findSortKeysByFilter( appointmentFilter, null, false, nPageSize );
+                while ( !listKeyPage.isEmpty( ) )
                 {
-                    Cell cell = row.createCell( nCellnum++ );
-                    if ( cellValue instanceof String )
+                    Map<Integer, Integer> mapPositionById = new HashMap<>( );
+                    for ( AppointmentSortKey key : listKeyPage )
                     {
-                        cell.setCellValue( (String) cellValue );
+                        mapPositionById.put( key.getIdAppointment( ), mapPositionById.size( ) );
                     }
-                    else
-                        if ( cellValue instanceof Boolean )
-                        {
-                            cell.setCellValue( (Boolean) cellValue );
-                        }
-                        else
-                            if ( cellValue instanceof Date )
-                            {
-                                cell.setCellValue( (Date) cellValue );
-                            }
-                            else
-                                if ( cellValue instanceof Double )
-                                {
-                                    cell.setCellValue( (Double) cellValue );
-                                }
+                    appointmentFilter.setListIdAppointment( new ArrayList<>( mapPositionById.keySet( ) ) );
+                    List<AppointmentDTO> listAppointmentsDTO = AppointmentService.findListAppointmentsDTOByFilter( appointmentFilter );
+                    appointmentFilter.setListIdAppointment( listIdAppointment );
+                    listAppointmentsDTO.sort( Comparator.comparingInt( appointmentDTO -> mapPositionById.get( appointmentDTO.getIdAppointment( ) ) ) );
+                    addLines( writer, listAppointmentsDTO, defaultColumnList, listEntry, stateService, formMap, fieldMap, locale );
+
+                    listKeyPage = ( listKeyPage.size( ) < nPageSize ) ? new ArrayList<>( )
+                            : AppointmentHome.findSortKeysByFilter( appointmentFilter, listKeyPage.get( listKeyPage.size( ) - 1 ), false, nPageSize );
                 }
             }
-            workbook.write( os );
+            writer.write( excelFile );
         }
         catch( IOException e )
         {
@@ -190,6 +239,44 @@ public final class AppointmentExportService
         }
     }
 
+    private static List<Entry> findListEntry( int nIdForm, List<Integer> entryList )
+    {
+        EntryFilter entryFilter = new EntryFilter( );
+        if ( nIdForm != 0 )
+        {
+            entryFilter.setIdResource( nIdForm );
+        }
+        return EntryHome.getEntryList( entryFilter ).stream( ).filter( e -> entryList.contains( e.getIdEntry( ) ) ).map( Entry::getIdEntry )
+                .map( EntryHome::findByPrimaryKey ).collect( Collectors.toList( ) );
+    }
+
+    private static StateService getStateService( )
+    {
+        StateService stateService = null;
+        if ( WorkflowService.getInstance( ).isAvailable( ) )
+        {
+            stateService = SpringContextService.getBean( StateService.BEAN_SERVICE );
+        }
+        return stateService;
+    }
+
+    private static void addLines( AppointmentSheetWriter writer, List<AppointmentDTO> listAppointmentsDTO, List<String> defaultColumnList, List<Entry> listEntry,
+            StateService stateService, Map<Integer, Form> formMap, Map<Integer, Field> fieldMap, Locale locale )
+    {
+        Map<Integer, List<Response>> mapResponses = new HashMap<>( );
+        if ( CollectionUtils.isNotEmpty( listEntry ) )
+        {
+            mapResponses = AppointmentResponseHome
+                    .findListResponseByListIdAppointment( listAppointmentsDTO.stream( ).map( AppointmentDTO::getIdAppointment ).collect( Collectors.toList( ) ) );
+        }
+        for ( AppointmentDTO appointmentDTO : listAppointmentsDTO )
+        {
+            Form form = formMap.computeIfAbsent( appointmentDTO.getIdForm( ), FormHome::findByPrimaryKey );
+            List<Response> listResponses = mapResponses.getOrDefault( appointmentDTO.getIdAppointment( ), new ArrayList<>( ) );
+            writer.addLine( createLineContent( appointmentDTO, form, defaultColumnList, listEntry, listResponses, fieldMap, stateService, locale ) );
+        }
+    }
+
     private static final List<Object> createHeaderContent( List<String> defaultColumnList, List<Entry> listEntry, Locale locale )
     {
         List<Object> strInfos = new ArrayList<>( );
@@ -209,24 +296,14 @@ public final class AppointmentExportService
     }
 
     private static final List<Object> createLineContent( AppointmentDTO appointmentDTO, Form form, List<String> defaultColumnList, List<Entry> listEntry,
-            StateService stateService, Locale locale )
+            List<Response> listResponses, Map<Integer, Field> fieldMap, StateService stateService, Locale locale )
     {
         List<Object> strWriter = new ArrayList<>( );
         addDefaultColumnValues( appointmentDTO, form, defaultColumnList, strWriter, stateService, locale );
 
-        List<Integer> listIdResponse = AppointmentResponseService.findListIdResponse( appointmentDTO.getIdAppointment( ) );
-        List<Response> listResponses = new ArrayList<>( );
-        for ( int nIdResponse : listIdResponse )
-        {
-            Response resp = ResponseHome.findByPrimaryKey( nIdResponse );
-            if ( resp != null )
-            {
-                listResponses.add( resp );
-            }
-        }
         for ( Entry e : listEntry )
         {
-            String value = getEntryValue( e, listResponses, locale );
+            String value = getEntryValue( e, listResponses, fieldMap, locale );
             strWriter.add( value );
         }
         return strWriter;
@@ -324,7 +401,7 @@ public final class AppointmentExportService
         return strState;
     }
 
-    private static final String getEntryValue( Entry e, List<Response> listResponses, Locale locale )
+    private static final String getEntryValue( Entry e, List<Response> listResponses, Map<Integer, Field> fieldMap, Locale locale )
     {
         Integer key = e.getIdEntry( );
         StringBuilder strValue = new StringBuilder( );
@@ -333,12 +410,19 @@ public final class AppointmentExportService
         List<Response> listResponsesForEntry = listResponses.stream( ).filter( resp -> key.equals( resp.getEntry( ).getIdEntry( ) ) )
                 .filter( resp -> StringUtils.isNotEmpty( resp.getResponseValue( ) ) ).collect( Collectors.toList( ) );
 
-        for ( Response resp : listResponsesForEntry )
+        boolean bUpload = EntryTypeServiceManager.getEntryTypeService( e ) instanceof AbstractEntryTypeUpload;
+        for ( Response response : listResponsesForEntry )
         {
+            Response resp = response;
+            if ( bUpload )
+            {
+                // The bulk loaded responses do not hold their file
+                resp = ResponseHome.findByPrimaryKey( response.getIdResponse( ) );
+            }
             Field f = resp.getField( );
             if ( f != null )
             {
-                resp.setField( FieldHome.findByPrimaryKey( f.getIdField( ) ) );
+                resp.setField( fieldMap.computeIfAbsent( f.getIdField( ), FieldHome::findByPrimaryKey ) );
             }
 
             String valueExport = EntryTypeServiceManager.getEntryTypeService( e ).getResponseValueForExport( e, null, resp, locale );
@@ -377,4 +461,64 @@ public final class AppointmentExportService
         }
         return refList;
     }
+
+    /**
+     * Writer of the appointments sheet, which keeps only a window of rows in memory and flushes the others to a temporary file
+     */
+    private static final class AppointmentSheetWriter implements AutoCloseable
+    {
+        private final SXSSFWorkbook _workbook;
+        private final Sheet _sheet;
+        private int _nRownum;
+
+        AppointmentSheetWriter( Locale locale )
+        {
+            _workbook = new SXSSFWorkbook( AppPropertiesService.getPropertyInt( PROPERTY_EXPORT_ROW_ACCESS_WINDOW_SIZE, DEFAULT_EXPORT_ROW_ACCESS_WINDOW_SIZE ) );
+            _sheet = _workbook.createSheet( I18nService.getLocalizedString( KEY_RESOURCE_TYPE, locale ) );
+        }
+
+        void addLine( List<Object> line )
+        {
+            Row row = _sheet.createRow( _nRownum++ );
+            int nCellnum = 0;
+            for ( Object cellValue : line )
+            {
+                Cell cell = row.createCell( nCellnum++ );
+                if ( cellValue instanceof String )
+                {
+                    cell.setCellValue( (String) cellValue );
+                }
+                else
+                    if ( cellValue instanceof Boolean )
+                    {
+                        cell.setCellValue( (Boolean) cellValue );
+                    }
+                    else
+                        if ( cellValue instanceof Date )
+                        {
+                            cell.setCellValue( (Date) cellValue );
+                        }
+                        else
+                            if ( cellValue instanceof Double )
+                            {
+                                cell.setCellValue( (Double) cellValue );
+                            }
+            }
+        }
+
+        void write( Path excelFile ) throws IOException
+        {
+            try ( OutputStream os = Files.newOutputStream( excelFile ) )
+            {
+                _workbook.write( os );
+            }
+        }
+
+        @Override
+        public void close( ) throws IOException
+        {
+            _workbook.dispose( );
+            _workbook.close( );
+        }
+    }
 }
@@ -42,7 +42,10 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
 
+import org.apache.commons.lang3.SerializationUtils;
+
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.filegenerator.service.IFileGenerator;
 import fr.paris.lutece.portal.service.i18n.I18nService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
@@ -62,6 +65,7 @@ public class ExcelAppointmentGenerator implements IFileGenerator
     private final List<String> _defaultColumnList;
     private final Locale _locale;
     private final List<AppointmentDTO> _listAppointmentsDTO;
+    private final AppointmentFilterDTO _appointmentFilter;
     private final List<Integer> _entryList;
 
     public ExcelAppointmentGenerator( List<String> defaultColumnList, Locale locale, List<AppointmentDTO> listAppointmentsDTO, List<Integer> entryList )
@@ -73,6 +77,33 @@ public class ExcelAppointmentGenerator implements IFileGenerator
         this._defaultColumnList = new ArrayList<>( defaultColumnList );
         this._locale = locale;
         this._listAppointmentsDTO = new ArrayList<>( listAppointmentsDTO );
+        this._appointmentFilter = null;
+        this._entryList = new ArrayList<>( entryList );
+    }
+
+    /**
+     * Constructor of a generator that reads the appointments matching the filter page by page while the file is generated
+     * 
+     * @param defaultColumnList
+     *            the default columns to export
+     * @param locale
+     *            the locale
+     * @param appointmentFilter
+     *            the filter of the appointments to export, null to export only the header
+     * @param entryList
+     *            the entries to export
+     */
+    public ExcelAppointmentGenerator( List<String> defaultColumnList, Locale locale, AppointmentFilterDTO appointmentFilter, List<Integer> entryList )
+    {
+        super( );
+        _fileName = new SimpleDateFormat( "yyyyMMdd-hhmm" ).format( Calendar.getInstance( locale ).getTime( ) ) + "_"
+                + I18nService.getLocalizedString( KEY_RESOURCE_TYPE, locale );
+        _fileDescription = I18nService.getLocalizedString( KEY_FILE_DESCRIPTION, locale );
+        this._defaultColumnList = new ArrayList<>( defaultColumnList );
+        this._locale = locale;
+        this._listAppointmentsDTO = null;
+        // The filter of the caller keeps changing while the file is generated asynchronously
+        this._appointmentFilter = ( appointmentFilter != null ) ? SerializationUtils.clone( appointmentFilter ) : null;
         this._entryList = new ArrayList<>( entryList );
     }
 
@@ -80,7 +111,14 @@ public class ExcelAppointmentGenerator implements IFileGenerator
     public Path generateFile( ) throws IOException
     {
         Path excelFile = Paths.get( TMP_DIR, _fileName + EXCEL_FILE_EXTENSION );
-        AppointmentExportService.buildExcelFileWithAppointments( _defaultColumnList, _entryList, excelFile, _locale, _listAppointmentsDTO );
+        if ( _listAppointmentsDTO != null )
+        {
+            AppointmentExportService.buildExcelFileWithAppointments( _defaultColumnList, _entryList, excelFile, _locale, _listAppointmentsDTO );
+        }
+        else
+        {
+            AppointmentExportService.buildExcelFileWithAppointments( _defaultColumnList, _entryList, excelFile, _locale, _appointmentFilter );
+        }
         return excelFile;
     }
 
@@ -40,7 +40,6 @@ import java.util.Locale;
 import org.apache.commons.lang3.StringUtils;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 /**
  * Manager for appointment listeners
@@ -66,12 +65,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentRemoval( int nIdAppointment )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
-            {
-                appointmentRemovalListener.notifyAppointmentRemoval( nIdAppointment );
-            }
-        } );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IAppointmentListener.class ),
+                appointmentRemovalListener -> appointmentRemovalListener.notifyAppointmentRemoval( nIdAppointment ) );
     }
 
     /**
@@ -82,14 +77,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentCreated( int nIdAppointment )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-
-            for ( IAppointmentListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
-            {
-                appointmentListener.notifyAppointmentCreated( nIdAppointment );
-            }
-
-        } );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IAppointmentListener.class ),
+                appointmentListener -> appointmentListener.notifyAppointmentCreated( nIdAppointment ) );
 
     }
 
@@ -101,12 +90,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentUpdated( int nIdAppointment )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
-            {
-                appointmentListener.notifyAppointmentUpdated( nIdAppointment );
-            }
-        } );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IAppointmentListener.class ),
+                appointmentListener -> appointmentListener.notifyAppointmentUpdated( nIdAppointment ) );
     }
 
     /**
@@ -124,7 +109,7 @@ public final class AppointmentListenerManager
     {
         List<String> listMessages = new ArrayList<>( );
 
-        for ( IAppointmentListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+        for ( IAppointmentListener appointmentRemovalListener : ListenerRegistry.getListeners( IAppointmentListener.class ) )
         {
             String strMessage = appointmentRemovalListener.appointmentDateChanged( nIdAppointment, listIdSlot, locale );
 
@@ -145,12 +130,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyListenersAppointmentFormRemoval( int nIdAppointmentForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentFormRemovalListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentFormRemovalListener.class ) )
-            {
-                appointmentRemovalListener.notifyAppointmentFormRemoval( nIdAppointmentForm );
-            }
-        } );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IAppointmentFormRemovalListener.class ),
+                appointmentRemovalListener -> appointmentRemovalListener.notifyAppointmentFormRemoval( nIdAppointmentForm ) );
     }
 
     /**
@@ -163,12 +144,8 @@ public final class AppointmentListenerManager
      */
     public static void notifyAppointmentWFActionTriggered( int nIdAppointment, int nIdAction )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentWorkflowActionListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentWorkflowActionListener.class ) )
-            {
-                appointmentListener.notifyAppointmentWFActionTriggered( nIdAppointment, nIdAction );
-            }
-        } );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IAppointmentWorkflowActionListener.class ),
+                appointmentListener -> appointmentListener.notifyAppointmentWFActionTriggered( nIdAppointment, nIdAction ) );
     }
 
 }
@@ -34,7 +34,8 @@
 package fr.paris.lutece.plugins.appointment.service.listeners;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.plugins.appointment.service.CalendarAvailabilityCacheService;
+import fr.paris.lutece.plugins.appointment.service.FormPlanningCacheService;
 
 public final class FormListenerManager
 {
@@ -55,12 +56,8 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormCreation( int nIdForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
-            {
-                formListener.notifyFormCreation( nIdForm );
-            }
-        } );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IFormListener.class ),
+                formListener -> formListener.notifyFormCreation( nIdForm ) );
     }
 
     /**
@@ -71,12 +68,10 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormChange( int nIdForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
-            {
-                formListener.notifyFormChange( nIdForm );
-            }
-        } );
+        FormPlanningCacheService.getInstance( ).invalidateForm( nIdForm );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( nIdForm );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IFormListener.class ),
+                formListener -> formListener.notifyFormChange( nIdForm ) );
     }
 
     /**
@@ -87,12 +82,10 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormRemoval( int nIdForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
-            {
-                formListener.notifyFormRemoval( nIdForm );
-            }
-        } );
+        FormPlanningCacheService.getInstance( ).invalidateForm( nIdForm );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( nIdForm );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IFormListener.class ),
+                formListener -> formListener.notifyFormRemoval( nIdForm ) );
     }
 
 }
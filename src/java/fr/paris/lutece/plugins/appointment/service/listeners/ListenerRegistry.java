@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.paris.lutece.portal.service.plugin.PluginEvent;
+import fr.paris.lutece.portal.service.plugin.PluginEventListener;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+/**
+ * Cache of the listener beans, resolved once per type instead of at each notification. The cache is cleared when a plugin is installed, removed, enabled or
+ * disabled, since the beans of the plugins are only returned while their plugin is enabled.
+ */
+final class ListenerRegistry implements PluginEventListener
+{
+    private static final ListenerRegistry _singleton = new ListenerRegistry( );
+
+    private final Map<Class<?>, List<?>> _mapListeners = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor
+     */
+    private ListenerRegistry( )
+    {
+        PluginService.registerPluginEventListener( this );
+    }
+
+    /**
+     * Get the listener beans of a type
+     * 
+     * @param <T>
+     *            the type of the listeners
+     * @param classListener
+     *            the class of the listeners
+     * @return the unmodifiable list of the listeners
+     */
+    @SuppressWarnings( "unchecked" )
+    static <T> List<T> getListeners( Class<T> classListener )
+    {
+        return (List<T>) _singleton._mapListeners.computeIfAbsent( classListener,
+                key -> Collections.unmodifiableList( SpringContextService.getBeansOfType( classListener ) ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void processPluginEvent( PluginEvent event )
+    {
+        _mapListeners.clear( );
+    }
+}
@@ -34,19 +34,28 @@
 package fr.paris.lutece.plugins.appointment.service.listeners;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.plugins.appointment.service.CalendarAvailabilityCacheService;
 
 /**
  * Manager for slot listeners
  * 
  * Listeners are started by another thread asynchronously. Currently we have a problem with the propagation of the BDDS transaction when launching a workflow
  * task that triggers the listener
+ * 
+ * The changes of a slot are coalesced: a slot whose change notification is still waiting in the queue of the executor is not queued again. Nothing is
+ * coalesced while no listener is registered.
  */
 public final class SlotListenerManager
 {
+    private static final Set<Integer> _setPendingSlotChange = ConcurrentHashMap.newKeySet( );
 
     /**
      * Private default constructor
@@ -64,13 +73,76 @@ public final class SlotListenerManager
      */
     public static void notifyListenersSlotCreation( int nIdSlot )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( ISlotListener.class ),
+                slotListener -> slotListener.notifySlotCreation( nIdSlot ) );
+
+    }
+
+    /**
+     * Notify listeners that a list of slots has been created. The listeners are called from a single task for the whole list
+     * 
+     * @param nIdForm
+     *            The id of the form of the slots
+     * @param listIdSlot
+     *            The ids of the slots that have been created
+     */
+    public static void notifyListenersSlotsCreation( int nIdForm, List<Integer> listIdSlot )
+    {
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( nIdForm );
+        List<Integer> listId = new ArrayList<>( listIdSlot );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( ISlotListener.class ), slotListener -> {
+            for ( int nIdSlot : listId )
             {
                 slotListener.notifySlotCreation( nIdSlot );
             }
         } );
+    }
 
+    /**
+     * Notify listeners that a list of slots has been changed. The listeners are called from a single task for the whole list
+     * 
+     * @param nIdForm
+     *            The id of the form of the slots
+     * @param listIdSlot
+     *            The ids of the slots that have been changed
+     */
+    public static void notifyListenersSlotsChange( int nIdForm, List<Integer> listIdSlot )
+    {
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( nIdForm );
+        List<ISlotListener> listListeners = ListenerRegistry.getListeners( ISlotListener.class );
+        if ( listListeners.isEmpty( ) )
+        {
+            // Nothing would be queued to clear the pending slots
+            return;
+        }
+        List<Integer> listId = new ArrayList<>( );
+        for ( Integer nIdSlot : listIdSlot )
+        {
+            if ( _setPendingSlotChange.add( nIdSlot ) )
+            {
+                listId.add( nIdSlot );
+            }
+        }
+        if ( listId.isEmpty( ) )
+        {
+            return;
+        }
+        try
+        {
+            AppointmentExecutorService.INSTANCE.executeForEach( listListeners, slotListener -> {
+                // A change occurring from now on must be notified again
+                _setPendingSlotChange.removeAll( listId );
+                for ( int nIdSlot : listId )
+                {
+                    slotListener.notifySlotChange( nIdSlot );
+                }
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            _setPendingSlotChange.removeAll( listId );
+            throw e;
+        }
     }
 
     /**
@@ -81,12 +153,30 @@ public final class SlotListenerManager
      */
     public static void notifyListenersSlotChange( int nIdSlot )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
-            {
+        CalendarAvailabilityCacheService.getInstance( ).refreshSlot( nIdSlot );
+        List<ISlotListener> listListeners = ListenerRegistry.getListeners( ISlotListener.class );
+        if ( listListeners.isEmpty( ) )
+        {
+            // Nothing would be queued to clear the pending slot
+            return;
+        }
+        if ( !_setPendingSlotChange.add( nIdSlot ) )
+        {
+            return;
+        }
+        try
+        {
+            AppointmentExecutorService.INSTANCE.executeForEach( listListeners, slotListener -> {
+                // A change occurring from now on must be notified again
+                _setPendingSlotChange.remove( nIdSlot );
                 slotListener.notifySlotChange( nIdSlot );
-            }
-        } );
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            _setPendingSlotChange.remove( nIdSlot );
+            throw e;
+        }
     }
 
     /**
@@ -97,12 +187,9 @@ public final class SlotListenerManager
      */
     public static void notifyListenersSlotRemoval( Slot slot )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
-            {
-                slotListener.notifySlotRemoval( slot );
-            }
-        } );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( slot.getIdForm( ) );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( ISlotListener.class ),
+                slotListener -> slotListener.notifySlotRemoval( slot ) );
     }
 
     /**
@@ -115,12 +202,9 @@ public final class SlotListenerManager
      */
     public static void notifySlotEndingTimeHasChanged( int nIdSlot, int nIdForm, LocalDateTime endingDateTime )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
-            {
-                slotListener.notifySlotEndingTimeHasChanged( nIdSlot, nIdForm, endingDateTime );
-            }
-        } );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( nIdForm );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( ISlotListener.class ),
+                slotListener -> slotListener.notifySlotEndingTimeHasChanged( nIdSlot, nIdForm, endingDateTime ) );
     }
 
 }
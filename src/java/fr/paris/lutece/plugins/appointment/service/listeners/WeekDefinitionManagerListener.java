@@ -37,7 +37,8 @@ import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.plugins.appointment.service.CalendarAvailabilityCacheService;
+import fr.paris.lutece.plugins.appointment.service.FormPlanningCacheService;
 
 public final class WeekDefinitionManagerListener
 {
@@ -58,12 +59,10 @@ public final class WeekDefinitionManagerListener
      */
     public static void notifyListenersWeekDefinitionAssigned( WeekDefinition weekDefinition )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
-            {
-                weekDefinitionListener.notifyWeekAssigned( weekDefinition );
-            }
-        } );
+        FormPlanningCacheService.getInstance( ).invalidateWeekDefinition( weekDefinition );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateWeekDefinition( weekDefinition );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IWeekDefinitionListener.class ),
+                weekDefinitionListener -> weekDefinitionListener.notifyWeekAssigned( weekDefinition ) );
     }
 
     /**
@@ -76,12 +75,10 @@ public final class WeekDefinitionManagerListener
      */
     public static void notifyListenersListWeekDefinitionChanged( int nIdForm, List<WeekDefinition> listWeek )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
-            {
-                weekDefinitionListener.notifyListWeeksChanged( nIdForm, listWeek );
-            }
-        } );
+        FormPlanningCacheService.getInstance( ).invalidateForm( nIdForm );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( nIdForm );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IWeekDefinitionListener.class ),
+                weekDefinitionListener -> weekDefinitionListener.notifyListWeeksChanged( nIdForm, listWeek ) );
     }
 
     /**
@@ -92,12 +89,10 @@ public final class WeekDefinitionManagerListener
      */
     public static void notifyListenersWeekDefinitionUnassigned( WeekDefinition weekDefinition )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
-            {
-                weekDefinitionListener.notifyWeekUnassigned( weekDefinition );
-            }
-        } );
+        FormPlanningCacheService.getInstance( ).invalidateWeekDefinition( weekDefinition );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateWeekDefinition( weekDefinition );
+        AppointmentExecutorService.INSTANCE.executeForEach( ListenerRegistry.getListeners( IWeekDefinitionListener.class ),
+                weekDefinitionListener -> weekDefinitionListener.notifyWeekUnassigned( weekDefinition ) );
     }
 
 }
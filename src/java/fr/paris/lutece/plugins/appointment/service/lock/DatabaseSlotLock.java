@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.lock;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotLockHome;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Lock on a slot shared by all the nodes using the same database. The lease is only taken by the outermost acquisition of the current thread, the nested
+ * acquisitions only rely on the reentrancy of the local lock. While it is held, the lease is renewed by the provider, so that it does not expire under a
+ * long booking.
+ *
+ */
+public final class DatabaseSlotLock implements Lock
+{
+    private final ReentrantLock _localLock = new ReentrantLock( );
+    private final int _nIdSlot;
+    private final String _strOwner;
+    private final int _nLeaseDuration;
+    private final int _nRetryInterval;
+    private final int _nMaxWait;
+    private final Set<DatabaseSlotLock> _setLeasedLocks;
+
+    /**
+     * Constructor
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @param strOwner
+     *            the owner of the leases taken by this lock
+     * @param nLeaseDuration
+     *            the duration of a lease, in seconds
+     * @param nRetryInterval
+     *            the time to wait between two attempts to take the lease, in milliseconds
+     * @param nMaxWait
+     *            the maximum time to wait for the lease in {@link #lock()} and {@link #lockInterruptibly()}, in milliseconds
+     * @param setLeasedLocks
+     *            the locks whose lease is held, to which this lock adds itself while it holds its lease
+     */
+    public DatabaseSlotLock( int nIdSlot, String strOwner, int nLeaseDuration, int nRetryInterval, int nMaxWait, Set<DatabaseSlotLock> setLeasedLocks )
+    {
+        _nIdSlot = nIdSlot;
+        _strOwner = strOwner;
+        _nLeaseDuration = nLeaseDuration;
+        _nRetryInterval = nRetryInterval;
+        _nMaxWait = nMaxWait;
+        _setLeasedLocks = setLeasedLocks;
+    }
+
+    /**
+     * Acquire the lock, waiting for the lease at most the maximum wait time
+     * 
+     * @throws AppException
+     *             if the lease could not be taken in time
+     */
+    @Override
+    public void lock( )
+    {
+        long lDeadline = System.nanoTime( ) + TimeUnit.MILLISECONDS.toNanos( _nMaxWait );
+        boolean bInterrupted = false;
+        try
+        {
+            while ( true )
+            {
+                try
+                {
+                    if ( tryLock( lDeadline - System.nanoTime( ), TimeUnit.NANOSECONDS ) )
+                    {
+                        return;
+                    }
+                    throw new AppException( "Timeout while waiting for the lease of the slot " + _nIdSlot );
+                }
+                catch( InterruptedException e )
+                {
+                    // The lock is not interruptible, the interruption is restored once it is acquired
+                    bInterrupted = true;
+                }
+            }
+        }
+        finally
+        {
+            if ( bInterrupted )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+        }
+    }
+
+    /**
+     * Acquire the lock unless the current thread is interrupted, waiting for the lease at most the maximum wait time
+     * 
+     * @throws AppException
+     *             if the lease could not be taken in time
+     */
+    @Override
+    public void lockInterruptibly( ) throws InterruptedException
+    {
+        if ( !tryLock( _nMaxWait, TimeUnit.MILLISECONDS ) )
+        {
+            throw new AppException( "Timeout while waiting for the lease of the slot " + _nIdSlot );
+        }
+    }
+
+    @Override
+    public boolean tryLock( )
+    {
+        if ( !_localLock.tryLock( ) )
+        {
+            return false;
+        }
+        boolean bLocked = false;
+        try
+        {
+            bLocked = _localLock.getHoldCount( ) > 1 || acquireLease( );
+        }
+        finally
+        {
+            if ( !bLocked )
+            {
+                _localLock.unlock( );
+            }
+        }
+        return bLocked;
+    }
+
+    @Override
+    public boolean tryLock( long time, TimeUnit unit ) throws InterruptedException
+    {
+        long lDeadline = System.nanoTime( ) + unit.toNanos( time );
+        if ( !_localLock.tryLock( time, unit ) )
+        {
+            return false;
+        }
+        if ( _localLock.getHoldCount( ) > 1 )
+        {
+            return true;
+        }
+        try
+        {
+            while ( !acquireLease( ) )
+            {
+                long lRemaining = TimeUnit.NANOSECONDS.toMillis( lDeadline - System.nanoTime( ) );
+                if ( lRemaining <= 0 )
+                {
+                    _localLock.unlock( );
+                    return false;
+                }
+                Thread.sleep( Math.min( lRemaining, _nRetryInterval ) );
+            }
+        }
+        catch( InterruptedException | RuntimeException e )
+        {
+            _localLock.unlock( );
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public void unlock( )
+    {
+        if ( _localLock.isHeldByCurrentThread( ) && _localLock.getHoldCount( ) == 1 )
+        {
+            _setLeasedLocks.remove( this );
+            try
+            {
+                SlotLockHome.release( _nIdSlot, _strOwner );
+            }
+            finally
+            {
+                _localLock.unlock( );
+            }
+        }
+        else
+        {
+            _localLock.unlock( );
+        }
+    }
+
+    /**
+     * Conditions are not supported by a lock shared between several nodes
+     * 
+     * @throws UnsupportedOperationException
+     *             always
+     */
+    @Override
+    public Condition newCondition( )
+    {
+        throw new UnsupportedOperationException( "Conditions are not supported on a database slot lock" );
+    }
+
+    /**
+     * Try to take the lease of the slot in database
+     * 
+     * @return true if the lease has been taken
+     */
+    private boolean acquireLease( )
+    {
+        if ( SlotLockHome.acquire( _nIdSlot, _strOwner, LocalDateTime.now( ).plusSeconds( _nLeaseDuration ) ) )
+        {
+            _setLeasedLocks.add( this );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Extend the lease held on the slot for a new lease duration
+     */
+    void renewLease( )
+    {
+        if ( !SlotLockHome.renew( _nIdSlot, _strOwner, LocalDateTime.now( ).plusSeconds( _nLeaseDuration ) ) && _setLeasedLocks.contains( this ) )
+        {
+            AppLogService.error( "The lease of the slot " + _nIdSlot + " has been lost before being released" );
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.lock;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotLockHome;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Slot lock provider for a cluster of nodes. Each lock is made of a local ReentrantLock, which serializes the threads of the current node, and of a lease
+ * stored in the appointment_slot_lock table, which serializes the nodes. The leases held are renewed every third of their duration by a daemon thread, so
+ * that a lock held longer than a lease duration is not taken over by another node.
+ *
+ */
+public class DatabaseSlotLockProvider implements ISlotLockProvider
+{
+    private static final String PROPERTY_LEASE_DURATION = "appointment.slot.lock.database.leaseDuration";
+    private static final String PROPERTY_RETRY_INTERVAL = "appointment.slot.lock.database.retryInterval";
+    private static final String PROPERTY_MAX_WAIT = "appointment.slot.lock.database.maxWait";
+    private static final int DEFAULT_LEASE_DURATION = 60;
+    private static final int DEFAULT_RETRY_INTERVAL = 50;
+    private static final int DEFAULT_MAX_WAIT = 30000;
+
+    private final String _strNodeId = UUID.randomUUID( ).toString( );
+    private final int _nLeaseDuration = AppPropertiesService.getPropertyInt( PROPERTY_LEASE_DURATION, DEFAULT_LEASE_DURATION );
+    private final int _nRetryInterval = AppPropertiesService.getPropertyInt( PROPERTY_RETRY_INTERVAL, DEFAULT_RETRY_INTERVAL );
+    private final int _nMaxWait = AppPropertiesService.getPropertyInt( PROPERTY_MAX_WAIT, DEFAULT_MAX_WAIT );
+    private final Set<DatabaseSlotLock> _setLeasedLocks = ConcurrentHashMap.newKeySet( );
+    private final SlotLockRegistry _registry = new SlotLockRegistry(
+            nIdSlot -> new DatabaseSlotLock( nIdSlot, _strNodeId, _nLeaseDuration, _nRetryInterval, _nMaxWait, _setLeasedLocks ) );
+    private final ScheduledExecutorService _renewalExecutor;
+
+    /**
+     * Constructor. Starts the renewal of the leases held
+     */
+    public DatabaseSlotLockProvider( )
+    {
+        _renewalExecutor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "appointment-slot-lease-renewal" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        long lRenewalPeriod = Math.max( 1, TimeUnit.SECONDS.toMillis( _nLeaseDuration ) / 3 );
+        _renewalExecutor.scheduleAtFixedRate( this::renewLeases, lRenewalPeriod, lRenewalPeriod, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public Lock getLock( int nIdSlot )
+    {
+        if ( nIdSlot == 0 )
+        {
+            return new ReentrantLock( );
+        }
+        return _registry.getLock( nIdSlot );
+    }
+
+    @Override
+    public void removeLock( int nIdSlot )
+    {
+        _registry.removeLock( nIdSlot );
+    }
+
+    @Override
+    public Map<Integer, Lock> getLocks( )
+    {
+        return _registry.getLocks( );
+    }
+
+    /**
+     * Delete the leases that have expired, for instance the ones left by a node that has been stopped while holding them
+     */
+    @Override
+    public void purge( )
+    {
+        _registry.expungeStaleEntries( );
+        SlotLockHome.deleteExpired( );
+    }
+
+    /**
+     * Stop the renewal of the leases. The leases still held expire after their duration
+     */
+    @Override
+    public void shutdown( )
+    {
+        _renewalExecutor.shutdownNow( );
+    }
+
+    /**
+     * Renew the leases held by the locks of this node
+     */
+    private void renewLeases( )
+    {
+        for ( DatabaseSlotLock lock : _setLeasedLocks )
+        {
+            try
+            {
+                lock.renewLease( );
+            }
+            catch( RuntimeException e )
+            {
+                // An exception would cancel the next renewals
+                AppLogService.error( "Error while renewing a slot lease", e );
+            }
+        }
+    }
+}
@@ -33,81 +33,51 @@
  */
 package fr.paris.lutece.plugins.appointment.service.lock;
 
-import java.util.concurrent.Callable;
-
-import fr.paris.lutece.plugins.appointment.business.slot.Slot;
-import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
- * Timer Task for a slot (Manage a lock the time the user fill the form
- * 
- * @author Laurent Payen
+ * Provider of the locks used to serialize the updates of the places of a slot
  *
  */
-public final class SlotEditTask implements Callable<Slot>
+public interface ISlotLockProvider
 {
-
     /**
-     * Potentially number of places taken
+     * Name of the bean of the slot lock provider
      */
-    private int _nbPlacesTaken;
+    String BEAN_NAME = "appointment.slotLockProvider";
 
     /**
-     * Id of the slot on which the user is taking an appointment
+     * Get the lock of a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the lock of the slot
      */
-    private int _idSlot;
-
-    public SlotEditTask( int nIdSlot, int nbPlacesTaken )
-    {
-        _idSlot = nIdSlot;
-        _nbPlacesTaken = nbPlacesTaken;
-    }
-
-    @Override
-    public Slot call( )
-    {
-        return SlotSafeService.incrementPotentialRemainingPlaces( this );
-
-    }
+    Lock getLock( int nIdSlot );
 
     /**
-     * Get the number of places potentially taken
+     * Remove the lock of a slot
      * 
-     * @return the number of places
+     * @param nIdSlot
+     *            the id of the slot
      */
-    public int getNbPlacesTaken( )
-    {
-        return _nbPlacesTaken;
-    }
+    void removeLock( int nIdSlot );
 
     /**
-     * Set the number of places potentially taken
+     * Get the locks currently used
      * 
-     * @param nbPlacesTaken
+     * @return a snapshot of the locks, with the id of the slot for key
      */
-    public void setNbPlacesTaken( int nbPlacesTaken )
-    {
-        this._nbPlacesTaken = nbPlacesTaken;
-    }
+    Map<Integer, Lock> getLocks( );
 
     /**
-     * Get the id of the slot
-     * 
-     * @return the id of the slot
+     * Purge the resources held by the provider for locks that are no longer used
      */
-    public int getIdSlot( )
-    {
-        return _idSlot;
-    }
+    void purge( );
 
     /**
-     * Set the id of the slot
-     * 
-     * @param nIdSlot
-     *            the id of the slot
+     * Stop the threads started by the provider, when the application is shut down
      */
-    public void setIdSlot( int nIdSlot )
-    {
-        this._idSlot = nIdSlot;
-    }
+    void shutdown( );
 }
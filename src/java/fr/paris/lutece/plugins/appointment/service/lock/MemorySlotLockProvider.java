@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.lock;
+
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Slot lock provider keeping a ReentrantLock per slot in memory. The locks are only effective inside the current JVM, and are reclaimed by the garbage
+ * collector once no thread uses them
+ *
+ */
+public class MemorySlotLockProvider implements ISlotLockProvider
+{
+    private final SlotLockRegistry _registry = new SlotLockRegistry( nIdSlot -> new ReentrantLock( ) );
+
+    @Override
+    public Lock getLock( int nIdSlot )
+    {
+        if ( nIdSlot == 0 )
+        {
+            return new ReentrantLock( );
+        }
+        return _registry.getLock( nIdSlot );
+    }
+
+    @Override
+    public void removeLock( int nIdSlot )
+    {
+        _registry.removeLock( nIdSlot );
+    }
+
+    @Override
+    public Map<Integer, Lock> getLocks( )
+    {
+        return _registry.getLocks( );
+    }
+
+    @Override
+    public void purge( )
+    {
+        _registry.expungeStaleEntries( );
+    }
+
+    @Override
+    public void shutdown( )
+    {
+        // No thread to stop
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.lock;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntFunction;
+
+/**
+ * Registry of the locks of the slots, weakly referenced. A lock stays in the registry as long as a thread is using it, so two threads always share the same
+ * lock for a slot. Once no thread references it anymore, it is reclaimed by the garbage collector and its entry is removed at the next access to the
+ * registry, without any query on the slots.
+ *
+ */
+public final class SlotLockRegistry
+{
+    private final ConcurrentMap<Integer, LockReference> _mapLocks = new ConcurrentHashMap<>( );
+    private final ReferenceQueue<Lock> _queue = new ReferenceQueue<>( );
+    private final IntFunction<Lock> _lockFactory;
+
+    /**
+     * Constructor
+     * 
+     * @param lockFactory
+     *            the factory creating the lock of a slot from its id
+     */
+    public SlotLockRegistry( IntFunction<Lock> lockFactory )
+    {
+        _lockFactory = lockFactory;
+    }
+
+    /**
+     * Get the lock of a slot, created if no thread is using it
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     * @return the lock of the slot
+     */
+    public Lock getLock( int nIdSlot )
+    {
+        expungeStaleEntries( );
+        while ( true )
+        {
+            LockReference reference = _mapLocks.get( nIdSlot );
+            Lock lock = ( reference != null ) ? reference.get( ) : null;
+            if ( lock != null )
+            {
+                return lock;
+            }
+            Lock newLock = _lockFactory.apply( nIdSlot );
+            LockReference newReference = new LockReference( nIdSlot, newLock, _queue );
+            boolean bRegistered = ( reference == null ) ? _mapLocks.putIfAbsent( nIdSlot, newReference ) == null
+                    : _mapLocks.replace( nIdSlot, reference, newReference );
+            if ( bRegistered )
+            {
+                return newLock;
+            }
+            // Another thread has registered a lock for this slot in the meantime, use it
+        }
+    }
+
+    /**
+     * Remove the lock of a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    public void removeLock( int nIdSlot )
+    {
+        _mapLocks.remove( nIdSlot );
+    }
+
+    /**
+     * Get the locks currently in use
+     * 
+     * @return a snapshot of the locks, with the id of the slot for key
+     */
+    public Map<Integer, Lock> getLocks( )
+    {
+        expungeStaleEntries( );
+        Map<Integer, Lock> mapLocks = new HashMap<>( );
+        _mapLocks.forEach( ( nIdSlot, reference ) -> {
+            Lock lock = reference.get( );
+            if ( lock != null )
+            {
+                mapLocks.put( nIdSlot, lock );
+            }
+        } );
+        return mapLocks;
+    }
+
+    /**
+     * Get the number of entries of the registry, including the ones of the locks reclaimed but not expunged yet
+     * 
+     * @return the number of entries
+     */
+    public int size( )
+    {
+        return _mapLocks.size( );
+    }
+
+    /**
+     * Remove the entries of the locks reclaimed by the garbage collector
+     */
+    public void expungeStaleEntries( )
+    {
+        LockReference reference;
+        while ( ( reference = (LockReference) _queue.poll( ) ) != null )
+        {
+            // The entry may already have been replaced by a new lock
+            _mapLocks.remove( reference._nIdSlot, reference );
+        }
+    }
+
+    /**
+     * Weak reference on a lock, remembering the id of its slot
+     */
+    private static final class LockReference extends WeakReference<Lock>
+    {
+        private final int _nIdSlot;
+
+        LockReference( int nIdSlot, Lock lock, ReferenceQueue<Lock> queue )
+        {
+            super( lock, queue );
+            _nIdSlot = nIdSlot;
+        }
+    }
+}
@@ -52,6 +52,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 import fr.paris.lutece.portal.business.file.File;
 import fr.paris.lutece.portal.service.security.SecurityTokenService;
@@ -75,19 +76,21 @@ import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResponseService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentUtilities;
+import fr.paris.lutece.plugins.appointment.service.CalendarAvailabilityCacheService;
 import fr.paris.lutece.plugins.appointment.service.EntryService;
 import fr.paris.lutece.plugins.appointment.service.FormMessageService;
+import fr.paris.lutece.plugins.appointment.service.FormPlanning;
+import fr.paris.lutece.plugins.appointment.service.FormPlanningCacheService;
 import fr.paris.lutece.plugins.appointment.service.FormService;
 import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
 import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
 import fr.paris.lutece.plugins.appointment.service.SlotService;
-import fr.paris.lutece.plugins.appointment.service.UserService;
+import fr.paris.lutece.plugins.appointment.service.UserAppointmentHistory;
 import fr.paris.lutece.plugins.appointment.service.Utilities;
 import fr.paris.lutece.plugins.appointment.service.WeekDefinitionService;
 import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
 import fr.paris.lutece.plugins.appointment.service.upload.AppointmentAsynchronousUploadHandler;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
-import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.GenericAttributeError;
@@ -293,13 +296,15 @@ public class AppointmentApp extends MVCApplication
     private static final String BASIC_DAY = "basicDay";
     private static final String STEP_3 = "step3";
 
+    // Session attributes
+    private static final String SESSION_ATTRIBUTE_NB_PLACES_TO_TAKE = "appointment.session.nbPlacesToTake";
+    private static final String SESSION_ATTRIBUTE_APPOINTMENT_TO_REPORT = "appointment.session.appointmentToReport";
+    private static final String SESSION_ATTRIBUTE_APPOINTMENT_FORM = "appointment.session.appointmentForm";
+    private static final String SESSION_ATTRIBUTE_NOT_VALIDATED_APPOINTMENT = "appointment.session.notValidatedAppointment";
+    private static final String SESSION_ATTRIBUTE_VALIDATED_APPOINTMENT = "appointment.session.validatedAppointment";
+
     // Local variables
     private transient CaptchaSecurityService _captchaSecurityService;
-    private int _nNbPlacesToTake;
-    private String _strNbPlacesToTakeLength;
-    private AppointmentFormDTO _appointmentForm;
-    private AppointmentDTO _notValidatedAppointment;
-    private AppointmentDTO _validatedAppointment;
 
     /**
      * Get the calendar view
@@ -310,20 +315,20 @@ public class AppointmentApp extends MVCApplication
      */
     @SuppressWarnings( "unchecked" )
     @View( VIEW_APPOINTMENT_CALENDAR )
-    public synchronized XPage getViewAppointmentCalendar( HttpServletRequest request ) throws AccessDeniedException
+    public XPage getViewAppointmentCalendar( HttpServletRequest request ) throws AccessDeniedException
     {
         Map<String, Object> model = getModel( );
         Locale locale = getLocale( request );
-        _nNbPlacesToTake = 0;
+        int nNbPlacesToTake = 0;
+        AppointmentDTO appointmentToReport = null;
 
         int nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
         String nbPlacesToTake = request.getParameter( PARAMETER_NB_PLACE_TO_TAKE );
         String refAppointment = request.getParameter( PARAMETER_REF_APPOINTMENT );
 
-        _appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
-        _strNbPlacesToTakeLength = String.valueOf(_appointmentForm.getNbConsecutiveSlots());
+        AppointmentFormDTO appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
         boolean bError = false;
-        if ( !_appointmentForm.getIsActive( ) )
+        if ( !appointmentForm.getIsActive( ) )
         {
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, locale );
             bError = true;
@@ -348,30 +353,31 @@ public class AppointmentApp extends MVCApplication
             }
             else
             {
-                _validatedAppointment = appointmentDTO;
-                AppointmentService.addAppointmentResponses( _validatedAppointment );
-                nbPlacesToTake = Integer.toString( _validatedAppointment.getNbBookedSeats( ) );
+                appointmentToReport = appointmentDTO;
+                AppointmentService.addAppointmentResponses( appointmentToReport );
+                nbPlacesToTake = Integer.toString( appointmentToReport.getNbBookedSeats( ) );
+                request.getSession( ).setAttribute( SESSION_ATTRIBUTE_APPOINTMENT_TO_REPORT, appointmentToReport );
             }
         }
         LocalDate startingDateOfDisplay = LocalDate.now( );
         // Check if the date of display and the endDateOfDisplay are in the
         // validity date range of the form
         LocalDate startingValidityDate = null;
-        if ( _appointmentForm.getDateStartValidity( ) == null )
+        if ( appointmentForm.getDateStartValidity( ) == null )
         {
             addError( ERROR_MESSAGE_NO_STARTING_VALIDITY_DATE, locale );
             bError = true;
         }
         else
         {
-            startingValidityDate = _appointmentForm.getDateStartValidity( ).toLocalDate( );
+            startingValidityDate = appointmentForm.getDateStartValidity( ).toLocalDate( );
         }
         if ( startingValidityDate != null && startingValidityDate.isAfter( startingDateOfDisplay ) )
         {
             startingDateOfDisplay = startingValidityDate;
         }
         // Get the nb weeks to display
-        int nNbWeeksToDisplay = _appointmentForm.getNbWeeksToDisplay( );
+        int nNbWeeksToDisplay = appointmentForm.getNbWeeksToDisplay( );
         // Calculate the ending date of display with the nb weeks to display
         // since today
         // We calculate the number of weeks including the current week, so it
@@ -384,9 +390,9 @@ public class AppointmentApp extends MVCApplication
         // assign the ending date of display with the ending validity date of
         // the form
         LocalDate endingValidityDate = null;
-        if ( _appointmentForm.getDateEndValidity( ) != null )
+        if ( appointmentForm.getDateEndValidity( ) != null )
         {
-            endingValidityDate = _appointmentForm.getDateEndValidity( ).toLocalDate( );
+            endingValidityDate = appointmentForm.getDateEndValidity( ).toLocalDate( );
             if ( endingDateOfDisplay.isAfter( endingValidityDate ) )
             {
                 endingDateOfDisplay = endingValidityDate;
@@ -404,10 +410,9 @@ public class AppointmentApp extends MVCApplication
         {
             dateOfDisplay = LocalDate.parse( strDateOfDisplay );
         }
-        // Get all the week definitions
-        List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findWeekDefinitionByDateOfApply( nIdForm, startingDateOfDisplay, endingDateOfDisplay );
-
-        Map<WeekDefinition, ReservationRule> mapReservationRule = ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
+        // Get the reservation rules of all the week definitions
+        Map<WeekDefinition, ReservationRule> mapReservationRule = CalendarAvailabilityCacheService.getInstance( ).getMapReservationRule( nIdForm,
+                startingDateOfDisplay, endingDateOfDisplay );
         List<ReservationRule> listReservationRules = new ArrayList<>( mapReservationRule.values( ) );
         // Get the min time of all the week definitions
         LocalTime minStartingTime = WeekDefinitionService.getMinStartingTimeOfAListOfWeekDefinition( listReservationRules );
@@ -421,20 +426,23 @@ public class AppointmentApp extends MVCApplication
         List<Slot> listSlots = new ArrayList<>( );
         if ( !bError )
         {
+            // The number of places only comes from the request: the links of the calendar and of the form carry it once chosen. The number left in the
+            // session by a previous display is not a fallback, as the former field was reset to 0 at the start of this view and never served as one
             boolean isNewNbPlacesToTake = ( nbPlacesToTake != null && StringUtils.isNumeric( nbPlacesToTake ) );
-            if ( _appointmentForm.getIsMultislotAppointment( ) && ( _nNbPlacesToTake != 0 || isNewNbPlacesToTake ) )
+            if ( appointmentForm.getIsMultislotAppointment( ) && isNewNbPlacesToTake )
             {
-                _nNbPlacesToTake = isNewNbPlacesToTake ? Integer.parseInt( nbPlacesToTake ) : _nNbPlacesToTake;
-                listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfDisplay, endingDateOfDisplay, _nNbPlacesToTake );
+                nNbPlacesToTake = Integer.parseInt( nbPlacesToTake );
+                listSlots = CalendarAvailabilityCacheService.getInstance( ).getListSlot( nIdForm, startingDateOfDisplay, endingDateOfDisplay, nNbPlacesToTake );
 
             }
             else
             {
-                _nNbPlacesToTake = 0;
-                listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfDisplay, endingDateOfDisplay );
+                listSlots = CalendarAvailabilityCacheService.getInstance( ).getListSlot( nIdForm, startingDateOfDisplay, endingDateOfDisplay, 0 );
             }
+            // Hand the number of places over to the form view, whose slot links do not carry it
+            request.getSession( ).setAttribute( SESSION_ATTRIBUTE_NB_PLACES_TO_TAKE, nNbPlacesToTake );
 
-            if ( _nNbPlacesToTake > Integer.parseInt( _strNbPlacesToTakeLength ) )
+            if ( nNbPlacesToTake > appointmentForm.getNbConsecutiveSlots( ) )
             {
             	addError( ERROR_MESSAGE_NB_PLACE_TO_TAKE_TO_BIG, locale );
             }
@@ -452,7 +460,7 @@ public class AppointmentApp extends MVCApplication
             }
 
             // Get the min time from now before a user can take an appointment (in hours)
-            int minTimeBeforeAppointment = _appointmentForm.getMinTimeBeforeAppointment( );
+            int minTimeBeforeAppointment = appointmentForm.getMinTimeBeforeAppointment( );
             LocalDateTime dateTimeBeforeAppointment = LocalDateTime.now( ).plusHours( minTimeBeforeAppointment );
             // Filter the list of slots
             if ( CollectionUtils.isNotEmpty( listSlots ) )
@@ -463,9 +471,13 @@ public class AppointmentApp extends MVCApplication
             // If we change the date of an appointment
             // filter the list of slot with only the ones that have enough places at
             // the moment of the edition
-            if ( _validatedAppointment != null )
+            if ( appointmentToReport == null )
             {
-                int nbBookedSeats = _validatedAppointment.getNbBookedSeats( );
+                appointmentToReport = getAppointmentToReport( request );
+            }
+            if ( appointmentToReport != null )
+            {
+                int nbBookedSeats = appointmentToReport.getNbBookedSeats( );
                 listSlots = listSlots.stream( ).filter( s -> s.getNbPotentialRemainingPlaces( ) >= nbBookedSeats && s.getIsOpen( ) )
                         .collect( Collectors.toList( ) );
                 model.put( MARK_MODIFICATION_DATE_APPOINTMENT, true );
@@ -518,7 +530,7 @@ public class AppointmentApp extends MVCApplication
             listInfos.add( message );
         }
 
-        CalendarTemplate calendarTemplate = CalendarTemplateHome.findByPrimaryKey( _appointmentForm.getCalendarTemplateId( ) );
+        CalendarTemplate calendarTemplate = CalendarTemplateHome.findByPrimaryKey( appointmentForm.getCalendarTemplateId( ) );
         List<String> listHiddenDays = Stream.of( "0", "1", "2", "3", "4", "5", "6" ).collect( Collectors.toList( ) );
 
         /**
@@ -570,7 +582,7 @@ public class AppointmentApp extends MVCApplication
         model.put( PARAMETER_MAX_DATE_OF_OPEN_DAY,
                 endingDateOfDisplay.with( DayOfWeek.of( setOpenDays.stream( ).max( Comparator.naturalOrder( ) ).orElse( 1 ) ) ) );
 
-        model.put( MARK_FORM, _appointmentForm );
+        model.put( MARK_FORM, appointmentForm );
         model.put( PARAMETER_ID_FORM, nIdForm );
         model.put( MARK_FORM_MESSAGES, formMessages );
         model.put( PARAMETER_ENDING_DATE_OF_DISPLAY, endingDateOfDisplay );
@@ -580,18 +592,175 @@ public class AppointmentApp extends MVCApplication
         model.put( PARAMETER_MIN_TIME, AppointmentUtilities.getMinTimeToDisplay( minStartingTime ) );
         model.put( PARAMETER_MAX_TIME, AppointmentUtilities.getMaxTimeToDisplay( maxEndingTime ) );
         model.put( PARAMETER_MIN_DURATION, LocalTime.MIN.plusMinutes( AppointmentUtilities.THIRTY_MINUTES ) );
-        model.put( MARK_NBPLACESTOTAKE, _nNbPlacesToTake );
+        model.put( MARK_NBPLACESTOTAKE, nNbPlacesToTake );
         model.put( PARAMETER_EVENTS, listSlots );
         model.put( PARAMETER_HIDDEN_DAYS, listHiddenDays );
         model.put( PARAMETER_DAY_VIEW, dayView );
         model.put( PARAMETER_WEEK_VIEW, weekView );
-        model.put( MARK_MAX_NBPLACESTOTAKE, Integer.valueOf( _strNbPlacesToTakeLength ) );
+        model.put( MARK_MAX_NBPLACESTOTAKE, appointmentForm.getNbConsecutiveSlots( ) );
         HtmlTemplate templateNbPlacesToTakeForm = AppTemplateService.getTemplate( TEMPLATE_HTML_CODE_NB_PLACES_TO_TAKE_FORM, locale, model );
         model.put( MARK_FORM_NB_PLACES_TO_TAKE_HTML, templateNbPlacesToTakeForm.getHtml( ) );
 
         return getXPage( calendarTemplate.getTemplatePath( ), locale, model );
     }
 
+    /**
+     * Get the appointment whose date is being changed, either handed over by the calendar view or kept by the booking process
+     *
+     * @param request
+     *            the request
+     * @return the appointment, or null if no appointment is being changed
+     */
+    private AppointmentDTO getAppointmentToReport( HttpServletRequest request )
+    {
+        AppointmentDTO appointmentToReport = (AppointmentDTO) request.getSession( ).getAttribute( SESSION_ATTRIBUTE_APPOINTMENT_TO_REPORT );
+        if ( appointmentToReport == null )
+        {
+            appointmentToReport = getValidatedAppointment( request );
+        }
+        return appointmentToReport;
+    }
+
+    /**
+     * Restore in the booking process the appointment to report handed over by the calendar view
+     *
+     * @param request
+     *            the request
+     */
+    private void restoreCalendarState( HttpServletRequest request )
+    {
+        HttpSession session = request.getSession( );
+        AppointmentDTO appointmentToReport = (AppointmentDTO) session.getAttribute( SESSION_ATTRIBUTE_APPOINTMENT_TO_REPORT );
+        if ( appointmentToReport != null )
+        {
+            session.removeAttribute( SESSION_ATTRIBUTE_APPOINTMENT_TO_REPORT );
+            setValidatedAppointment( request, appointmentToReport );
+        }
+    }
+
+    /**
+     * Get the number of places to take of the booking in progress. It is kept in the session, since the instance of the XPage is shared
+     *
+     * @param request
+     *            the request
+     * @return the number of places to take, 0 if it is not chosen
+     */
+    private static int getNbPlacesToTake( HttpServletRequest request )
+    {
+        Integer nNbPlacesToTake = (Integer) request.getSession( ).getAttribute( SESSION_ATTRIBUTE_NB_PLACES_TO_TAKE );
+        return ( nNbPlacesToTake != null ) ? nNbPlacesToTake : 0;
+    }
+
+    /**
+     * Set the number of places to take of the booking in progress
+     *
+     * @param request
+     *            the request
+     * @param nNbPlacesToTake
+     *            the number of places to take
+     */
+    private static void setNbPlacesToTake( HttpServletRequest request, int nNbPlacesToTake )
+    {
+        request.getSession( ).setAttribute( SESSION_ATTRIBUTE_NB_PLACES_TO_TAKE, nNbPlacesToTake );
+    }
+
+    /**
+     * Get the form of the booking in progress
+     *
+     * @param request
+     *            the request
+     * @return the form, or null if no booking is in progress
+     */
+    private static AppointmentFormDTO getAppointmentForm( HttpServletRequest request )
+    {
+        return (AppointmentFormDTO) request.getSession( ).getAttribute( SESSION_ATTRIBUTE_APPOINTMENT_FORM );
+    }
+
+    /**
+     * Set the form of the booking in progress
+     *
+     * @param request
+     *            the request
+     * @param appointmentForm
+     *            the form, null to remove it
+     */
+    private static void setAppointmentForm( HttpServletRequest request, AppointmentFormDTO appointmentForm )
+    {
+        setSessionAttribute( request, SESSION_ATTRIBUTE_APPOINTMENT_FORM, appointmentForm );
+    }
+
+    /**
+     * Get the appointment being filled in by the user
+     *
+     * @param request
+     *            the request
+     * @return the appointment, or null if no appointment is being filled in
+     */
+    private static AppointmentDTO getNotValidatedAppointment( HttpServletRequest request )
+    {
+        return (AppointmentDTO) request.getSession( ).getAttribute( SESSION_ATTRIBUTE_NOT_VALIDATED_APPOINTMENT );
+    }
+
+    /**
+     * Set the appointment being filled in by the user
+     *
+     * @param request
+     *            the request
+     * @param appointment
+     *            the appointment, null to remove it
+     */
+    private static void setNotValidatedAppointment( HttpServletRequest request, AppointmentDTO appointment )
+    {
+        setSessionAttribute( request, SESSION_ATTRIBUTE_NOT_VALIDATED_APPOINTMENT, appointment );
+    }
+
+    /**
+     * Get the appointment validated by the user, waiting to be saved or whose date is being changed
+     *
+     * @param request
+     *            the request
+     * @return the appointment, or null if there is no validated appointment
+     */
+    private static AppointmentDTO getValidatedAppointment( HttpServletRequest request )
+    {
+        return (AppointmentDTO) request.getSession( ).getAttribute( SESSION_ATTRIBUTE_VALIDATED_APPOINTMENT );
+    }
+
+    /**
+     * Set the appointment validated by the user
+     *
+     * @param request
+     *            the request
+     * @param appointment
+     *            the appointment, null to remove it
+     */
+    private static void setValidatedAppointment( HttpServletRequest request, AppointmentDTO appointment )
+    {
+        setSessionAttribute( request, SESSION_ATTRIBUTE_VALIDATED_APPOINTMENT, appointment );
+    }
+
+    /**
+     * Set or remove an attribute of the session
+     *
+     * @param request
+     *            the request
+     * @param strName
+     *            the name of the attribute
+     * @param value
+     *            the value, null to remove the attribute
+     */
+    private static void setSessionAttribute( HttpServletRequest request, String strName, Object value )
+    {
+        if ( value == null )
+        {
+            request.getSession( ).removeAttribute( strName );
+        }
+        else
+        {
+            request.getSession( ).setAttribute( strName, value );
+        }
+    }
+
     /**
      * Get the form appointment view (front office)
      *
@@ -606,32 +775,36 @@ public class AppointmentApp extends MVCApplication
         String strIdForm = request.getParameter( PARAMETER_ID_FORM );
         String strNbPlacesToTake = request.getParameter( PARAMETER_NB_PLACE_TO_TAKE );
         String strModifDateAppointment = request.getParameter( PARAMETER_MODIF_DATE );
+        restoreCalendarState( request );
+        int nNbPlacesToTake = getNbPlacesToTake( request );
+        AppointmentDTO notValidatedAppointment = getNotValidatedAppointment( request );
+        AppointmentDTO validatedAppointment = getValidatedAppointment( request );
 
-        if ( strModifDateAppointment != null && Boolean.parseBoolean( strModifDateAppointment ) && _validatedAppointment != null
-                && _validatedAppointment.getIdAppointment( ) != 0 )
+        if ( strModifDateAppointment != null && Boolean.parseBoolean( strModifDateAppointment ) && validatedAppointment != null
+                && validatedAppointment.getIdAppointment( ) != 0 )
         {
             return getViewChangeDateAppointment( request );
         }
         if ( strNbPlacesToTake != null )
         {
-            _nNbPlacesToTake = Integer.parseInt( strNbPlacesToTake );
+            nNbPlacesToTake = Integer.parseInt( strNbPlacesToTake );
+            setNbPlacesToTake( request, nNbPlacesToTake );
         }
 
         int nIdForm = Integer.parseInt( strIdForm );
-        if ( _appointmentForm == null || _appointmentForm.getIdForm( ) != nIdForm )
-        {
-            _appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
-        }
-        if ( !_appointmentForm.getIsActive( ) )
+        AppointmentFormDTO appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+        setAppointmentForm( request, appointmentForm );
+        if ( !appointmentForm.getIsActive( ) )
         {
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
-        if(!_appointmentForm.getIsMultislotAppointment())
+        if(!appointmentForm.getIsMultislotAppointment())
         {
-            _nNbPlacesToTake = 0;
+            nNbPlacesToTake = 0;
+            setNbPlacesToTake( request, nNbPlacesToTake );
         }
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        checkMyLuteceAuthentication( appointmentForm, request );
         // Patch needed for authentication after being on the form
         String secondAttempt = request.getParameter( "secondAttempt" );
         boolean bTestSecondAttempt = Boolean.FALSE;
@@ -646,7 +819,7 @@ public class AppointmentApp extends MVCApplication
             LinkedHashMap<String, String> additionalParameters = new LinkedHashMap<>( );
             additionalParameters.put( PARAMETER_ID_FORM, strIdForm );
             additionalParameters.put( PARAMETER_STARTING_DATE_TIME, request.getParameter( PARAMETER_STARTING_DATE_TIME ) );
-            additionalParameters.put( PARAMETER_NB_PLACE_TO_TAKE, Integer.toString( _nNbPlacesToTake ) );
+            additionalParameters.put( PARAMETER_NB_PLACE_TO_TAKE, Integer.toString( nNbPlacesToTake ) );
             additionalParameters.put( PARAMETER_ANCHOR, MARK_ANCHOR + anchor );
             return redirect( request, VIEW_APPOINTMENT_FORM, additionalParameters );
 
@@ -664,17 +837,16 @@ public class AppointmentApp extends MVCApplication
         else
         {
 
-            int nNbConsecutiveSlot = ( _nNbPlacesToTake == 0 ) ? 1 : _nNbPlacesToTake;
+            int nNbConsecutiveSlot = ( nNbPlacesToTake == 0 ) ? 1 : nNbPlacesToTake;
             LocalDateTime startingDateTime = LocalDateTime.parse( request.getParameter( PARAMETER_STARTING_DATE_TIME ) );
-            if ( !isAuthorizedDate( startingDateTime, getLocale( request ) ) )
+            if ( !isAuthorizedDate( startingDateTime, appointmentForm, getLocale( request ) ) )
             {
 
                 addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
             // Get all the week definitions
-            List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
-            Map<WeekDefinition, ReservationRule> mapReservationRule = ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
+            Map<WeekDefinition, ReservationRule> mapReservationRule = FormPlanningCacheService.getInstance( ).getFormPlanning( nIdForm ).getMapReservationRule( );
 
             listSlot = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateTime.toLocalDate( ), startingDateTime.toLocalDate( ) );
             listSlot = listSlot.stream( ).filter(
@@ -682,38 +854,40 @@ public class AppointmentApp extends MVCApplication
                     .limit( nNbConsecutiveSlot ).collect( Collectors.toList( ) );
 
             if ( listSlot == null || listSlot.stream( ).noneMatch( slot -> slot.getStartingDateTime( ).isEqual( startingDateTime ) )
-                    || ( _nNbPlacesToTake > 0 && listSlot.size( ) != _nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
+                    || ( nNbPlacesToTake > 0 && listSlot.size( ) != nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
             {
                 addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
 
         }
 
-        if ( _notValidatedAppointment == null || _notValidatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        if ( notValidatedAppointment == null || notValidatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
-            if ( _validatedAppointment != null && _validatedAppointment.getIdForm( ) == _appointmentForm.getIdForm( ) )
+            if ( validatedAppointment != null && validatedAppointment.getIdForm( ) == appointmentForm.getIdForm( ) )
             {
 
                 // Try to get the validated appointment in session
                 // (in case the user click on back button in the recap view (or
                 // modification)
-                _notValidatedAppointment = _validatedAppointment;
-                _validatedAppointment = null;
+                notValidatedAppointment = validatedAppointment;
+                setNotValidatedAppointment( request, notValidatedAppointment );
+                setValidatedAppointment( request, null );
             }
             else
             {
                 // Need to get back the informations the user has entered
-                _notValidatedAppointment = new AppointmentDTO( );
+                notValidatedAppointment = new AppointmentDTO( );
+                setNotValidatedAppointment( request, notValidatedAppointment );
             }
         }
         if ( !bModificationForm )
         {
 
             boolean bool = true;
-            _notValidatedAppointment.setIdForm( nIdForm );
-            _notValidatedAppointment.setSlot( null );
-            _notValidatedAppointment.setNbMaxPotentialBookedSeats( 0 );
+            notValidatedAppointment.setIdForm( nIdForm );
+            notValidatedAppointment.setSlot( null );
+            notValidatedAppointment.setNbMaxPotentialBookedSeats( 0 );
             for ( Slot slot : listSlot )
             {
 
@@ -731,30 +905,30 @@ public class AppointmentApp extends MVCApplication
                 // May be the slot is already taken at the same time
                 if ( !bTestSecondAttempt && slot.getNbPotentialRemainingPlaces( ) == 0 )
                 {
-                    _notValidatedAppointment = null;
+                    setNotValidatedAppointment( request, null );
                     addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                    return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                    return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
                 }
 
-                _notValidatedAppointment.addSlot( slot );
+                notValidatedAppointment.addSlot( slot );
 
                 if ( bool )
                 {
-                    _notValidatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
+                    notValidatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
                     if ( SecurityService.getInstance( ).getRegisteredUser( request ) != null )
                     {
-                        setUserInfo( request, _notValidatedAppointment );
+                        setUserInfo( request, notValidatedAppointment );
                     }
-                    FormService.fillAppointmentFormWithReservationRulePart( _appointmentForm,
+                    FormService.fillAppointmentFormWithReservationRulePart( appointmentForm,
                             ReservationRuleService.findReservationRuleByIdFormAndClosestToDateOfApply( nIdForm, slot.getDate( ) ) );
                     bool = false;
                 }
-                AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), _notValidatedAppointment, _appointmentForm.getMaxPeoplePerAppointment( ) );
+                AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), notValidatedAppointment, appointmentForm.getMaxPeoplePerAppointment( ) );
             }
-            if ( _notValidatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
+            if ( notValidatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
             {
                 addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
         }
         else
@@ -773,26 +947,26 @@ public class AppointmentApp extends MVCApplication
         Map<String, Object> model = getModel( );
         Locale locale = getLocale( request );
         StringBuilder strBuffer = new StringBuilder( );
-        List<Entry> listEntryFirstLevel = EntryService.getFilter( _appointmentForm.getIdForm( ), true );
+        List<Entry> listEntryFirstLevel = EntryService.getFilter( appointmentForm.getIdForm( ), true );
         for ( Entry entry : listEntryFirstLevel )
         {
-            EntryService.getHtmlEntry( model, entry.getIdEntry( ), strBuffer, locale, true, _notValidatedAppointment );
+            EntryService.getHtmlEntry( model, entry.getIdEntry( ), strBuffer, locale, true, notValidatedAppointment );
         }
         FormMessage formMessages = FormMessageService.findFormMessageByIdForm( nIdForm );
 
-        if ( _nNbPlacesToTake != 0 )
+        if ( nNbPlacesToTake != 0 )
         {
 
-            _notValidatedAppointment.setNbBookedSeats( _nNbPlacesToTake );
+            notValidatedAppointment.setNbBookedSeats( nNbPlacesToTake );
         }
-        model.put( MARK_APPOINTMENT, _notValidatedAppointment );
-        model.put( MARK_NBPLACESTOTAKE, _nNbPlacesToTake );
-        model.put( PARAMETER_DATE_OF_DISPLAY, _notValidatedAppointment.getSlot( ).get( 0 ).getDate( ) );
-        model.put( MARK_FORM, _appointmentForm );
+        model.put( MARK_APPOINTMENT, notValidatedAppointment );
+        model.put( MARK_NBPLACESTOTAKE, nNbPlacesToTake );
+        model.put( PARAMETER_DATE_OF_DISPLAY, notValidatedAppointment.getSlot( ).get( 0 ).getDate( ) );
+        model.put( MARK_FORM, appointmentForm );
         model.put( MARK_FORM_MESSAGES, formMessages );
         model.put( MARK_STR_ENTRY, strBuffer.toString( ) );
         model.put( MARK_LOCALE, locale );
-        model.put( MARK_PLACES, _notValidatedAppointment.getNbMaxPotentialBookedSeats( ) );
+        model.put( MARK_PLACES, notValidatedAppointment.getNbMaxPotentialBookedSeats( ) );
         model.put( MARK_LIST_ERRORS, AppointmentDTO.getAllErrors( locale ) );
         LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
         if( user != null )
@@ -822,9 +996,9 @@ public class AppointmentApp extends MVCApplication
         model.put( MARK_FORM_HTML, templateForm.getHtml( ) );
         XPage xPage = getXPage( TEMPLATE_APPOINTMENT_FORM, locale, model );
 
-        if ( _appointmentForm.getDisplayTitleFo( ) )
+        if ( appointmentForm.getDisplayTitleFo( ) )
         {
-            xPage.setTitle( _appointmentForm.getTitle( ) );
+            xPage.setTitle( appointmentForm.getTitle( ) );
         }
         return xPage;
     }
@@ -842,19 +1016,22 @@ public class AppointmentApp extends MVCApplication
     @Action( ACTION_DO_VALIDATE_FORM )
     public synchronized XPage doValidateForm( HttpServletRequest request ) throws UserNotSignedException, AccessDeniedException
     {
+        int nNbPlacesToTake = getNbPlacesToTake( request );
+        AppointmentFormDTO appointmentForm = getAppointmentForm( request );
+        AppointmentDTO notValidatedAppointment = getNotValidatedAppointment( request );
         // CSRF Token control
         if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_DO_VALIDATE_FORM ) )
         {
             throw new AccessDeniedException( MESSAGE_ERROR_TOKEN );
         }
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        checkMyLuteceAuthentication( appointmentForm, request );
         String strIdForm = request.getParameter( PARAMETER_ID_FORM );
-        if ( _notValidatedAppointment == null || _appointmentForm == null || _notValidatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        if ( notValidatedAppointment == null || appointmentForm == null || notValidatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
 
             addError( ERROR_MESSAGE_FORM_NO_MORE_VALID, getLocale( request ) );
-            _notValidatedAppointment = null;
-            _validatedAppointment = null;
+            setNotValidatedAppointment( request, null );
+            setValidatedAppointment( request, null );
             return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
         }
         List<GenericAttributeError> listFormErrors = new ArrayList<>( );
@@ -863,38 +1040,41 @@ public class AppointmentApp extends MVCApplication
         String strEmailConfirm = request.getParameter( PARAMETER_EMAIL_CONFIRMATION );
         String strFirstName = request.getParameter( PARAMETER_FIRST_NAME );
         String strLastName = request.getParameter( PARAMETER_LAST_NAME );
-        AppointmentUtilities.checkDateOfTheAppointmentIsNotBeforeNow( _notValidatedAppointment, locale, listFormErrors );
-        AppointmentUtilities.checkEmail( strEmail, strEmailConfirm, _appointmentForm, locale, listFormErrors );
-        int nbBookedSeats = _nNbPlacesToTake;
-        if ( _nNbPlacesToTake == 0 )
+        AppointmentUtilities.checkDateOfTheAppointmentIsNotBeforeNow( notValidatedAppointment, locale, listFormErrors );
+        AppointmentUtilities.checkEmail( strEmail, strEmailConfirm, appointmentForm, locale, listFormErrors );
+        int nbBookedSeats = nNbPlacesToTake;
+        if ( nNbPlacesToTake == 0 )
         {
 
-            nbBookedSeats = AppointmentUtilities.checkAndReturnNbBookedSeats( request.getParameter( PARAMETER_NUMBER_OF_BOOKED_SEATS ), _appointmentForm,
-                    _notValidatedAppointment, locale, listFormErrors );
+            nbBookedSeats = AppointmentUtilities.checkAndReturnNbBookedSeats( request.getParameter( PARAMETER_NUMBER_OF_BOOKED_SEATS ), appointmentForm,
+                    notValidatedAppointment, locale, listFormErrors );
 
         }
-        AppointmentUtilities.fillAppointmentDTO( _notValidatedAppointment, nbBookedSeats, strEmail, strEmailConfirm, strFirstName, strLastName );
-        AppointmentUtilities.validateFormAndEntries( _notValidatedAppointment, request, listFormErrors, false );
-        AppointmentUtilities.fillInListResponseWithMapResponse( _notValidatedAppointment );
-        AppointmentUtilities.setAppointmentPhoneNumberValuesFromResponse( _notValidatedAppointment );
+        AppointmentUtilities.fillAppointmentDTO( notValidatedAppointment, nbBookedSeats, strEmail, strEmailConfirm, strFirstName, strLastName );
+        AppointmentUtilities.validateFormAndEntries( notValidatedAppointment, request, listFormErrors, false );
+        AppointmentUtilities.fillInListResponseWithMapResponse( notValidatedAppointment );
+        AppointmentUtilities.setAppointmentPhoneNumberValuesFromResponse( notValidatedAppointment );
 
         boolean bErrors = false;
-        if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbDaysBetweenTwoAppointmentsTaken( _notValidatedAppointment, strEmail, _appointmentForm ) )
+        // The appointments of the user are loaded once for all the rules
+        UserAppointmentHistory userAppointmentHistory = new UserAppointmentHistory( strEmail );
+        if ( appointmentForm.getEnableMandatoryEmail( )
+                && !AppointmentUtilities.checkNbDaysBetweenTwoAppointmentsTaken( notValidatedAppointment, appointmentForm, userAppointmentHistory ) )
         {
             addError( ERROR_MESSAGE_NB_MIN_DAYS_BETWEEN_TWO_APPOINTMENTS, locale );
             bErrors = true;
         }
-        if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( _notValidatedAppointment, strEmail, _appointmentForm ) )
+        if ( appointmentForm.getEnableMandatoryEmail( )
+                && !AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( notValidatedAppointment, appointmentForm, userAppointmentHistory ) )
         {
             addError( ERROR_MESSAGE_NB_MAX_APPOINTMENTS_ON_A_PERIOD, locale );
             bErrors = true;
         }
 
         List<AppointmentDTO> listAppointments = new ArrayList<>( );
-        if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbMaxAppointmentsDefinedOnCategory( _notValidatedAppointment, strEmail, _appointmentForm, listAppointments ) )
+        if ( appointmentForm.getEnableMandatoryEmail( )
+                && !AppointmentUtilities.checkNbMaxAppointmentsDefinedOnCategory( notValidatedAppointment, appointmentForm, listAppointments,
+                        userAppointmentHistory ) )
         {
             StringJoiner builder = new StringJoiner( StringUtils.SPACE );
             String lf = System.getProperty( "line.separator" );
@@ -933,8 +1113,8 @@ public class AppointmentApp extends MVCApplication
             additionalParameters.put( PARAMETER_ANCHOR, MARK_ANCHOR + STEP_3 );
             return redirect( request, VIEW_APPOINTMENT_FORM, additionalParameters );
         }
-        _validatedAppointment = _notValidatedAppointment;
-        _notValidatedAppointment = null;
+        setValidatedAppointment( request, notValidatedAppointment );
+        setNotValidatedAppointment( request, null );
         String anchor = request.getParameter( PARAMETER_ANCHOR );
         if ( StringUtils.isNotEmpty( anchor ) )
         {
@@ -961,7 +1141,10 @@ public class AppointmentApp extends MVCApplication
     @View( VIEW_DISPLAY_RECAP_APPOINTMENT )
     public synchronized XPage displayRecapAppointment( HttpServletRequest request ) throws UserNotSignedException, AccessDeniedException
     {
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        int nNbPlacesToTake = getNbPlacesToTake( request );
+        AppointmentFormDTO appointmentForm = getAppointmentForm( request );
+        AppointmentDTO validatedAppointment = getValidatedAppointment( request );
+        checkMyLuteceAuthentication( appointmentForm, request );
         String anchor = request.getParameter( PARAMETER_ANCHOR );
         String strModifDateAppointment = request.getParameter( PARAMETER_MODIF_DATE );
 
@@ -972,15 +1155,15 @@ public class AppointmentApp extends MVCApplication
             return redirect( request, VIEW_DISPLAY_RECAP_APPOINTMENT, additionalParameters );
         }
 
-        if ( _validatedAppointment == null || _appointmentForm == null || _validatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        if ( validatedAppointment == null || appointmentForm == null || validatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
             addError( ERROR_MESSAGE_FORM_NO_MORE_VALID, getLocale( request ) );
-            _notValidatedAppointment = null;
-            _validatedAppointment = null;
+            setNotValidatedAppointment( request, null );
+            setValidatedAppointment( request, null );
             return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
         }
         Map<String, Object> model = new HashMap<>( );
-        if ( _appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) )
+        if ( appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) )
         {
             model.put( MARK_CAPTCHA, getCaptchaService( ).getHtmlCode( ) );
         }
@@ -995,14 +1178,14 @@ public class AppointmentApp extends MVCApplication
             model.put( MARK_MODIFICATION_DATE_APPOINTMENT, Boolean.FALSE );
 
         }
-        model.put( MARK_FORM_MESSAGES, FormMessageService.findFormMessageByIdForm( _validatedAppointment.getIdForm( ) ) );
+        model.put( MARK_FORM_MESSAGES, FormMessageService.findFormMessageByIdForm( validatedAppointment.getIdForm( ) ) );
         fillCommons( model );
-        model.put( MARK_APPOINTMENT, _validatedAppointment );
+        model.put( MARK_APPOINTMENT, validatedAppointment );
         Locale locale = getLocale( request );
-        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( _validatedAppointment, request, locale ) );
-        model.put( MARK_FORM, _appointmentForm );
-        model.put( MARK_NBPLACESTOTAKE, _nNbPlacesToTake );
-        model.put( PARAMETER_DATE_OF_DISPLAY, _validatedAppointment.getSlot( ).get( 0 ).getDate( ) );
+        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( validatedAppointment, request, locale ) );
+        model.put( MARK_FORM, appointmentForm );
+        model.put( MARK_NBPLACESTOTAKE, nNbPlacesToTake );
+        model.put( PARAMETER_DATE_OF_DISPLAY, validatedAppointment.getSlot( ).get( 0 ).getDate( ) );
         model.put( SecurityTokenService.MARK_TOKEN, SecurityTokenService.getInstance( ).getToken( request, ACTION_DO_MAKE_APPOINTMENT ) );
 
         return getXPage( TEMPLATE_APPOINTMENT_FORM_RECAP, locale, model );
@@ -1020,69 +1203,73 @@ public class AppointmentApp extends MVCApplication
     @Action( ACTION_DO_MAKE_APPOINTMENT )
     public synchronized XPage doMakeAppointment( HttpServletRequest request ) throws UserNotSignedException, AccessDeniedException
     {
-        checkMyLuteceAuthentication( _appointmentForm, request );
+        int nNbPlacesToTake = getNbPlacesToTake( request );
+        AppointmentFormDTO appointmentForm = getAppointmentForm( request );
+        AppointmentDTO validatedAppointment = getValidatedAppointment( request );
+        checkMyLuteceAuthentication( appointmentForm, request );
         // CSRF Token control
         if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_DO_MAKE_APPOINTMENT ) )
         {
             throw new AccessDeniedException( MESSAGE_ERROR_TOKEN );
         }
-        if ( _validatedAppointment == null || _appointmentForm == null || _validatedAppointment.getIdForm( ) != _appointmentForm.getIdForm( ) )
+        if ( validatedAppointment == null || appointmentForm == null || validatedAppointment.getIdForm( ) != appointmentForm.getIdForm( ) )
         {
             addError( ERROR_MESSAGE_FORM_NO_MORE_VALID, getLocale( request ) );
-            _notValidatedAppointment = null;
-            _validatedAppointment = null;
+            setNotValidatedAppointment( request, null );
+            setValidatedAppointment( request, null );
             return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
         }
-        if ( !_appointmentForm.getIsActive( ) )
+        if ( !appointmentForm.getIsActive( ) )
         {
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, _appointmentForm.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
-                    _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, appointmentForm.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
+                    nNbPlacesToTake );
         }
 
         if ( StringUtils.isNotEmpty( request.getParameter( PARAMETER_BACK ) ) )
         {
             LinkedHashMap<String, String> parameters = new LinkedHashMap<>( );
-            parameters.put( PARAMETER_ID_FORM, String.valueOf( _validatedAppointment.getIdForm( ) ) );
+            parameters.put( PARAMETER_ID_FORM, String.valueOf( validatedAppointment.getIdForm( ) ) );
             parameters.put( PARAMETER_IS_MODIFICATION, String.valueOf( Boolean.TRUE ) );
 
             return redirect( request, VIEW_APPOINTMENT_FORM, parameters );
         }
-        if ( _appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) && !getCaptchaService( ).validate( request ) )
+        if ( appointmentForm.getEnableCaptcha( ) && getCaptchaService( ).isAvailable( ) && !getCaptchaService( ).validate( request ) )
         {
             addError( ERROR_MESSAGE_CAPTCHA, getLocale( request ) );
-            return redirect( request, VIEW_DISPLAY_RECAP_APPOINTMENT, PARAMETER_ID_FORM, _validatedAppointment.getIdForm( ) );
+            return redirect( request, VIEW_DISPLAY_RECAP_APPOINTMENT, PARAMETER_ID_FORM, validatedAppointment.getIdForm( ) );
         }
 
         int nIdAppointment;
         try
         {
 
-            nIdAppointment = SlotSafeService.saveAppointment( _validatedAppointment, request );
+            nIdAppointment = SlotSafeService.saveAppointment( validatedAppointment, request );
 
         }
         catch( SlotFullException e )
         {
 
             addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, _validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
-                    _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
+                    nNbPlacesToTake );
         }
         catch( SlotEditTaskExpiredTimeException e )
         {
             addError( ERROR_MESSAGE_SLOT_EDIT_TASK_EXPIRED_TIME, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, _validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
-                    _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, validatedAppointment.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE,
+                    nNbPlacesToTake );
         }
         catch( AppointmentSavedException e )
         {
-            nIdAppointment = _validatedAppointment.getIdAppointment( );
+            nIdAppointment = validatedAppointment.getIdAppointment( );
             AppLogService.error( "Error Save appointment: " + e.getMessage( ), e );
         }
         AppLogService.info( LogUtilities.buildLog( ACTION_DO_MAKE_APPOINTMENT, Integer.toString( nIdAppointment ), null ) );
         AppointmentAsynchronousUploadHandler.getHandler( ).removeSessionFiles( request.getSession( ) );
-        _nNbPlacesToTake = 0;
-        int nIdForm = _validatedAppointment.getIdForm( );
+        nNbPlacesToTake = 0;
+        setNbPlacesToTake( request, nNbPlacesToTake );
+        int nIdForm = validatedAppointment.getIdForm( );
        // _validatedAppointment = null;
 
         // Remove the session data of this form
@@ -1112,35 +1299,36 @@ public class AppointmentApp extends MVCApplication
     @View( VIEW_GET_APPOINTMENT_CREATED )
     public synchronized XPage getAppointmentCreated( HttpServletRequest request )
     {
-    	if( _validatedAppointment == null )
+        AppointmentDTO validatedAppointment = getValidatedAppointment( request );
+    	if( validatedAppointment == null )
     	{
     		return redirectView( request, VIEW_APPOINTMENT_FORM_LIST );
     	}
         int nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
         FormMessage formMessages = FormMessageService.findFormMessageByIdForm( nIdForm );
         AppointmentFormDTO form = FormService.buildAppointmentForm( nIdForm, 0 );
-        Slot firstSlot = _validatedAppointment.getSlot().get(0);
+        Slot firstSlot = validatedAppointment.getSlot().get(0);
         Slot lastSlot = firstSlot;
-        if (  _validatedAppointment.getSlot().size( ) > 1 )
+        if (  validatedAppointment.getSlot().size( ) > 1 )
         {
-                    lastSlot = _validatedAppointment.getSlot().get(_validatedAppointment.getSlot().size( ) -1 );
+                    lastSlot = validatedAppointment.getSlot().get(validatedAppointment.getSlot().size( ) -1 );
         }
         String strTimeBegin = firstSlot.getStartingDateTime( ).toLocalTime( ).toString( );
         String strTimeEnd = lastSlot.getEndingDateTime( ).toLocalTime( ).toString( );
-        formMessages.setTextAppointmentCreated( formMessages.getTextAppointmentCreated( ).replace( MARK_REF, _validatedAppointment.getReference( ) )
+        formMessages.setTextAppointmentCreated( formMessages.getTextAppointmentCreated( ).replace( MARK_REF, validatedAppointment.getReference( ) )
                 .replace( MARK_DATE_APP, firstSlot.getStartingDateTime().format( Utilities.getFormatter( ) ) )
                 .replace( MARK_TIME_BEGIN, strTimeBegin ).replace( MARK_TIME_END, strTimeEnd) );
         Map<String, Object> model = new HashMap<>( );
-        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( _validatedAppointment, request, getLocale( request ) ) );
+        model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( validatedAppointment, request, getLocale( request ) ) );
         model.put( MARK_DATE_APPOINTMENT, firstSlot.getDate().format( Utilities.getFormatter( ) ) );
         model.put( MARK_STARTING_TIME_APPOINTMENT, firstSlot.getStartingTime( ) );
         model.put( MARK_ENDING_TIME_APPOINTMENT, lastSlot.getEndingTime( ) );
-        model.put( MARK_USER,  _validatedAppointment.getUser( ) );
-        model.put( MARK_PLACES, _validatedAppointment.getNbPlaces( ) );
+        model.put( MARK_USER,  validatedAppointment.getUser( ) );
+        model.put( MARK_PLACES, validatedAppointment.getNbPlaces( ) );
         model.put( MARK_FORM, form );
         model.put( MARK_FORM_MESSAGES, formMessages );
-        _appointmentForm = null;
-        _validatedAppointment = null;
+        setAppointmentForm( request, null );
+        setValidatedAppointment( request, null );
         return getXPage( TEMPLATE_APPOINTMENT_CREATED, getLocale( request ), model );
     }
 
@@ -1157,36 +1345,38 @@ public class AppointmentApp extends MVCApplication
     @View( VIEW_CHANGE_DATE_APPOINTMENT )
     public synchronized XPage getViewChangeDateAppointment( HttpServletRequest request )
     {
+        int nNbPlacesToTake = getNbPlacesToTake( request );
+        AppointmentFormDTO appointmentForm = getAppointmentForm( request );
+        AppointmentDTO validatedAppointment = getValidatedAppointment( request );
         String strIdForm = request.getParameter( PARAMETER_ID_FORM );
         LocalDateTime startingDateTime = LocalDateTime.parse( request.getParameter( PARAMETER_STARTING_DATE_TIME ) );
         Locale locale = getLocale( request );
         int nIdForm = Integer.parseInt( strIdForm );
         Form form = FormService.findFormLightByPrimaryKey( nIdForm );
 
-        if ( !form.getIsActive( ) || _validatedAppointment.getStartingDateTime( ).isBefore( LocalDateTime.now( ) )
-                || !isAuthorizedDate( startingDateTime, locale ) )
+        if ( !form.getIsActive( ) || validatedAppointment.getStartingDateTime( ).isBefore( LocalDateTime.now( ) )
+                || !isAuthorizedDate( startingDateTime, FormService.buildAppointmentFormWithoutReservationRule( nIdForm ), locale ) )
         {
-            _validatedAppointment = null;
+            setValidatedAppointment( request, null );
             addError( ERROR_MESSAGE_FORM_NOT_ACTIVE, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, form.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, form.getIdForm( ), PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
-        int nNbConsecutiveSlot = ( _nNbPlacesToTake == 0 ) ? 1 : _nNbPlacesToTake;
-        List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
-        Map<WeekDefinition, ReservationRule> mapReservationRule = ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
+        int nNbConsecutiveSlot = ( nNbPlacesToTake == 0 ) ? 1 : nNbPlacesToTake;
+        Map<WeekDefinition, ReservationRule> mapReservationRule = FormPlanningCacheService.getInstance( ).getFormPlanning( nIdForm ).getMapReservationRule( );
         List<Slot> listSlot = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateTime.toLocalDate( ), startingDateTime.toLocalDate( ) );
         listSlot = listSlot.stream( )
                 .filter( s -> ( ( startingDateTime.compareTo( s.getStartingDateTime( ) ) <= 0 ) && ( s.getNbRemainingPlaces( ) > 0 ) && ( s.getIsOpen( ) ) ) )
                 .limit( nNbConsecutiveSlot ).collect( Collectors.toList( ) );
 
-        if ( listSlot == null || ( _nNbPlacesToTake > 0 && listSlot.size( ) != _nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
+        if ( listSlot == null || ( nNbPlacesToTake > 0 && listSlot.size( ) != nNbPlacesToTake ) || !AppointmentUtilities.isConsecutiveSlots( listSlot ) )
         {
             addError( ERROR_MESSAGE_SLOT_FULL, getLocale( request ) );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
 
         boolean bool = true;
-        _validatedAppointment.setSlot( null );
-        _validatedAppointment.setNbMaxPotentialBookedSeats( 0 );
+        validatedAppointment.setSlot( null );
+        validatedAppointment.setNbMaxPotentialBookedSeats( 0 );
         for ( Slot slot : listSlot )
         {
 
@@ -1207,28 +1397,29 @@ public class AppointmentApp extends MVCApplication
             if ( slot.getNbPotentialRemainingPlaces( ) <= 0 )
             {
                 addError( ERROR_MESSAGE_SLOT_FULL, locale );
-                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+                return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
             }
 
-            _validatedAppointment.addSlot( slot );
+            validatedAppointment.addSlot( slot );
 
             if ( bool )
             {
-                _validatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
+                validatedAppointment.setDateOfTheAppointment( slot.getDate( ).format( Utilities.getFormatter( ) ) );
                 ReservationRule reservationRule = ReservationRuleService.findReservationRuleByIdFormAndClosestToDateOfApply( nIdForm, slot.getDate( ) );
-                _appointmentForm = FormService.buildAppointmentForm( nIdForm, reservationRule );
+                appointmentForm = FormService.buildAppointmentForm( nIdForm, reservationRule );
+                setAppointmentForm( request, appointmentForm );
                 bool = false;
             }
-            AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), _validatedAppointment, _appointmentForm.getMaxPeoplePerAppointment( ) );
+            AppointmentUtilities.putTimerInSession( request, slot.getIdSlot( ), validatedAppointment, appointmentForm.getMaxPeoplePerAppointment( ) );
         }
 
-        if ( _validatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
+        if ( validatedAppointment.getNbMaxPotentialBookedSeats( ) == 0 )
         {
             addError( ERROR_MESSAGE_SLOT_FULL, locale );
-            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, _nNbPlacesToTake );
+            return redirect( request, VIEW_APPOINTMENT_CALENDAR, PARAMETER_ID_FORM, nIdForm, PARAMETER_NB_PLACE_TO_TAKE, nNbPlacesToTake );
         }
 
-        for ( Response response : _validatedAppointment.getListResponse( ) )
+        for ( Response response : validatedAppointment.getListResponse( ) )
         {
             if ( response.getFile( ) != null )
             {
@@ -1256,8 +1447,8 @@ public class AppointmentApp extends MVCApplication
     public synchronized XPage getFormList( HttpServletRequest request )
     {
         Locale locale = getLocale( request );
-        _appointmentForm = null;
-        _validatedAppointment = null;
+        setAppointmentForm( request, null );
+        setValidatedAppointment( request, null );
         String strHtmlContent = getFormListHtml( locale, getModel( ) );
 
         XPage xPage = getXPage( );
@@ -1292,7 +1483,7 @@ public class AppointmentApp extends MVCApplication
             }
 
             int nIdAppointment = appointment.getIdAppointment( );
-            AppointmentDTO appointmentDto = AppointmentService.buildAppointmentDTOFromIdAppointment( nIdAppointment );
+            AppointmentDTO appointmentDto = AppointmentService.buildAppointmentDTOFromAppointment( appointment );
             // Check if the appointment is passed
             if ( appointmentDto.getStartingDateTime( ).isBefore( LocalDateTime.now( ) ) )
             {
@@ -1304,11 +1495,10 @@ public class AppointmentApp extends MVCApplication
             model.put( MARK_PLACES, appointment.getNbPlaces( ) );
             model.put( MARK_FORM, FormService.buildAppointmentForm( appointmentDto.getIdForm( ), 0 ) );
             model.put( MARK_FORM_MESSAGES, FormMessageService.findFormMessageByIdForm( appointmentDto.getIdForm( ) ) );
-            AppointmentDTO appointmentDTO = AppointmentService.buildAppointmentDTOFromIdAppointment( nIdAppointment );
-            appointmentDTO.setListResponse( AppointmentResponseService.findAndBuildListResponse( nIdAppointment, request ) );
-            appointmentDTO.setMapResponsesByIdEntry( AppointmentResponseService.buildMapFromListResponse( appointmentDTO.getListResponse( ) ) );
-            model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( appointmentDTO, request, getLocale( request ) ) );
-            model.put( MARK_USER, UserService.findUserById( appointment.getIdUser( ) ) );
+            appointmentDto.setListResponse( AppointmentResponseService.findAndBuildListResponse( nIdAppointment, request ) );
+            appointmentDto.setMapResponsesByIdEntry( AppointmentResponseService.buildMapFromListResponse( appointmentDto.getListResponse( ) ) );
+            model.put( MARK_LIST_RESPONSE_RECAP_DTO, AppointmentUtilities.buildListResponse( appointmentDto, request, getLocale( request ) ) );
+            model.put( MARK_USER, appointmentDto.getUser( ) );
 
         }
         else
@@ -1341,7 +1531,7 @@ public class AppointmentApp extends MVCApplication
         if ( StringUtils.isNotEmpty( strRef ) )
         {
             Appointment appointment = AppointmentService.findAppointmentByReference( strRef );
-            AppointmentDTO appointmentDto = AppointmentService.buildAppointmentDTOFromIdAppointment( appointment.getIdAppointment( ) );
+            AppointmentDTO appointmentDto = AppointmentService.buildAppointmentDTOFromAppointment( appointment );
 
             // Accept only one cancel !!!
             if ( !appointment.getIsCancelled( ) && !appointmentDto.getStartingDateTime( ).isBefore( LocalDateTime.now( ) ) )
@@ -1456,20 +1646,7 @@ public class AppointmentApp extends MVCApplication
         {
             throw new UserNotSignedException( );
         }
-        AppointmentFilterDTO appointmentFilter = new AppointmentFilterDTO( );
-        appointmentFilter.setGuid( luteceUser.getName( ) );
-        List<AppointmentDTO> listAppointmentDTO = AppointmentService.findListAppointmentsDTOByFilter( appointmentFilter );
-        for ( AppointmentDTO apptDto : listAppointmentDTO )
-        {
-            Form form = FormService.findFormLightByPrimaryKey( apptDto.getIdForm( ) );
-            if ( form.getIdWorkflow( ) > 0 && WorkflowService.getInstance( ).isAvailable( ) )
-            {
-
-                apptDto.setListWorkflowActions( WorkflowService.getInstance( ).getActions( apptDto.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE,
-                        form.getIdWorkflow( ), luteceUser ) );
-
-            }
-        }
+        List<AppointmentDTO> listAppointmentDTO = findListMyAppointments( luteceUser );
 
         model = ( model == null ) ? new HashMap<>( ) : model;
         model.put( MARK_LIST_APPOINTMENTS, listAppointmentDTO );
@@ -1501,18 +1678,7 @@ public class AppointmentApp extends MVCApplication
         {
             throw new UserNotSignedException( );
         }
-        AppointmentFilterDTO appointmentFilter = new AppointmentFilterDTO( );
-        appointmentFilter.setGuid( luteceUser.getName( ) );
-        List<AppointmentDTO> listAppointmentDTO = AppointmentService.findListAppointmentsDTOByFilter( appointmentFilter );
-        for ( AppointmentDTO apptDto : listAppointmentDTO )
-        {
-            Form form = FormService.findFormLightByPrimaryKey( apptDto.getIdForm( ) );
-            if ( form.getIdWorkflow( ) > 0 && WorkflowService.getInstance( ).isAvailable( ) )
-            {
-                apptDto.setListWorkflowActions( WorkflowService.getInstance( ).getActions( apptDto.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE,
-                        form.getIdWorkflow( ), luteceUser ) );
-            }
-        }
+        List<AppointmentDTO> listAppointmentDTO = findListMyAppointments( luteceUser );
 
         model = ( model == null ) ? new HashMap<>( ) : model;
         model.put( MARK_LIST_APPOINTMENTS, listAppointmentDTO );
@@ -1522,6 +1688,37 @@ public class AppointmentApp extends MVCApplication
         return template.getHtml( );
     }
 
+    /**
+     * Find the appointments of a user, the archived ones included, with the actions of the workflow the user can process on them. The appointments are
+     * loaded with their slots in a constant number of queries, and the forms are read from the cache of the plannings
+     *
+     * @param luteceUser
+     *            the user
+     * @return the list of the appointments
+     */
+    private static List<AppointmentDTO> findListMyAppointments( LuteceUser luteceUser )
+    {
+        List<AppointmentDTO> listAppointmentDTO = AppointmentService.findListAppointmentDTOByUserGuid( luteceUser.getName( ) );
+        if ( !WorkflowService.getInstance( ).isAvailable( ) )
+        {
+            return listAppointmentDTO;
+        }
+        Map<Integer, Integer> mapIdWorkflowByForm = new HashMap<>( );
+        for ( AppointmentDTO apptDto : listAppointmentDTO )
+        {
+            int nIdWorkflow = mapIdWorkflowByForm.computeIfAbsent( apptDto.getIdForm( ), nIdForm -> {
+                FormPlanning formPlanning = FormPlanningCacheService.getInstance( ).getFormPlanning( nIdForm );
+                return ( formPlanning != null ) ? formPlanning.getForm( ).getIdWorkflow( ) : 0;
+            } );
+            if ( nIdWorkflow > 0 )
+            {
+                apptDto.setListWorkflowActions(
+                        WorkflowService.getInstance( ).getActions( apptDto.getIdAppointment( ), Appointment.APPOINTMENT_RESOURCE_TYPE, nIdWorkflow, luteceUser ) );
+            }
+        }
+        return listAppointmentDTO;
+    }
+
     /**
      * Get the html content of the list of forms
      *
@@ -1644,6 +1841,11 @@ public class AppointmentApp extends MVCApplication
 
             List<AppointmentSlot> listApptSlot = appointment.getListAppointmentSlot( );
             Slot slot = SlotService.findSlotById( listApptSlot.get( 0 ).getIdSlot( ) );
+            if ( slot == null )
+            {
+                // The slot of an archived appointment is no longer in the current slots: no action can be processed on it
+                return getXPage( TEMPLATE_ERROR_APPOINTMENT_REFERENCE, getLocale( request ), null );
+            }
 
             if ( request.getParameter( PARAMETER_BACK ) == null )
             {
@@ -1869,16 +2071,18 @@ public class AppointmentApp extends MVCApplication
      *
      * @param date
      *            the starting date of slot
+     * @param appointmentForm
+     *            the form
      * @param locale
      *            the locale
      * @return true if the starting date of slot is displayed on FO
      */
-    private boolean isAuthorizedDate( LocalDateTime date, Locale locale )
+    private boolean isAuthorizedDate( LocalDateTime date, AppointmentFormDTO appointmentForm, Locale locale )
     {
         // Get the min time from now before a user can take an appointment (in hours)
-        LocalDateTime startingDateOfDisplay = LocalDateTime.now( ).plusHours( _appointmentForm.getMinTimeBeforeAppointment( ) );
+        LocalDateTime startingDateOfDisplay = LocalDateTime.now( ).plusHours( appointmentForm.getMinTimeBeforeAppointment( ) );
         // validity date range of the form
-        LocalDateTime startingValidityDate = _appointmentForm.getDateStartValidity( ).toLocalDate( ).atStartOfDay( );
+        LocalDateTime startingValidityDate = appointmentForm.getDateStartValidity( ).toLocalDate( ).atStartOfDay( );
         if ( startingValidityDate.isAfter( startingDateOfDisplay ) )
         {
             startingDateOfDisplay = startingValidityDate;
@@ -1886,7 +2090,7 @@ public class AppointmentApp extends MVCApplication
         // Calculate the ending date of display with the nb weeks to display since today
         // We calculate the number of weeks including the current week, so it and will end to the (n) next sunday
         LocalDate endingDateOfDisplay = startingDateOfDisplay.toLocalDate( ).with( WeekFields.of( locale ).dayOfWeek( ), DayOfWeek.SUNDAY.getValue( ) )
-                .plusWeeks( (long) _appointmentForm.getNbWeeksToDisplay( ) - 1 );
+                .plusWeeks( (long) appointmentForm.getNbWeeksToDisplay( ) - 1 );
         return !( date.toLocalDate( ).isAfter( endingDateOfDisplay ) || date.isBefore( startingDateOfDisplay ) );
 
     }
@@ -51,6 +51,7 @@ import org.apache.commons.lang3.math.NumberUtils;
 
 import fr.paris.lutece.api.user.User;
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.archive.ArchiveHome;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.form.FormHome;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessage;
@@ -58,6 +59,8 @@ import fr.paris.lutece.plugins.appointment.business.message.FormMessageHome;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResourceIdService;
+import fr.paris.lutece.plugins.appointment.service.AppointmentFormJob;
+import fr.paris.lutece.plugins.appointment.service.AppointmentFormJobService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentUtilities;
 import fr.paris.lutece.plugins.appointment.service.ClosingDayService;
@@ -65,6 +68,7 @@ import fr.paris.lutece.plugins.appointment.service.FormMessageService;
 import fr.paris.lutece.plugins.appointment.service.FormService;
 import fr.paris.lutece.plugins.appointment.service.SlotService;
 import fr.paris.lutece.plugins.appointment.service.Utilities;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.accesscontrol.AccessControlService;
@@ -179,6 +183,11 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
     private static final String INFO_APPOINTMENTFORM_CREATED = "appointment.info.appointmentform.created";
     private static final String INFO_APPOINTMENTFORM_UPDATED = "appointment.info.appointmentform.updated";
     private static final String INFO_APPOINTMENTFORM_REMOVED = "appointment.info.appointmentform.removed";
+    private static final String INFO_APPOINTMENTFORM_JOB_STARTED = "appointment.info.appointmentform.job.started";
+    private static final String INFO_APPOINTMENTFORM_JOB_IN_PROGRESS = "appointment.info.appointmentform.job.inProgress";
+    private static final String INFO_APPOINTMENTFORM_COPIED = "appointment.info.appointmentform.copied";
+    private static final String ERROR_APPOINTMENTFORM_JOB = "appointment.error.appointmentform.job";
+    private static final String SESSION_ATTRIBUTE_FORM_JOB = "appointment.session.formJob";
     private static final String INFO_APPOINTMENTFORM_MESSAGES_MODIFIED = "appointment.info.appointmentFormMessages.updated";
     private static final String ERROR_APPOINTMENTFORM_ENDING_VALIDITY_DATE_BEFORE_NOW = "appointment.error.appointmentform.endingValidityDateBeforeNow";
 
@@ -210,6 +219,7 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
     {
         AdminUser adminUser = getUser( );
         _appointmentFormDTO = null;
+        addFormJobInfo( request );
         _strCurrentPageIndex = AbstractPaginator.getPageIndex( request, AbstractPaginator.PARAMETER_PAGE_INDEX, _strCurrentPageIndex );
         if ( _strCurrentPageIndex == null )
         {
@@ -378,7 +388,9 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
             addError( MESSAGE_ERROR_CANT_REMOVE_ACTIVE_FORM, getLocale( ) );
             return redirectView( request, VIEW_MANAGE_APPOINTMENTFORMS );
         }
-        if ( CollectionUtils.isNotEmpty( AppointmentService.findListAppointmentByIdForm( nIdForm ) ) )
+        AppointmentFilterDTO appointmentFilter = new AppointmentFilterDTO( );
+        appointmentFilter.setIdForm( nIdForm );
+        if ( AppointmentService.countAppointmentsByFilter( appointmentFilter, 1 ) > 0 || ArchiveHome.hasAppointmentsByIdForm( nIdForm ) )
         {
             addError( MESSAGE_ERROR_CANT_REMOVE_FORM, getLocale( ) );
             return redirectView( request, VIEW_MANAGE_APPOINTMENTFORMS );
@@ -391,12 +403,52 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
         	AccessControlService.getInstance( ).linkResourceToAccessControl( nIdForm, Form.RESOURCE_TYPE, -1 );
         }
 
-        FormService.removeForm( nIdForm );
+        AppointmentFormJob job = AppointmentFormJobService.submitRemoval( nIdForm );
+        request.getSession( ).setAttribute( SESSION_ATTRIBUTE_FORM_JOB, job.getIdJob( ) );
         AppLogService.info( LogUtilities.buildLog( ACTION_REMOVE_APPOINTMENTFORM, strIdForm, getUser( ) ) );
-        addInfo( INFO_APPOINTMENTFORM_REMOVED, getLocale( ) );
+        addInfo( INFO_APPOINTMENTFORM_JOB_STARTED, getLocale( ) );
         return redirectView( request, VIEW_MANAGE_APPOINTMENTFORMS );
     }
 
+    /**
+     * Add the progress of the copy or of the removal of a form launched by the user to the messages of the page
+     * 
+     * @param request
+     *            The HTTP request
+     */
+    private void addFormJobInfo( HttpServletRequest request )
+    {
+        String strIdJob = (String) request.getSession( ).getAttribute( SESSION_ATTRIBUTE_FORM_JOB );
+        if ( strIdJob == null )
+        {
+            return;
+        }
+        AppointmentFormJob job = AppointmentFormJobService.getJob( strIdJob );
+        if ( job == null || job.isDone( ) )
+        {
+            request.getSession( ).removeAttribute( SESSION_ATTRIBUTE_FORM_JOB );
+        }
+        if ( job == null )
+        {
+            return;
+        }
+        if ( !job.isDone( ) )
+        {
+            addInfo( I18nService.getLocalizedString( INFO_APPOINTMENTFORM_JOB_IN_PROGRESS, new Object [ ] {
+                    job.getNbStepsDone( ), job.getNbSteps( )
+            }, getLocale( ) ) );
+        }
+        else
+            if ( job.isError( ) )
+            {
+                addError( ERROR_APPOINTMENTFORM_JOB, getLocale( ) );
+            }
+            else
+            {
+                addInfo( AppointmentFormJob.TYPE_COPY.equals( job.getType( ) ) ? INFO_APPOINTMENTFORM_COPIED : INFO_APPOINTMENTFORM_REMOVED, getLocale( ) );
+            }
+    }
+
     /**
      * Returns the form to update info about a appointment form
      * 
@@ -584,10 +636,12 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
         if ( formToCopy != null )
         {
             String newNameForCopy = I18nService.getLocalizedString( PROPERTY_COPY_OF_FORM, request.getLocale( ) ) + formToCopy.getTitle( );
-            int nIdCopyForm = FormService.copyForm( nIdForm, newNameForCopy );
-            AppLogService.info( LogUtilities.buildLog( ACTION_DO_COPY_FORM, String.valueOf( nIdCopyForm ), getUser( ) ) );
+            AppointmentFormJob job = AppointmentFormJobService.submitCopy( nIdForm, newNameForCopy );
+            request.getSession( ).setAttribute( SESSION_ATTRIBUTE_FORM_JOB, job.getIdJob( ) );
+            AppLogService.info( LogUtilities.buildLog( ACTION_DO_COPY_FORM, strIdForm, getUser( ) ) );
+            addInfo( INFO_APPOINTMENTFORM_JOB_STARTED, getLocale( ) );
         }
-        return getManageAppointmentForms( request );
+        return redirectView( request, VIEW_MANAGE_APPOINTMENTFORMS );
     }
 
     /**
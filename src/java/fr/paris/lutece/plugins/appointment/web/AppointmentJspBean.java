@@ -63,6 +63,7 @@ import org.apache.commons.lang3.StringUtils;
 import fr.paris.lutece.api.user.User;
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSortKey;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessage;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
@@ -73,6 +74,8 @@ import fr.paris.lutece.plugins.appointment.exception.AppointmentSavedException;
 import fr.paris.lutece.plugins.appointment.exception.SlotEditTaskExpiredTimeException;
 import fr.paris.lutece.plugins.appointment.exception.SlotFullException;
 import fr.paris.lutece.plugins.appointment.log.LogUtilities;
+import fr.paris.lutece.plugins.appointment.service.AppointmentMassDeletionJob;
+import fr.paris.lutece.plugins.appointment.service.AppointmentMassDeletionService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResourceIdService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResponseService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
@@ -85,6 +88,7 @@ import fr.paris.lutece.plugins.appointment.service.FormService;
 import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
 import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
 import fr.paris.lutece.plugins.appointment.service.SlotService;
+import fr.paris.lutece.plugins.appointment.service.UserAppointmentHistory;
 import fr.paris.lutece.plugins.appointment.service.Utilities;
 import fr.paris.lutece.plugins.appointment.service.WeekDefinitionService;
 import fr.paris.lutece.plugins.appointment.service.addon.AppointmentAddOnManager;
@@ -131,7 +135,7 @@ import fr.paris.lutece.portal.util.mvc.admin.annotations.Controller;
 import fr.paris.lutece.portal.util.mvc.commons.annotations.Action;
 import fr.paris.lutece.portal.util.mvc.commons.annotations.View;
 import fr.paris.lutece.portal.util.mvc.utils.MVCUtils;
-import fr.paris.lutece.portal.web.util.LocalizedPaginator;
+import fr.paris.lutece.portal.web.util.LocalizedDelegatePaginator;
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.html.AbstractPaginator;
 import fr.paris.lutece.util.html.HtmlTemplate;
@@ -262,6 +266,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
 
     // Properties
     private static final String PROPERTY_DEFAULT_LIST_APPOINTMENT_PER_PAGE = "appointment.listAppointments.itemsPerPage";
+    private static final String PROPERTY_MAX_COUNT_LIST_APPOINTMENT = "appointment.listAppointments.maxCount";
     private static final String PROPERTY_NB_WEEKS_TO_DISPLAY_IN_BO = "appointment.nbWeeksToDisplayInBO";
     private static final String PROPERTY_MODULE_APPOINTMENT_DESK_NAME = "appointment.moduleAppointmentDesk.name";
 
@@ -289,6 +294,10 @@ public class AppointmentJspBean extends MVCAdminJspBean
     private static final String INFO_APPOINTMENT_CREATED = "appointment.info.appointment.created";
     private static final String INFO_APPOINTMENT_REMOVED = "appointment.info.appointment.removed";
     private static final String INFO_APPOINTMENT_MASSREMOVED = "appointment.info.appointment.removed";
+    private static final String INFO_APPOINTMENT_MASSREMOVAL_STARTED = "appointment.info.appointment.massRemoval.started";
+    private static final String INFO_APPOINTMENT_MASSREMOVAL_IN_PROGRESS = "appointment.info.appointment.massRemoval.inProgress";
+    private static final String INFO_APPOINTMENT_MASSREMOVAL_DONE = "appointment.info.appointment.massRemoval.done";
+    private static final String SESSION_ATTRIBUTE_MASS_DELETION_JOB = "appointment.session.massDeletionJob";
 
     // Error
     private static final String ERROR_MESSAGE_FORM_NOT_ACTIVE = "appointment.validation.appointment.formNotActive";
@@ -320,7 +329,11 @@ public class AppointmentJspBean extends MVCAdminJspBean
     private AppointmentFormDTO _appointmentForm;
     private AppointmentDTO _notValidatedAppointment;
     private AppointmentDTO _validatedAppointment;
-    private List<Integer> _listAppointmentsIds;
+    private int _nNbAppointments;
+    private int _nPageOfSortKeys;
+    private int _nItemsPerPageOfSortKeys;
+    private AppointmentSortKey _firstSortKeyOfPage;
+    private AppointmentSortKey _lastSortKeyOfPage;
     List<GenericAttributeError> listFormErrors = new ArrayList<>( );
     Plugin _moduleAppointmentDesk = PluginService.getPlugin( AppPropertiesService.getProperty( PROPERTY_MODULE_APPOINTMENT_DESK_NAME ) );
 
@@ -524,6 +537,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
         {
             return getViewChangeDateAppointment( request );
         }
+        addMassDeletionInfo( request );
         // Clean session
         AppointmentAsynchronousUploadHandler.getHandler( ).removeSessionFiles( request.getSession( ) );
         _notValidatedAppointment = null;
@@ -579,7 +593,9 @@ public class AppointmentJspBean extends MVCAdminJspBean
         }
         if ( DEFAULT_CURRENT_PAGE.equals( _strCurrentPageIndex ) )
         {
-            _listAppointmentsIds = AppointmentService.findListAppointmentsIdsByFilter( _filter );
+            _nNbAppointments = AppointmentService.countAppointmentsByFilter( _filter,
+                    AppPropertiesService.getPropertyInt( PROPERTY_MAX_COUNT_LIST_APPOINTMENT, 0 ) );
+            _nPageOfSortKeys = 0;
         }
         _nItemsPerPage = AbstractPaginator.getItemsPerPage( request, AbstractPaginator.PARAMETER_ITEMS_PER_PAGE, _nItemsPerPage, _nDefaultItemsPerPage );
         List<AppointmentDTO> listAppointmentsDTO = findListAppointmentsDTOByFilterByPage( );
@@ -599,8 +615,8 @@ public class AppointmentJspBean extends MVCAdminJspBean
         url.addParameter( MVCUtils.PARAMETER_VIEW, VIEW_MANAGE_APPOINTMENTS );
         url.addParameter( PARAMETER_ID_FORM, strIdForm );
         String strUrl = url.getUrl( );
-        LocalizedPaginator<Integer> paginator = new LocalizedPaginator<>(_listAppointmentsIds, _nItemsPerPage, strUrl, PARAMETER_PAGE_INDEX,
-                _strCurrentPageIndex, getLocale( ) );
+        LocalizedDelegatePaginator<AppointmentDTO> paginator = new LocalizedDelegatePaginator<>( listAppointmentsDTO, _nItemsPerPage, strUrl,
+                PARAMETER_PAGE_INDEX, _strCurrentPageIndex, _nNbAppointments, getLocale( ) );
         AppointmentFormDTO form = FormService.buildAppointmentFormLight( nIdForm );
         Map<String, Object> model = getModel( );
         model.put( MARK_FORM, form );
@@ -717,7 +733,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
      *             If the user is not authorized to access this feature
      */
     @Action( ACTION_REMOVE_MASSAPPOINTMENT )
-    public synchronized String doRemoveMassAppointment( HttpServletRequest request ) throws AccessDeniedException
+    public String doRemoveMassAppointment( HttpServletRequest request ) throws AccessDeniedException
     {
         String [ ] tabIdAppointmentToDelete = (String [ ]) request.getSession( ).getAttribute( PARAMETER_ID_APPOINTMENT_DELETE );
         request.getSession( ).removeAttribute( PARAMETER_ID_APPOINTMENT_DELETE );
@@ -729,17 +745,57 @@ public class AppointmentJspBean extends MVCAdminJspBean
         }
         if ( tabIdAppointmentToDelete != null )
         {
-            for ( String strIdAppointment : tabIdAppointmentToDelete )
-            {
-                AppointmentService.deleteAppointment( Integer.valueOf( strIdAppointment ) );
-                AppLogService.info( LogUtilities.buildLog( ACTION_REMOVE_APPOINTMENT, strIdAppointment, getUser( ) ) );
-            }
-            addInfo( INFO_APPOINTMENT_MASSREMOVED, getLocale( ) );
+            List<Integer> listIdAppointment = Arrays.stream( tabIdAppointmentToDelete ).map( Integer::valueOf ).collect( Collectors.toList( ) );
+            AppointmentMassDeletionJob job = AppointmentMassDeletionService.submit( idForm, listIdAppointment );
+            request.getSession( ).setAttribute( SESSION_ATTRIBUTE_MASS_DELETION_JOB, job.getIdJob( ) );
+            AppLogService.info( LogUtilities.buildLog( ACTION_REMOVE_MASSAPPOINTMENT, String.join( ",", tabIdAppointmentToDelete ), getUser( ) ) );
+            addInfo( INFO_APPOINTMENT_MASSREMOVAL_STARTED, getLocale( ) );
         }
 
         return redirect( request, VIEW_MANAGE_APPOINTMENTS, PARAMETER_ID_FORM, idForm );
     }
 
+    /**
+     * Add the progress of the mass deletion of appointments launched by the user to the messages of the page
+     *
+     * @param request
+     *            The request
+     */
+    private void addMassDeletionInfo( HttpServletRequest request )
+    {
+        String strIdJob = (String) request.getSession( ).getAttribute( SESSION_ATTRIBUTE_MASS_DELETION_JOB );
+        if ( strIdJob == null )
+        {
+            return;
+        }
+        AppointmentMassDeletionJob job = AppointmentMassDeletionService.getJob( strIdJob );
+        if ( job == null )
+        {
+            request.getSession( ).removeAttribute( SESSION_ATTRIBUTE_MASS_DELETION_JOB );
+        }
+        else
+            if ( job.isDone( ) )
+            {
+                request.getSession( ).removeAttribute( SESSION_ATTRIBUTE_MASS_DELETION_JOB );
+                if ( job.getNbFailed( ) == 0 )
+                {
+                    addInfo( INFO_APPOINTMENT_MASSREMOVED, getLocale( ) );
+                }
+                else
+                {
+                    addInfo( I18nService.getLocalizedString( INFO_APPOINTMENT_MASSREMOVAL_DONE, new Object [ ] {
+                            job.getNbDeleted( ), job.getNbFailed( )
+                    }, getLocale( ) ) );
+                }
+            }
+            else
+            {
+                addInfo( I18nService.getLocalizedString( INFO_APPOINTMENT_MASSREMOVAL_IN_PROGRESS, new Object [ ] {
+                        job.getNbDeleted( ) + job.getNbFailed( ), job.getNbAppointments( )
+                }, getLocale( ) ) );
+            }
+    }
+
     /**
      * View details of an appointment
      *
@@ -855,11 +911,10 @@ public class AppointmentJspBean extends MVCAdminJspBean
             throw new AccessDeniedException( AppointmentResourceIdService.PERMISSION_VIEW_APPOINTMENT );
         }
         Locale locale = getLocale( );
-        List<AppointmentDTO> listAppointmentsDTO = new ArrayList<>( );
+        AppointmentFilterDTO exportFilter = null;
         if ( _filter != null && _filter.getIdForm( ) == Integer.parseInt( strIdForm ) )
         {
-
-            listAppointmentsDTO = AppointmentService.findListAppointmentsDTOByFilter( _filter );
+            exportFilter = _filter;
         }
 
         List<String> defaultColumnList = new ArrayList<>( );
@@ -874,7 +929,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
                     .collect( Collectors.toList( ) );
         }
 
-        ExcelAppointmentGenerator generator = new ExcelAppointmentGenerator( defaultColumnList, locale, listAppointmentsDTO, customColumnList );
+        ExcelAppointmentGenerator generator = new ExcelAppointmentGenerator( defaultColumnList, locale, exportFilter, customColumnList );
 
         TemporaryFileGeneratorService.getInstance( ).generateFile( generator, getUser( ) );
         addInfo( "appointment.export.async.message", getLocale( ) );
@@ -1107,19 +1162,22 @@ public class AppointmentJspBean extends MVCAdminJspBean
 
         }
 
+        // The appointments of the user are loaded once for all the rules
+        UserAppointmentHistory userAppointmentHistory = new UserAppointmentHistory( strEmail );
         if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbDaysBetweenTwoAppointmentsTaken( _notValidatedAppointment, strEmail, _appointmentForm ) )
+                && !AppointmentUtilities.checkNbDaysBetweenTwoAppointmentsTaken( _notValidatedAppointment, _appointmentForm, userAppointmentHistory ) )
         {
             addWarning( ERROR_MESSAGE_NB_MIN_DAYS_BETWEEN_TWO_APPOINTMENTS, locale );
         }
         if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( _notValidatedAppointment, strEmail, _appointmentForm ) )
+                && !AppointmentUtilities.checkNbMaxAppointmentsOnAGivenPeriod( _notValidatedAppointment, _appointmentForm, userAppointmentHistory ) )
         {
             addWarning( ERROR_MESSAGE_NB_MAX_APPOINTMENTS_ON_A_PERIOD, locale );
         }
         List<AppointmentDTO> listAppointments = new ArrayList<>( );
         if ( _appointmentForm.getEnableMandatoryEmail( )
-                && !AppointmentUtilities.checkNbMaxAppointmentsDefinedOnCategory( _notValidatedAppointment, strEmail, _appointmentForm, listAppointments ) )
+                && !AppointmentUtilities.checkNbMaxAppointmentsDefinedOnCategory( _notValidatedAppointment, _appointmentForm, listAppointments,
+                        userAppointmentHistory ) )
         {
             StringJoiner builder = new StringJoiner( StringUtils.SPACE );
             String lf = System.getProperty( "line.separator" );
@@ -1480,6 +1538,7 @@ public class AppointmentJspBean extends MVCAdminJspBean
     {
         _filter = null;
         _strCurrentPageIndex = null;
+        _nPageOfSortKeys = 0;
         _notValidatedAppointment = null;
         _validatedAppointment = null;
         AppointmentAsynchronousUploadHandler.getHandler( ).removeSessionFiles( session );
@@ -1766,6 +1825,12 @@ public class AppointmentJspBean extends MVCAdminJspBean
         return refListStatus;
     }
 
+    /**
+     * Find the appointments of the current page. The page is sought from the first or the last appointment of the page displayed before when the user goes
+     * to the previous or the next page, so that the appointments before the page are not read
+     *
+     * @return the appointments of the current page
+     */
     private List<AppointmentDTO> findListAppointmentsDTOByFilterByPage( )
     {
         int currentPage;
@@ -1778,11 +1843,42 @@ public class AppointmentJspBean extends MVCAdminJspBean
             currentPage = 1;
         }
 
-        int skip = ( currentPage - 1 ) * _nItemsPerPage;
+        boolean bSortKeysValid = _nPageOfSortKeys > 0 && _nItemsPerPageOfSortKeys == _nItemsPerPage;
+        List<AppointmentSortKey> listSortKey;
+        if ( currentPage <= 1 )
+        {
+            listSortKey = AppointmentService.findListAppointmentSortKeysByFilter( _filter, null, false, _nItemsPerPage );
+        }
+        else
+            if ( bSortKeysValid && currentPage == _nPageOfSortKeys + 1 && _lastSortKeyOfPage != null )
+            {
+                listSortKey = AppointmentService.findListAppointmentSortKeysByFilter( _filter, _lastSortKeyOfPage, false, _nItemsPerPage );
+            }
+            else
+                if ( bSortKeysValid && currentPage == _nPageOfSortKeys - 1 && _firstSortKeyOfPage != null )
+                {
+                    listSortKey = AppointmentService.findListAppointmentSortKeysByFilter( _filter, _firstSortKeyOfPage, true, _nItemsPerPage );
+                }
+                else
+                {
+                    listSortKey = AppointmentService.findListAppointmentSortKeysByFilterAtOffset( _filter, ( currentPage - 1 ) * _nItemsPerPage,
+                            _nItemsPerPage );
+                }
+
+        _nPageOfSortKeys = currentPage;
+        _nItemsPerPageOfSortKeys = _nItemsPerPage;
+        if ( listSortKey.isEmpty( ) )
+        {
+            _firstSortKeyOfPage = null;
+            _lastSortKeyOfPage = null;
+            return new ArrayList<>( );
+        }
+        _firstSortKeyOfPage = listSortKey.get( 0 );
+        _lastSortKeyOfPage = listSortKey.get( listSortKey.size( ) - 1 );
 
         List<Integer> listIdAppointment = _filter.getListIdAppointment( );
 
-        _filter.setListIdAppointment( _listAppointmentsIds.stream( ).skip( skip ).limit( _nItemsPerPage ).collect( Collectors.toList( ) ) );
+        _filter.setListIdAppointment( listSortKey.stream( ).map( AppointmentSortKey::getIdAppointment ).collect( Collectors.toList( ) ) );
 
         List<AppointmentDTO> listAppointmentsDTO = AppointmentService.findListAppointmentsDTOByFilter( _filter );
 
@@ -70,6 +70,8 @@ import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResourceIdService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentUtilities;
+import fr.paris.lutece.plugins.appointment.service.CalendarAvailabilityCacheService;
+import fr.paris.lutece.plugins.appointment.service.FormPlanningCacheService;
 import fr.paris.lutece.plugins.appointment.service.ClosingDayService;
 import fr.paris.lutece.plugins.appointment.service.CommentService;
 import fr.paris.lutece.plugins.appointment.service.DisplayService;
@@ -604,6 +606,7 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
         boolean bNoApptImpacted = true;
         LocalDate dateSlot = null;
         StringBuilder sbAlert = new StringBuilder( );
+        List<Slot> listSlotToSave = new ArrayList<>( );
 
         for ( Slot slot : listSlot )
         {
@@ -624,6 +627,8 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
                     // closing day so that the slot is not in conflict with the
                     // definition of the closing days
                     ClosingDayHome.deleteByIdFormAndDateOfClosingDay( slot.getIdForm( ), dateSlot );
+                    FormPlanningCacheService.getInstance( ).invalidateForm( slot.getIdForm( ) );
+                    CalendarAvailabilityCacheService.getInstance( ).invalidateForm( slot.getIdForm( ) );
                 }
                 if ( nVarMaxCapacity != 0 || ( nMaxCapacity >= 0 && nMaxCapacity != slot.getMaxCapacity( ) ) )
                 {
@@ -656,12 +661,20 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
                 }
                 else
                 {
-                    SlotSafeService.updateSlot( slot, bEndingTimeHasChanged, previousEndingTime, bShiftSlot );
+                    if ( bEndingTimeHasChanged )
+                    {
+                        SlotSafeService.updateSlot( slot, bEndingTimeHasChanged, previousEndingTime, bShiftSlot );
+                        AppLogService.info( LogUtilities.buildLog( ACTION_DO_MODIFY_SLOT, String.valueOf( slot.getIdSlot( ) ), getUser( ) ) );
+                    }
+                    else
+                    {
+                        // Saved with the other slots of the list at the end
+                        listSlotToSave.add( slot );
+                    }
                     if ( !appointmentsImpacted && slot.getNbPlacesTaken( ) > 0 )
                     {
                         appointmentsImpacted = true;
                     }
-                    AppLogService.info( LogUtilities.buildLog( ACTION_DO_MODIFY_SLOT, String.valueOf( slot.getIdSlot( ) ), getUser( ) ) );
 
                     if ( slot.getMaxCapacity( ) < slot.getNbPlacesTaken( ) )
                     {
@@ -677,6 +690,11 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
                 lock.unlock( );
             }
         }
+        SlotSafeService.updateListSlot( listSlotToSave );
+        for ( Slot slot : listSlotToSave )
+        {
+            AppLogService.info( LogUtilities.buildLog( ACTION_DO_MODIFY_SLOT, String.valueOf( slot.getIdSlot( ) ), getUser( ) ) );
+        }
 
         if ( appointmentsImpacted && bOpeningHasChanged )
         {
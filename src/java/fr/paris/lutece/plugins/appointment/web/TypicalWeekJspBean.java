@@ -64,6 +64,8 @@ import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
 import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResourceIdService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentUtilities;
+import fr.paris.lutece.plugins.appointment.service.CalendarAvailabilityCacheService;
+import fr.paris.lutece.plugins.appointment.service.FormPlanningCacheService;
 import fr.paris.lutece.plugins.appointment.service.FormService;
 import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
 import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
@@ -395,6 +397,8 @@ public class TypicalWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
         }
 
         ReservationRuleHome.update( reservationRule );
+        FormPlanningCacheService.getInstance( ).invalidateForm( _appointmentForm.getIdForm( ) );
+        CalendarAvailabilityCacheService.getInstance( ).invalidateForm( _appointmentForm.getIdForm( ) );
         addInfo( INFO_GLOBAL_PARAMETERS_UPDATED, getLocale( ) );
         return redirect( request, VIEW_MANAGE_TYPICAL_WEEK, PARAMETER_ID_FORM, _appointmentForm.getIdForm( ), PARAMETER_ID_RULE,
                 _appointmentForm.getIdReservationRule( ) );
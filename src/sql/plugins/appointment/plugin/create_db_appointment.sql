@@ -15,6 +15,13 @@ DROP TABLE IF EXISTS appointment_localization ;
 DROP TABLE IF EXISTS appointment_calendar_template ;
 DROP TABLE IF EXISTS appointment_appointment ;
 DROP TABLE IF EXISTS appointment_user ;
+DROP TABLE IF EXISTS appointment_slot_lock ;
+DROP TABLE IF EXISTS appointment_slot_hold ;
+DROP TABLE IF EXISTS appointment_outbox ;
+DROP TABLE IF EXISTS appointment_appointment_response_archive ;
+DROP TABLE IF EXISTS appointment_appointment_slot_archive ;
+DROP TABLE IF EXISTS appointment_appointment_archive ;
+DROP TABLE IF EXISTS appointment_slot_archive ;
 DROP TABLE IF EXISTS appointment_slot ;
 DROP TABLE IF EXISTS appointment_form ;
 DROP TABLE IF EXISTS appointment_category ;
@@ -48,6 +55,7 @@ CREATE TABLE IF NOT EXISTS appointment_user (
   PRIMARY KEY (id_user)
 );
 CREATE INDEX email_idx ON appointment_user (email ASC);
+CREATE INDEX guid_idx ON appointment_user (guid ASC);
 
 -- -----------------------------------------------------
 -- Table appointment_form
@@ -106,6 +114,51 @@ CREATE INDEX starting_date_time_idx ON appointment_slot (starting_date_time ASC)
 CREATE INDEX ending_date_time_idx ON appointment_slot (ending_date_time ASC);
 CREATE UNIQUE INDEX appointment_slot_unique_starting ON appointment_slot (id_form,starting_date_time);
 CREATE UNIQUE INDEX appointment_slot_unique_ending ON appointment_slot (id_form,ending_date_time);
+CREATE INDEX appointment_slot_form_dates_idx ON appointment_slot (id_form,starting_date_time,ending_date_time,is_open);
+
+-- -----------------------------------------------------
+-- Table appointment_slot_lock
+-- -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS appointment_slot_lock (
+  id_slot INT NOT NULL,
+  lock_owner VARCHAR(255) NOT NULL,
+  expiry_date TIMESTAMP NOT NULL,
+  PRIMARY KEY (id_slot)
+);
+CREATE INDEX appointment_slot_lock_expiry_idx ON appointment_slot_lock (expiry_date ASC);
+
+-- -----------------------------------------------------
+-- Table appointment_slot_hold
+-- -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS appointment_slot_hold (
+  hold_key VARCHAR(64) NOT NULL,
+  id_slot INT NOT NULL,
+  nb_places INT DEFAULT 0 NOT NULL,
+  expiry_date TIMESTAMP NOT NULL,
+  PRIMARY KEY (hold_key)
+);
+CREATE INDEX appointment_slot_hold_expiry_idx ON appointment_slot_hold (expiry_date ASC);
+CREATE INDEX appointment_slot_hold_slot_idx ON appointment_slot_hold (id_slot, expiry_date);
+
+-- -----------------------------------------------------
+-- Table appointment_outbox
+-- -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS appointment_outbox (
+  id_outbox_event INT AUTO_INCREMENT,
+  event_type VARCHAR(50) NOT NULL,
+  id_appointment INT NOT NULL,
+  id_form INT NOT NULL,
+  id_action INT DEFAULT 0 NOT NULL,
+  nb_attempts INT DEFAULT 0 NOT NULL,
+  status INT DEFAULT 0 NOT NULL,
+  creation_date TIMESTAMP NULL,
+  next_attempt_date TIMESTAMP NOT NULL,
+  PRIMARY KEY (id_outbox_event)
+);
+CREATE INDEX appointment_outbox_next_attempt_idx ON appointment_outbox (status, next_attempt_date ASC);
 
 -- -----------------------------------------------------
 -- Table appointment_appointment
@@ -152,6 +205,7 @@ CREATE TABLE IF NOT EXISTS appointment_appointment_slot (
 );
 
 CREATE INDEX idx_appointment_slot ON appointment_appointment_slot (id_appointment, id_slot);
+CREATE INDEX appointment_appointment_slot_slot_idx ON appointment_appointment_slot (id_slot, id_appointment);
 
 -- -----------------------------------------------------
 -- Table appointment_appointment_response
@@ -169,6 +223,59 @@ CREATE TABLE IF NOT EXISTS appointment_appointment_response (
 CREATE INDEX fk_appointment_appointment_response_appointment_appointment_idx ON appointment_appointment_response (id_appointment ASC);
 CREATE UNIQUE INDEX appointment_appointment_response_unique ON appointment_appointment_response (id_appointment,id_response);
 
+-- -----------------------------------------------------
+-- Tables of the archived slots and appointments
+-- -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS appointment_slot_archive (
+  id_slot INT NOT NULL,
+  starting_date_time TIMESTAMP NULL,
+  ending_date_time TIMESTAMP NULL,
+  is_open BOOLEAN DEFAULT TRUE NOT NULL,
+  is_specific BOOLEAN DEFAULT FALSE NOT NULL,
+  max_capacity INT DEFAULT 0 NOT NULL,
+  nb_remaining_places INT DEFAULT 0 NOT NULL,
+  nb_potential_remaining_places INT DEFAULT 0 NOT NULL,
+  nb_places_taken INT DEFAULT 0 NOT NULL,
+  id_form INT NOT NULL,
+  PRIMARY KEY (id_slot)
+);
+CREATE INDEX appointment_slot_archive_form_idx ON appointment_slot_archive (id_form,starting_date_time);
+
+CREATE TABLE IF NOT EXISTS appointment_appointment_archive (
+  id_appointment INT NOT NULL,
+  reference VARCHAR(45) NULL,
+  nb_places INT DEFAULT 0 NOT NULL,
+  is_cancelled BOOLEAN DEFAULT FALSE NOT NULL,
+  id_action_cancelled INT,
+  id_action_reported INT,
+  notification INT DEFAULT 0 NOT NULL,
+  id_admin_user INT DEFAULT 0 NULL,
+  date_appointment_create TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  admin_access_code_create VARCHAR(100) ,
+  id_user INT NOT NULL,
+  is_surbooked BOOLEAN DEFAULT FALSE NOT NULL,
+  PRIMARY KEY (id_appointment)
+);
+CREATE INDEX appointment_appointment_archive_user_idx ON appointment_appointment_archive (id_user ASC);
+CREATE INDEX appointment_appointment_archive_reference_idx ON appointment_appointment_archive (reference ASC);
+
+CREATE TABLE IF NOT EXISTS appointment_appointment_slot_archive (
+  id_appointment INT NOT NULL,
+  id_slot INT NOT NULL,
+  nb_places INT NOT NULL,
+  PRIMARY KEY (id_appointment, id_slot)
+);
+CREATE INDEX appointment_appointment_slot_archive_slot_idx ON appointment_appointment_slot_archive (id_slot ASC);
+
+CREATE TABLE IF NOT EXISTS appointment_appointment_response_archive (
+  id_appointment_response INT NOT NULL,
+  id_response INT NOT NULL,
+  id_appointment INT NOT NULL,
+  PRIMARY KEY (id_appointment_response)
+);
+CREATE INDEX appointment_appointment_response_archive_appointment_idx ON appointment_appointment_response_archive (id_appointment ASC);
+
 -- -----------------------------------------------------
 -- Table appointment_calendar_template
 -- -----------------------------------------------------
@@ -0,0 +1,108 @@
+-- liquibase formatted sql
+-- changeset appointment:update_db_appointment_3.0.8-3.0.9.sql
+-- preconditions onFail:MARK_RAN onError:WARN
+
+-- -----------------------------------------------------
+-- Table appointment_slot_lock
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS appointment_slot_lock (
+  id_slot INT NOT NULL,
+  lock_owner VARCHAR(255) NOT NULL,
+  expiry_date TIMESTAMP NOT NULL,
+  PRIMARY KEY (id_slot)
+);
+CREATE INDEX appointment_slot_lock_expiry_idx ON appointment_slot_lock (expiry_date ASC);
+
+-- -----------------------------------------------------
+-- Table appointment_slot_hold
+-- The places held by the former in-memory timers are given back once
+-- -----------------------------------------------------
+UPDATE appointment_slot SET nb_potential_remaining_places = nb_remaining_places WHERE nb_potential_remaining_places < nb_remaining_places;
+CREATE TABLE IF NOT EXISTS appointment_slot_hold (
+  hold_key VARCHAR(64) NOT NULL,
+  id_slot INT NOT NULL,
+  nb_places INT DEFAULT 0 NOT NULL,
+  expiry_date TIMESTAMP NOT NULL,
+  PRIMARY KEY (hold_key)
+);
+CREATE INDEX appointment_slot_hold_expiry_idx ON appointment_slot_hold (expiry_date ASC);
+CREATE INDEX appointment_slot_hold_slot_idx ON appointment_slot_hold (id_slot, expiry_date);
+
+-- -----------------------------------------------------
+-- Table appointment_outbox
+-- The workflow and the notifications of the bookings are processed out of the locks of the slots
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS appointment_outbox (
+  id_outbox_event INT AUTO_INCREMENT,
+  event_type VARCHAR(50) NOT NULL,
+  id_appointment INT NOT NULL,
+  id_form INT NOT NULL,
+  id_action INT DEFAULT 0 NOT NULL,
+  nb_attempts INT DEFAULT 0 NOT NULL,
+  status INT DEFAULT 0 NOT NULL,
+  creation_date TIMESTAMP NULL,
+  next_attempt_date TIMESTAMP NOT NULL,
+  PRIMARY KEY (id_outbox_event)
+);
+CREATE INDEX appointment_outbox_next_attempt_idx ON appointment_outbox (status, next_attempt_date ASC);
+
+-- -----------------------------------------------------
+-- Composite indexes for the searches of slots by form and date range,
+-- the joins between the appointments and their slots and the search of users
+-- -----------------------------------------------------
+CREATE INDEX appointment_slot_form_dates_idx ON appointment_slot (id_form,starting_date_time,ending_date_time,is_open);
+CREATE INDEX appointment_appointment_slot_slot_idx ON appointment_appointment_slot (id_slot, id_appointment);
+CREATE INDEX guid_idx ON appointment_user (guid ASC);
+
+-- -----------------------------------------------------
+-- Tables of the archived slots and appointments
+-- The past slots and appointments are moved out of the working tables by the archiveDaemon
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS appointment_slot_archive (
+  id_slot INT NOT NULL,
+  starting_date_time TIMESTAMP NULL,
+  ending_date_time TIMESTAMP NULL,
+  is_open BOOLEAN DEFAULT TRUE NOT NULL,
+  is_specific BOOLEAN DEFAULT FALSE NOT NULL,
+  max_capacity INT DEFAULT 0 NOT NULL,
+  nb_remaining_places INT DEFAULT 0 NOT NULL,
+  nb_potential_remaining_places INT DEFAULT 0 NOT NULL,
+  nb_places_taken INT DEFAULT 0 NOT NULL,
+  id_form INT NOT NULL,
+  PRIMARY KEY (id_slot)
+);
+CREATE INDEX appointment_slot_archive_form_idx ON appointment_slot_archive (id_form,starting_date_time);
+
+CREATE TABLE IF NOT EXISTS appointment_appointment_archive (
+  id_appointment INT NOT NULL,
+  reference VARCHAR(45) NULL,
+  nb_places INT DEFAULT 0 NOT NULL,
+  is_cancelled BOOLEAN DEFAULT FALSE NOT NULL,
+  id_action_cancelled INT,
+  id_action_reported INT,
+  notification INT DEFAULT 0 NOT NULL,
+  id_admin_user INT DEFAULT 0 NULL,
+  date_appointment_create TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  admin_access_code_create VARCHAR(100) ,
+  id_user INT NOT NULL,
+  is_surbooked BOOLEAN DEFAULT FALSE NOT NULL,
+  PRIMARY KEY (id_appointment)
+);
+CREATE INDEX appointment_appointment_archive_user_idx ON appointment_appointment_archive (id_user ASC);
+CREATE INDEX appointment_appointment_archive_reference_idx ON appointment_appointment_archive (reference ASC);
+
+CREATE TABLE IF NOT EXISTS appointment_appointment_slot_archive (
+  id_appointment INT NOT NULL,
+  id_slot INT NOT NULL,
+  nb_places INT NOT NULL,
+  PRIMARY KEY (id_appointment, id_slot)
+);
+CREATE INDEX appointment_appointment_slot_archive_slot_idx ON appointment_appointment_slot_archive (id_slot ASC);
+
+CREATE TABLE IF NOT EXISTS appointment_appointment_response_archive (
+  id_appointment_response INT NOT NULL,
+  id_response INT NOT NULL,
+  id_appointment INT NOT NULL,
+  PRIMARY KEY (id_appointment_response)
+);
+CREATE INDEX appointment_appointment_response_archive_appointment_idx ON appointment_appointment_response_archive (id_appointment ASC);
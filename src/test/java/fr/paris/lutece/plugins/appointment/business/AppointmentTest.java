@@ -33,20 +33,33 @@
  */
 package fr.paris.lutece.plugins.appointment.business;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
 import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSlot;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentSortKey;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.form.FormHome;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
 import fr.paris.lutece.plugins.appointment.business.user.User;
 import fr.paris.lutece.plugins.appointment.business.user.UserHome;
+import fr.paris.lutece.plugins.appointment.service.export.AppointmentExportService;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.test.LuteceTestCase;
 
 /**
@@ -187,6 +200,192 @@ public final class AppointmentTest extends LuteceTestCase
         UserHome.delete( user2.getIdUser( ) );
     }
 
+    /**
+     * Test the pages of sort keys sought forward, backward and at an offset
+     */
+    public void testFindSortKeysByFilter( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        User user = UserTest.buildUser( Constants.GUID_1, Constants.FIRST_NAME_1, Constants.LAST_NAME_1, Constants.EMAIL_1, Constants.PHONE_NUMBER_1 );
+        UserHome.create( user );
+
+        Slot slot = SlotTest.buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slot );
+
+        List<Appointment> listAppointment = new ArrayList<>( );
+        for ( int i = 0; i < 3; i++ )
+        {
+            AppointmentSlot appointmentSlot = new AppointmentSlot( );
+            appointmentSlot.setIdSlot( slot.getIdSlot( ) );
+            appointmentSlot.setNbPlaces( i + 1 );
+
+            Appointment appointment = new Appointment( );
+            appointment.setIdUser( user.getIdUser( ) );
+            appointment.setNbPlaces( i + 1 );
+            appointment.addSlot( slot );
+            appointment.setListAppointmentSlot( new ArrayList<>( ) );
+            appointment.getListAppointmentSlot( ).add( appointmentSlot );
+            AppointmentHome.create( appointment );
+            listAppointment.add( appointment );
+        }
+
+        AppointmentFilterDTO filter = new AppointmentFilterDTO( );
+        filter.setIdForm( form.getIdForm( ) );
+        filter.setOrderBy( "nbBookedSeats" );
+        filter.setOrderAsc( false );
+        assertEquals( 3, AppointmentHome.countByFilter( filter, 0 ) );
+        assertEquals( 2, AppointmentHome.countByFilter( filter, 2 ) );
+
+        List<AppointmentSortKey> listFirstPage = AppointmentHome.findSortKeysByFilter( filter, null, false, 2 );
+        assertEquals( 2, listFirstPage.size( ) );
+        assertEquals( listAppointment.get( 2 ).getIdAppointment( ), listFirstPage.get( 0 ).getIdAppointment( ) );
+        assertEquals( listAppointment.get( 1 ).getIdAppointment( ), listFirstPage.get( 1 ).getIdAppointment( ) );
+        List<AppointmentSortKey> listSecondPage = AppointmentHome.findSortKeysByFilter( filter, listFirstPage.get( 1 ), false, 2 );
+        assertEquals( 1, listSecondPage.size( ) );
+        assertEquals( listAppointment.get( 0 ).getIdAppointment( ), listSecondPage.get( 0 ).getIdAppointment( ) );
+        List<AppointmentSortKey> listPreviousPage = AppointmentHome.findSortKeysByFilter( filter, listSecondPage.get( 0 ), true, 2 );
+        assertEquals( 2, listPreviousPage.size( ) );
+        assertEquals( listFirstPage.get( 0 ).getIdAppointment( ), listPreviousPage.get( 0 ).getIdAppointment( ) );
+        assertEquals( listFirstPage.get( 1 ).getIdAppointment( ), listPreviousPage.get( 1 ).getIdAppointment( ) );
+        List<AppointmentSortKey> listOffsetPage = AppointmentHome.findSortKeysByFilterAtOffset( filter, 2, 2 );
+        assertEquals( 1, listOffsetPage.size( ) );
+        assertEquals( listAppointment.get( 0 ).getIdAppointment( ), listOffsetPage.get( 0 ).getIdAppointment( ) );
+
+        // Clean
+        for ( Appointment appointment : listAppointment )
+        {
+            AppointmentHome.delete( appointment.getIdAppointment( ) );
+        }
+        SlotHome.delete( slot.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+        UserHome.delete( user.getIdUser( ) );
+    }
+
+    /**
+     * Test the export of more appointments than a page, which must keep the order of the filter from a page to the next
+     * 
+     * @throws IOException
+     *             if the exported file can not be read
+     */
+    public void testExportByPagesKeepsFilterOrder( ) throws IOException
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        User user = UserTest.buildUser( Constants.GUID_1, Constants.FIRST_NAME_1, Constants.LAST_NAME_1, Constants.EMAIL_1, Constants.PHONE_NUMBER_1 );
+        UserHome.create( user );
+
+        Slot slot = SlotTest.buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slot );
+
+        // The number of places grows with the id, the export sorted by descending number of places is the reverse of the order by id
+        List<Appointment> listAppointment = new ArrayList<>( );
+        for ( int i = 0; i < 5; i++ )
+        {
+            AppointmentSlot appointmentSlot = new AppointmentSlot( );
+            appointmentSlot.setIdSlot( slot.getIdSlot( ) );
+            appointmentSlot.setNbPlaces( i + 1 );
+
+            Appointment appointment = new Appointment( );
+            appointment.setIdUser( user.getIdUser( ) );
+            appointment.setNbPlaces( i + 1 );
+            appointment.addSlot( slot );
+            appointment.setListAppointmentSlot( new ArrayList<>( ) );
+            appointment.getListAppointmentSlot( ).add( appointmentSlot );
+            AppointmentHome.create( appointment );
+            listAppointment.add( appointment );
+        }
+
+        AppointmentFilterDTO filter = new AppointmentFilterDTO( );
+        filter.setIdForm( form.getIdForm( ) );
+        filter.setOrderBy( "nbBookedSeats" );
+        filter.setOrderAsc( false );
+        Path excelFile = Files.createTempFile( "appointment-export", ".xlsx" );
+        try
+        {
+            // Pages of 2 appointments: two full pages and a last one
+            AppointmentExportService.buildExcelFileWithAppointments(
+                    Collections.singletonList( "appointment.manageAppointments.columnNumberOfBookedseatsPerAppointment" ), new ArrayList<>( ), excelFile,
+                    Locale.FRENCH, filter, 2 );
+
+            try ( InputStream in = Files.newInputStream( excelFile ); Workbook workbook = new XSSFWorkbook( in ) )
+            {
+                Sheet sheet = workbook.getSheetAt( 0 );
+                // The header, then one row per appointment
+                assertEquals( 5, sheet.getLastRowNum( ) );
+                for ( int nRow = 1; nRow <= 5; nRow++ )
+                {
+                    assertEquals( Integer.toString( 6 - nRow ), sheet.getRow( nRow ).getCell( 0 ).getStringCellValue( ) );
+                }
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists( excelFile );
+        }
+
+        // Clean
+        for ( Appointment appointment : listAppointment )
+        {
+            AppointmentHome.delete( appointment.getIdAppointment( ) );
+        }
+        SlotHome.delete( slot.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+        UserHome.delete( user.getIdUser( ) );
+    }
+
+    /**
+     * Test of findByEmailWithSlots
+     */
+    public void testFindByEmailWithSlots( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        User user = UserTest.buildUser( Constants.GUID_1, Constants.FIRST_NAME_1, Constants.LAST_NAME_1, Constants.EMAIL_1, Constants.PHONE_NUMBER_1 );
+        UserHome.create( user );
+
+        Slot slot1 = SlotTest.buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slot1 );
+        Slot slot2 = SlotTest.buildSlot( form.getIdForm( ), Constants.STARTING_DATE_2, Constants.ENDING_DATE_2, Constants.NB_REMAINING_PLACES_2,
+                Constants.NB_REMAINING_PLACES_2, 0, Constants.NB_REMAINING_PLACES_2, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slot2 );
+
+        // An appointment on two slots
+        Appointment appointment = new Appointment( );
+        appointment.setIdUser( user.getIdUser( ) );
+        appointment.setListAppointmentSlot( new ArrayList<>( ) );
+        for ( Slot slot : new Slot [ ] {
+                slot1, slot2
+        } )
+        {
+            AppointmentSlot appointmentSlot = new AppointmentSlot( );
+            appointmentSlot.setIdSlot( slot.getIdSlot( ) );
+            appointmentSlot.setNbPlaces( 1 );
+            appointment.addSlot( slot );
+            appointment.getListAppointmentSlot( ).add( appointmentSlot );
+        }
+        AppointmentHome.create( appointment );
+
+        List<Appointment> listAppointment = AppointmentHome.findByEmailWithSlots( Constants.EMAIL_1 );
+        assertEquals( 1, listAppointment.size( ) );
+        assertEquals( appointment.getIdAppointment( ), listAppointment.get( 0 ).getIdAppointment( ) );
+        assertEquals( 2, listAppointment.get( 0 ).getSlot( ).size( ) );
+        assertEquals( Constants.EMAIL_1, listAppointment.get( 0 ).getUser( ).getEmail( ) );
+
+        // Clean
+        AppointmentHome.delete( appointment.getIdAppointment( ) );
+        SlotHome.delete( slot1.getIdSlot( ) );
+        SlotHome.delete( slot2.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+        UserHome.delete( user.getIdUser( ) );
+    }
+
     /**
      * Check that all the asserts are true
      * 
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
+import fr.paris.lutece.portal.service.database.PluginConnectionService;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test class for the indexes used by the most frequent queries
+ *
+ */
+public final class SchemaIndexTest extends LuteceTestCase
+{
+    private static final String INDEX_SLOT_FORM_DATES = "appointment_slot_form_dates_idx";
+    private static final String INDEX_APPOINTMENT_SLOT_SLOT = "appointment_appointment_slot_slot_idx";
+    private static final String INDEX_USER_EMAIL = "email_idx";
+    private static final String INDEX_USER_GUID = "guid_idx";
+
+    // Same access paths as the queries of SlotDAO and AppointmentDAO
+    private static final String SQL_SLOTS_BY_FORM_AND_DATE_RANGE = "SELECT id_slot FROM appointment_slot WHERE id_form = 1 AND starting_date_time >= '2020-01-01 00:00:00' AND ending_date_time <= '2020-02-01 00:00:00' AND is_open = 1";
+    private static final String SQL_APPOINTMENTS_BY_SLOT = "SELECT id_appointment FROM appointment_appointment_slot WHERE id_slot = 1";
+    private static final String SQL_USERS_BY_EMAIL = "SELECT id_user FROM appointment_user WHERE email = 'test@test.fr'";
+    private static final String SQL_USERS_BY_GUID = "SELECT id_user FROM appointment_user WHERE guid = 'guid'";
+
+    /**
+     * Test that the indexes are created by the scripts
+     * 
+     * @throws SQLException
+     *             if an error occurs while reading the metadata
+     */
+    public void testIndexesExist( ) throws SQLException
+    {
+        PluginConnectionService connectionService = getPlugin( ).getConnectionService( );
+        Connection connection = connectionService.getConnection( );
+        try
+        {
+            DatabaseMetaData metaData = connection.getMetaData( );
+            assertTrue( getIndexNames( metaData, "appointment_slot" ).contains( INDEX_SLOT_FORM_DATES ) );
+            assertTrue( getIndexNames( metaData, "appointment_appointment_slot" ).contains( INDEX_APPOINTMENT_SLOT_SLOT ) );
+            Set<String> setUserIndexNames = getIndexNames( metaData, "appointment_user" );
+            assertTrue( setUserIndexNames.contains( INDEX_USER_EMAIL ) );
+            assertTrue( setUserIndexNames.contains( INDEX_USER_GUID ) );
+        }
+        finally
+        {
+            connectionService.freeConnection( connection );
+        }
+    }
+
+    /**
+     * Test that the planner can use the indexes for the most frequent queries. The plans are only checked on MySQL / MariaDB, where the candidate indexes are
+     * listed by EXPLAIN (the index actually chosen depends on the volume of the tables)
+     * 
+     * @throws SQLException
+     *             if an error occurs while explaining the queries
+     */
+    public void testPlansUseIndexes( ) throws SQLException
+    {
+        PluginConnectionService connectionService = getPlugin( ).getConnectionService( );
+        Connection connection = connectionService.getConnection( );
+        try
+        {
+            String strProductName = connection.getMetaData( ).getDatabaseProductName( ).toLowerCase( Locale.ENGLISH );
+            if ( strProductName.contains( "mysql" ) || strProductName.contains( "mariadb" ) )
+            {
+                assertTrue( getPossibleKeys( connection, SQL_SLOTS_BY_FORM_AND_DATE_RANGE ).contains( INDEX_SLOT_FORM_DATES ) );
+                assertTrue( getPossibleKeys( connection, SQL_APPOINTMENTS_BY_SLOT ).contains( INDEX_APPOINTMENT_SLOT_SLOT ) );
+                assertTrue( getPossibleKeys( connection, SQL_USERS_BY_EMAIL ).contains( INDEX_USER_EMAIL ) );
+                assertTrue( getPossibleKeys( connection, SQL_USERS_BY_GUID ).contains( INDEX_USER_GUID ) );
+            }
+        }
+        finally
+        {
+            connectionService.freeConnection( connection );
+        }
+    }
+
+    /**
+     * Get the names of the indexes of a table, in lower case
+     * 
+     * @param metaData
+     *            the metadata of the database
+     * @param strTable
+     *            the name of the table
+     * @return the names of the indexes
+     * @throws SQLException
+     *             if an error occurs while reading the metadata
+     */
+    private static Set<String> getIndexNames( DatabaseMetaData metaData, String strTable ) throws SQLException
+    {
+        Set<String> setIndexNames = new HashSet<>( );
+        // Depending on the database, the name of the table is stored in lower or upper case
+        for ( String strTableName : new String [ ] {
+                strTable, strTable.toUpperCase( Locale.ENGLISH )
+        } )
+        {
+            try ( ResultSet resultSet = metaData.getIndexInfo( null, null, strTableName, false, true ) )
+            {
+                while ( resultSet.next( ) )
+                {
+                    String strIndexName = resultSet.getString( "INDEX_NAME" );
+                    if ( strIndexName != null )
+                    {
+                        setIndexNames.add( strIndexName.toLowerCase( Locale.ENGLISH ) );
+                    }
+                }
+            }
+        }
+        return setIndexNames;
+    }
+
+    /**
+     * Get the indexes that the planner can use for a query, as listed by EXPLAIN
+     * 
+     * @param connection
+     *            the connection
+     * @param strQuery
+     *            the query
+     * @return the names of the candidate indexes, in lower case
+     * @throws SQLException
+     *             if an error occurs while explaining the query
+     */
+    private static Set<String> getPossibleKeys( Connection connection, String strQuery ) throws SQLException
+    {
+        Set<String> setKeys = new HashSet<>( );
+        try ( Statement statement = connection.createStatement( ); ResultSet resultSet = statement.executeQuery( "EXPLAIN " + strQuery ) )
+        {
+            while ( resultSet.next( ) )
+            {
+                String strPossibleKeys = resultSet.getString( "possible_keys" );
+                if ( strPossibleKeys != null )
+                {
+                    for ( String strKey : strPossibleKeys.split( "," ) )
+                    {
+                        setKeys.add( strKey.trim( ).toLowerCase( Locale.ENGLISH ) );
+                    }
+                }
+            }
+        }
+        return setKeys;
+    }
+
+    /**
+     * Get the appointment plugin
+     * 
+     * @return the plugin
+     */
+    private static Plugin getPlugin( )
+    {
+        return PluginService.getPlugin( AppointmentPlugin.PLUGIN_NAME );
+    }
+}
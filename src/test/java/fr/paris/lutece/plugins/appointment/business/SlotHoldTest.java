@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business;
+
+import java.time.LocalDateTime;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHold;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHoldHome;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test class for the holds taken on slots
+ *
+ */
+public final class SlotHoldTest extends LuteceTestCase
+{
+    private static final int ID_SLOT = 999999;
+    private static final String KEY_ACTIVE = "test-hold-active";
+    private static final String KEY_EXPIRED = "test-hold-expired";
+
+    /**
+     * Test the creation, the search and the deletion of holds
+     */
+    public void testBusiness( )
+    {
+        SlotHoldHome.create( buildSlotHold( KEY_ACTIVE, 2, LocalDateTime.now( ).plusMinutes( 1 ) ) );
+        SlotHoldHome.create( buildSlotHold( KEY_EXPIRED, 1, LocalDateTime.now( ).minusMinutes( 1 ) ) );
+
+        SlotHold slotHold = SlotHoldHome.findByPrimaryKey( KEY_ACTIVE );
+        assertEquals( ID_SLOT, slotHold.getIdSlot( ) );
+        assertEquals( 2, slotHold.getNbPlaces( ) );
+
+        // Only the hold that has not expired is active
+        assertEquals( 1, SlotHoldHome.findActiveByIdSlot( ID_SLOT ).size( ) );
+        assertTrue( SlotHoldHome.findExpired( 1000 ).stream( ).anyMatch( hold -> KEY_EXPIRED.equals( hold.getHoldKey( ) ) ) );
+
+        // A hold can only be deleted once
+        assertTrue( SlotHoldHome.delete( KEY_EXPIRED ) );
+        assertFalse( SlotHoldHome.delete( KEY_EXPIRED ) );
+        assertNull( SlotHoldHome.findByPrimaryKey( KEY_EXPIRED ) );
+
+        // Clean
+        SlotHoldHome.delete( KEY_ACTIVE );
+    }
+
+    private SlotHold buildSlotHold( String strHoldKey, int nNbPlaces, LocalDateTime expiryDateTime )
+    {
+        SlotHold slotHold = new SlotHold( );
+        slotHold.setHoldKey( strHoldKey );
+        slotHold.setIdSlot( ID_SLOT );
+        slotHold.setNbPlaces( nNbPlaces );
+        slotHold.setExpiryDateTime( expiryDateTime );
+        return slotHold;
+    }
+}
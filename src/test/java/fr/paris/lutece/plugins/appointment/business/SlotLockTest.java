@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business;
+
+import java.time.LocalDateTime;
+
+import fr.paris.lutece.plugins.appointment.business.slot.SlotLockHome;
+import fr.paris.lutece.test.LuteceTestCase;
+
+/**
+ * Test class for the leases taken on slots
+ *
+ */
+public final class SlotLockTest extends LuteceTestCase
+{
+    private static final int ID_SLOT = 999999;
+    private static final String OWNER_1 = "node1";
+    private static final String OWNER_2 = "node2";
+
+    /**
+     * Test the acquisition and the release of a lease
+     */
+    public void testAcquireAndRelease( )
+    {
+        LocalDateTime expiry = LocalDateTime.now( ).plusMinutes( 1 );
+        assertTrue( SlotLockHome.acquire( ID_SLOT, OWNER_1, expiry ) );
+        // The owner can renew its lease
+        assertTrue( SlotLockHome.acquire( ID_SLOT, OWNER_1, expiry ) );
+        // Another owner can not take a lease that has not expired
+        assertFalse( SlotLockHome.acquire( ID_SLOT, OWNER_2, expiry ) );
+
+        SlotLockHome.release( ID_SLOT, OWNER_1 );
+        assertTrue( SlotLockHome.acquire( ID_SLOT, OWNER_2, expiry ) );
+
+        // Clean
+        SlotLockHome.release( ID_SLOT, OWNER_2 );
+    }
+
+    /**
+     * Test the take over of an expired lease
+     */
+    public void testTakeOverExpiredLease( )
+    {
+        assertTrue( SlotLockHome.acquire( ID_SLOT, OWNER_1, LocalDateTime.now( ).minusMinutes( 1 ) ) );
+        assertTrue( SlotLockHome.acquire( ID_SLOT, OWNER_2, LocalDateTime.now( ).plusMinutes( 1 ) ) );
+
+        // Clean
+        SlotLockHome.release( ID_SLOT, OWNER_2 );
+    }
+}
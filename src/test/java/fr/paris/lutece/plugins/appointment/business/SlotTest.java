@@ -34,6 +34,7 @@
 package fr.paris.lutece.plugins.appointment.business;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.form.Form;
@@ -189,6 +190,104 @@ public final class SlotTest extends LuteceTestCase
 
     }
 
+    /**
+     * Test of reservePlaces and releasePlaces
+     */
+    public void testReserveAndReleasePlaces( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        LocalDateTime startingDateTime = LocalDateTime.now( ).plusDays( 1 ).withNano( 0 );
+        Slot slot = buildSlot( form.getIdForm( ), startingDateTime, startingDateTime.plusMinutes( 30 ), 2, 2, 0, 2, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slot );
+
+        assertTrue( SlotHome.reservePlaces( slot.getIdSlot( ), 2, 0 ) );
+        // The slot is full
+        assertFalse( SlotHome.reservePlaces( slot.getIdSlot( ), 1, 0 ) );
+        Slot slotStored = SlotHome.findByPrimaryKey( slot.getIdSlot( ) );
+        assertEquals( 0, slotStored.getNbRemainingPlaces( ) );
+        assertEquals( 0, slotStored.getNbPotentialRemainingPlaces( ) );
+        assertEquals( 2, slotStored.getNbPlacesTaken( ) );
+
+        SlotHome.releasePlaces( slot.getIdSlot( ), 1 );
+        slotStored = SlotHome.findByPrimaryKey( slot.getIdSlot( ) );
+        assertEquals( 1, slotStored.getNbRemainingPlaces( ) );
+        assertEquals( 1, slotStored.getNbPotentialRemainingPlaces( ) );
+        assertEquals( 1, slotStored.getNbPlacesTaken( ) );
+
+        // Clean
+        SlotHome.delete( slot.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+    }
+
+    /**
+     * Test of updateWithRelativePlaces: a reservation made after the slot was read by the admin is kept
+     */
+    public void testUpdateWithRelativePlaces( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        LocalDateTime startingDateTime = LocalDateTime.now( ).plusDays( 1 ).withNano( 0 );
+        Slot slot = buildSlot( form.getIdForm( ), startingDateTime, startingDateTime.plusMinutes( 30 ), 3, 3, 0, 3, Boolean.TRUE, Boolean.TRUE );
+        SlotHome.create( slot );
+        Slot slotEdited = SlotHome.findByPrimaryKey( slot.getIdSlot( ) );
+
+        assertTrue( SlotHome.reservePlaces( slot.getIdSlot( ), 2, 0 ) );
+        slotEdited.setMaxCapacity( 5 );
+        slotEdited.setIsOpen( Boolean.FALSE );
+        SlotHome.updateWithRelativePlaces( slotEdited );
+
+        Slot slotStored = SlotHome.findByPrimaryKey( slot.getIdSlot( ) );
+        assertFalse( slotStored.getIsOpen( ) );
+        assertEquals( 5, slotStored.getMaxCapacity( ) );
+        assertEquals( 3, slotStored.getNbRemainingPlaces( ) );
+        assertEquals( 3, slotStored.getNbPotentialRemainingPlaces( ) );
+        assertEquals( 2, slotStored.getNbPlacesTaken( ) );
+
+        // Clean
+        SlotHome.delete( slot.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+    }
+
+    /**
+     * Test of createList, updateList and incrementMaxCapacityList
+     */
+    public void testCreateAndUpdateList( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        List<Slot> listSlot = new ArrayList<>( );
+        listSlot.add( buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, 2, 2, 0, 2, Boolean.TRUE, Boolean.FALSE ) );
+        listSlot.add( buildSlot( form.getIdForm( ), Constants.STARTING_DATE_2, Constants.ENDING_DATE_2, 2, 2, 0, 2, Boolean.TRUE, Boolean.FALSE ) );
+        SlotHome.createList( listSlot );
+        for ( Slot slot : listSlot )
+        {
+            assertTrue( slot.getIdSlot( ) != 0 );
+            slot.setIsOpen( Boolean.FALSE );
+        }
+
+        SlotHome.updateList( listSlot );
+        SlotHome.incrementMaxCapacityList( listSlot, 3 );
+        for ( Slot slot : listSlot )
+        {
+            Slot slotStored = SlotHome.findByPrimaryKey( slot.getIdSlot( ) );
+            assertFalse( slotStored.getIsOpen( ) );
+            assertEquals( 5, slotStored.getMaxCapacity( ) );
+            assertEquals( 5, slotStored.getNbRemainingPlaces( ) );
+            assertEquals( 5, slotStored.getNbPotentialRemainingPlaces( ) );
+        }
+
+        // Clean
+        for ( Slot slot : listSlot )
+        {
+            SlotHome.delete( slot.getIdSlot( ) );
+        }
+        FormHome.delete( form.getIdForm( ) );
+    }
+
     /**
      * Build a SLot Business Object
      * 
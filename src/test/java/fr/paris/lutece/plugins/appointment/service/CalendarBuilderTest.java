@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Period;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class CalendarBuilderTest extends LuteceTestCase
+{
+    private static final int ID_FORM = 1;
+    private static final LocalDate DATE = LocalDate.parse( "2018-06-04" );
+    private static final LocalDateTime DATE_TIME_NOW = DATE.atStartOfDay( );
+
+    /**
+     * Check the runs are broken by a closed slot, and start again after it
+     */
+    public void testRunsAcrossClosedSlot( )
+    {
+        List<Slot> listSlotOfTheDay = new ArrayList<>( );
+        listSlotOfTheDay.add( buildSlot( "09:00", 2, true ) );
+        listSlotOfTheDay.add( buildSlot( "10:00", 2, true ) );
+        listSlotOfTheDay.add( buildSlot( "11:00", 2, false ) );
+        listSlotOfTheDay.add( buildSlot( "12:00", 2, true ) );
+        listSlotOfTheDay.add( buildSlot( "13:00", 2, true ) );
+        listSlotOfTheDay.add( buildSlot( "14:00", 2, true ) );
+
+        List<Slot> listSlotToShow = new ArrayList<>( );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 2, false, DATE_TIME_NOW, listSlotToShow );
+
+        assertEquals( 3, listSlotToShow.size( ) );
+        assertRun( listSlotToShow.get( 0 ), "09:00", "11:00", false );
+        assertRun( listSlotToShow.get( 1 ), "12:00", "14:00", false );
+        assertRun( listSlotToShow.get( 2 ), "13:00", "15:00", false );
+    }
+
+    /**
+     * Check the runs of a day stop at a gap in the time slots, and never span it
+     */
+    public void testRunsAcrossGapInTimeSlots( )
+    {
+        Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
+        ReservationRule reservationRule = buildReservationRule( "09:00", "10:00", "12:00" );
+        mapReservationRule.put( buildWeekDefinition( "2018-06-04", "2018-06-10" ), reservationRule );
+        CalendarPlanningIndex planningIndex = new CalendarPlanningIndex( mapReservationRule );
+        WorkingDay workingDay = planningIndex.getWorkingDay( reservationRule, DayOfWeek.MONDAY );
+
+        List<Slot> listSlotOfTheDay = CalendarBuilder.buildListSlotOfTheDay( ID_FORM, DATE, workingDay, planningIndex, new HashMap<>( ) );
+        assertEquals( 2, listSlotOfTheDay.size( ) );
+        assertEquals( DATE.atTime( LocalTime.parse( "11:00" ) ), listSlotOfTheDay.get( 1 ).getEndingDateTime( ) );
+
+        List<Slot> listSlotToShow = new ArrayList<>( );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 2, false, DATE_TIME_NOW, listSlotToShow );
+        assertEquals( 1, listSlotToShow.size( ) );
+        assertRun( listSlotToShow.get( 0 ), "09:00", "11:00", false );
+    }
+
+    /**
+     * Check a slot saved with too few places breaks the runs, unless the full slots are shown, in which case the runs through it are full
+     */
+    public void testRunsAcrossFullSlot( )
+    {
+        Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
+        ReservationRule reservationRule = buildReservationRule( "09:00", "10:00", "11:00", "12:00" );
+        mapReservationRule.put( buildWeekDefinition( "2018-06-04", "2018-06-10" ), reservationRule );
+        CalendarPlanningIndex planningIndex = new CalendarPlanningIndex( mapReservationRule );
+        WorkingDay workingDay = planningIndex.getWorkingDay( reservationRule, DayOfWeek.MONDAY );
+
+        // The slot of 10:00 is saved without any place left
+        Map<LocalDateTime, Slot> mapSlot = new HashMap<>( );
+        Slot slotFull = buildSlot( "10:00", 0, true );
+        mapSlot.put( slotFull.getStartingDateTime( ), slotFull );
+        List<Slot> listSlotOfTheDay = CalendarBuilder.buildListSlotOfTheDay( ID_FORM, DATE, workingDay, planningIndex, mapSlot );
+        assertEquals( 4, listSlotOfTheDay.size( ) );
+        assertSame( slotFull, listSlotOfTheDay.get( 1 ) );
+
+        List<Slot> listSlotToShow = new ArrayList<>( );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 2, false, DATE_TIME_NOW, listSlotToShow );
+        assertEquals( 1, listSlotToShow.size( ) );
+        assertRun( listSlotToShow.get( 0 ), "11:00", "13:00", false );
+
+        listSlotToShow.clear( );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 2, true, DATE_TIME_NOW, listSlotToShow );
+        assertEquals( 3, listSlotToShow.size( ) );
+        assertRun( listSlotToShow.get( 0 ), "09:00", "11:00", true );
+        assertRun( listSlotToShow.get( 1 ), "10:00", "12:00", true );
+        assertRun( listSlotToShow.get( 2 ), "11:00", "13:00", false );
+    }
+
+    /**
+     * Check the runs ending with the last slot of the day are kept, and the runs longer than the rest of the day are not built
+     */
+    public void testRunsAtEndOfDay( )
+    {
+        List<Slot> listSlotOfTheDay = new ArrayList<>( );
+        listSlotOfTheDay.add( buildSlot( "09:00", 2, true ) );
+        listSlotOfTheDay.add( buildSlot( "10:00", 2, true ) );
+        listSlotOfTheDay.add( buildSlot( "11:00", 2, true ) );
+
+        List<Slot> listSlotToShow = new ArrayList<>( );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 3, false, DATE_TIME_NOW, listSlotToShow );
+        assertEquals( 1, listSlotToShow.size( ) );
+        assertRun( listSlotToShow.get( 0 ), "09:00", "12:00", false );
+
+        listSlotToShow.clear( );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 4, false, DATE_TIME_NOW, listSlotToShow );
+        assertTrue( listSlotToShow.isEmpty( ) );
+
+        // The slots already passed do not start a run
+        listSlotToShow.clear( );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 2, false, DATE.atTime( LocalTime.parse( "11:30" ) ), listSlotToShow );
+        assertTrue( listSlotToShow.isEmpty( ) );
+        CalendarBuilder.addConsecutiveSlots( listSlotOfTheDay, 1, false, DATE.atTime( LocalTime.parse( "11:30" ) ), listSlotToShow );
+        assertEquals( 1, listSlotToShow.size( ) );
+        assertRun( listSlotToShow.get( 0 ), "11:00", "12:00", false );
+    }
+
+    private static void assertRun( Slot slot, String strStartingTime, String strEndingTime, boolean bFull )
+    {
+        assertEquals( DATE.atTime( LocalTime.parse( strStartingTime ) ), slot.getStartingDateTime( ) );
+        assertEquals( DATE.atTime( LocalTime.parse( strEndingTime ) ), slot.getEndingDateTime( ) );
+        assertEquals( bFull, slot.getIsFull( ) );
+    }
+
+    private static Slot buildSlot( String strStartingTime, int nNbPotentialRemainingPlaces, boolean bIsOpen )
+    {
+        LocalDateTime startingDateTime = DATE.atTime( LocalTime.parse( strStartingTime ) );
+        return SlotService.buildSlot( ID_FORM, new Period( startingDateTime, startingDateTime.plusHours( 1 ) ), 2, nNbPotentialRemainingPlaces,
+                nNbPotentialRemainingPlaces, 2 - nNbPotentialRemainingPlaces, bIsOpen, Boolean.FALSE );
+    }
+
+    private static WeekDefinition buildWeekDefinition( String strDateOfApply, String strEndingDateOfApply )
+    {
+        WeekDefinition weekDefinition = new WeekDefinition( );
+        weekDefinition.setDateOfApply( LocalDate.parse( strDateOfApply ) );
+        weekDefinition.setEndingDateOfApply( LocalDate.parse( strEndingDateOfApply ) );
+        return weekDefinition;
+    }
+
+    private static ReservationRule buildReservationRule( String... startingTimes )
+    {
+        WorkingDay workingDay = new WorkingDay( );
+        workingDay.setDayOfWeek( DayOfWeek.MONDAY.getValue( ) );
+        List<TimeSlot> listTimeSlot = new ArrayList<>( );
+        for ( String strStartingTime : startingTimes )
+        {
+            TimeSlot timeSlot = new TimeSlot( );
+            timeSlot.setStartingTime( LocalTime.parse( strStartingTime ) );
+            timeSlot.setEndingTime( LocalTime.parse( strStartingTime ).plusHours( 1 ) );
+            timeSlot.setIsOpen( true );
+            timeSlot.setMaxCapacity( 2 );
+            listTimeSlot.add( timeSlot );
+        }
+        workingDay.setListTimeSlot( listTimeSlot );
+        List<WorkingDay> listWorkingDay = new ArrayList<>( );
+        listWorkingDay.add( workingDay );
+        ReservationRule reservationRule = new ReservationRule( );
+        reservationRule.setListWorkingDay( listWorkingDay );
+        return reservationRule;
+    }
+}
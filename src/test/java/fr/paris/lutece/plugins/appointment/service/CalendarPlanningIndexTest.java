@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class CalendarPlanningIndexTest extends LuteceTestCase
+{
+
+    /**
+     * Check the lookups of the index give the same results as the linear searches
+     */
+    public void testLookups( )
+    {
+        Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
+        ReservationRule rule1 = buildReservationRule( LocalTime.parse( "09:00" ), LocalTime.parse( "12:00" ) );
+        ReservationRule rule2 = buildReservationRule( LocalTime.parse( "14:00" ), LocalTime.parse( "16:00" ) );
+        mapReservationRule.put( buildWeekDefinition( "2018-06-04", "2018-06-10" ), rule1 );
+        mapReservationRule.put( buildWeekDefinition( "2018-06-11", "2018-06-24" ), rule2 );
+        List<WeekDefinition> listWeekDefinition = new ArrayList<>( mapReservationRule.keySet( ) );
+
+        CalendarPlanningIndex planningIndex = new CalendarPlanningIndex( mapReservationRule );
+        assertEquals( LocalDate.parse( "2018-06-04" ), planningIndex.getFirstDateOfApply( ) );
+
+        for ( LocalDate date = LocalDate.parse( "2018-06-01" ); date.isBefore( LocalDate.parse( "2018-06-30" ) ); date = date.plusDays( 1 ) )
+        {
+            WeekDefinition weekDefinition = Utilities.getClosestWeekDefinitionInPast( listWeekDefinition, date );
+            assertSame( weekDefinition != null ? mapReservationRule.get( weekDefinition ) : null, planningIndex.getReservationRule( date ) );
+        }
+
+        WorkingDay workingDay = planningIndex.getWorkingDay( rule2, DayOfWeek.MONDAY );
+        assertSame( rule2.getListWorkingDay( ).get( 0 ), workingDay );
+        assertNull( planningIndex.getWorkingDay( rule2, DayOfWeek.SUNDAY ) );
+        assertEquals( LocalTime.parse( "14:00" ), planningIndex.getMinStartingTime( workingDay ) );
+        assertEquals( LocalTime.parse( "16:00" ), planningIndex.getMaxEndingTime( workingDay ) );
+        assertEquals( LocalTime.parse( "14:00" ), planningIndex.getMinStartingTime( rule2 ) );
+        assertEquals( LocalTime.parse( "16:00" ), planningIndex.getMaxEndingTime( rule2 ) );
+        assertSame( workingDay.getListTimeSlot( ).get( 1 ), planningIndex.getTimeSlot( workingDay, LocalTime.parse( "15:00" ) ) );
+        assertNull( planningIndex.getTimeSlot( workingDay, LocalTime.parse( "15:30" ) ) );
+    }
+
+    /**
+     * Check a planning with overlapping week definitions is still searched
+     */
+    public void testOverlappingWeeks( )
+    {
+        Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
+        ReservationRule rule1 = buildReservationRule( LocalTime.parse( "09:00" ), LocalTime.parse( "12:00" ) );
+        mapReservationRule.put( buildWeekDefinition( "2018-06-04", "2018-06-20" ), rule1 );
+        mapReservationRule.put( buildWeekDefinition( "2018-06-11", "2018-06-15" ), rule1 );
+
+        CalendarPlanningIndex planningIndex = new CalendarPlanningIndex( mapReservationRule );
+        assertSame( rule1, planningIndex.getReservationRule( LocalDate.parse( "2018-06-18" ) ) );
+        assertNull( planningIndex.getReservationRule( LocalDate.parse( "2018-06-21" ) ) );
+    }
+
+    private static WeekDefinition buildWeekDefinition( String strDateOfApply, String strEndingDateOfApply )
+    {
+        WeekDefinition weekDefinition = new WeekDefinition( );
+        weekDefinition.setDateOfApply( LocalDate.parse( strDateOfApply ) );
+        weekDefinition.setEndingDateOfApply( LocalDate.parse( strEndingDateOfApply ) );
+        return weekDefinition;
+    }
+
+    private static ReservationRule buildReservationRule( LocalTime startingTime, LocalTime endingTime )
+    {
+        List<WorkingDay> listWorkingDay = new ArrayList<>( );
+        for ( DayOfWeek dayOfWeek : new DayOfWeek [ ] {
+                DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY
+        } )
+        {
+            WorkingDay workingDay = new WorkingDay( );
+            workingDay.setDayOfWeek( dayOfWeek.getValue( ) );
+            List<TimeSlot> listTimeSlot = new ArrayList<>( );
+            for ( LocalTime time = startingTime; time.isBefore( endingTime ); time = time.plusHours( 1 ) )
+            {
+                TimeSlot timeSlot = new TimeSlot( );
+                timeSlot.setStartingTime( time );
+                timeSlot.setEndingTime( time.plusHours( 1 ) );
+                listTimeSlot.add( timeSlot );
+            }
+            workingDay.setListTimeSlot( listTimeSlot );
+            listWorkingDay.add( workingDay );
+        }
+        ReservationRule reservationRule = new ReservationRule( );
+        reservationRule.setListWorkingDay( listWorkingDay );
+        return reservationRule;
+    }
+}
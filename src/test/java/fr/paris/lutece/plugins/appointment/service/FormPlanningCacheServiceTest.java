@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.planning.ClosingDay;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class FormPlanningCacheServiceTest extends LuteceTestCase
+{
+
+    /**
+     * Load the planning of a form, then check it is invalidated by the modification of its closing days
+     */
+    public void testGetFormPlanningAndInvalidate( )
+    {
+        // Build the form
+        AppointmentFormDTO formDto = FormServiceTest.buildAppointmentForm( );
+        formDto.setName( "appointment_form" );
+        int nIdForm = FormService.createAppointmentForm( formDto );
+        FormPlanningCacheService cacheService = FormPlanningCacheService.getInstance( );
+
+        FormPlanning formPlanning = cacheService.getFormPlanning( nIdForm );
+        assertNotNull( formPlanning );
+        assertEquals( nIdForm, formPlanning.getForm( ).getIdForm( ) );
+        assertEquals( WeekDefinitionService.findListWeekDefinition( nIdForm ).size( ), formPlanning.getListWeekDefinition( ).size( ) );
+        assertEquals( formPlanning.getListWeekDefinition( ).size( ), formPlanning.getMapReservationRule( ).size( ) );
+        assertTrue( formPlanning.getListDateOfClosingDay( LocalDate.parse( "2018-01-01" ), LocalDate.parse( "2018-12-31" ) ).isEmpty( ) );
+
+        if ( cacheService.isCacheEnable( ) )
+        {
+            long lHits = cacheService.getHitCount( );
+            assertSame( formPlanning, cacheService.getFormPlanning( nIdForm ) );
+            assertEquals( lHits + 1, cacheService.getHitCount( ) );
+        }
+
+        List<LocalDate> listClosingDays = new ArrayList<>( );
+        listClosingDays.add( LocalDate.parse( "2018-05-01" ) );
+        listClosingDays.add( LocalDate.parse( "2018-07-14" ) );
+        ClosingDayService.saveListClosingDay( nIdForm, listClosingDays );
+
+        formPlanning = cacheService.getFormPlanning( nIdForm );
+        assertEquals( 1, formPlanning.getListDateOfClosingDay( LocalDate.parse( "2018-06-01" ), LocalDate.parse( "2018-09-01" ) ).size( ) );
+
+        for ( ClosingDay cs : ClosingDayService.findListClosingDay( nIdForm ) )
+        {
+            ClosingDayService.removeClosingDay( cs );
+        }
+        FormServiceTest.cleanForm( nIdForm );
+        assertNull( cacheService.getFormPlanning( nIdForm ) );
+    }
+
+}
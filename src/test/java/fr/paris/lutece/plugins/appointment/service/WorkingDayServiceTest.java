@@ -39,6 +39,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
@@ -237,4 +238,42 @@ public class WorkingDayServiceTest extends LuteceTestCase
         assertEquals( 5, WorkingDayService.getOpenDays( appointmentForm ).size( ) );
         FormServiceTest.cleanForm( nIdForm );
     }
+
+    /**
+     * Load the working days of all the reservation rules of a form at once, and check they are the same as the ones loaded rule by rule
+     */
+    public void testFindMapWorkingDayByIdForm( )
+    {
+        // Build the form
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        appointmentForm.setName( "appointment_form" );
+        int nIdForm = FormService.createAppointmentForm( appointmentForm );
+        int nIdReservationRule = WeekDefinitionService.findListWeekDefinition( nIdForm ).get( 0 ).getIdReservationRule( );
+
+        AppointmentFormDTO appointmentForm2 = FormServiceTest.buildAppointmentForm( );
+        appointmentForm2.setIdForm( nIdForm );
+        appointmentForm2.setDurationAppointments( 10 );
+        appointmentForm2.setIdReservationRule( nIdReservationRule );
+        LocalDate dateOfModification = LocalDate.parse( "2028-06-20" );
+        appointmentForm2.setDateStartValidity( Date.valueOf( dateOfModification ) );
+        appointmentForm2.setDateEndValidity( Date.valueOf( dateOfModification ) );
+        ReservationRuleService.updateAdvancedParameters( appointmentForm2 );
+
+        Map<Integer, List<WorkingDay>> mapWorkingDay = WorkingDayService.findMapWorkingDayByIdForm( nIdForm );
+        List<ReservationRule> listReservationRule = ReservationRuleHome.findByIdForm( nIdForm );
+        assertEquals( listReservationRule.size( ), mapWorkingDay.size( ) );
+        for ( ReservationRule reservationRule : listReservationRule )
+        {
+            List<WorkingDay> listExpected = WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) );
+            List<WorkingDay> listWorkingDay = mapWorkingDay.get( reservationRule.getIdReservationRule( ) );
+            assertEquals( listExpected.size( ), listWorkingDay.size( ) );
+            for ( WorkingDay workingDayExpected : listExpected )
+            {
+                WorkingDay workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( listWorkingDay, DayOfWeek.of( workingDayExpected.getDayOfWeek( ) ) );
+                assertEquals( workingDayExpected.getIdWorkingDay( ), workingDay.getIdWorkingDay( ) );
+                assertEquals( workingDayExpected.getListTimeSlot( ).size( ), workingDay.getListTimeSlot( ).size( ) );
+            }
+        }
+        FormServiceTest.cleanForm( nIdForm );
+    }
 }
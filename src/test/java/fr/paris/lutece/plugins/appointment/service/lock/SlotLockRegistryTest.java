@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.lock;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class SlotLockRegistryTest extends LuteceTestCase
+{
+
+    /**
+     * Check the same lock is shared for a slot as long as it is used
+     */
+    public void testGetLock( )
+    {
+        SlotLockRegistry registry = new SlotLockRegistry( nIdSlot -> new ReentrantLock( ) );
+        Lock lock = registry.getLock( 1 );
+        assertSame( lock, registry.getLock( 1 ) );
+        assertNotSame( lock, registry.getLock( 2 ) );
+        assertSame( lock, registry.getLocks( ).get( 1 ) );
+
+        registry.removeLock( 1 );
+        assertFalse( registry.getLocks( ).containsKey( 1 ) );
+        assertNotSame( lock, registry.getLock( 1 ) );
+    }
+
+    /**
+     * Check the locks no thread references anymore are evicted from the registry, and the ones in use are kept
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    public void testEvictUnusedLocks( ) throws InterruptedException
+    {
+        SlotLockRegistry registry = new SlotLockRegistry( nIdSlot -> new ReentrantLock( ) );
+        Lock lockInUse = registry.getLock( 0 );
+        for ( int nIdSlot = 1; nIdSlot <= 100; nIdSlot++ )
+        {
+            registry.getLock( nIdSlot );
+        }
+        assertEquals( 101, registry.size( ) );
+
+        // The garbage collector is only asked to run, so it is called until the unused locks are reclaimed or the attempts are over
+        for ( int nAttempt = 0; nAttempt < 50 && registry.size( ) > 1; nAttempt++ )
+        {
+            System.gc( );
+            Thread.sleep( 20 );
+            registry.expungeStaleEntries( );
+        }
+        assertTrue( registry.size( ) < 101 );
+        assertSame( lockInUse, registry.getLock( 0 ) );
+    }
+}